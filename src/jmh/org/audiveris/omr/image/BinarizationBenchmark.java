@@ -0,0 +1,119 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                           B i n a r i z a t i o n B e n c h m a r k                            //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.image;
+
+import ij.process.ByteProcessor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class {@code BinarizationBenchmark} measures the binarization filters, as well as the
+ * median and Gaussian gray filters, on example images.
+ *
+ * @author Hervé Bitteur
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BinarizationBenchmark
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    /** Radius used for median and Gaussian filters, as default in Picture. */
+    private static final int GRAY_RADIUS = 1;
+
+    //~ Instance fields ----------------------------------------------------------------------------
+
+    @Param({"chula.png", "allegretto.png"})
+    public String image;
+
+    private ByteProcessor gray;
+
+    //~ Methods ------------------------------------------------------------------------------------
+    @Setup
+    public void setUp ()
+            throws IOException
+    {
+        gray = ExampleImages.gray(image);
+    }
+
+    @Benchmark
+    public ByteProcessor gaussianGrayFilter ()
+    {
+        return new GaussianGrayFilter(GRAY_RADIUS).filter(gray);
+    }
+
+    @Benchmark
+    public ByteProcessor globalFilter ()
+    {
+        return new GlobalFilter(gray, GlobalFilter.getDefaultThreshold()).filteredImage();
+    }
+
+    @Benchmark
+    public ByteProcessor integralFilter ()
+    {
+        return new IntegralFilter(
+                gray,
+                AdaptiveFilter.getDefaultMeanCoeff(),
+                AdaptiveFilter.getDefaultStdDevCoeff()).filteredImage();
+    }
+
+    @Benchmark
+    public ByteProcessor medianGrayFilter ()
+    {
+        return new MedianGrayFilter(GRAY_RADIUS).filter(gray);
+    }
+
+    @Benchmark
+    public ByteProcessor randomFilter ()
+    {
+        return new RandomFilter(
+                gray,
+                AdaptiveFilter.getDefaultMeanCoeff(),
+                AdaptiveFilter.getDefaultStdDevCoeff()).filteredImage();
+    }
+
+    @Benchmark
+    public ByteProcessor verticalFilter ()
+    {
+        return new VerticalFilter(
+                gray,
+                AdaptiveFilter.getDefaultMeanCoeff(),
+                AdaptiveFilter.getDefaultStdDevCoeff()).filteredImage();
+    }
+}
@@ -0,0 +1,103 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                   E x a m p l e I m a g e s                                    //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.image;
+
+import ij.process.ByteProcessor;
+import ij.process.ColorProcessor;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Class {@code ExampleImages} provides benchmark input data out of the images available
+ * in 'data/examples' folder.
+ * <p>
+ * The folder location can be overridden by the 'omr.examples' system property.
+ *
+ * @author Hervé Bitteur
+ */
+public abstract class ExampleImages
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    /** Name of system property to override examples folder. */
+    public static final String FOLDER_PROPERTY = "omr.examples";
+
+    /** Default examples folder, relative to project root. */
+    public static final String DEFAULT_FOLDER = "data/examples";
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //--------//
+    // binary //
+    //--------//
+    /**
+     * Report the binarized version of an example image, using default global filter.
+     *
+     * @param name example image name
+     * @return the binary buffer
+     * @throws IOException if image could not be read
+     */
+    public static ByteProcessor binary (String name)
+            throws IOException
+    {
+        return new GlobalFilter(gray(name), GlobalFilter.getDefaultThreshold()).filteredImage();
+    }
+
+    //------//
+    // gray //
+    //------//
+    /**
+     * Report the gray version of an example image.
+     *
+     * @param name example image name
+     * @return the gray buffer
+     * @throws IOException if image could not be read
+     */
+    public static ByteProcessor gray (String name)
+            throws IOException
+    {
+        final Path path = getFolder().resolve(name);
+        final BufferedImage img = ImageIO.read(path.toFile());
+
+        if (img == null) {
+            throw new IOException("No image read from " + path);
+        }
+
+        if (img.getType() == BufferedImage.TYPE_BYTE_GRAY) {
+            return new ByteProcessor(img);
+        } else {
+            return new ColorProcessor(img).convertToByteProcessor();
+        }
+    }
+
+    //-----------//
+    // getFolder //
+    //-----------//
+    private static Path getFolder ()
+    {
+        return Paths.get(System.getProperty(FOLDER_PROPERTY, DEFAULT_FOLDER));
+    }
+}
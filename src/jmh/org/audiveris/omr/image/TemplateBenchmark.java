@@ -0,0 +1,127 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                               T e m p l a t e B e n c h m a r k                                //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.image;
+
+import org.audiveris.omr.glyph.Shape;
+import org.audiveris.omr.glyph.ShapeSet;
+import org.audiveris.omr.image.Anchored.Anchor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class {@code TemplateBenchmark} measures {@link Template#evaluate} and its compiled
+ * {@link TemplateKernel} counterpart on the distance table of an example image.
+ * <p>
+ * Each invocation evaluates all template notes at every abscissa of one horizontal band,
+ * which is roughly what note heads retrieval does along a staff line.
+ *
+ * @author Hervé Bitteur
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TemplateBenchmark
+{
+    //~ Instance fields ----------------------------------------------------------------------------
+
+    @Param({"chula.png"})
+    public String image;
+
+    @Param({"20"})
+    public int interline;
+
+    private DistanceTable distances;
+
+    private final List<Template> templates = new ArrayList<Template>();
+
+    private final List<TemplateKernel> kernels = new ArrayList<TemplateKernel>();
+
+    //~ Methods ------------------------------------------------------------------------------------
+    @Setup
+    public void setUp ()
+            throws IOException
+    {
+        distances = new ChamferDistance.Short().computeToFore(ExampleImages.binary(image));
+
+        TemplateFactory.Catalog catalog = TemplateFactory.getInstance().getCatalog(interline);
+
+        for (Shape shape : ShapeSet.TemplateNotes) {
+            Template template = catalog.getTemplate(shape);
+            templates.add(template);
+            kernels.add(template.compile(distances));
+        }
+    }
+
+    @Benchmark
+    public double evaluateBand ()
+    {
+        final int width = distances.getWidth();
+        final int yMid = distances.getHeight() / 2;
+        double sum = 0;
+
+        for (Template template : templates) {
+            for (int y = yMid - interline; y <= (yMid + interline); y += (interline / 2)) {
+                for (int x = 0; x < width; x++) {
+                    sum += template.evaluate(x, y, Anchor.MIDDLE_LEFT, distances);
+                }
+            }
+        }
+
+        return sum;
+    }
+
+    @Benchmark
+    public double evaluateBandKernel ()
+    {
+        final int width = distances.getWidth();
+        final int yMid = distances.getHeight() / 2;
+        double sum = 0;
+
+        for (TemplateKernel kernel : kernels) {
+            for (int y = yMid - interline; y <= (yMid + interline); y += (interline / 2)) {
+                for (int x = 0; x < width; x++) {
+                    sum += kernel.evaluate(x, y, Anchor.MIDDLE_LEFT, Double.POSITIVE_INFINITY);
+                }
+            }
+        }
+
+        return sum;
+    }
+}
@@ -27,10 +27,15 @@ import org.audiveris.omr.constant.Constant;
 import org.audiveris.omr.constant.ConstantManager;
 import org.audiveris.omr.constant.ConstantSet;
 import org.audiveris.omr.log.LogUtil;
+import org.audiveris.omr.run.RunTable;
+import org.audiveris.omr.script.Script;
+import org.audiveris.omr.sheet.BasicBook;
+import org.audiveris.omr.sheet.BasicSheet;
 import org.audiveris.omr.sheet.BookManager;
 import org.audiveris.omr.ui.MainGui;
 import org.audiveris.omr.ui.symbol.MusicFont;
 import org.audiveris.omr.util.ClassUtil;
+import org.audiveris.omr.util.JaxbRegistry;
 import org.audiveris.omr.util.OmrExecutors;
 
 import org.jdesktop.application.Application;
@@ -227,6 +232,14 @@ public class Main
     {
         // (re) Open the executor services
         OmrExecutors.restart();
+
+        // Prepare in background the JAXB contexts needed for any book
+        if (constants.warmUpJaxbContexts.isSet()) {
+            JaxbRegistry.warmUp(
+                    new Class<?>[]{BasicBook.class, RunTable.class},
+                    new Class<?>[]{BasicSheet.class},
+                    new Class<?>[]{Script.class});
+        }
     }
 
     //---------------------//
@@ -413,6 +426,10 @@ public class Main
                 false,
                 "Should we persist CLI-defined constants when running in batch?");
 
+        private final Constant.Boolean warmUpJaxbContexts = new Constant.Boolean(
+                true,
+                "Should we create the main JAXB contexts in background at start?");
+
         private final Constant.Boolean runBatchTasksInParallel = new Constant.Boolean(
                 false,
                 "Should we process all tasks in parallel when running in batch?");
@@ -53,6 +53,7 @@ import static java.nio.file.StandardOpenOption.CREATE;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.EnumSet;
 import java.util.List;
 
@@ -141,6 +142,34 @@ public abstract class AbstractClassifier<M extends Object>
         return evaluate(glyph, null, count, minGrade, conditions, interline);
     }
 
+    //----------//
+    // evaluate //
+    //----------//
+    @Override
+    public List<Evaluation[]> evaluate (List<? extends Glyph> glyphs,
+                                        SystemInfo system,
+                                        int count,
+                                        double minGrade,
+                                        EnumSet<Condition> conditions)
+    {
+        final int interline = system.getSheet().getInterline();
+
+        return evaluate(glyphs, system, count, minGrade, conditions, interline);
+    }
+
+    //----------//
+    // evaluate //
+    //----------//
+    @Override
+    public List<Evaluation[]> evaluate (List<? extends Glyph> glyphs,
+                                        int interline,
+                                        int count,
+                                        double minGrade,
+                                        EnumSet<Condition> conditions)
+    {
+        return evaluate(glyphs, null, count, minGrade, conditions, interline);
+    }
+
     //---------------//
     // getDescriptor //
     //---------------//
@@ -258,6 +287,72 @@ public abstract class AbstractClassifier<M extends Object>
         }
     }
 
+    //----------------------//
+    // getSortedEvaluations //
+    //----------------------//
+    /**
+     * Run the classifier with the specified glyphs as one batch, and return for each
+     * glyph a sequence of all interpretations (ordered from best to worst).
+     * <p>
+     * Glyphs too small to be classified are directly assigned NOISE and are not submitted to the
+     * model.
+     *
+     * @param glyphs    the glyphs to be examined
+     * @param interline the global sheet interline
+     * @return the ordered best evaluations, one array per glyph in glyphs order
+     */
+    protected List<Evaluation[]> getSortedEvaluations (List<? extends Glyph> glyphs,
+                                                       int interline)
+    {
+        final List<Evaluation[]> sorted = new ArrayList<Evaluation[]>(
+                Collections.nCopies(glyphs.size(), noiseEvaluations));
+        final List<Glyph> bigs = new ArrayList<Glyph>();
+        final List<Integer> bigIndices = new ArrayList<Integer>();
+
+        for (int i = 0; i < glyphs.size(); i++) {
+            final Glyph glyph = glyphs.get(i);
+
+            if (isBigEnough(glyph, interline)) {
+                bigs.add(glyph);
+                bigIndices.add(i);
+            }
+        }
+
+        if (!bigs.isEmpty()) {
+            final List<Evaluation[]> naturals = getNaturalEvaluations(bigs, interline);
+
+            for (int j = 0; j < bigs.size(); j++) {
+                Evaluation[] evals = naturals.get(j);
+                Arrays.sort(evals);
+                sorted.set(bigIndices.get(j), evals);
+            }
+        }
+
+        return sorted;
+    }
+
+    //-----------------------//
+    // getNaturalEvaluations //
+    //-----------------------//
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This default implementation simply evaluates each glyph in turn, subclasses able to run
+     * their model on a whole batch should override it.
+     */
+    @Override
+    public List<Evaluation[]> getNaturalEvaluations (List<? extends Glyph> glyphs,
+                                                     int interline)
+    {
+        final List<Evaluation[]> naturals = new ArrayList<Evaluation[]>(glyphs.size());
+
+        for (Glyph glyph : glyphs) {
+            naturals.add(getNaturalEvaluations(glyph, interline));
+        }
+
+        return naturals;
+    }
+
     //------//
     // load //
     //------//
@@ -458,9 +553,59 @@ public abstract class AbstractClassifier<M extends Object>
                                    double minGrade,
                                    EnumSet<Classifier.Condition> conditions,
                                    int interline)
+    {
+        return selectBests(
+                glyph,
+                system,
+                count,
+                minGrade,
+                conditions,
+                getSortedEvaluations(glyph, interline));
+    }
+
+    //----------//
+    // evaluate //
+    //----------//
+    private List<Evaluation[]> evaluate (List<? extends Glyph> glyphs,
+                                         SystemInfo system,
+                                         int count,
+                                         double minGrade,
+                                         EnumSet<Classifier.Condition> conditions,
+                                         int interline)
+    {
+        final List<Evaluation[]> sorted = getSortedEvaluations(glyphs, interline);
+        final List<Evaluation[]> results = new ArrayList<Evaluation[]>(glyphs.size());
+
+        for (int i = 0; i < glyphs.size(); i++) {
+            final Glyph glyph = glyphs.get(i);
+            results.add(selectBests(glyph, system, count, minGrade, conditions, sorted.get(i)));
+        }
+
+        return results;
+    }
+
+    //-------------//
+    // selectBests //
+    //-------------//
+    /**
+     * Select the acceptable best evaluations out of the sorted evaluations of a glyph.
+     *
+     * @param glyph      the evaluated glyph
+     * @param system     the containing system, if any
+     * @param count      the desired maximum sequence length
+     * @param minGrade   the minimum evaluation grade to be acceptable
+     * @param conditions optional conditions, perhaps null or empty
+     * @param evals      the glyph evaluations, sorted from best to worst
+     * @return the sequence of selected evaluations, perhaps empty but not null
+     */
+    private Evaluation[] selectBests (Glyph glyph,
+                                      SystemInfo system,
+                                      int count,
+                                      double minGrade,
+                                      EnumSet<Classifier.Condition> conditions,
+                                      Evaluation[] evals)
     {
         List<Evaluation> bests = new ArrayList<Evaluation>();
-        Evaluation[] evals = getSortedEvaluations(glyph, interline);
 
         EvalsLoop:
         for (Evaluation eval : evals) {
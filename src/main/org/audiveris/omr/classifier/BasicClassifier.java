@@ -27,6 +27,7 @@ import org.audiveris.omr.glyph.Glyph;
 import org.audiveris.omr.glyph.Shape;
 import org.audiveris.omr.glyph.ShapeSet;
 import org.audiveris.omr.math.NeuralNetwork;
+import org.audiveris.omr.util.JaxbRegistry;
 
 import org.deeplearning4j.optimize.api.IterationListener;
 
@@ -163,25 +164,59 @@ public class BasicClassifier
     public Evaluation[] getNaturalEvaluations (Glyph glyph,
                                                int interline)
     {
-        double[] ins = descriptor.getFeatures(glyph, interline);
-        final INDArray features = Nd4j.create(ins);
-        normalize(features);
+        return getNaturalEvaluations(Collections.singletonList(glyph), interline).get(0);
+    }
 
-        Shape[] values = Shape.values();
-        Evaluation[] evals = new Evaluation[SHAPE_COUNT];
+    //-----------------------//
+    // getNaturalEvaluations //
+    //-----------------------//
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Features of all glyphs are stacked into one matrix and normalized at once, the network is
+     * then run on each normalized row.
+     */
+    @Override
+    public List<Evaluation[]> getNaturalEvaluations (List<? extends Glyph> glyphs,
+                                                     int interline)
+    {
+        final List<Evaluation[]> naturals = new ArrayList<Evaluation[]>(glyphs.size());
 
-        for (int i = 0; i < ins.length; i++) {
-            ins[i] = features.getDouble(i);
+        if (glyphs.isEmpty()) {
+            return naturals;
         }
 
-        double[] outs = new double[SHAPE_COUNT];
-        model.run(ins, null, outs);
+        final double[][] inputs = new double[glyphs.size()][];
 
-        for (int s = 0; s < SHAPE_COUNT; s++) {
-            evals[s] = new Evaluation(values[s], outs[s]);
+        for (int g = 0; g < inputs.length; g++) {
+            inputs[g] = descriptor.getFeatures(glyphs.get(g), interline);
         }
 
-        return evals;
+        final INDArray features = Nd4j.create(inputs);
+        normalize(features);
+
+        final Shape[] values = Shape.values();
+
+        for (int g = 0; g < inputs.length; g++) {
+            final double[] ins = inputs[g];
+
+            for (int i = 0; i < ins.length; i++) {
+                ins[i] = features.getDouble(g, i);
+            }
+
+            double[] outs = new double[SHAPE_COUNT];
+            model.run(ins, null, outs);
+
+            Evaluation[] evals = new Evaluation[SHAPE_COUNT];
+
+            for (int s = 0; s < SHAPE_COUNT; s++) {
+                evals[s] = new Evaluation(values[s], outs[s]);
+            }
+
+            naturals.add(evals);
+        }
+
+        return naturals;
     }
 
     @Override
@@ -399,10 +434,6 @@ public class BasicClassifier
     @XmlRootElement(name = "features")
     private static class FeatureNames
     {
-        //~ Static fields/initializers -------------------------------------------------------------
-
-        private static volatile JAXBContext jaxbContext;
-
         //~ Instance fields ------------------------------------------------------------------------
         @XmlElement(name = "names")
         private final StringArray names;
@@ -423,12 +454,7 @@ public class BasicClassifier
         private static JAXBContext getJaxbContext ()
                 throws JAXBException
         {
-            // Lazy creation
-            if (jaxbContext == null) {
-                jaxbContext = JAXBContext.newInstance(FeatureNames.class);
-            }
-
-            return jaxbContext;
+            return JaxbRegistry.getContext(FeatureNames.class);
         }
     }
 
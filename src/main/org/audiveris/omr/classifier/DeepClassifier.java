@@ -179,23 +179,61 @@ public class DeepClassifier
     public Evaluation[] getNaturalEvaluations (Glyph glyph,
                                                int interline)
     {
-        final double[] doubles = descriptor.getFeatures(glyph, interline);
+        return getNaturalEvaluations(Collections.singletonList(glyph), interline).get(0);
+    }
+
+    //-----------------------//
+    // getNaturalEvaluations //
+    //-----------------------//
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Features of all glyphs are stacked into one matrix, normalized at once and submitted to a
+     * single forward pass of the network.
+     */
+    @Override
+    public List<Evaluation[]> getNaturalEvaluations (List<? extends Glyph> glyphs,
+                                                     int interline)
+    {
+        final List<Evaluation[]> naturals = new ArrayList<Evaluation[]>(glyphs.size());
+
+        if (glyphs.isEmpty()) {
+            return naturals;
+        }
+
+        final double[][] doubles = new double[glyphs.size()][];
+
+        for (int i = 0; i < doubles.length; i++) {
+            doubles[i] = descriptor.getFeatures(glyphs.get(i), interline);
+        }
+
         final INDArray features = Nd4j.create(doubles);
         normalize(features);
 
-        INDArray output = model.output(features, false);
-        BaseLayer outputLayer = (BaseLayer) model.getOutputLayer();
-        INDArray preOutput = outputLayer.preOutput(false);
+        // The output layer keeps the input of last forward pass, hence the lock
+        final INDArray preOutput;
+
+        synchronized (model) {
+            model.output(features, false);
 
-        Evaluation[] evals = new Evaluation[SHAPE_COUNT];
-        Shape[] values = Shape.values();
+            BaseLayer outputLayer = (BaseLayer) model.getOutputLayer();
+            preOutput = outputLayer.preOutput(false);
+        }
+
+        final Shape[] values = Shape.values();
+
+        for (int i = 0; i < doubles.length; i++) {
+            Evaluation[] evals = new Evaluation[SHAPE_COUNT];
+
+            for (int s = 0; s < SHAPE_COUNT; s++) {
+                double grade = sigmoid(preOutput.getDouble(i, s)); // Rather than normalized output
+                evals[s] = new Evaluation(values[s], grade);
+            }
 
-        for (int s = 0; s < SHAPE_COUNT; s++) {
-            double grade = sigmoid(preOutput.getDouble(s)); // Rather than normalized output
-            evals[s] = new Evaluation(values[s], grade);
+            naturals.add(evals);
         }
 
-        return evals;
+        return naturals;
     }
 
     //-----------//
@@ -27,6 +27,7 @@ import org.audiveris.omr.glyph.Shape;
 import org.audiveris.omr.run.RunTable;
 import org.audiveris.omr.util.FileUtil;
 import org.audiveris.omr.util.Jaxb;
+import org.audiveris.omr.util.JaxbRegistry;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -45,7 +46,6 @@ import java.util.Set;
 
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
-import javax.xml.bind.Unmarshaller;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlAttribute;
@@ -77,9 +77,6 @@ public class SampleSheet
     /** File name for sheet image: {@value}. */
     public static final String IMAGE_FILE_NAME = "image.xml";
 
-    /** Un/marshalling context for use with JAXB. */
-    private static volatile JAXBContext jaxbContext;
-
     //~ Enumerations -------------------------------------------------------------------------------
     public enum ImageStatus
     {
@@ -211,8 +208,7 @@ public class SampleSheet
 
         try {
             InputStream is = Files.newInputStream(path, StandardOpenOption.READ);
-            Unmarshaller um = getJaxbContext().createUnmarshaller();
-            SampleList sampleList = (SampleList) um.unmarshal(is);
+            SampleList sampleList = (SampleList) JaxbRegistry.unmarshal(is, getJaxbContext());
             SampleSheet sampleSheet = new SampleSheet(sampleList, desc);
             logger.debug("Unmarshalled {}", sampleSheet);
             is.close();
@@ -562,12 +558,7 @@ public class SampleSheet
     private static JAXBContext getJaxbContext ()
             throws JAXBException
     {
-        // Lazy creation
-        if (jaxbContext == null) {
-            jaxbContext = JAXBContext.newInstance(RunTable.class, SampleList.class);
-        }
-
-        return jaxbContext;
+        return JaxbRegistry.getContext(RunTable.class, SampleList.class);
     }
 
     //~ Inner Classes ------------------------------------------------------------------------------
@@ -22,6 +22,7 @@
 package org.audiveris.omr.classifier;
 
 import org.audiveris.omr.util.Jaxb;
+import org.audiveris.omr.util.JaxbRegistry;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -35,7 +36,6 @@ import java.util.ArrayList;
 
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
-import javax.xml.bind.Unmarshaller;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlAttribute;
@@ -54,9 +54,6 @@ class TribeList
     private static final Logger logger = LoggerFactory.getLogger(
             TribeList.class);
 
-    /** Un/marshalling context for use with JAXB. */
-    private static volatile JAXBContext jaxbContext;
-
     //~ Instance fields ----------------------------------------------------------------------------
     // Persistent data
     //----------------
@@ -137,8 +134,7 @@ class TribeList
 
         try {
             InputStream is = Files.newInputStream(path, StandardOpenOption.READ);
-            Unmarshaller um = getJaxbContext().createUnmarshaller();
-            TribeList tribeList = (TribeList) um.unmarshal(is);
+            TribeList tribeList = (TribeList) JaxbRegistry.unmarshal(is, getJaxbContext());
             is.close();
 
             return tribeList;
@@ -155,11 +151,6 @@ class TribeList
     private static JAXBContext getJaxbContext ()
             throws JAXBException
     {
-        // Lazy creation
-        if (jaxbContext == null) {
-            jaxbContext = JAXBContext.newInstance(TribeList.class);
-        }
-
-        return jaxbContext;
+        return JaxbRegistry.getContext(TribeList.class);
     }
 }
@@ -21,6 +21,8 @@
 // </editor-fold>
 package org.audiveris.omr.glyph;
 
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
 import org.audiveris.omr.glyph.Symbol.Group;
 
 import org.jgrapht.Graphs;
@@ -31,10 +33,16 @@ import org.slf4j.LoggerFactory;
 
 import java.awt.Rectangle;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Set;
 
 /**
@@ -44,9 +52,16 @@ import java.util.Set;
  * The processing of any given subset consists in the following:<ol>
  * <li>Build the compound of chosen vertices, and record acceptable evaluations.</li>
  * <li>Build the set of new reachable vertices.</li>
- * <li>For each reachable vertex, recursively process the new set composed of current set + the
- * reachable vertex.</li></ol>
- * TODO: implement a non-recursive version for better efficiency?
+ * <li>For each reachable vertex, queue the new set composed of current set + the reachable
+ * vertex.</li></ol>
+ * <p>
+ * A subset is identified by the bit set of its part indices. Thanks to the set of parts already
+ * considered, which every subset carries, a given subset is reached only once.
+ * Queued subsets are processed by decreasing weight, within a budget of subsets and time per
+ * cluster. Any budget hit is reported, the remaining subsets being ignored.
+ * <p>
+ * Compounds are not evaluated one by one, they are handed to the adapter in batches so that the
+ * shape classifier can process them in a single run.
  *
  * @author Hervé Bitteur
  */
@@ -54,6 +69,8 @@ public class GlyphCluster
 {
     //~ Static fields/initializers -----------------------------------------------------------------
 
+    private static final Constants constants = new Constants();
+
     private static final Logger logger = LoggerFactory.getLogger(GlyphCluster.class);
 
     //~ Instance fields ----------------------------------------------------------------------------
@@ -63,6 +80,18 @@ public class GlyphCluster
     /** Group, if any, to be assigned to created glyphs. */
     private final Group group;
 
+    /** Parts met so far, indexed by the bit position used in subsets. */
+    private final List<Glyph> parts = new ArrayList<Glyph>();
+
+    /** Index of each part met so far. */
+    private final Map<Glyph, Integer> indices = new HashMap<Glyph, Integer>();
+
+    /** Neighbors of each part, lazily populated. */
+    private final List<BitSet> neighbors = new ArrayList<BitSet>();
+
+    /** Rank to be given to the next created subset. */
+    private long rank;
+
     //~ Constructors -------------------------------------------------------------------------------
     /**
      * Creates a new Cluster object, with an adapter to the environment.
@@ -128,7 +157,9 @@ public class GlyphCluster
      */
     public void decompose ()
     {
-        final Set<Glyph> considered = new LinkedHashSet<Glyph>(); // Parts considered so far
+        final long startTime = System.currentTimeMillis();
+        final int maxSubsets = constants.maxSubsets.getValue();
+        final int maxMillis = constants.maxMillis.getValue();
 
         //TODO: we could truncate this list by discarding the smallest items
         // since a too large list would result in explosion of combinations
@@ -136,94 +167,222 @@ public class GlyphCluster
         Collections.sort(seeds, Glyphs.byReverseWeight);
 
         ///logger.debug("Decomposing {}", Glyphs.ids("cluster", seeds));
+        final PriorityQueue<Subset> queue = new PriorityQueue<Subset>(
+                Math.max(1, seeds.size()),
+                Subset.byReverseWeight);
+        final BitSet considered = new BitSet(); // Parts considered so far
+
         for (Glyph seed : seeds) {
-            considered.add(seed);
-            process(Collections.singleton(seed), considered);
+            final int index = indexOf(seed);
+            considered.set(index);
+
+            final BitSet set = new BitSet();
+            set.set(index);
+            queue.add(
+                    new Subset(
+                            set,
+                            (BitSet) considered.clone(),
+                            seed.getWeight(),
+                            seed.getBounds(),
+                            rank++));
+        }
+
+        final int batchSize = constants.batchSize.getValue();
+        final List<Glyph> batchGlyphs = new ArrayList<Glyph>();
+        final List<Set<Glyph>> batchParts = new ArrayList<Set<Glyph>>();
+        int count = 0; // Number of subsets processed
+
+        while (!queue.isEmpty()) {
+            final long elapsed = System.currentTimeMillis() - startTime;
+
+            if ((count >= maxSubsets) || (elapsed >= maxMillis)) {
+                evaluateBatch(batchGlyphs, batchParts);
+                logger.info(
+                        "Cluster of {} parts: budget hit after {} subsets in {} ms, {} pending",
+                        seeds.size(),
+                        count,
+                        elapsed,
+                        queue.size());
+
+                return;
+            }
+
+            process(queue.poll(), queue, batchGlyphs, batchParts);
+            count++;
+
+            if (batchGlyphs.size() >= batchSize) {
+                evaluateBatch(batchGlyphs, batchParts);
+            }
+        }
+
+        evaluateBatch(batchGlyphs, batchParts);
+    }
+
+    /**
+     * Build the compound made of the provided parts.
+     *
+     * @param parts the provided parts
+     * @return the compound glyph
+     */
+    private Glyph buildCompound (Set<Glyph> parts)
+    {
+        return (parts.size() > 1) ? GlyphFactory.buildGlyph(parts) : parts.iterator().next();
+    }
+
+    /**
+     * Hand the pending compounds to the adapter for evaluation, and clear the batch.
+     *
+     * @param batchGlyphs the pending compounds
+     * @param batchParts  the parts of each pending compound
+     */
+    private void evaluateBatch (List<Glyph> batchGlyphs,
+                                List<Set<Glyph>> batchParts)
+    {
+        if (!batchGlyphs.isEmpty()) {
+            adapter.evaluateGlyphs(
+                    new ArrayList<Glyph>(batchGlyphs),
+                    new ArrayList<Set<Glyph>>(batchParts));
+            batchGlyphs.clear();
+            batchParts.clear();
         }
     }
 
     /**
-     * Retrieve all parts at acceptable distance from at least one member of the
-     * provided set.
+     * Report the glyphs that correspond to the provided subset.
      *
-     * @param set the provided set
-     * @return all the parts reachable from the set
+     * @param set the subset of part indices
+     * @return the set of glyphs
      */
-    private Set<Glyph> getOutliers (Set<Glyph> set)
+    private Set<Glyph> glyphsOf (BitSet set)
     {
-        Set<Glyph> outliers = new LinkedHashSet<Glyph>();
+        final Set<Glyph> glyphs = new LinkedHashSet<Glyph>();
 
-        for (Glyph part : set) {
-            outliers.addAll(adapter.getNeighbors(part));
+        for (int i = set.nextSetBit(0); i >= 0; i = set.nextSetBit(i + 1)) {
+            glyphs.add(parts.get(i));
         }
 
-        outliers.removeAll(set);
+        return glyphs;
+    }
+
+    /**
+     * Report the index assigned to the provided part, assigning a new one if needed.
+     *
+     * @param part the provided part
+     * @return the part index
+     */
+    private int indexOf (Glyph part)
+    {
+        Integer index = indices.get(part);
+
+        if (index == null) {
+            indices.put(part, index = parts.size());
+            parts.add(part);
+            neighbors.add(null);
+        }
 
-        return outliers;
+        return index;
     }
 
     /**
-     * Process the provided set of parts.
+     * Report the indices of neighbors of the provided part index.
      *
-     * @param parts (read only) the set of current parts
-     * @param seen  (read only) all parts considered so far (current parts plus discarded ones)
+     * @param index the provided part index
+     * @return the indices of part neighbors
      */
-    private void process (Set<Glyph> parts,
-                          Set<Glyph> seen)
+    private BitSet neighborsOf (int index)
+    {
+        BitSet set = neighbors.get(index);
+
+        if (set == null) {
+            set = new BitSet();
+
+            for (Glyph neighbor : adapter.getNeighbors(parts.get(index))) {
+                set.set(indexOf(neighbor));
+            }
+
+            neighbors.set(index, set);
+        }
+
+        return set;
+    }
+
+    /**
+     * Process the provided subset of parts.
+     *
+     * @param subset      the subset to process
+     * @param queue       the queue of subsets to process, to be populated with larger subsets
+     * @param batchGlyphs the compounds pending evaluation, to be populated
+     * @param batchParts  the parts of each pending compound, to be populated
+     */
+    private void process (Subset subset,
+                          PriorityQueue<Subset> queue,
+                          List<Glyph> batchGlyphs,
+                          List<Set<Glyph>> batchParts)
     {
         ///logger.debug(" {} {} {}", set.size(), Glyphs.ids("set", set), Glyphs.ids("seen", seen));
 
         // Check what we have got
-        final int weight = Glyphs.weightOf(parts);
+        final int weight = subset.weight;
 
         if (adapter.isTooHeavy(weight)) {
-            logger.debug("Too high weight {} for {}", weight, parts);
+            logger.debug("Too high weight {} for {}", weight, subset.set);
 
             return;
         }
 
-        Rectangle box = Glyphs.getBounds(parts);
+        final Rectangle box = subset.box;
 
         if (adapter.isTooLarge(box)) {
-            logger.debug("Too large  {} for {}", box, parts);
+            logger.debug("Too large  {} for {}", box, subset.set);
 
             return;
         }
 
         if (!adapter.isTooLight(weight)) {
-            // Build compound and get acceptable evaluations for the compound
-            Glyph compound = (parts.size() > 1) ? GlyphFactory.buildGlyph(parts)
-                    : parts.iterator().next();
+            final Set<Glyph> glyphs = glyphsOf(subset.set);
+            final Glyph compound = buildCompound(glyphs);
             compound.addGroup(group);
 
-            // Create all acceptable inters, if any, for the compound
-            adapter.evaluateGlyph(compound, parts);
+            // Acceptable inters, if any, will be created when the batch is evaluated
+            batchGlyphs.add(compound);
+            batchParts.add(glyphs);
         } else {
-            logger.debug("Too low weight {} for {}", weight, parts);
+            logger.debug("Too low weight {} for {}", weight, subset.set);
         }
 
         // Then, identify all outliers immediately reachable from the compound
-        Set<Glyph> outliers = getOutliers(parts);
-        outliers.removeAll(seen);
+        final BitSet outliers = new BitSet();
+
+        for (int i = subset.set.nextSetBit(0); i >= 0; i = subset.set.nextSetBit(i + 1)) {
+            outliers.or(neighborsOf(i));
+        }
+
+        outliers.andNot(subset.set);
+        outliers.andNot(subset.seen);
 
         if (outliers.isEmpty()) {
             return; // No further growth is possible
         }
 
-        ///logger.debug("      {}", Glyphs.ids("outliers", outliers));
-        Rectangle setBox = Glyphs.getBounds(parts);
-        Set<Glyph> newConsidered = new LinkedHashSet<Glyph>(seen);
+        final BitSet newConsidered = (BitSet) subset.seen.clone();
 
-        for (Glyph outlier : outliers) {
-            newConsidered.add(outlier);
+        for (int i = outliers.nextSetBit(0); i >= 0; i = outliers.nextSetBit(i + 1)) {
+            final Glyph outlier = parts.get(i);
+            newConsidered.set(i);
 
             // Check appending this atom does not make the resulting symbol too wide or too high
-            Rectangle symBox = outlier.getBounds().union(setBox);
+            final Rectangle symBox = outlier.getBounds().union(box);
 
             if (!adapter.isTooLarge(symBox)) {
-                Set<Glyph> largerSet = new LinkedHashSet<Glyph>(parts);
-                largerSet.add(outlier);
-                process(largerSet, newConsidered);
+                final BitSet largerSet = (BitSet) subset.set.clone();
+                largerSet.set(i);
+                queue.add(
+                        new Subset(
+                                largerSet,
+                                (BitSet) newConsidered.clone(),
+                                weight + outlier.getWeight(),
+                                symBox,
+                                rank++));
             }
         }
     }
@@ -245,6 +404,15 @@ public class GlyphCluster
         void evaluateGlyph (Glyph glyph,
                             Set<Glyph> parts);
 
+        /**
+         * Evaluate a batch of glyphs and create all acceptable inter instances.
+         *
+         * @param glyphs the glyphs to evaluate
+         * @param parts  the parts that compose each glyph, in glyphs order
+         */
+        void evaluateGlyphs (List<Glyph> glyphs,
+                             List<Set<Glyph>> parts);
+
         /**
          * Report the neighboring parts of the provided one.
          *
@@ -337,6 +505,20 @@ public class GlyphCluster
         }
 
         //~ Methods --------------------------------------------------------------------------------
+        /**
+         * {@inheritDoc}
+         * <p>
+         * By default, each glyph is evaluated on its own.
+         */
+        @Override
+        public void evaluateGlyphs (List<Glyph> glyphs,
+                                    List<Set<Glyph>> parts)
+        {
+            for (int i = 0; i < glyphs.size(); i++) {
+                evaluateGlyph(glyphs.get(i), parts.get(i));
+            }
+        }
+
         @Override
         public List<Glyph> getNeighbors (Glyph part)
         {
@@ -373,4 +555,80 @@ public class GlyphCluster
             return false;
         }
     }
+
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final Constant.Integer maxSubsets = new Constant.Integer(
+                "subsets",
+                10000,
+                "Maximum number of part subsets processed per cluster");
+
+        private final Constant.Integer maxMillis = new Constant.Integer(
+                "ms",
+                2000,
+                "Maximum time spent per cluster");
+
+        private final Constant.Integer batchSize = new Constant.Integer(
+                "compounds",
+                32,
+                "Maximum number of compounds evaluated in one batch");
+    }
+
+    //--------//
+    // Subset //
+    //--------//
+    /**
+     * A connected subset of parts, with the parts considered so far on its path.
+     */
+    private static class Subset
+    {
+        //~ Static fields/initializers -------------------------------------------------------------
+
+        /** Heavier subsets first, then first created. */
+        static final Comparator<Subset> byReverseWeight = new Comparator<Subset>()
+        {
+            @Override
+            public int compare (Subset s1,
+                                Subset s2)
+            {
+                if (s1.weight != s2.weight) {
+                    return Integer.compare(s2.weight, s1.weight);
+                }
+
+                return Long.compare(s1.rank, s2.rank);
+            }
+        };
+
+        //~ Instance fields ------------------------------------------------------------------------
+
+        final BitSet set; // Indices of parts in subset
+
+        final BitSet seen; // Indices of parts considered so far (subset plus discarded ones)
+
+        final int weight; // Total weight of parts
+
+        final Rectangle box; // Bounds of parts
+
+        final long rank; // Creation rank
+
+        //~ Constructors ---------------------------------------------------------------------------
+        public Subset (BitSet set,
+                       BitSet seen,
+                       int weight,
+                       Rectangle box,
+                       long rank)
+        {
+            this.set = set;
+            this.seen = seen;
+            this.weight = weight;
+            this.box = box;
+            this.rank = rank;
+        }
+    }
 }
@@ -24,7 +24,7 @@ package org.audiveris.omr.glyph;
 import ij.process.ByteProcessor;
 
 import org.audiveris.omr.glyph.Symbol.Group;
-import org.audiveris.omr.run.MarkedRun;
+import org.audiveris.omr.image.ImageBands;
 import static org.audiveris.omr.run.Orientation.VERTICAL;
 import org.audiveris.omr.run.Run;
 import org.audiveris.omr.run.RunTable;
@@ -37,12 +37,12 @@ import org.slf4j.LoggerFactory;
 import java.awt.Point;
 import java.awt.Rectangle;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentSkipListMap;
 
 /**
  * Class {@code GlyphFactory} builds a collection of glyphs out of a provided {@link
@@ -53,6 +53,11 @@ import java.util.Map.Entry;
  * <p>
  * Comments refer to 'sequences', which are synonymous of columns for vertical runs, and of rows
  * for horizontal runs.
+ * <p>
+ * Runs are kept in primitive arrays, indexed by sequence then by start, and connected through a
+ * union-find structure where the root of any glyph is its first run.
+ * Sequences are split into bands (see {@link ImageBands}), each band being labeled on its own,
+ * perhaps in parallel, before bands are connected to one another.
  *
  * @author Hervé Bitteur
  */
@@ -75,17 +80,17 @@ public class GlyphFactory
     /** Global list of all glyphs created. */
     private final List<Glyph> created = new ArrayList<Glyph>();
 
-    /** Global id to assign glyph marks. */
-    private int globalMark;
+    /** Index of first run for each sequence. (last cell contains the total number of runs) */
+    private final int[] seqFirst;
 
-    /** Specific run table implementation, meant for marking runs. */
-    private final List<List<MarkedRun>> markedTable;
+    /** Start of each run. */
+    private int[] starts;
 
-    /** Merges (child => parent). (numerical invariant: child > parent) */
-    private final Map<Integer, Integer> merges = new HashMap<Integer, Integer>();
+    /** Length of each run. */
+    private int[] lengths;
 
-    /** Most efficient way to use merging information. */
-    private int[] lut;
+    /** Union-find parent of each run. (numerical invariant: parent <= run) */
+    private int[] parents;
 
     //~ Constructors -------------------------------------------------------------------------------
     private GlyphFactory (RunTable runTable,
@@ -96,12 +101,7 @@ public class GlyphFactory
         this.offset = (offset != null) ? offset : new Point(0, 0);
         this.group = group;
 
-        // Allocate & initialize markedTable
-        markedTable = new ArrayList<List<MarkedRun>>(runTable.getSize());
-
-        for (int iseq = 0, size = runTable.getSize(); iseq < size; iseq++) {
-            markedTable.add(new ArrayList<MarkedRun>());
-        }
+        seqFirst = new int[runTable.getSize() + 1];
     }
 
     //~ Methods ------------------------------------------------------------------------------------
@@ -164,69 +164,156 @@ public class GlyphFactory
     }
 
     /**
-     * Build all the ancestor glyphs from the markedTable.
+     * Connect each run of the 'next' sequence with the overlapping runs of the 'prev'
+     * sequence.
+     * Both sequences are ranges of the provided arrays, with runs sorted by start.
+     *
+     * @param starts  runs starts
+     * @param lengths runs lengths
+     * @param parents runs parents
+     * @param pFirst  index of first run in prev sequence
+     * @param pBreak  index past last run in prev sequence
+     * @param nFirst  index of first run in next sequence
+     * @param nBreak  index past last run in next sequence
      */
-    private void buildAllGlyphs ()
+    private static void connect (int[] starts,
+                                 int[] lengths,
+                                 int[] parents,
+                                 int pFirst,
+                                 int pBreak,
+                                 int nFirst,
+                                 int nBreak)
     {
-        logger.debug("glyphs: {}", globalMark - merges.size());
+        int pIdxActive = pFirst; // Active run index in prev sequence
 
-        // Allocate & initialize glyph bufs
-        final List<List<Sequence>> bufs = new ArrayList<List<Sequence>>(lut.length);
+        for (int nIdx = nFirst; nIdx < nBreak; nIdx++) {
+            final int nextStart = starts[nIdx];
+            final int nextStop = (nextStart + lengths[nIdx]) - 1;
 
-        for (int i = 0, len = lut.length; i < len; i++) {
-            if ((i > 0) && (lut[i] == i)) {
-                bufs.add(new ArrayList<Sequence>());
-            } else {
-                bufs.add(null);
+            // Skip prev runs which stop before this run (and thus before the following ones)
+            while ((pIdxActive < pBreak)
+                   && ((starts[pIdxActive] + lengths[pIdxActive]) <= nextStart)) {
+                pIdxActive++;
+            }
+
+            for (int pIdx = pIdxActive; (pIdx < pBreak) && (starts[pIdx] <= nextStop); pIdx++) {
+                union(parents, pIdx, nIdx);
             }
         }
+    }
 
-        // Dispatch each run to its proper glyph buffer
-        for (int iSeq = 0, size = runTable.getSize(); iSeq < size; iSeq++) {
-            final List<MarkedRun> seq = markedTable.get(iSeq);
+    /**
+     * Report the root run of the provided run, compressing the path on the way.
+     *
+     * @param parents runs parents
+     * @param run     the provided run index
+     * @return the index of root run
+     */
+    private static int find (int[] parents,
+                             int run)
+    {
+        while (parents[run] != run) {
+            parents[run] = parents[parents[run]]; // Path halving
+            run = parents[run];
+        }
 
-            for (MarkedRun run : seq) {
-                final int ancestor = lut[run.getMark()];
-                final List<Sequence> buf = bufs.get(ancestor);
+        return run;
+    }
 
-                if (buf.isEmpty() || (buf.get(buf.size() - 1).iSeq != iSeq)) {
-                    buf.add(new Sequence(iSeq));
-                }
+    /**
+     * Remember that runs 'a' and 'b' belong to the same glyph.
+     * The smaller root always becomes the root of the union.
+     *
+     * @param parents runs parents
+     * @param a       one run index
+     * @param b       another run index
+     */
+    private static void union (int[] parents,
+                               int a,
+                               int b)
+    {
+        final int rootA = find(parents, a);
+        final int rootB = find(parents, b);
 
-                final Sequence bufSeq = buf.get(buf.size() - 1);
-                bufSeq.runs.add(run);
-            }
+        if (rootA < rootB) {
+            parents[rootB] = rootA;
+        } else if (rootB < rootA) {
+            parents[rootA] = rootB;
+        }
+    }
+
+    /**
+     * Build all the glyphs, one per root run.
+     */
+    private void buildAllGlyphs ()
+    {
+        final int runCount = seqFirst[seqFirst.length - 1];
+
+        // Assign glyph index to each run (a root run is always met before its descendants)
+        final int[] labels = new int[runCount];
+        int glyphCount = 0;
+
+        for (int i = 0; i < runCount; i++) {
+            final int root = find(parents, i);
+            labels[i] = (root == i) ? glyphCount++ : labels[root];
+        }
+
+        logger.debug("glyphs: {}", glyphCount);
+
+        // Index of first run position for each glyph
+        final int[] glyphFirst = new int[glyphCount + 1];
+
+        for (int i = 0; i < runCount; i++) {
+            glyphFirst[labels[i] + 1]++;
+        }
+
+        for (int g = 0; g < glyphCount; g++) {
+            glyphFirst[g + 1] += glyphFirst[g];
         }
 
-        // Each allocated buf corresponds to one separated glyph
-        for (int i = 1, len = lut.length; i < len; i++) {
-            final List<Sequence> buf = bufs.get(i);
+        // Dispatch each run (and its sequence index) to its proper glyph range
+        final int[] glyphRuns = new int[runCount];
+        final int[] glyphSeqs = new int[runCount];
+        final int[] cursors = Arrays.copyOf(glyphFirst, glyphCount);
 
-            if (buf != null) {
-                buildGlyph(i, buf);
+        for (int iSeq = 0, size = runTable.getSize(); iSeq < size; iSeq++) {
+            for (int i = seqFirst[iSeq], iBreak = seqFirst[iSeq + 1]; i < iBreak; i++) {
+                final int pos = cursors[labels[i]]++;
+                glyphRuns[pos] = i;
+                glyphSeqs[pos] = iSeq;
             }
         }
+
+        // Each range corresponds to one separated glyph
+        for (int g = 0; g < glyphCount; g++) {
+            buildGlyph(glyphRuns, glyphSeqs, glyphFirst[g], glyphFirst[g + 1]);
+        }
     }
 
     /**
-     * Build the glyph for provided ancestor mark.
+     * Build the glyph for provided range of runs.
      *
-     * @param mark the mark value for this ancestor glyph
-     * @param buf  its populated sequences of runs
+     * @param glyphRuns run indices, grouped by glyph
+     * @param glyphSeqs sequence index of each run in glyphRuns
+     * @param from      position of first glyph run
+     * @param to        position past last glyph run
      */
-    private void buildGlyph (int mark,
-                             List<Sequence> buf)
+    private void buildGlyph (int[] glyphRuns,
+                             int[] glyphSeqs,
+                             int from,
+                             int to)
     {
-        // Determine glyph bounds within buf
-        final int iSeqMin = buf.get(0).iSeq;
-        final int iSeqMax = buf.get(buf.size() - 1).iSeq;
+        // Determine glyph bounds within range
+        final int iSeqMin = glyphSeqs[from];
+        final int iSeqMax = glyphSeqs[to - 1];
 
         int startMin = Integer.MAX_VALUE;
         int stopMax = 0;
 
-        for (Sequence seq : buf) {
-            startMin = Math.min(startMin, seq.runs.get(0).getStart());
-            stopMax = Math.max(stopMax, seq.runs.get(seq.runs.size() - 1).getStop());
+        for (int pos = from; pos < to; pos++) {
+            final int i = glyphRuns[pos];
+            startMin = Math.min(startMin, starts[i]);
+            stopMax = Math.max(stopMax, (starts[i] + lengths[i]) - 1);
         }
 
         final int dx = (runTable.getOrientation() == VERTICAL) ? iSeqMin : startMin;
@@ -240,12 +327,18 @@ public class GlyphFactory
         RunTable table = new RunTable(runTable.getOrientation(), width, height);
 
         // Populate table with RLE sequences
-        for (Sequence seq : buf) {
-            for (MarkedRun run : seq.runs) {
-                run.setStart(run.getStart() - startMin);
+        final List<Run> runs = new ArrayList<Run>();
+
+        for (int pos = from; pos < to;) {
+            final int iSeq = glyphSeqs[pos];
+            runs.clear();
+
+            for (; (pos < to) && (glyphSeqs[pos] == iSeq); pos++) {
+                final int i = glyphRuns[pos];
+                runs.add(new Run(starts[i] - startMin, lengths[i]));
             }
 
-            table.setSequence(seq.iSeq - iSeqMin, seq.runs);
+            table.setSequence(iSeq - iSeqMin, runs);
         }
 
         // Store created glyph
@@ -254,54 +347,6 @@ public class GlyphFactory
         created.add(glyph);
     }
 
-    /**
-     * Build a LUT to provide, for any run mark, the mark of its containing ancestor.
-     */
-    private void createLut ()
-    {
-        lut = new int[1 + globalMark]; // Cell #0 is not used
-
-        for (int i = 0; i <= globalMark; i++) {
-            lut[i] = i;
-        }
-
-        // Make any redirected child point directly to its ultimate ancestor
-        for (Entry<Integer, Integer> entry : merges.entrySet()) {
-            int child = entry.getKey();
-            Integer parent = entry.getValue();
-            Integer ancestor;
-
-            do { // Walk down the merges path
-                ancestor = parent;
-                parent = merges.get(parent);
-            } while (parent != null);
-
-            lut[child] = ancestor;
-        }
-    }
-
-    /**
-     * Remember that runs marked with 'max' or 'min' values belong to the same glyph.
-     * This equivalence is recorded only in the max => min direction.
-     *
-     * @param max the larger mark value
-     * @param min the smaller mark value
-     */
-    private void merge (int max,
-                        int min)
-    {
-        Integer old = merges.get(max);
-
-        if (old == null) {
-            merges.put(max, min); // Target is max=>min
-        } else if (min > old) { // Target is max=>min---old
-            merge(min, old);
-            merges.put(max, min);
-        } else if (old != min) {
-            merge(old, min); // Target is max=>old---min
-        }
-    }
-
     /**
      * Retrieve all glyphs from the provided table of runs.
      *
@@ -316,9 +361,6 @@ public class GlyphFactory
         //            watch.start("scan");
         scanTable();
         //
-        //            watch.start("lut");
-        createLut();
-        //
         //            watch.start("glyphs");
         buildAllGlyphs();
 
@@ -330,100 +372,155 @@ public class GlyphFactory
     }
 
     /**
-     * Populate the 'markedTable', a temporary representation of runs with their
-     * connectivity recorded in 'merges'.
+     * Populate the runs arrays, with their connectivity recorded in 'parents'.
      * <p>
-     * Browse the sequences of the input run table, detect run overlap from one sequence to the
-     * next, and flag each run with proper glyph mark.
+     * Sequences are split into bands. Within each band, browse the consecutive sequences and
+     * connect the overlapping runs. Then concatenate the bands, and connect each band first
+     * sequence with the last sequence of previous band.
      */
     private void scanTable ()
     {
-        // Scan each pair of consecutive sequences
-        for (int iSeq = 0, size = runTable.getSize(); iSeq < size; iSeq++) {
-            final List<MarkedRun> prevSeq = (iSeq > 0) ? markedTable.get(iSeq - 1) : null;
-            final List<MarkedRun> nextSeq = markedTable.get(iSeq);
-            final int maxPIdx = (iSeq > 0) ? (prevSeq.size() - 1) : (-1);
-            int pIdxActive = 0; // Active run index in prev sequence
-
-            for (Iterator<Run> it = runTable.iterator(iSeq); it.hasNext();) {
-                // Allocate the MarkedRun that corresponds to current Run
-                final Run run = it.next();
-                final int nextStart = run.getStart();
-                final int nextStop = run.getStop();
-                final MarkedRun nextRun = new MarkedRun(nextStart, run.getLength(), 0);
-                nextSeq.add(nextRun);
-
-                // Browse marked runs from previous sequence
-                for (int pIdx = pIdxActive; pIdx <= maxPIdx; pIdx++) {
-                    final MarkedRun prevRun = prevSeq.get(pIdx);
-
-                    if (prevRun.getStart() > nextStop) {
-                        break;
-                    }
+        final int size = runTable.getSize();
+        final int capacity = runTable.getTotalRunCount();
+        final Map<Integer, Band> bands = new ConcurrentSkipListMap<Integer, Band>();
+
+        ImageBands.process(
+                0,
+                size,
+                1,
+                new ImageBands.Adapter()
+        {
+            @Override
+            public void processBand (int seqStart,
+                                     int seqStop)
+            {
+                final Band band = new Band(
+                        seqStart,
+                        seqStop,
+                        (int) (((long) capacity * (seqStop - seqStart)) / Math.max(1, size)) + 16);
+                band.scan();
+                bands.put(seqStart, band);
+            }
+        });
 
-                    if (prevRun.getStop() >= nextStart) {
-                        final int prevMark = prevRun.getMark();
-                        final int nextMark = nextRun.getMark();
+        int runCount = 0;
 
-                        if (nextMark == 0) {
-                            nextRun.setMark(prevMark);
-                        } else {
-                            final int min = Math.min(prevMark, nextMark);
-                            final int max = Math.max(prevMark, nextMark);
+        for (Band band : bands.values()) {
+            runCount += band.count;
+        }
 
-                            if (min != max) {
-                                merge(max, min); // Record equivalence between these 2 marks
-                            }
-                        }
+        if (bands.size() == 1) {
+            // Use band arrays as they are
+            final Band band = bands.values().iterator().next();
+            starts = band.starts;
+            lengths = band.lengths;
+            parents = band.parents;
+        } else {
+            starts = new int[runCount];
+            lengths = new int[runCount];
+            parents = new int[runCount];
+
+            int base = 0; // Index of first band run in global arrays
+
+            for (Band band : bands.values()) {
+                System.arraycopy(band.starts, 0, starts, base, band.count);
+                System.arraycopy(band.lengths, 0, lengths, base, band.count);
+
+                for (int i = 0; i < band.count; i++) {
+                    parents[base + i] = band.parents[i] + base;
+                }
 
-                        pIdxActive = pIdx;
-                    }
+                for (int iSeq = band.seqStart; iSeq < band.seqStop; iSeq++) {
+                    seqFirst[iSeq] += base;
                 }
 
-                // No overlap found, hence use a new mark
-                if (nextRun.getMark() == 0) {
-                    nextRun.setMark(++globalMark);
+                if (band.seqStart > 0) {
+                    final int nBreak = ((band.seqStart + 1) < band.seqStop)
+                            ? seqFirst[band.seqStart + 1] : (base + band.count);
+                    connect(
+                            starts,
+                            lengths,
+                            parents,
+                            seqFirst[band.seqStart - 1],
+                            base,
+                            base,
+                            nBreak);
                 }
+
+                base += band.count;
             }
         }
+
+        seqFirst[size] = runCount;
     }
 
     //~ Inner Classes ------------------------------------------------------------------------------
-    //----------//
-    // Sequence //
-    //----------//
+    //------//
+    // Band //
+    //------//
     /**
-     * A sequence of marked runs, that all belong to the same glyph, together with the
-     * sequence index in runTable.
+     * A band of consecutive sequences, labeled on its own with band-local run indices.
      */
-    private static class Sequence
+    private class Band
     {
         //~ Instance fields ------------------------------------------------------------------------
 
-        final int iSeq; // Index in runTable
+        final int seqStart; // Index of first sequence
+
+        final int seqStop; // Index past last sequence
+
+        int[] starts;
+
+        int[] lengths;
 
-        final List<MarkedRun> runs = new ArrayList<MarkedRun>(); // Sequence of glyph marked runs
+        int[] parents;
+
+        int count; // Number of runs in band
 
         //~ Constructors ---------------------------------------------------------------------------
-        public Sequence (int iSeq)
+        public Band (int seqStart,
+                     int seqStop,
+                     int capacity)
+        {
+            this.seqStart = seqStart;
+            this.seqStop = seqStop;
+
+            starts = new int[capacity];
+            lengths = new int[capacity];
+            parents = new int[capacity];
+        }
+
+        //~ Methods --------------------------------------------------------------------------------
+        /**
+         * Browse the band sequences, record their runs and connect the overlapping ones.
+         * Band-local index of first run of each sequence is written in 'seqFirst'.
+         */
+        void scan ()
         {
-            this.iSeq = iSeq;
+            for (int iSeq = seqStart; iSeq < seqStop; iSeq++) {
+                final int first = count;
+                seqFirst[iSeq] = first;
+
+                for (Iterator<Run> it = runTable.iterator(iSeq); it.hasNext();) {
+                    final Run run = it.next();
+
+                    if (count == starts.length) {
+                        final int newCapacity = 2 * count;
+                        starts = Arrays.copyOf(starts, newCapacity);
+                        lengths = Arrays.copyOf(lengths, newCapacity);
+                        parents = Arrays.copyOf(parents, newCapacity);
+                    }
+
+                    starts[count] = run.getStart();
+                    lengths[count] = run.getLength();
+                    parents[count] = count;
+                    count++;
+                }
+
+                if (iSeq > seqStart) {
+                    connect(starts, lengths, parents, seqFirst[iSeq - 1], first, first, count);
+                }
+            }
         }
     }
 }
-//
-//        private void dumpTable (String title)
-//        {
-//            System.out.println(title);
-//
-//            for (int iSeq = 0, size = markedTable.size(); iSeq < size; iSeq++) {
-//                System.out.println("iSeq = " + iSeq);
-//
-//                List<MarkedRun> seq = markedTable.get(iSeq);
-//
-//                for (MarkedRun run : seq) {
-//                    System.out.println("   run = " + run);
-//                }
-//            }
-//        }
-//
@@ -38,6 +38,7 @@ import org.audiveris.omr.ui.selection.SelectionService;
 import org.audiveris.omr.util.BasicIndex;
 import org.audiveris.omr.util.EntityIndex;
 import org.audiveris.omr.util.IntUtil;
+import org.audiveris.omr.util.SpatialGrid;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -47,6 +48,7 @@ import java.awt.Rectangle;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -106,6 +108,10 @@ public class GlyphIndex
     /** Collection of original glyph instances, non sorted. */
     private final ConcurrentHashMap<WeakGlyph, WeakGlyph> originals = new ConcurrentHashMap<WeakGlyph, WeakGlyph>();
 
+    /** Spatial index of glyph IDs. (glyph bounds never change) */
+    private final SpatialGrid<Integer> spatialIndex = new SpatialGrid<Integer>(
+            constants.indexCellSize.getValue());
+
     /** Selection service, if any. */
     private EntityService<Glyph> glyphService;
 
@@ -169,9 +175,7 @@ public class GlyphIndex
     {
         Set<Glyph> set = new LinkedHashSet<Glyph>();
 
-        for (Iterator<Glyph> it = iterator(); it.hasNext();) {
-            Glyph glyph = it.next();
-
+        for (Glyph glyph : lookupGlyphs(rect)) {
             if (glyph.hasGroup(group) && rect.contains(glyph.getBounds())) {
                 set.add(glyph);
             }
@@ -307,9 +311,7 @@ public class GlyphIndex
     {
         Set<Glyph> set = new LinkedHashSet<Glyph>();
 
-        for (Iterator<Glyph> it = iterator(); it.hasNext();) {
-            Glyph glyph = it.next();
-
+        for (Glyph glyph : lookupGlyphs(rect)) {
             if (glyph.hasGroup(group) && rect.intersects(glyph.getBounds())) {
                 set.add(glyph);
             }
@@ -347,9 +349,7 @@ public class GlyphIndex
      */
     public Glyph lookupVirtualGlyph (Point point)
     {
-        for (Iterator<Glyph> it = iterator(); it.hasNext();) {
-            Glyph glyph = it.next();
-
+        for (Glyph glyph : lookupGlyphs(new Rectangle(point.x, point.y, 1, 1))) {
             if (glyph.hasGroup(Group.DROP) && glyph.getBounds().contains(point)) {
                 return glyph;
             }
@@ -438,6 +438,9 @@ public class GlyphIndex
 
         // Remove from global index
         weakIndex.remove(weak);
+
+        // Remove from spatial index
+        spatialIndex.remove(glyph.getId());
     }
 
     //-------//
@@ -448,6 +451,7 @@ public class GlyphIndex
     {
         weakIndex.reset();
         originals.clear();
+        spatialIndex.clear();
     }
 
     //-------------//
@@ -459,6 +463,7 @@ public class GlyphIndex
             WeakGlyph weak = new WeakGlyph(glyph);
             weakIndex.insert(weak);
             originals.putIfAbsent(weak, weak);
+            spatialIndex.insert(glyph.getId(), glyph.getBounds());
         }
     }
 
@@ -481,6 +486,38 @@ public class GlyphIndex
         weakIndex.setLastId(lastId);
     }
 
+    //--------------//
+    // lookupGlyphs //
+    //--------------//
+    /**
+     * Report the live glyphs whose bounds are located around the provided rectangle.
+     * <p>
+     * IDs of glyphs no longer alive are purged from spatial index on the way.
+     *
+     * @param rect the provided rectangle
+     * @return the candidate glyphs, sorted by ID
+     */
+    private List<Glyph> lookupGlyphs (Rectangle rect)
+    {
+        final List<Integer> ids = spatialIndex.lookup(rect);
+        Collections.sort(ids);
+
+        final List<Glyph> glyphs = new ArrayList<Glyph>(ids.size());
+
+        for (Integer id : ids) {
+            final WeakGlyph weak = weakIndex.getEntity(id);
+            final Glyph glyph = (weak != null) ? weak.get() : null;
+
+            if (glyph != null) {
+                glyphs.add(glyph);
+            } else {
+                spatialIndex.remove(id);
+            }
+        }
+
+        return glyphs;
+    }
+
     //-----------------//
     // privateRegister //
     //-----------------//
@@ -500,6 +537,7 @@ public class GlyphIndex
 
             // Register in index
             id = weakIndex.register(weak);
+            spatialIndex.insert(id, glyph.getBounds());
 
             glyph.setIndex(this);
         }
@@ -519,6 +557,11 @@ public class GlyphIndex
         private final Constant.String vipGlyphs = new Constant.String(
                 "",
                 "(Debug) Comma-separated values of VIP glyphs IDs");
+
+        private final Constant.Integer indexCellSize = new Constant.Integer(
+                "Pixels",
+                128,
+                "Side of a cell in the spatial index of glyphs");
     }
 
     //----------------//
@@ -73,7 +73,7 @@ public class AdaptiveDescriptor
     }
 
     /** No-arg constructor meant for JAXB. */
-    private AdaptiveDescriptor ()
+    protected AdaptiveDescriptor ()
     {
         meanCoeff = 0;
         stdDevCoeff = 0;
@@ -0,0 +1,168 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                      C o l u m n S u m s                                       //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.image;
+
+import ij.process.ByteProcessor;
+
+/**
+ * Class {@code ColumnSums} holds, for each column of a binary image, the cumulated count
+ * of foreground pixels from the top of the image.
+ * <p>
+ * Once built, the count of foreground pixels in any vertical segment of a column is given by two
+ * array lookups, whatever the segment length.
+ * <p>
+ * Sums are stored column by column, each column using (height + 1) entries, the first one being
+ * zero. To keep memory low, entries are chars, hence image height is limited to
+ * {@link #MAX_HEIGHT}.
+ * Column stripes are built in parallel when allowed.
+ *
+ * @author Hervé Bitteur
+ */
+public class ColumnSums
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    /** Maximum image height supported. */
+    public static final int MAX_HEIGHT = Character.MAX_VALUE;
+
+    /** Number of columns cumulated together while scanning the image rows. */
+    private static final int BLOCK_WIDTH = 64;
+
+    //~ Instance fields ----------------------------------------------------------------------------
+
+    /** Image width. */
+    private final int width;
+
+    /** Image height. */
+    private final int height;
+
+    /** Cumulated counts, column by column. */
+    private final char[] sums;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new {@code ColumnSums} object.
+     *
+     * @param source the binary source (foreground pixels being 0)
+     * @throws IllegalArgumentException if source is higher than {@link #MAX_HEIGHT}
+     */
+    public ColumnSums (ByteProcessor source)
+    {
+        width = source.getWidth();
+        height = source.getHeight();
+
+        if (height > MAX_HEIGHT) {
+            throw new IllegalArgumentException("Image too high for column sums: " + height);
+        }
+
+        sums = new char[width * (height + 1)];
+
+        final byte[] pixels = (byte[]) source.getPixels();
+
+        ImageBands.process(
+                0,
+                width,
+                BLOCK_WIDTH,
+                new ImageBands.Adapter()
+        {
+            @Override
+            public void processBand (int start,
+                                     int stop)
+            {
+                final int[] counts = new int[BLOCK_WIDTH];
+
+                for (int xMin = start; xMin < stop; xMin += BLOCK_WIDTH) {
+                    final int xMax = Math.min(xMin + BLOCK_WIDTH, stop);
+                    final int count = xMax - xMin;
+
+                    for (int i = 0; i < count; i++) {
+                        counts[i] = 0;
+                    }
+
+                    // Read rows of the block, update each column
+                    for (int y = 0; y < height; y++) {
+                        final int offset = (y * width) + xMin;
+
+                        for (int i = 0; i < count; i++) {
+                            if (pixels[offset + i] == 0) {
+                                counts[i]++;
+                            }
+
+                            sums[((xMin + i) * (height + 1)) + y + 1] = (char) counts[i];
+                        }
+                    }
+                }
+            }
+        });
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //----------//
+    // getCount //
+    //----------//
+    /**
+     * Report the count of foreground pixels in column x, between yMin and yMax.
+     * The vertical range is clipped to image height.
+     *
+     * @param x    the column abscissa
+     * @param yMin first ordinate (inclusive)
+     * @param yMax last ordinate (inclusive)
+     * @return the count of foreground pixels
+     */
+    public int getCount (int x,
+                         int yMin,
+                         int yMax)
+    {
+        final int y1 = Math.max(0, yMin);
+        final int y2 = Math.min(height - 1, yMax);
+
+        if (y2 < y1) {
+            return 0;
+        }
+
+        final int base = x * (height + 1);
+
+        return sums[base + y2 + 1] - sums[base + y1];
+    }
+
+    //-----------//
+    // getHeight //
+    //-----------//
+    /**
+     * @return the image height
+     */
+    public int getHeight ()
+    {
+        return height;
+    }
+
+    //----------//
+    // getWidth //
+    //----------//
+    /**
+     * @return the image width
+     */
+    public int getWidth ()
+    {
+        return width;
+    }
+}
@@ -0,0 +1,200 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                  D i s t a n c e R a n g e s                                   //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.image;
+
+import static org.audiveris.omr.image.ChamferDistance.VALUE_UNKNOWN;
+
+import java.awt.Rectangle;
+import java.util.Arrays;
+
+/**
+ * Class {@code DistanceRanges} gathers, for each location of a region of a
+ * {@link DistanceTable}, the range of distance values found in the vertical window of a given
+ * height which starts at this location.
+ * <p>
+ * A window which goes beyond table limits or which contains a neutralized value
+ * ({@link ChamferDistance#VALUE_UNKNOWN}) has no range.
+ * Locations outside the region have no range either.
+ * <p>
+ * These ranges allow {@link TemplateKernel#getLowerBound} to bound from below, in a single pass
+ * on template key points, the distances of a whole column of locations.
+ *
+ * @author Hervé Bitteur
+ */
+public class DistanceRanges
+{
+    //~ Instance fields ----------------------------------------------------------------------------
+
+    /** Region of window top locations. */
+    private final Rectangle roi;
+
+    /** Windows height. */
+    private final int height;
+
+    /** Minimum value for each window, VALUE_UNKNOWN if no range. */
+    private final int[] mins;
+
+    /** Maximum value for each window, VALUE_UNKNOWN if no range. */
+    private final int[] maxs;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new {@code DistanceRanges} object.
+     *
+     * @param table  the distance table to read
+     * @param roi    the region of window top locations, clipped to table bounds
+     * @param height the windows height, at least 1
+     */
+    public DistanceRanges (DistanceTable table,
+                           Rectangle roi,
+                           int height)
+    {
+        if (height < 1) {
+            throw new IllegalArgumentException("Illegal window height " + height);
+        }
+
+        this.roi = roi.intersection(new Rectangle(0, 0, table.getWidth(), table.getHeight()));
+        this.height = height;
+
+        final int width = Math.max(0, this.roi.width);
+        final int length = width * Math.max(0, this.roi.height);
+        mins = new int[length];
+        maxs = new int[length];
+        Arrays.fill(mins, VALUE_UNKNOWN);
+        Arrays.fill(maxs, VALUE_UNKNOWN);
+
+        final int tableHeight = table.getHeight();
+
+        for (int iy = 0; iy < this.roi.height; iy++) {
+            final int top = this.roi.y + iy;
+            final int bottom = top + height - 1;
+
+            if (bottom >= tableHeight) {
+                break; // This window and all windows below go beyond table
+            }
+
+            for (int ix = 0; ix < width; ix++) {
+                final int x = this.roi.x + ix;
+                int min = Integer.MAX_VALUE;
+                int max = Integer.MIN_VALUE;
+
+                for (int y = top; y <= bottom; y++) {
+                    final int val = table.getValue(x, y);
+
+                    if (val == VALUE_UNKNOWN) {
+                        min = VALUE_UNKNOWN;
+
+                        break;
+                    }
+
+                    min = Math.min(min, val);
+                    max = Math.max(max, val);
+                }
+
+                if (min != VALUE_UNKNOWN) {
+                    final int index = (iy * width) + ix;
+                    mins[index] = min;
+                    maxs[index] = max;
+                }
+            }
+        }
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //-----------//
+    // getHeight //
+    //-----------//
+    /**
+     * Report the windows height.
+     *
+     * @return the height
+     */
+    public int getHeight ()
+    {
+        return height;
+    }
+
+    //--------//
+    // getMax //
+    //--------//
+    /**
+     * Report the maximum distance value in window starting at (x,y).
+     *
+     * @param x window abscissa
+     * @param y window top ordinate
+     * @return the maximum value, or VALUE_UNKNOWN if window has no range
+     */
+    public int getMax (int x,
+                       int y)
+    {
+        final int index = indexOf(x, y);
+
+        return (index == -1) ? VALUE_UNKNOWN : maxs[index];
+    }
+
+    //--------//
+    // getMin //
+    //--------//
+    /**
+     * Report the minimum distance value in window starting at (x,y).
+     *
+     * @param x window abscissa
+     * @param y window top ordinate
+     * @return the minimum value, or VALUE_UNKNOWN if window has no range
+     */
+    public int getMin (int x,
+                       int y)
+    {
+        final int index = indexOf(x, y);
+
+        return (index == -1) ? VALUE_UNKNOWN : mins[index];
+    }
+
+    //-------//
+    // getRoi //
+    //-------//
+    /**
+     * Report the region of window top locations, within table bounds.
+     *
+     * @return the region (a copy)
+     */
+    public Rectangle getRoi ()
+    {
+        return new Rectangle(roi);
+    }
+
+    //---------//
+    // indexOf //
+    //---------//
+    private int indexOf (int x,
+                         int y)
+    {
+        final int ix = x - roi.x;
+        final int iy = y - roi.y;
+
+        if ((ix < 0) || (ix >= roi.width) || (iy < 0) || (iy >= roi.height)) {
+            return -1;
+        }
+
+        return (iy * roi.width) + ix;
+    }
+}
@@ -227,12 +227,33 @@ public interface DistanceTable
             return new Integer(table.getCopy(roi), normalizer);
         }
 
+        /**
+         * Report the raw distance values, row after row, using table width as stride.
+         *
+         * @return the raw values
+         * @throws UnsupportedOperationException if this table is a view
+         */
+        public int[] getValues ()
+        {
+            return table.getValues();
+        }
+
         @Override
         public DistanceTable.Integer getView (Rectangle roi)
         {
             return new Integer(table.getView(roi), normalizer);
         }
 
+        /**
+         * Report whether this table is a view on another table.
+         *
+         * @return true if view
+         */
+        public boolean isView ()
+        {
+            return table.isView();
+        }
+
         @Override
         protected final Table getTable ()
         {
@@ -273,12 +294,33 @@ public interface DistanceTable
             return new Short(table.getCopy(roi), normalizer);
         }
 
+        /**
+         * Report the raw distance values, row after row, using table width as stride.
+         *
+         * @return the raw values
+         * @throws UnsupportedOperationException if this table is a view
+         */
+        public short[] getValues ()
+        {
+            return table.getValues();
+        }
+
         @Override
         public DistanceTable.Short getView (Rectangle roi)
         {
             return new Short(table.getView(roi), normalizer);
         }
 
+        /**
+         * Report whether this table is a view on another table.
+         *
+         * @return true if view
+         */
+        public boolean isView ()
+        {
+            return table.isView();
+        }
+
         @Override
         protected final Table getTable ()
         {
@@ -31,7 +31,8 @@ import org.slf4j.LoggerFactory;
 public enum FilterKind
 {
     GLOBAL("Basic filter using a global threshold", GlobalFilter.class),
-    ADAPTIVE("Adaptive filter using a local threshold", AdaptiveFilter.getImplementationClass());
+    ADAPTIVE("Adaptive filter using a local threshold", AdaptiveFilter.getImplementationClass()),
+    INTEGRAL("Adaptive filter computed on parallel integral bands", IntegralFilter.class);
 
     /** Description. */
     public final String description;
@@ -24,6 +24,7 @@ package org.audiveris.omr.image;
 import ij.process.ByteProcessor;
 
 import java.awt.image.Kernel;
+import java.lang.ref.SoftReference;
 
 /**
  * Class {@code GaussianGrayFilter} allows to run a Gaussian filter on an input image,
@@ -31,12 +32,23 @@ import java.awt.image.Kernel;
  * <p>
  * This implementation is derived from Jerry Huxtable more general filter but limited to
  * BufferedImage class.
+ * <p>
+ * The kernel is separable, hence the filter is applied as two passes of a 1D convolution, each
+ * pass transposing its result.
+ * Each pass is processed by bands of rows, in parallel when allowed.
+ * Pixels are read from input and written to output directly, and the intermediate transposed
+ * image is kept in a per-thread scratch buffer reused from one call to the next.
  *
  * @author Hervé Bitteur
  */
 public class GaussianGrayFilter
         extends AbstractGrayFilter
 {
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    /** Per-thread scratch buffer for the intermediate transposed image. */
+    private static final ThreadLocal<SoftReference<byte[]>> scratch = new ThreadLocal<SoftReference<byte[]>>();
+
     //~ Instance fields ----------------------------------------------------------------------------
 
     /** Radius of the kernel. */
@@ -45,6 +57,15 @@ public class GaussianGrayFilter
     /** The kernel to apply. */
     private final Kernel kernel;
 
+    /** Offsets, relative to kernel center, of kernel non-zero items. */
+    private final int[] offsets;
+
+    /** Values of kernel non-zero items. */
+    private final float[] weights;
+
+    /** Half width of the kernel. */
+    private final int cols2;
+
     //~ Constructors -------------------------------------------------------------------------------
     /**
      * Creates a new GaussianGrayFilter object with a default radius value.
@@ -63,6 +84,32 @@ public class GaussianGrayFilter
     {
         this.radius = radius;
         kernel = makeKernel(radius);
+
+        // Retain only non-zero kernel items, in kernel order
+        final float[] matrix = kernel.getKernelData(null);
+        cols2 = kernel.getWidth() / 2;
+
+        int count = 0;
+
+        for (float f : matrix) {
+            if (f != 0) {
+                count++;
+            }
+        }
+
+        offsets = new int[count];
+        weights = new float[count];
+        count = 0;
+
+        for (int col = -cols2; col <= cols2; col++) {
+            float f = matrix[cols2 + col];
+
+            if (f != 0) {
+                offsets[count] = col;
+                weights[count] = f;
+                count++;
+            }
+        }
     }
 
     //~ Methods ------------------------------------------------------------------------------------
@@ -75,29 +122,39 @@ public class GaussianGrayFilter
     {
         final int width = input.getWidth();
         final int height = input.getHeight();
-        final byte[] inPixels = new byte[width * height];
-        final byte[] outPixels = new byte[width * height];
-
-        // Read pixels
-        for (int y = 0; y < height; y++) {
-            final int offset = y * width;
-
-            for (int x = 0; x < width; x++) {
-                inPixels[offset + x] = (byte) input.get(x, y);
+        final byte[] inPixels = (byte[]) input.getPixels();
+        final byte[] outPixels = (byte[]) output.getPixels();
+        final byte[] tmpPixels = getScratch(width * height);
+
+        // Horizontal pass, rows of input transposed into columns of tmp
+        ImageBands.process(
+                0,
+                height,
+                cols2,
+                new ImageBands.Adapter()
+        {
+            @Override
+            public void processBand (int yStart,
+                                     int yStop)
+            {
+                convolveAndTranspose(inPixels, tmpPixels, width, height, yStart, yStop);
             }
-        }
-
-        convolveAndTranspose(inPixels, outPixels, width, height);
-        convolveAndTranspose(outPixels, inPixels, height, width);
-
-        // Write pixels
-        for (int y = 0; y < height; y++) {
-            final int offset = y * width;
-
-            for (int x = 0; x < width; x++) {
-                output.set(x, y, inPixels[offset + x] & 0xff);
+        });
+
+        // Vertical pass, rows of tmp (input columns) transposed back into rows of output
+        ImageBands.process(
+                0,
+                width,
+                cols2,
+                new ImageBands.Adapter()
+        {
+            @Override
+            public void processBand (int xStart,
+                                     int xStop)
+            {
+                convolveAndTranspose(tmpPixels, outPixels, height, width, xStart, xStop);
             }
-        }
+        });
     }
 
     //-----------//
@@ -180,28 +237,45 @@ public class GaussianGrayFilter
     //----------------------//
     // convolveAndTranspose //
     //----------------------//
+    /**
+     * Convolve rows [yStart, yStop[ of inPixels with the 1D kernel, and write the results
+     * transposed into outPixels.
+     *
+     * @param inPixels  input pixels, width x height
+     * @param outPixels output pixels, height x width
+     * @param width     input width
+     * @param height    input height
+     * @param yStart    first input row to process
+     * @param yStop     input row past the last row to process
+     */
     private void convolveAndTranspose (byte[] inPixels,
                                        byte[] outPixels,
                                        int width,
-                                       int height)
+                                       int height,
+                                       int yStart,
+                                       int yStop)
     {
-        float[] matrix = kernel.getKernelData(null);
-        int cols = kernel.getWidth();
-        int cols2 = cols / 2;
+        final int count = offsets.length;
+
+        // Abscissae for which kernel does not go past row ends
+        final int xInStart = Math.min(cols2, width);
+        final int xInStop = Math.max(xInStart, width - cols2);
 
-        for (int y = 0; y < height; y++) {
-            int index = y;
-            int ioffset = y * width;
+        for (int y = yStart; y < yStop; y++) {
+            final int ioffset = y * width;
 
             for (int x = 0; x < width; x++) {
                 float p = 0;
-                int moffset = cols2;
 
-                for (int col = -cols2; col <= cols2; col++) {
-                    float f = matrix[moffset + col];
+                if ((x >= xInStart) && (x < xInStop)) {
+                    final int center = ioffset + x;
 
-                    if (f != 0) {
-                        int ix = x + col;
+                    for (int i = 0; i < count; i++) {
+                        p += (weights[i] * (inPixels[center + offsets[i]] & 0xff));
+                    }
+                } else {
+                    for (int i = 0; i < count; i++) {
+                        int ix = x + offsets[i];
 
                         if (ix < 0) {
                             ix = 0;
@@ -209,15 +283,35 @@ public class GaussianGrayFilter
                             ix = width - 1;
                         }
 
-                        int pix = inPixels[ioffset + ix] & 0xff;
-                        p += (f * pix);
+                        p += (weights[i] * (inPixels[ioffset + ix] & 0xff));
                     }
                 }
 
-                int ip = clamp((int) (p + 0.5));
-                outPixels[index] = (byte) ip;
-                index += height;
+                outPixels[(x * height) + y] = (byte) clamp((int) (p + 0.5));
             }
         }
     }
+
+    //------------//
+    // getScratch //
+    //------------//
+    /**
+     * Report a scratch buffer of at least the provided size, reusing the current thread
+     * buffer if still available and large enough.
+     *
+     * @param size the minimum size
+     * @return the scratch buffer
+     */
+    private static byte[] getScratch (int size)
+    {
+        final SoftReference<byte[]> ref = scratch.get();
+        byte[] buffer = (ref != null) ? ref.get() : null;
+
+        if ((buffer == null) || (buffer.length < size)) {
+            buffer = new byte[size];
+            scratch.set(new SoftReference<byte[]>(buffer));
+        }
+
+        return buffer;
+    }
 }
@@ -0,0 +1,180 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                      I m a g e B a n d s                                       //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.image;
+
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
+import org.audiveris.omr.step.ProcessingCancellationException;
+import org.audiveris.omr.util.OmrExecutors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Class {@code ImageBands} splits the rows of an image into horizontal bands, and
+ * processes these bands in parallel on the high executor when parallelism is allowed.
+ * <p>
+ * Each band is processed by the provided {@link Adapter}, which is responsible for writing its own
+ * rows only, so that no synchronization is needed between bands.
+ *
+ * @author Hervé Bitteur
+ */
+public abstract class ImageBands
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Constants constants = new Constants();
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageBands.class);
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //---------//
+    // process //
+    //---------//
+    /**
+     * Process the rows [yStart, yStop[ band per band.
+     *
+     * @param yStart    first row to process
+     * @param yStop     row past the last row to process
+     * @param minHeight minimum band height, so that per-band setup remains negligible
+     * @param adapter   the processing to apply on each band
+     */
+    public static void process (int yStart,
+                                int yStop,
+                                int minHeight,
+                                final Adapter adapter)
+    {
+        final int height = yStop - yStart;
+
+        if (height <= 0) {
+            return;
+        }
+
+        final int bandCount = getBandCount(height, minHeight);
+
+        if (bandCount == 1) {
+            adapter.processBand(yStart, yStop);
+
+            return;
+        }
+
+        final int bandHeight = (height + bandCount - 1) / bandCount;
+
+        try {
+            List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(bandCount);
+
+            for (int y = yStart; y < yStop; y += bandHeight) {
+                final int y1 = y;
+                final int y2 = Math.min(yStop, y + bandHeight);
+                tasks.add(
+                        new Callable<Void>()
+                {
+                    @Override
+                    public Void call ()
+                            throws Exception
+                    {
+                        adapter.processBand(y1, y2);
+
+                        return null;
+                    }
+                });
+            }
+
+            // Launch the tasks and wait for their completion
+            List<Future<Void>> futures = OmrExecutors.getHighExecutor().invokeAll(tasks);
+
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException ex) {
+            logger.warn("ImageBands got interrupted");
+            throw new ProcessingCancellationException(ex);
+        } catch (ExecutionException ex) {
+            logger.warn("Exception raised in ImageBands", ex.getCause());
+            throw new RuntimeException(ex.getCause());
+        }
+    }
+
+    //--------------//
+    // getBandCount //
+    //--------------//
+    /**
+     * Report the number of bands to process the provided height.
+     *
+     * @param height    the total number of rows
+     * @param minHeight the minimum band height
+     * @return the number of bands, 1 for a sequential processing
+     */
+    private static int getBandCount (int height,
+                                     int minHeight)
+    {
+        if (!OmrExecutors.defaultParallelism.getTarget()) {
+            return 1;
+        }
+
+        final int minBand = Math.max(minHeight, constants.minBandHeight.getValue());
+
+        return Math.max(1, Math.min(OmrExecutors.getNumberOfCpus(), height / minBand));
+    }
+
+    //~ Inner Interfaces ---------------------------------------------------------------------------
+    //---------//
+    // Adapter //
+    //---------//
+    /**
+     * Interface {@code Adapter} defines the processing of one band of rows.
+     */
+    public static interface Adapter
+    {
+        //~ Methods --------------------------------------------------------------------------------
+
+        /**
+         * Process the rows [yStart, yStop[.
+         *
+         * @param yStart first row of band
+         * @param yStop  row past the last row of band
+         */
+        void processBand (int yStart,
+                          int yStop);
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final Constant.Integer minBandHeight = new Constant.Integer(
+                "Pixels",
+                200,
+                "Minimum height of an image band processed in parallel");
+    }
+}
@@ -33,7 +33,9 @@ import de.intarsys.tools.locator.FileLocator;
 
 import org.audiveris.omr.constant.Constant;
 import org.audiveris.omr.constant.ConstantSet;
+import org.audiveris.omr.step.ProcessingCancellationException;
 import org.audiveris.omr.util.FileUtil;
+import org.audiveris.omr.util.OmrExecutors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -48,6 +50,10 @@ import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import javax.imageio.ImageIO;
 import javax.imageio.ImageReader;
@@ -286,6 +292,10 @@ public abstract class ImageLoading
                 "DPI",
                 300,
                 "DPI resolution for PDF images");
+
+        private final Constant.Boolean pdfPrefetch = new Constant.Boolean(
+                true,
+                "Should the next PDF page be rendered in background?");
     }
 
     //----------------//
@@ -372,6 +382,15 @@ public abstract class ImageLoading
 
         private final PDDocument doc;
 
+        /** Page being rendered in background, if any. */
+        private int prefetchedId;
+
+        /** Pending rendering of page prefetchedId, if any. */
+        private Future<BufferedImage> prefetched;
+
+        /** Id of the page last handed over, if any. */
+        private int lastId;
+
         //~ Constructors ---------------------------------------------------------------------------
         public JPodLoader (PDDocument doc,
                            int imageCount)
@@ -384,19 +403,149 @@ public abstract class ImageLoading
         @Override
         public void dispose ()
         {
-            try {
-                doc.close();
-            } catch (IOException ex) {
-                logger.warn("Could not close PDDocument", ex);
+            synchronized (this) {
+                if (prefetched != null) {
+                    prefetched.cancel(false);
+                    prefetched = null;
+                }
+            }
+
+            // Wait for any rendering in progress
+            synchronized (doc) {
+                try {
+                    doc.close();
+                } catch (IOException ex) {
+                    logger.warn("Could not close PDDocument", ex);
+                }
             }
         }
 
+        /**
+         * {@inheritDoc}
+         * <p>
+         * If page 'id' has been prefetched, its image is handed over and no longer referenced
+         * by the loader. A prefetched image for another page is discarded.
+         * <p>
+         * Then, if enabled and if pages are being read in sequence, rendering of page 'id + 1' is
+         * launched in background.
+         */
         @Override
         public BufferedImage getImage (int id)
                 throws IOException
         {
             checkId(id);
 
+            BufferedImage image = takePrefetched(id);
+
+            if (image == null) {
+                image = renderPage(id);
+            }
+
+            final boolean sequential = (lastId != 0) && (id == (lastId + 1));
+            lastId = id;
+
+            if (constants.pdfPrefetch.isSet() && sequential && (id < imageCount)) {
+                prefetch(id + 1);
+            }
+
+            return image;
+        }
+
+        //----------//
+        // prefetch //
+        //----------//
+        private synchronized void prefetch (final int id)
+        {
+            if ((prefetched != null) && (prefetchedId == id)) {
+                return; // Already on its way
+            }
+
+            if (prefetched != null) {
+                prefetched.cancel(false);
+            }
+
+            prefetchedId = id;
+            prefetched = OmrExecutors.getLowExecutor().submit(
+                    new Callable<BufferedImage>()
+            {
+                @Override
+                public BufferedImage call ()
+                        throws Exception
+                {
+                    logger.debug("Prefetching pdf page #{}", id);
+
+                    return renderPage(id);
+                }
+            });
+        }
+
+        //----------------//
+        // takePrefetched //
+        //----------------//
+        /**
+         * Retrieve the prefetched image for page 'id', if any.
+         *
+         * @param id desired page id
+         * @return the prefetched image, or null
+         */
+        private BufferedImage takePrefetched (int id)
+        {
+            final Future<BufferedImage> future;
+
+            synchronized (this) {
+                if (prefetched == null) {
+                    return null;
+                }
+
+                future = prefetched;
+                prefetched = null;
+
+                if (prefetchedId != id) {
+                    // Not consumed, so discard it
+                    future.cancel(false);
+
+                    return null;
+                }
+            }
+
+            try {
+                return future.get();
+            } catch (InterruptedException ex) {
+                throw new ProcessingCancellationException(ex);
+            } catch (CancellationException ex) {
+                return null;
+            } catch (ExecutionException ex) {
+                logger.warn("Error prefetching pdf page #{} {}", id, ex.getCause().toString());
+
+                return null; // Caller will render the page again
+            }
+        }
+
+        //------------//
+        // renderPage //
+        //------------//
+        /**
+         * Render the desired page directly into a gray image.
+         * JPod document is not meant for concurrent access, hence the lock on document.
+         *
+         * @param id page id
+         * @return the gray image
+         * @throws IOException for any IO error
+         */
+        private BufferedImage renderPage (int id)
+                throws IOException
+        {
+            synchronized (doc) {
+                return doRenderPage(id);
+            }
+        }
+
+        //--------------//
+        // doRenderPage //
+        //--------------//
+        private BufferedImage doRenderPage (int id)
+                throws IOException
+        {
             // desired scale = pdfResolution / default PDF resolution
             float scale = constants.pdfResolution.getValue() / 72.0f;
 
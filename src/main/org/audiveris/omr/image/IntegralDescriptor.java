@@ -0,0 +1,89 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                              I n t e g r a l D e s c r i p t o r                               //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.image;
+
+import ij.process.ByteProcessor;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * Class {@code IntegralDescriptor} describes an {@link IntegralFilter}.
+ * <p>
+ * It uses the same coefficients as its {@link AdaptiveDescriptor} super class, only the filter
+ * implementation differs.
+ *
+ * @author Hervé Bitteur
+ */
+@XmlAccessorType(XmlAccessType.NONE)
+@XmlRootElement(name = "integral-filter")
+public class IntegralDescriptor
+        extends AdaptiveDescriptor
+{
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new IntegralDescriptor object.
+     *
+     * @param meanCoeff   Coefficient for mean value
+     * @param stdDevCoeff Coefficient for standard deviation value
+     */
+    public IntegralDescriptor (double meanCoeff,
+                               double stdDevCoeff)
+    {
+        super(meanCoeff, stdDevCoeff);
+    }
+
+    /** No-arg constructor meant for JAXB. */
+    private IntegralDescriptor ()
+    {
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //------------//
+    // getDefault //
+    //------------//
+    public static IntegralDescriptor getDefault ()
+    {
+        return new IntegralDescriptor(
+                AdaptiveFilter.getDefaultMeanCoeff(),
+                AdaptiveFilter.getDefaultStdDevCoeff());
+    }
+
+    //-----------//
+    // getFilter //
+    //-----------//
+    @Override
+    public PixelFilter getFilter (ByteProcessor source)
+    {
+        return new IntegralFilter(source, meanCoeff, stdDevCoeff);
+    }
+
+    //---------//
+    // getKind //
+    //---------//
+    @Override
+    public FilterKind getKind ()
+    {
+        return FilterKind.INTEGRAL;
+    }
+}
@@ -0,0 +1,290 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                  I n t e g r a l F i l t e r                                   //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.image;
+
+import ij.process.ByteProcessor;
+
+import net.jcip.annotations.ThreadSafe;
+
+/**
+ * Class {@code IntegralFilter} is a specialization of {@link AdaptiveFilter} which
+ * binarizes the whole source image through integral sums computed band by band.
+ * <p>
+ * For each image row, the vertical sums (of plain values and of squared values) of every column
+ * over the window height are kept up to date incrementally, and a cumulated row of these column
+ * sums is built.
+ * The sum over any window of this row is then just the difference of two cumulated values, hence
+ * the mean value and the standard deviation around a pixel are obtained in constant time.
+ * <p>
+ * Since all sums are exact integer values, this implementation produces exactly the same
+ * binarized image as {@link VerticalFilter} or {@link RandomFilter}, while using only a few
+ * primitive arrays (as wide as the image) per band.
+ * <p>
+ * The image is split into horizontal bands which are processed in parallel when allowed.
+ * Pixel values are read directly from and written directly to the underlying byte arrays.
+ * <p>
+ * Methods {@link #isFore(int, int)} and {@link #getContext(int, int)} remain available for random
+ * access, but they compute the window sums on demand.
+ *
+ * @author Hervé Bitteur
+ */
+@ThreadSafe
+public class IntegralFilter
+        extends AdaptiveFilter
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    /** Byte value for foreground pixel. */
+    private static final byte FORE_BYTE = (byte) FOREGROUND;
+
+    /** Byte value for background pixel. */
+    private static final byte BACK_BYTE = (byte) BACKGROUND;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Create an integral adaptive wrapper on a raw pixel source.
+     *
+     * @param source      the underlying source of raw pixels
+     * @param meanCoeff   the coefficient for mean value
+     * @param stdDevCoeff the coefficient for standard deviation value
+     */
+    public IntegralFilter (ByteProcessor source,
+                           double meanCoeff,
+                           double stdDevCoeff)
+    {
+        super(source, meanCoeff, stdDevCoeff);
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //----------------------//
+    // getDefaultDescriptor //
+    //----------------------//
+    public static FilterDescriptor getDefaultDescriptor ()
+    {
+        return IntegralDescriptor.getDefault();
+    }
+
+    //---------------//
+    // filteredImage //
+    //---------------//
+    @Override
+    public ByteProcessor filteredImage ()
+    {
+        final int width = source.getWidth();
+        final int height = source.getHeight();
+        final ByteProcessor ip = new ByteProcessor(width, height);
+        final byte[] src = (byte[]) source.getPixels();
+        final byte[] dst = (byte[]) ip.getPixels();
+
+        // Process the image band per band
+        ImageBands.process(
+                0,
+                height,
+                2 * HALF_WINDOW_SIZE,
+                new ImageBands.Adapter()
+        {
+            @Override
+            public void processBand (int yStart,
+                                     int yStop)
+            {
+                IntegralFilter.this.processBand(src, dst, width, height, yStart, yStop);
+            }
+        });
+
+        return ip;
+    }
+
+    //------------//
+    // getContext //
+    //------------//
+    @Override
+    public Context getContext (int x,
+                               int y)
+    {
+        final long[] sums = getWindowSums(x, y);
+        final double mean = (double) sums[0] / sums[2];
+        final double sqrMean = (double) sums[1] / sums[2];
+        final double stdDev = Math.sqrt(Math.abs(sqrMean - (mean * mean)));
+
+        return new AdaptiveContext(mean, stdDev, getThreshold(mean, stdDev));
+    }
+
+    //--------//
+    // isFore //
+    //--------//
+    @Override
+    public boolean isFore (int x,
+                           int y)
+    {
+        final long[] sums = getWindowSums(x, y);
+        final double mean = (double) sums[0] / sums[2];
+        final double sqrMean = (double) sums[1] / sums[2];
+        final double stdDev = Math.sqrt(Math.abs(sqrMean - (mean * mean)));
+
+        return source.get(x, y) <= getThreshold(mean, stdDev);
+    }
+
+    //---------------//
+    // getWindowSums //
+    //---------------//
+    /**
+     * Compute plain and squared sums on window around provided location.
+     *
+     * @param x abscissa of window center
+     * @param y ordinate of window center
+     * @return the sum of values, the sum of squared values and the window area
+     */
+    private long[] getWindowSums (int x,
+                                  int y)
+    {
+        final int xMin = Math.max(0, x - HALF_WINDOW_SIZE);
+        final int xMax = Math.min(source.getWidth() - 1, x + HALF_WINDOW_SIZE);
+        final int yMin = Math.max(0, y - HALF_WINDOW_SIZE);
+        final int yMax = Math.min(source.getHeight() - 1, y + HALF_WINDOW_SIZE);
+        long sum = 0;
+        long sqrSum = 0;
+
+        for (int iy = yMin; iy <= yMax; iy++) {
+            for (int ix = xMin; ix <= xMax; ix++) {
+                final long pix = source.get(ix, iy);
+                sum += pix;
+                sqrSum += (pix * pix);
+            }
+        }
+
+        return new long[]{sum, sqrSum, (long) (yMax - yMin + 1) * (xMax - xMin + 1)};
+    }
+
+    //-------------//
+    // processBand //
+    //-------------//
+    /**
+     * Binarize the horizontal band of rows [yStart, yStop[.
+     * <p>
+     * For the current row y, colSums[x] (resp. colSqrSums[x]) contains the sum of pixel values
+     * (resp. squared values) in column x for rows [y - HALF, y + HALF] clipped to image.
+     * rowSums[i] (resp. rowSqrSums[i]) contains the sum of colSums (resp. colSqrSums) for
+     * columns [0, i[.
+     *
+     * @param src    source pixels
+     * @param dst    destination pixels
+     * @param width  image width
+     * @param height image height
+     * @param yStart first row of band
+     * @param yStop  row past the last row of band
+     */
+    private void processBand (byte[] src,
+                              byte[] dst,
+                              int width,
+                              int height,
+                              int yStart,
+                              int yStop)
+    {
+        final int half = HALF_WINDOW_SIZE;
+        final long[] colSums = new long[width];
+        final long[] colSqrSums = new long[width];
+        final long[] rowSums = new long[width + 1];
+        final long[] rowSqrSums = new long[width + 1];
+        final byte[] line = new byte[width];
+
+        // Initial column sums, for rows [yStart - half - 1, yStart + half - 1]
+        final int yFirst = Math.max(0, yStart - half - 1);
+        final int yLast = Math.min(height - 1, yStart + half - 1);
+
+        for (int y = yFirst; y <= yLast; y++) {
+            addRow(src, y * width, width, colSums, colSqrSums, 1);
+        }
+
+        for (int y = yStart; y < yStop; y++) {
+            // Slide the vertical window one row down
+            final int yIn = y + half;
+
+            if (yIn < height) {
+                addRow(src, yIn * width, width, colSums, colSqrSums, 1);
+            }
+
+            final int yOut = y - half - 1;
+
+            if (yOut >= 0) {
+                addRow(src, yOut * width, width, colSums, colSqrSums, -1);
+            }
+
+            // Cumulate along the row
+            for (int x = 0; x < width; x++) {
+                rowSums[x + 1] = rowSums[x] + colSums[x];
+                rowSqrSums[x + 1] = rowSqrSums[x] + colSqrSums[x];
+            }
+
+            // Window rows ]y1, y2], as in Tile.getMean()
+            final int y1 = Math.max(-1, y - half - 1);
+            final int y2 = Math.min(height - 1, y + half);
+            final int rowOffset = y * width;
+
+            for (int x = 0; x < width; x++) {
+                // Window columns ]x1, x2], as in Tile.getMean()
+                final int x1 = Math.max(-1, x - half - 1);
+                final int x2 = Math.min(width - 1, x + half);
+                final int area = (y2 - y1) * (x2 - x1);
+
+                final double sum = rowSums[x2 + 1] - rowSums[x1 + 1];
+                final double sqrSum = rowSqrSums[x2 + 1] - rowSqrSums[x1 + 1];
+                final double mean = sum / area;
+                final double sqrMean = sqrSum / area;
+                final double var = Math.abs(sqrMean - (mean * mean));
+                final double stdDev = Math.sqrt(var);
+                final double threshold = getThreshold(mean, stdDev);
+
+                final int pixValue = src[rowOffset + x] & 0xff;
+                line[x] = (pixValue <= threshold) ? FORE_BYTE : BACK_BYTE;
+            }
+
+            System.arraycopy(line, 0, dst, rowOffset, width);
+        }
+    }
+
+    //--------//
+    // addRow //
+    //--------//
+    /**
+     * Add (or subtract) the pixel values of a row to the column sums.
+     *
+     * @param src        source pixels
+     * @param offset     offset of row start in source pixels
+     * @param width      row width
+     * @param colSums    column sums of plain values
+     * @param colSqrSums column sums of squared values
+     * @param sign       1 to add, -1 to subtract
+     */
+    private static void addRow (byte[] src,
+                                int offset,
+                                int width,
+                                long[] colSums,
+                                long[] colSqrSums,
+                                int sign)
+    {
+        for (int x = 0; x < width; x++) {
+            final int pix = src[offset + x] & 0xff;
+            colSums[x] += (sign * pix);
+            colSqrSums[x] += (sign * pix * pix);
+        }
+    }
+}
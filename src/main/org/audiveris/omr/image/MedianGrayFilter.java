@@ -28,12 +28,43 @@ import java.util.Arrays;
 /**
  * Class {@code MedianGrayFilter} allows to run a median filter on an input image,
  * assumed to contain only gray values [0..255].
+ * <p>
+ * Inner pixels (those whose whole window lies within the image) are processed according to
+ * Perreault &amp; Hébert "Median Filtering in Constant Time" algorithm:
+ * <ul>
+ * <li>Each image column keeps a histogram of its pixels over the window height, updated in
+ * constant time when moving one row down (one pixel out, one pixel in).</li>
+ * <li>The kernel histogram is updated when moving one column right, by adding the entering column
+ * histogram and subtracting the leaving one.</li>
+ * <li>Histograms are two-tier: a coarse level of 16 bins (4 most significant bits) always kept up
+ * to date, and a fine level of 256 bins, whose 16-bin segments are updated lazily, only when the
+ * median falls into the related coarse bin.</li>
+ * </ul>
+ * The cost per pixel thus no longer depends on filter radius.
+ * For the usual 3x3 window (radius 1), a direct selection on sorted columns is used instead, since
+ * it is cheaper than handling histograms.
+ * <p>
+ * Border pixels keep the original behavior of a window whose radius is reduced to remain within
+ * the image.
+ * <p>
+ * The image is processed by horizontal bands, in parallel when allowed.
  *
  * @author Hervé Bitteur
  */
 public class MedianGrayFilter
         extends AbstractGrayFilter
 {
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    /** Number of bins in coarse level. */
+    private static final int COARSE = 16;
+
+    /** Number of bins in fine level. */
+    private static final int FINE = 256;
+
+    /** Shift from pixel value to coarse bin. */
+    private static final int SHIFT = 4;
+
     //~ Instance fields ----------------------------------------------------------------------------
 
     /** Desired radius for the filter. */
@@ -60,53 +91,354 @@ public class MedianGrayFilter
     {
         final int width = input.getWidth();
         final int height = input.getHeight();
-        final int[] histogram = new int[256];
-        Arrays.fill(histogram, 0);
+        final byte[] src = (byte[]) input.getPixels();
+        final byte[] dst = (byte[]) output.getPixels();
 
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                // To address specific behavior at image boundaries,
-                // reduce radius to not use pixels outside the image.
-                int rad = radius;
+        if (radius == 0) {
+            System.arraycopy(src, 0, dst, 0, width * height);
+
+            return;
+        }
+
+        ImageBands.process(
+                0,
+                height,
+                2 * radius,
+                new ImageBands.Adapter()
+        {
+            @Override
+            public void processBand (int yStart,
+                                     int yStop)
+            {
+                MedianGrayFilter.this.processBand(src, dst, width, height, yStart, yStop);
+            }
+        });
+    }
+
+    //-------------//
+    // processBand //
+    //-------------//
+    /**
+     * Process the rows [yStart, yStop[.
+     *
+     * @param src    input pixels
+     * @param dst    output pixels
+     * @param width  image width
+     * @param height image height
+     * @param yStart first row of band
+     * @param yStop  row past the last row of band
+     */
+    private void processBand (byte[] src,
+                              byte[] dst,
+                              int width,
+                              int height,
+                              int yStart,
+                              int yStop)
+    {
+        // Range of rows and columns for which the whole window lies within the image
+        final int yInStart = Math.max(yStart, radius);
+        final int yInStop = Math.min(yStop, height - radius);
+        final int xInStart = radius;
+        final int xInStop = width - radius;
+
+        if ((yInStart >= yInStop) || (xInStart >= xInStop)) {
+            // Only border pixels
+            for (int y = yStart; y < yStop; y++) {
+                processBorder(src, dst, width, height, y, 0, width);
+            }
+
+            return;
+        }
+
+        // Top border rows
+        for (int y = yStart; y < yInStart; y++) {
+            processBorder(src, dst, width, height, y, 0, width);
+        }
+
+        // Inner rows
+        if (radius == 1) {
+            processRadiusOne(src, dst, width, yInStart, yInStop);
+        } else {
+            processInner(src, dst, width, yInStart, yInStop);
+        }
+
+        for (int y = yInStart; y < yInStop; y++) {
+            processBorder(src, dst, width, height, y, 0, xInStart);
+            processBorder(src, dst, width, height, y, xInStop, width);
+        }
 
-                if ((x - rad) < 0) {
-                    rad = x;
+        // Bottom border rows
+        for (int y = yInStop; y < yStop; y++) {
+            processBorder(src, dst, width, height, y, 0, width);
+        }
+    }
+
+    //---------------//
+    // processBorder //
+    //---------------//
+    /**
+     * Process the pixels of row y in columns [xStart, xStop[, using a window radius reduced to
+     * not use pixels outside the image.
+     */
+    private void processBorder (byte[] src,
+                                byte[] dst,
+                                int width,
+                                int height,
+                                int y,
+                                int xStart,
+                                int xStop)
+    {
+        final int[] histogram = new int[FINE];
+
+        for (int x = xStart; x < xStop; x++) {
+            // To address specific behavior at image boundaries,
+            // reduce radius to not use pixels outside the image.
+            final int rad = Math.min(
+                    Math.min(radius, Math.min(x, y)),
+                    Math.min(width - 1 - x, height - 1 - y));
+
+            for (int j = y - rad; j <= (y + rad); j++) {
+                final int offset = j * width;
+
+                for (int i = x - rad; i <= (x + rad); i++) {
+                    histogram[src[offset + i] & 0xff]++;
                 }
+            }
+
+            // Pick up the median value
+            final int side = (2 * rad) + 1;
+            final int medianCount = ((side * side) + 1) / 2;
+            int median = -1;
+            int sum = 0;
 
-                if ((y - rad) < 0) {
-                    rad = y;
+            while (sum < medianCount) {
+                sum += histogram[++median];
+            }
+
+            dst[(y * width) + x] = (byte) median;
+
+            for (int j = y - rad; j <= (y + rad); j++) {
+                final int offset = j * width;
+
+                for (int i = x - rad; i <= (x + rad); i++) {
+                    histogram[src[offset + i] & 0xff] = 0;
                 }
+            }
+        }
+    }
+
+    //------------------//
+    // processRadiusOne //
+    //------------------//
+    /**
+     * Process the inner pixels of rows [yStart, yStop[, for the specific 3x3 window.
+     * <p>
+     * Values of each 3-pixel column are sorted, then the median is the median of: the maximum of
+     * column minima, the median of column medians and the minimum of column maxima.
+     */
+    private void processRadiusOne (byte[] src,
+                                   byte[] dst,
+                                   int width,
+                                   int yStart,
+                                   int yStop)
+    {
+        for (int y = yStart; y < yStop; y++) {
+            final int rowOffset = y * width;
+            final int aboveOffset = rowOffset - width;
+            final int belowOffset = rowOffset + width;
 
-                if ((x + rad) >= width) {
-                    rad = width - 1 - x;
+            // Sorted values of left column (lo0, mi0, hi0) and center column (lo1, mi1, hi1)
+            int a = src[aboveOffset] & 0xff;
+            int b = src[rowOffset] & 0xff;
+            int c = src[belowOffset] & 0xff;
+            int lo0 = Math.min(Math.min(a, b), c);
+            int hi0 = Math.max(Math.max(a, b), c);
+            int mi0 = a + b + c - lo0 - hi0;
+
+            a = src[aboveOffset + 1] & 0xff;
+            b = src[rowOffset + 1] & 0xff;
+            c = src[belowOffset + 1] & 0xff;
+
+            int lo1 = Math.min(Math.min(a, b), c);
+            int hi1 = Math.max(Math.max(a, b), c);
+            int mi1 = a + b + c - lo1 - hi1;
+
+            for (int x = 1, xStop = width - 1; x < xStop; x++) {
+                // Right column
+                a = src[aboveOffset + x + 1] & 0xff;
+                b = src[rowOffset + x + 1] & 0xff;
+                c = src[belowOffset + x + 1] & 0xff;
+
+                final int lo2 = Math.min(Math.min(a, b), c);
+                final int hi2 = Math.max(Math.max(a, b), c);
+                final int mi2 = a + b + c - lo2 - hi2;
+
+                final int maxLo = Math.max(Math.max(lo0, lo1), lo2);
+                final int minHi = Math.min(Math.min(hi0, hi1), hi2);
+                final int miMin = Math.min(Math.min(mi0, mi1), mi2);
+                final int miMax = Math.max(Math.max(mi0, mi1), mi2);
+                final int miMed = mi0 + mi1 + mi2 - miMin - miMax;
+
+                final int lo = Math.min(Math.min(maxLo, miMed), minHi);
+                final int hi = Math.max(Math.max(maxLo, miMed), minHi);
+                dst[rowOffset + x] = (byte) (maxLo + miMed + minHi - lo - hi);
+
+                // Shift columns
+                lo0 = lo1;
+                mi0 = mi1;
+                hi0 = hi1;
+                lo1 = lo2;
+                mi1 = mi2;
+                hi1 = hi2;
+            }
+        }
+    }
+
+    //--------------//
+    // processInner //
+    //--------------//
+    /**
+     * Process the inner pixels of rows [yStart, yStop[, that is the pixels whose whole
+     * window lies within the image.
+     */
+    private void processInner (byte[] src,
+                               byte[] dst,
+                               int width,
+                               int yStart,
+                               int yStop)
+    {
+        final int side = (2 * radius) + 1;
+        final int medianCount = ((side * side) + 1) / 2;
+
+        // Column histograms, coarse and fine
+        final int[] colCoarse = new int[width * COARSE];
+        final int[] colFine = new int[width * FINE];
+
+        // Kernel histograms, coarse and fine
+        final int[] coarse = new int[COARSE];
+        final int[] fine = new int[FINE];
+
+        // For each coarse bin, the last window center abscissa of its fine segment update
+        final int[] fineX = new int[COARSE];
+
+        // Initial column histograms, for rows [yStart - radius, yStart + radius]
+        for (int y = yStart - radius; y <= (yStart + radius); y++) {
+            final int offset = y * width;
+
+            for (int x = 0; x < width; x++) {
+                final int val = src[offset + x] & 0xff;
+                colCoarse[(x * COARSE) + (val >> SHIFT)]++;
+                colFine[(x * FINE) + val]++;
+            }
+        }
+
+        for (int y = yStart; y < yStop; y++) {
+            if (y > yStart) {
+                // Move column histograms one row down
+                final int outOffset = (y - radius - 1) * width;
+                final int inOffset = (y + radius) * width;
+
+                for (int x = 0; x < width; x++) {
+                    final int out = src[outOffset + x] & 0xff;
+                    colCoarse[(x * COARSE) + (out >> SHIFT)]--;
+                    colFine[(x * FINE) + out]--;
+
+                    final int in = src[inOffset + x] & 0xff;
+                    colCoarse[(x * COARSE) + (in >> SHIFT)]++;
+                    colFine[(x * FINE) + in]++;
                 }
+            }
+
+            // Initial kernel coarse histogram, for columns [0, 2 * radius - 1]
+            // The fine segments are all out of date
+            Arrays.fill(coarse, 0);
+
+            for (int c = 0; c < (side - 1); c++) {
+                addHistogram(colCoarse, c * COARSE, coarse, 0, COARSE, 1);
+            }
+
+            Arrays.fill(fineX, -side);
+
+            final int rowOffset = y * width;
 
-                if ((y + rad) >= height) {
-                    rad = height - 1 - y;
+            for (int x = radius, xStop = width - radius; x < xStop; x++) {
+                // Column entering the kernel, the leaving column having already been removed
+                addHistogram(colCoarse, (x + radius) * COARSE, coarse, 0, COARSE, 1);
+
+                // Coarse bin of median value
+                int sum = 0;
+                int bin = -1;
+
+                while (sum < medianCount) {
+                    sum += coarse[++bin];
                 }
 
-                Arrays.fill(histogram, 0); // Brute force!
+                sum -= coarse[bin];
 
-                for (int i = x - rad; i <= (x + rad); i++) {
-                    for (int j = y - rad; j <= (y + rad); j++) {
-                        int val = input.get(i, j);
-                        histogram[val]++;
+                // Bring fine segment of this bin up to date
+                final int base = bin << SHIFT;
+                final int last = fineX[bin];
+
+                if ((2 * (x - last)) >= side) {
+                    // Sliding would cost more than recomputing the whole segment
+                    Arrays.fill(fine, base, base + COARSE, 0);
+
+                    for (int c = x - radius; c <= (x + radius); c++) {
+                        addHistogram(colFine, (c * FINE) + base, fine, base, COARSE, 1);
+                    }
+                } else {
+                    // Slide the segment from last update to current abscissa
+                    for (int c = last + 1; c <= x; c++) {
+                        addHistogram(colFine, ((c + radius) * FINE) + base, fine, base, COARSE, 1);
+                        addHistogram(
+                                colFine,
+                                ((c - radius - 1) * FINE) + base,
+                                fine,
+                                base,
+                                COARSE,
+                                -1);
                     }
                 }
 
-                // Pick up the median value
-                final int side = (2 * rad) + 1;
-                final int medianCount = ((side * side) + 1) / 2;
-                int median = 255;
-                int sum = 0;
+                fineX[bin] = x;
+
+                // Pick up the median value within fine segment
+                int median = base - 1;
 
                 while (sum < medianCount) {
-                    sum += histogram[median];
-                    median--;
+                    sum += fine[++median];
                 }
 
-                output.set(x, y, median + 1);
+                dst[rowOffset + x] = (byte) median;
+
+                // Column leaving the kernel
+                addHistogram(colCoarse, (x - radius) * COARSE, coarse, 0, COARSE, -1);
             }
         }
     }
+
+    //--------------//
+    // addHistogram //
+    //--------------//
+    /**
+     * Add (or subtract) a range of source bins to a range of target bins.
+     *
+     * @param source       source bins
+     * @param sourceOffset first source bin
+     * @param target       target bins
+     * @param targetOffset first target bin
+     * @param length       number of bins
+     * @param sign         1 to add, -1 to subtract
+     */
+    private static void addHistogram (int[] source,
+                                      int sourceOffset,
+                                      int[] target,
+                                      int targetOffset,
+                                      int length,
+                                      int sign)
+    {
+        for (int i = 0; i < length; i++) {
+            target[targetOffset + i] += (sign * source[sourceOffset + i]);
+        }
+    }
 }
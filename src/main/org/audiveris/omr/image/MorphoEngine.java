@@ -0,0 +1,628 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                    M o r p h o E n g i n e                                     //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.image;
+
+import ij.process.ByteProcessor;
+
+import java.lang.ref.SoftReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Class {@code MorphoEngine} performs gray-level dilation, erosion, closing and opening
+ * with a flat {@link StructureElement}, in linear time.
+ * <p>
+ * The structure element is decomposed into horizontal runs of points. Points of consecutive rows
+ * which share the same run form a rectangle, so the element is the union of a few rectangles.
+ * Each rectangle is processed as a horizontal pass followed by a vertical pass, each pass using
+ * the van Herk / Gil-Werman running min/max, which costs a constant number of comparisons per
+ * pixel whatever the rectangle size.
+ * The result is then the min/max over the rectangles.
+ * <p>
+ * Output is identical to {@link MorphoProcessor}: pixels outside the image are considered as
+ * 0 for dilation and 255 for erosion.
+ * <p>
+ * Image rows are processed by bands, in parallel when allowed, and all scratch buffers are
+ * per-thread buffers reused from one call to the next.
+ *
+ * @author Hervé Bitteur
+ */
+public class MorphoEngine
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    /** Per-thread intermediate image. */
+    private static final ThreadLocal<SoftReference<byte[]>> images = new ThreadLocal<SoftReference<byte[]>>();
+
+    /** Per-thread band buffers. */
+    private static final ThreadLocal<SoftReference<Scratch>> scratches = new ThreadLocal<SoftReference<Scratch>>();
+
+    //~ Instance fields ----------------------------------------------------------------------------
+
+    /** Distinct horizontal runs of the structure element, with their rectangles. */
+    private final List<Run> runs = new ArrayList<Run>();
+
+    /** Height of the structure element. */
+    private final int seHeight;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new {@code MorphoEngine} object.
+     *
+     * @param se the structure element, which must be flat (all its points valued 255)
+     */
+    public MorphoEngine (StructureElement se)
+    {
+        final int[][] pg = se.getVect();
+
+        if (pg.length == 0) {
+            throw new IllegalArgumentException("Empty structure element");
+        }
+
+        // Bounds of structure element points
+        int dyMin = Integer.MAX_VALUE;
+        int dyMax = Integer.MIN_VALUE;
+        int dxMin = Integer.MAX_VALUE;
+        int dxMax = Integer.MIN_VALUE;
+
+        for (int[] p : pg) {
+            if (p[2] != 255) {
+                throw new IllegalArgumentException("Non-flat structure element");
+            }
+
+            dyMin = Math.min(dyMin, p[0]);
+            dyMax = Math.max(dyMax, p[0]);
+            dxMin = Math.min(dxMin, p[1]);
+            dxMax = Math.max(dxMax, p[1]);
+        }
+
+        seHeight = dyMax - dyMin + 1;
+
+        final int seWidth = dxMax - dxMin + 1;
+        final boolean[] grid = new boolean[seHeight * seWidth];
+
+        for (int[] p : pg) {
+            grid[((p[0] - dyMin) * seWidth) + (p[1] - dxMin)] = true;
+        }
+
+        // Scan each row for its runs, and extend or create the related rectangles
+        for (int dy = dyMin; dy <= dyMax; dy++) {
+            final int offset = (dy - dyMin) * seWidth;
+
+            for (int i = 0; i < seWidth; i++) {
+                if (grid[offset + i]) {
+                    int j = i;
+
+                    while (((j + 1) < seWidth) && grid[offset + j + 1]) {
+                        j++;
+                    }
+
+                    getRun(i + dxMin, j + dxMin).addRow(dy);
+                    i = j;
+                }
+            }
+        }
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //-------//
+    // close //
+    //-------//
+    /**
+     * Performs gray level dilation followed by gray level erosion.
+     *
+     * @param ip the image to process
+     */
+    public void close (ByteProcessor ip)
+    {
+        final byte[] pixels = (byte[]) ip.getPixels();
+        final byte[] tmp = getImage(pixels.length);
+
+        apply(pixels, tmp, ip.getWidth(), ip.getHeight(), true);
+        apply(tmp, pixels, ip.getWidth(), ip.getHeight(), false);
+    }
+
+    //--------//
+    // dilate //
+    //--------//
+    /**
+     * Performs gray level dilation.
+     *
+     * @param ip the image to process
+     */
+    public void dilate (ByteProcessor ip)
+    {
+        final byte[] pixels = (byte[]) ip.getPixels();
+        final byte[] tmp = getImage(pixels.length);
+
+        apply(pixels, tmp, ip.getWidth(), ip.getHeight(), true);
+        System.arraycopy(tmp, 0, pixels, 0, pixels.length);
+    }
+
+    //-------//
+    // erode //
+    //-------//
+    /**
+     * Performs gray level erosion.
+     *
+     * @param ip the image to process
+     */
+    public void erode (ByteProcessor ip)
+    {
+        final byte[] pixels = (byte[]) ip.getPixels();
+        final byte[] tmp = getImage(pixels.length);
+
+        apply(pixels, tmp, ip.getWidth(), ip.getHeight(), false);
+        System.arraycopy(tmp, 0, pixels, 0, pixels.length);
+    }
+
+    //------//
+    // open //
+    //------//
+    /**
+     * Performs gray level erosion followed by gray level dilation.
+     *
+     * @param ip the image to process
+     */
+    public void open (ByteProcessor ip)
+    {
+        final byte[] pixels = (byte[]) ip.getPixels();
+        final byte[] tmp = getImage(pixels.length);
+
+        apply(pixels, tmp, ip.getWidth(), ip.getHeight(), false);
+        apply(tmp, pixels, ip.getWidth(), ip.getHeight(), true);
+    }
+
+    //-------//
+    // apply //
+    //-------//
+    /**
+     * Dilate or erode the whole input image into the output image, band per band.
+     *
+     * @param in     input pixels
+     * @param out    output pixels, distinct from input
+     * @param width  image width
+     * @param height image height
+     * @param max    true for dilation, false for erosion
+     */
+    private void apply (final byte[] in,
+                        final byte[] out,
+                        final int width,
+                        final int height,
+                        final boolean max)
+    {
+        ImageBands.process(
+                0,
+                height,
+                seHeight,
+                new ImageBands.Adapter()
+        {
+            @Override
+            public void processBand (int yStart,
+                                     int yStop)
+            {
+                applyBand(in, out, width, height, max, yStart, yStop);
+            }
+        });
+    }
+
+    //-----------//
+    // applyBand //
+    //-----------//
+    /**
+     * Dilate or erode the rows [yStart, yStop[ of output image.
+     *
+     * @param in     input pixels
+     * @param out    output pixels
+     * @param width  image width
+     * @param height image height
+     * @param max    true for dilation, false for erosion
+     * @param yStart first row to process
+     * @param yStop  row past the last row to process
+     */
+    private void applyBand (byte[] in,
+                            byte[] out,
+                            int width,
+                            int height,
+                            boolean max,
+                            int yStart,
+                            int yStop)
+    {
+        final Scratch scratch = getScratch();
+        final int identity = max ? 0 : 255;
+        boolean first = true;
+
+        for (Run run : runs) {
+            // Horizontal pass on all input rows needed by the run rectangles
+            final int hStart = yStart + run.dyMin;
+            final int hStop = yStop + run.dyMax;
+            final byte[] hor = scratch.hor = ensure(scratch.hor, (hStop - hStart) * width);
+
+            for (int y = hStart; y < hStop; y++) {
+                final int offset = (y - hStart) * width;
+
+                if ((y < 0) || (y >= height)) {
+                    Arrays.fill(hor, offset, offset + width, (byte) identity);
+                } else {
+                    horizontal(in, y * width, hor, offset, width, run, max, identity, scratch);
+                }
+            }
+
+            // Vertical pass for each run rectangle
+            for (int i = 0; i < run.dys.size(); i += 2) {
+                vertical(
+                        hor,
+                        hStart,
+                        out,
+                        width,
+                        run.dys.get(i),
+                        run.dys.get(i + 1),
+                        max,
+                        first,
+                        yStart,
+                        yStop,
+                        scratch);
+                first = false;
+            }
+        }
+    }
+
+    //--------//
+    // getRun //
+    //--------//
+    private Run getRun (int dxMin,
+                        int dxMax)
+    {
+        for (Run run : runs) {
+            if ((run.dxMin == dxMin) && (run.dxMax == dxMax)) {
+                return run;
+            }
+        }
+
+        final Run run = new Run(dxMin, dxMax);
+        runs.add(run);
+
+        return run;
+    }
+
+    //------------//
+    // horizontal //
+    //------------//
+    /**
+     * Running min/max of one row, over the abscissa window of the provided run.
+     *
+     * @param in        input pixels
+     * @param inOffset  offset of row in input
+     * @param out       output buffer
+     * @param outOffset offset of row in output
+     * @param width     row length
+     * @param run       the horizontal run
+     * @param max       true for max, false for min
+     * @param identity  value for pixels outside the row
+     * @param scratch   band buffers
+     */
+    private void horizontal (byte[] in,
+                             int inOffset,
+                             byte[] out,
+                             int outOffset,
+                             int width,
+                             Run run,
+                             boolean max,
+                             int identity,
+                             Scratch scratch)
+    {
+        final int a = run.dxMin;
+        final int len = run.dxMax - a + 1;
+
+        if (len == 1) {
+            for (int x = 0; x < width; x++) {
+                final int ix = x + a;
+                out[outOffset + x] = ((ix >= 0) && (ix < width)) ? in[inOffset + ix]
+                        : (byte) identity;
+            }
+
+            return;
+        }
+
+        // Padded row: pad[i] is the pixel at abscissa i + a
+        final int n = (width + len) - 1;
+        final int[] pad = scratch.pad = ensure(scratch.pad, n);
+        final int[] g = scratch.g = ensure(scratch.g, n);
+        final int[] h = scratch.h = ensure(scratch.h, n);
+
+        for (int i = 0; i < n; i++) {
+            final int ix = i + a;
+            pad[i] = ((ix >= 0) && (ix < width)) ? (in[inOffset + ix] & 0xff) : identity;
+        }
+
+        // Prefix (g) and suffix (h) values within each block of len items
+        for (int start = 0; start < n; start += len) {
+            final int stop = Math.min(start + len, n) - 1;
+            g[start] = pad[start];
+
+            for (int i = start + 1; i <= stop; i++) {
+                g[i] = max ? Math.max(g[i - 1], pad[i]) : Math.min(g[i - 1], pad[i]);
+            }
+
+            h[stop] = pad[stop];
+
+            for (int i = stop - 1; i >= start; i--) {
+                h[i] = max ? Math.max(h[i + 1], pad[i]) : Math.min(h[i + 1], pad[i]);
+            }
+        }
+
+        for (int x = 0; x < width; x++) {
+            final int i = (x + len) - 1;
+            out[outOffset + x] = (byte) (max ? Math.max(h[x], g[i]) : Math.min(h[x], g[i]));
+        }
+    }
+
+    //----------//
+    // vertical //
+    //----------//
+    /**
+     * Running min/max over the ordinate window [dy0, dy1] of the horizontal results, combined
+     * into output rows [yStart, yStop[.
+     *
+     * @param hor     horizontal results, starting at row hStart
+     * @param hStart  first row in hor
+     * @param out     output pixels
+     * @param width   image width
+     * @param dy0     window top, relative to output row
+     * @param dy1     window bottom, relative to output row
+     * @param max     true for max, false for min
+     * @param first   true if output rows are to be written rather than combined
+     * @param yStart  first output row
+     * @param yStop   output row past the last row
+     * @param scratch band buffers
+     */
+    private void vertical (byte[] hor,
+                           int hStart,
+                           byte[] out,
+                           int width,
+                           int dy0,
+                           int dy1,
+                           boolean max,
+                           boolean first,
+                           int yStart,
+                           int yStop,
+                           Scratch scratch)
+    {
+        final int len = dy1 - dy0 + 1;
+        final byte[] g;
+        final byte[] h;
+        final int lo = yStart + dy0;
+
+        if (len == 1) {
+            g = h = hor;
+        } else {
+            // Prefix (g) and suffix (h) rows within each block of len rows, starting at lo
+            final int hi = (yStop - 1) + dy1;
+            final int size = (hi - lo + 1) * width;
+            g = scratch.vg = ensure(scratch.vg, size);
+            h = scratch.vh = ensure(scratch.vh, size);
+
+            for (int start = lo; start <= hi; start += len) {
+                final int stop = Math.min(start + len - 1, hi);
+                System.arraycopy(hor, (start - hStart) * width, g, (start - lo) * width, width);
+
+                for (int y = start + 1; y <= stop; y++) {
+                    combine(g, (y - 1 - lo) * width, hor, (y - hStart) * width, g,
+                            (y - lo) * width, width, max);
+                }
+
+                System.arraycopy(hor, (stop - hStart) * width, h, (stop - lo) * width, width);
+
+                for (int y = stop - 1; y >= start; y--) {
+                    combine(h, (y + 1 - lo) * width, hor, (y - hStart) * width, h,
+                            (y - lo) * width, width, max);
+                }
+            }
+        }
+
+        // With a single row window, g and h are the hor buffer itself
+        final int base = (len == 1) ? hStart : lo;
+        final byte[] row = first ? null : (scratch.row = ensure(scratch.row, width));
+
+        for (int y = yStart; y < yStop; y++) {
+            final int hOffset = ((y + dy0) - base) * width;
+            final int gOffset = ((y + dy1) - base) * width;
+            final int outOffset = y * width;
+
+            if (first) {
+                combine(h, hOffset, g, gOffset, out, outOffset, width, max);
+            } else {
+                // Combine with previous rectangles, already in output
+                combine(h, hOffset, g, gOffset, row, 0, width, max);
+                combine(out, outOffset, row, 0, out, outOffset, width, max);
+            }
+        }
+    }
+
+    //---------//
+    // combine //
+    //---------//
+    /**
+     * Write the min/max of two rows of pixels.
+     */
+    private static void combine (byte[] a,
+                                 int aOffset,
+                                 byte[] b,
+                                 int bOffset,
+                                 byte[] out,
+                                 int outOffset,
+                                 int width,
+                                 boolean max)
+    {
+        if (max) {
+            for (int x = 0; x < width; x++) {
+                out[outOffset + x] = (byte) Math.max(a[aOffset + x] & 0xff, b[bOffset + x] & 0xff);
+            }
+        } else {
+            for (int x = 0; x < width; x++) {
+                out[outOffset + x] = (byte) Math.min(a[aOffset + x] & 0xff, b[bOffset + x] & 0xff);
+            }
+        }
+    }
+
+    //--------//
+    // ensure //
+    //--------//
+    private static byte[] ensure (byte[] buffer,
+                                  int size)
+    {
+        return ((buffer == null) || (buffer.length < size)) ? new byte[size] : buffer;
+    }
+
+    //--------//
+    // ensure //
+    //--------//
+    private static int[] ensure (int[] buffer,
+                                 int size)
+    {
+        return ((buffer == null) || (buffer.length < size)) ? new int[size] : buffer;
+    }
+
+    //----------//
+    // getImage //
+    //----------//
+    /**
+     * Report an intermediate image buffer of at least the provided size, reusing the
+     * current thread buffer if still available and large enough.
+     *
+     * @param size the minimum size
+     * @return the image buffer
+     */
+    private static byte[] getImage (int size)
+    {
+        final SoftReference<byte[]> ref = images.get();
+        byte[] buffer = (ref != null) ? ref.get() : null;
+
+        if ((buffer == null) || (buffer.length < size)) {
+            buffer = new byte[size];
+            images.set(new SoftReference<byte[]>(buffer));
+        }
+
+        return buffer;
+    }
+
+    //------------//
+    // getScratch //
+    //------------//
+    /**
+     * Report the band buffers of current thread, reused if still available.
+     *
+     * @return the band buffers
+     */
+    private static Scratch getScratch ()
+    {
+        final SoftReference<Scratch> ref = scratches.get();
+        Scratch scratch = (ref != null) ? ref.get() : null;
+
+        if (scratch == null) {
+            scratch = new Scratch();
+            scratches.set(new SoftReference<Scratch>(scratch));
+        }
+
+        return scratch;
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-----//
+    // Run //
+    //-----//
+    /**
+     * A horizontal run of structure element points, with the rows where it appears.
+     */
+    private static class Run
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        /** Run abscissae, relative to element center. */
+        final int dxMin;
+
+        final int dxMax;
+
+        /** Sequence of [dy0, dy1] pairs, one per rectangle of consecutive rows. */
+        final List<Integer> dys = new ArrayList<Integer>();
+
+        /** Ordinate range of all rows. */
+        int dyMin = Integer.MAX_VALUE;
+
+        int dyMax = Integer.MIN_VALUE;
+
+        //~ Constructors ---------------------------------------------------------------------------
+        Run (int dxMin,
+             int dxMax)
+        {
+            this.dxMin = dxMin;
+            this.dxMax = dxMax;
+        }
+
+        //~ Methods --------------------------------------------------------------------------------
+        /** Add a row, rows being added in increasing order. */
+        void addRow (int dy)
+        {
+            final int last = dys.size() - 1;
+
+            if ((last > 0) && (dys.get(last) == (dy - 1))) {
+                dys.set(last, dy); // Extend current rectangle
+            } else {
+                dys.add(dy);
+                dys.add(dy);
+            }
+
+            dyMin = Math.min(dyMin, dy);
+            dyMax = Math.max(dyMax, dy);
+        }
+    }
+
+    //---------//
+    // Scratch //
+    //---------//
+    /**
+     * Buffers used by one thread to process a band.
+     */
+    private static class Scratch
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        /** Horizontal results. */
+        byte[] hor;
+
+        /** Vertical prefix and suffix rows. */
+        byte[] vg;
+
+        byte[] vh;
+
+        /** Row of current rectangle, before combination with output. */
+        byte[] row;
+
+        /** Padded row, horizontal prefix and suffix values. */
+        int[] pad;
+
+        int[] g;
+
+        int[] h;
+    }
+}
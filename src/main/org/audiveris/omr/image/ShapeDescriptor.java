@@ -119,6 +119,23 @@ public class ShapeDescriptor
         template = createTemplate(shape, interline);
     }
 
+    /**
+     * Creates a ShapeDescriptor object around an already available template.
+     *
+     * @param interline global scale value
+     * @param template  the template (typically restored from disk)
+     */
+    ShapeDescriptor (int interline,
+                     Template template)
+    {
+        this.shape = template.getShape();
+        this.interline = interline;
+        this.template = template;
+
+        width = template.getWidth();
+        height = template.getHeight();
+    }
+
     //~ Methods ------------------------------------------------------------------------------------
     //----------//
     // evaluate //
@@ -304,7 +321,13 @@ public class ShapeDescriptor
     //---------//
     // getCode //
     //---------//
-    private static int getCode (Shape shape)
+    /**
+     * Report the MusicFont code used for the provided template shape.
+     *
+     * @param shape template shape
+     * @return the font code
+     */
+    static int getCode (Shape shape)
     {
         switch (shape) {
         case NOTEHEAD_BLACK:
@@ -367,6 +390,22 @@ public class ShapeDescriptor
         return keyPoints;
     }
 
+    //--------------//
+    // getSignature //
+    //--------------//
+    /**
+     * Report a signature of all parameters that impact template construction.
+     * Any change in this signature invalidates templates built beforehand.
+     *
+     * @return the construction parameters, as a string
+     */
+    static String getSignature ()
+    {
+        return "stemDx=" + constants.stemDx.getValue() + ";stemDy=" + constants.stemDy.getValue()
+               + ";voidExtent=" + MusicFont.NOTEHEAD_VOID_EXTENT + ";smallRatio="
+               + Template.smallRatio;
+    }
+
     //------------//
     // addAnchors //
     //------------//
@@ -191,6 +191,16 @@ public interface Table
             }
         }
 
+        /**
+         * Report whether this table is a view on another table.
+         *
+         * @return true if view
+         */
+        public boolean isView ()
+        {
+            return roi != null;
+        }
+
         protected final void checkRoi (Rectangle roi)
         {
             if ((roi.x < 0) || ((roi.x + roi.width) > width)) {
@@ -121,6 +121,36 @@ public class Template
                      int width,
                      int height,
                      List<PixelDistance> keyPoints)
+    {
+        this(
+                shape,
+                interline,
+                symbol,
+                width,
+                height,
+                keyPoints,
+                symbol.getSymbolBounds(MusicFont.getFont(interline)));
+    }
+
+    /**
+     * Creates a new Template object with a provided set of points and already known
+     * symbol bounds (this avoids any font access).
+     *
+     * @param shape        the template specified shape
+     * @param interline    scaling factor
+     * @param symbol       underlying symbol
+     * @param width        template width
+     * @param height       template height
+     * @param keyPoints    the set of defining points
+     * @param symbolBounds symbol bounds within template
+     */
+    Template (Shape shape,
+              int interline,
+              TemplateSymbol symbol,
+              int width,
+              int height,
+              List<PixelDistance> keyPoints,
+              Rectangle symbolBounds)
     {
         this.shape = shape;
         this.interline = interline;
@@ -128,8 +158,7 @@ public class Template
         this.keyPoints = new ArrayList<PixelDistance>(keyPoints);
         this.width = width;
         this.height = height;
-
-        symbolBounds = new Rectangle(symbol.getSymbolBounds(MusicFont.getFont(interline)));
+        this.symbolBounds = new Rectangle(symbolBounds);
     }
 
     //~ Methods ------------------------------------------------------------------------------------
@@ -146,6 +175,27 @@ public class Template
                 new Point((int) Math.rint(xRatio * width), (int) Math.rint(yRatio * height)));
     }
 
+    //---------//
+    // compile //
+    //---------//
+    /**
+     * Compile this template into a kernel bound to the provided distance table, for
+     * massive evaluations.
+     *
+     * @param distances the distance table to search
+     * @return the compiled kernel
+     * @see #evaluate(int, int, Anchor, DistanceTable)
+     */
+    public TemplateKernel compile (DistanceTable distances)
+    {
+        return new TemplateKernel(
+                this,
+                keyPoints,
+                constants.foreWeight.getValue(),
+                constants.backWeight.getValue(),
+                distances);
+    }
+
     //------//
     // dump //
     //------//
@@ -406,6 +456,19 @@ public class Template
         return offset;
     }
 
+    //------------//
+    // getOffsets //
+    //------------//
+    /**
+     * Report all defined anchor offsets.
+     *
+     * @return the (unmodifiable) map of anchor offsets
+     */
+    Map<Anchor, Point> getOffsets ()
+    {
+        return Collections.unmodifiableMap(offsets);
+    }
+
     //----------//
     // getShape //
     //----------//
@@ -474,6 +537,21 @@ public class Template
         return width;
     }
 
+    //-----------//
+    // setOffset //
+    //-----------//
+    /**
+     * Directly set the offset for an anchor (used when template is restored from disk).
+     *
+     * @param anchor the anchor kind
+     * @param offset translation from template upper left corner to anchor location
+     */
+    void setOffset (Anchor anchor,
+                    Point offset)
+    {
+        offsets.put(anchor, new Point(offset));
+    }
+
     //----------//
     // toString //
     //----------//
@@ -21,6 +21,8 @@
 // </editor-fold>
 package org.audiveris.omr.image;
 
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
 import org.audiveris.omr.glyph.Shape;
 import org.audiveris.omr.glyph.ShapeSet;
 
@@ -28,12 +30,17 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.EnumMap;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
  * Class {@code TemplateFactory} builds needed instances of {@link Template} class
  * and keeps a catalog per desired size and shape.
+ * <p>
+ * Catalogs are kept in memory, up to a maximum number of catalogs, the least recently used one
+ * being evicted first.
+ * They are also persisted on disk (see {@link TemplateStore}), so that a new JVM can reload them
+ * rather than build them again.
  *
  * @author Hervé Bitteur
  */
@@ -41,6 +48,8 @@ public class TemplateFactory
 {
     //~ Static fields/initializers -----------------------------------------------------------------
 
+    private static final Constants constants = new Constants();
+
     private static final Logger logger = LoggerFactory.getLogger(TemplateFactory.class);
 
     /** Singleton. */
@@ -48,7 +57,7 @@ public class TemplateFactory
 
     //~ Instance fields ----------------------------------------------------------------------------
     //
-    /** Catalog of all templates already allocated. */
+    /** Catalogs in memory, in access order. */
     private final Map<Integer, Catalog> allSizes;
 
     //~ Constructors -------------------------------------------------------------------------------
@@ -57,7 +66,20 @@ public class TemplateFactory
      */
     private TemplateFactory ()
     {
-        allSizes = new HashMap<Integer, Catalog>();
+        allSizes = new LinkedHashMap<Integer, Catalog>(16, 0.75f, true)
+        {
+            @Override
+            protected boolean removeEldestEntry (Map.Entry<Integer, Catalog> eldest)
+            {
+                if (size() > constants.maxCatalogs.getValue()) {
+                    logger.debug("Evicting templates catalog for interline {}", eldest.getKey());
+
+                    return true;
+                }
+
+                return false;
+            }
+        };
     }
 
     //~ Methods ------------------------------------------------------------------------------------
@@ -81,23 +103,66 @@ public class TemplateFactory
     public Catalog getCatalog (int interline)
     {
         ///interline += 1; // HORRIBLE TRICK TO BE REMOVED ASAP!!!!!!!!!!!!!!!!!!!!!!!!!
-        Catalog catalog = allSizes.get(interline);
+        // NOTA: Access-ordered map is modified by any get(), hence access is always synchronized
+        synchronized (allSizes) {
+            Catalog catalog = allSizes.get(interline);
 
-        if (catalog == null) {
-            synchronized (allSizes) {
-                catalog = allSizes.get(interline);
+            if (catalog == null) {
+                catalog = loadOrBuild(interline);
+                allSizes.put(interline, catalog);
+            }
 
-                if (catalog == null) {
-                    catalog = new Catalog(interline);
-                    allSizes.put(interline, catalog);
-                }
+            return catalog;
+        }
+    }
+
+    //-------------//
+    // loadOrBuild //
+    //-------------//
+    /**
+     * Reload catalog from disk if possible, otherwise build it and save it on disk.
+     *
+     * @param interline provided interline
+     * @return the catalog
+     */
+    private Catalog loadOrBuild (int interline)
+    {
+        if (constants.persistCatalogs.isSet()) {
+            Map<Shape, ShapeDescriptor> descriptors = TemplateStore.load(interline);
+
+            if (descriptors != null) {
+                return new Catalog(interline, descriptors);
             }
         }
 
+        Catalog catalog = new Catalog(interline);
+
+        if (constants.persistCatalogs.isSet()) {
+            TemplateStore.save(interline, catalog.descriptors);
+        }
+
         return catalog;
     }
 
     //~ Inner Classes ------------------------------------------------------------------------------
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final Constant.Integer maxCatalogs = new Constant.Integer(
+                "catalogs",
+                8,
+                "Maximum number of templates catalogs kept in memory");
+
+        private final Constant.Boolean persistCatalogs = new Constant.Boolean(
+                true,
+                "Should templates catalogs be saved on disk and reloaded from disk?");
+    }
+
     //---------//
     // Catalog //
     //---------//
@@ -122,6 +187,19 @@ public class TemplateFactory
             buildAllTemplates();
         }
 
+        /**
+         * Create a catalog with already available descriptors.
+         *
+         * @param interline   interline value
+         * @param descriptors the descriptors (typically reloaded from disk)
+         */
+        Catalog (int interline,
+                 Map<Shape, ShapeDescriptor> descriptors)
+        {
+            this.interline = interline;
+            this.descriptors.putAll(descriptors);
+        }
+
         //~ Methods --------------------------------------------------------------------------------
         //---------------//
         // getDescriptor //
@@ -0,0 +1,426 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                  T e m p l a t e K e r n e l                                   //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.image;
+
+import org.audiveris.omr.image.Anchored.Anchor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.awt.Point;
+import java.util.List;
+
+/**
+ * Class {@code TemplateKernel} is a compiled form of a {@link Template}, bound to a
+ * given {@link DistanceTable}, meant for massive evaluations.
+ * <p>
+ * Template key points are flattened into parallel arrays, and their locations are
+ * pre-computed as offsets in the raw distance data (using table width as stride).
+ * Whenever the template box lies entirely within the table, evaluation runs as a tight loop
+ * on raw data with no per-point bounds check.
+ * Otherwise, it falls back to a bounds-checked loop, just like {@link Template#evaluate}.
+ * <p>
+ * Evaluation can be given an upper bound on acceptable distance: as soon as the partial sum of
+ * weighted squared distances guarantees the final distance to exceed this bound, evaluation is
+ * abandoned and {@link Double#POSITIVE_INFINITY} is returned.
+ * Apart from this early abandon, results are identical to {@link Template#evaluate}.
+ *
+ * @author Hervé Bitteur
+ */
+public class TemplateKernel
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Logger logger = LoggerFactory.getLogger(TemplateKernel.class);
+
+    //~ Instance fields ----------------------------------------------------------------------------
+    /** The template compiled. */
+    private final Template template;
+
+    /** Key points abscissae, relative to template upper left corner. */
+    private final int[] xs;
+
+    /** Key points ordinates, relative to template upper left corner. */
+    private final int[] ys;
+
+    /** Key points offsets in raw distance data, relative to template upper left corner. */
+    private final int[] offsets;
+
+    /** Expected distance for each key point. */
+    private final double[] expected;
+
+    /** Weight for each key point. */
+    private final double[] weights;
+
+    /** Sum of all weights. */
+    private final double totalWeight;
+
+    /** Key points bounds, relative to template upper left corner. */
+    private final int xMin;
+
+    private final int xMax;
+
+    private final int yMin;
+
+    private final int yMax;
+
+    /** The distance table. */
+    private final DistanceTable distances;
+
+    private final int tableWidth;
+
+    private final int tableHeight;
+
+    private final double normalizer;
+
+    /** Raw data, if table is a Short table (and not a view). */
+    private final short[] shortValues;
+
+    /** Raw data, if table is an Integer table (and not a view). */
+    private final int[] intValues;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new {@code TemplateKernel} object.
+     *
+     * @param template   the template to compile
+     * @param keyPoints  the template key points
+     * @param foreWeight weight for expected foreground
+     * @param backWeight weight for expected background
+     * @param distances  the distance table to bind to
+     */
+    TemplateKernel (Template template,
+                    List<PixelDistance> keyPoints,
+                    double foreWeight,
+                    double backWeight,
+                    DistanceTable distances)
+    {
+        this.template = template;
+        this.distances = distances;
+
+        tableWidth = distances.getWidth();
+        tableHeight = distances.getHeight();
+        normalizer = distances.getNormalizer();
+
+        if ((distances instanceof DistanceTable.Short)
+            && !((DistanceTable.Short) distances).isView()) {
+            shortValues = ((DistanceTable.Short) distances).getValues();
+            intValues = null;
+        } else if ((distances instanceof DistanceTable.Integer)
+                   && !((DistanceTable.Integer) distances).isView()) {
+            shortValues = null;
+            intValues = ((DistanceTable.Integer) distances).getValues();
+        } else {
+            shortValues = null;
+            intValues = null;
+        }
+
+        final int count = keyPoints.size();
+        xs = new int[count];
+        ys = new int[count];
+        offsets = new int[count];
+        expected = new double[count];
+        weights = new double[count];
+
+        int xLow = Integer.MAX_VALUE;
+        int xHigh = Integer.MIN_VALUE;
+        int yLow = Integer.MAX_VALUE;
+        int yHigh = Integer.MIN_VALUE;
+        double total = 0;
+
+        for (int i = 0; i < count; i++) {
+            final PixelDistance pix = keyPoints.get(i);
+            xs[i] = pix.x;
+            ys[i] = pix.y;
+            offsets[i] = (pix.y * tableWidth) + pix.x;
+            expected[i] = pix.d;
+            // pix.d == 0 for expected foreground
+            // pix.d > 0 for expected background (expected distance to nearest foreground)
+            weights[i] = (pix.d > 0) ? backWeight : foreWeight;
+            total += weights[i];
+            xLow = Math.min(xLow, pix.x);
+            xHigh = Math.max(xHigh, pix.x);
+            yLow = Math.min(yLow, pix.y);
+            yHigh = Math.max(yHigh, pix.y);
+        }
+
+        totalWeight = total;
+        xMin = xLow;
+        xMax = xHigh;
+        yMin = yLow;
+        yMax = yHigh;
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //----------//
+    // evaluate //
+    //----------//
+    /**
+     * Evaluate the template at location (x,y).
+     *
+     * @param x           location abscissa
+     * @param y           location ordinate
+     * @param anchor      the anchor kind to use for (x,y), null for upper left
+     * @param maxDistance upper bound on interesting distance, POSITIVE_INFINITY for no bound
+     * @return the quadratic average distance, or POSITIVE_INFINITY if evaluation was abandoned
+     *         because distance would exceed maxDistance
+     */
+    public double evaluate (int x,
+                            int y,
+                            Anchor anchor,
+                            double maxDistance)
+    {
+        final Point offset = getAnchorOffset(anchor);
+
+        return evaluateAt(x - offset.x, y - offset.y, getLimit(maxDistance));
+    }
+
+    //----------------//
+    // evaluateColumn //
+    //----------------//
+    /**
+     * Evaluate the template at a column of locations, all sharing the same abscissa.
+     * <p>
+     * If 'skips' array is provided, any location with a true 'skips' entry is not evaluated and
+     * its result is set to NaN.
+     *
+     * @param x           locations abscissa
+     * @param yValues     locations ordinates
+     * @param skips       locations to skip, null for none
+     * @param anchor      the anchor kind to use for all locations, null for upper left
+     * @param maxDistance upper bound on interesting distance, POSITIVE_INFINITY for no bound
+     * @param results     (output) array to be filled with distance for each location,
+     *                    POSITIVE_INFINITY for an abandoned evaluation
+     * @return the number of locations actually evaluated
+     */
+    public int evaluateColumn (int x,
+                               int[] yValues,
+                               boolean[] skips,
+                               Anchor anchor,
+                               double maxDistance,
+                               double[] results)
+    {
+        final Point offset = getAnchorOffset(anchor);
+        final int ulx = x - offset.x;
+        final double limit = getLimit(maxDistance);
+        int evals = 0;
+
+        for (int i = 0; i < yValues.length; i++) {
+            if ((skips != null) && skips[i]) {
+                results[i] = Double.NaN;
+            } else {
+                results[i] = evaluateAt(ulx, yValues[i] - offset.y, limit);
+                evals++;
+            }
+        }
+
+        return evals;
+    }
+
+    //---------------//
+    // getLowerBound //
+    //---------------//
+    /**
+     * Report a lower bound of the distances at all locations of a column, that is
+     * (x, y), (x, y + 1), ..., (x, y + height - 1) where height is the ranges window height.
+     * <p>
+     * For any location in column, a key point which falls on a window with a known range
+     * [min, max] has its actual distance value within this range, and thus contributes at least
+     * weight * gap^2 to the total, gap being the distance from expected value to the range.
+     * Key points on a window with no range may be ignored at some location of the column, hence
+     * they contribute nothing to the bound.
+     * Finally, the sum of weights at any location cannot exceed the sum of all weights.
+     * <p>
+     * Hence, if the bound exceeds some distance, no location in the column can be within this
+     * distance.
+     *
+     * @param ranges the windowed ranges, built on the same distance table as this kernel
+     * @param x      column abscissa
+     * @param y      column top ordinate
+     * @param anchor the anchor kind to use for all locations, null for upper left
+     * @return the lower bound of distances in column
+     */
+    public double getLowerBound (DistanceRanges ranges,
+                                 int x,
+                                 int y,
+                                 Anchor anchor)
+    {
+        final Point offset = getAnchorOffset(anchor);
+        final int ulx = x - offset.x;
+        final int uly = y - offset.y;
+        double total = 0; // Sum of weighted squared gaps
+
+        for (int i = 0; i < offsets.length; i++) {
+            final int min = ranges.getMin(ulx + xs[i], uly + ys[i]);
+
+            if (min != ChamferDistance.VALUE_UNKNOWN) {
+                final double gap;
+
+                if (expected[i] < min) {
+                    gap = min - expected[i];
+                } else {
+                    final int max = ranges.getMax(ulx + xs[i], uly + ys[i]);
+                    gap = (expected[i] > max) ? (expected[i] - max) : 0;
+                }
+
+                total += (weights[i] * (gap * gap));
+            }
+        }
+
+        return Math.sqrt(total / totalWeight) / normalizer;
+    }
+
+    //-------------//
+    // getTemplate //
+    //-------------//
+    /**
+     * Report the underlying template.
+     *
+     * @return the template
+     */
+    public Template getTemplate ()
+    {
+        return template;
+    }
+
+    //------------//
+    // evaluateAt //
+    //------------//
+    /**
+     * Evaluate with template upper left corner at (ulx, uly).
+     *
+     * @param ulx   upper left abscissa
+     * @param uly   upper left ordinate
+     * @param limit upper bound on sum of weighted squared raw distances
+     * @return the distance, or POSITIVE_INFINITY if abandoned
+     */
+    private double evaluateAt (int ulx,
+                               int uly,
+                               double limit)
+    {
+        final boolean inside = ((ulx + xMin) >= 0) && ((ulx + xMax) < tableWidth)
+                               && ((uly + yMin) >= 0) && ((uly + yMax) < tableHeight);
+        final int count = offsets.length;
+        double weightSum = 0; // Sum of weights
+        double total = 0; // Sum of weighted squared distances
+
+        if (inside && (shortValues != null)) {
+            final int base = (uly * tableWidth) + ulx;
+
+            for (int i = 0; i < count; i++) {
+                final int actualDist = shortValues[base + offsets[i]];
+
+                // Ignore neutralized locations in distance table
+                if (actualDist != ChamferDistance.VALUE_UNKNOWN) {
+                    final double dist = actualDist - expected[i];
+                    total += (weights[i] * (dist * dist));
+                    weightSum += weights[i];
+
+                    if (total > limit) {
+                        return Double.POSITIVE_INFINITY;
+                    }
+                }
+            }
+        } else if (inside && (intValues != null)) {
+            final int base = (uly * tableWidth) + ulx;
+
+            for (int i = 0; i < count; i++) {
+                final int actualDist = intValues[base + offsets[i]];
+
+                if (actualDist != ChamferDistance.VALUE_UNKNOWN) {
+                    final double dist = actualDist - expected[i];
+                    total += (weights[i] * (dist * dist));
+                    weightSum += weights[i];
+
+                    if (total > limit) {
+                        return Double.POSITIVE_INFINITY;
+                    }
+                }
+            }
+        } else {
+            // Bounds-checked loop on generic table access
+            for (int i = 0; i < count; i++) {
+                final int nx = ulx + xs[i];
+                final int ny = uly + ys[i];
+
+                // Ignore tested point if located out of image
+                if ((nx >= 0) && (nx < tableWidth) && (ny >= 0) && (ny < tableHeight)) {
+                    final int actualDist = distances.getValue(nx, ny);
+
+                    if (actualDist != ChamferDistance.VALUE_UNKNOWN) {
+                        final double dist = actualDist - expected[i];
+                        total += (weights[i] * (dist * dist));
+                        weightSum += weights[i];
+
+                        if (total > limit) {
+                            return Double.POSITIVE_INFINITY;
+                        }
+                    }
+                }
+            }
+        }
+
+        return Math.sqrt(total / weightSum) / normalizer;
+    }
+
+    //-----------------//
+    // getAnchorOffset //
+    //-----------------//
+    private Point getAnchorOffset (Anchor anchor)
+    {
+        if (anchor != null) {
+            final Point offset = template.getOffset(anchor);
+
+            if (offset != null) {
+                return offset;
+            }
+
+            logger.error("No {} anchor defined for {} template", anchor, template.getShape());
+        }
+
+        return new Point(0, 0);
+    }
+
+    //----------//
+    // getLimit //
+    //----------//
+    /**
+     * Translate a distance bound into a bound on sum of weighted squared raw distances.
+     * <p>
+     * Since final distance is sqrt(total / weights) / normalizer, and weights cannot exceed the
+     * sum of all key point weights, a partial total beyond
+     * (maxDistance * normalizer)^2 * totalWeight guarantees a distance beyond maxDistance.
+     *
+     * @param maxDistance upper bound on distance
+     * @return upper bound on total
+     */
+    private double getLimit (double maxDistance)
+    {
+        if (Double.isInfinite(maxDistance)) {
+            return Double.POSITIVE_INFINITY;
+        }
+
+        final double raw = maxDistance * normalizer;
+
+        return raw * raw * totalWeight;
+    }
+}
@@ -0,0 +1,429 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                   T e m p l a t e S t o r e                                    //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.image;
+
+import org.audiveris.omr.WellKnowns;
+import org.audiveris.omr.glyph.Shape;
+import org.audiveris.omr.glyph.ShapeSet;
+import org.audiveris.omr.image.Anchored.Anchor;
+import org.audiveris.omr.ui.symbol.MusicFont;
+import org.audiveris.omr.ui.symbol.TemplateSymbol;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Class {@code TemplateStore} keeps template catalogs on disk, so that a new JVM can
+ * skip the costly construction of templates (font rendering, distance transform, key points).
+ * <p>
+ * There is one binary file per interline value, in the 'templates' sub-folder of user config
+ * folder.
+ * The file name contains a key computed on the music font and on all parameters that impact
+ * template construction, so that any change in these items simply leads to new files.
+ * Files are read via memory-mapping.
+ *
+ * @author Hervé Bitteur
+ */
+abstract class TemplateStore
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Logger logger = LoggerFactory.getLogger(TemplateStore.class);
+
+    /** Folder for catalog files. */
+    private static final Path FOLDER = WellKnowns.CONFIG_FOLDER.resolve("templates");
+
+    /** Prefix for catalog file name. */
+    private static final String PREFIX = "catalog-";
+
+    /** Extension for catalog file name. */
+    private static final String EXTENSION = ".bin";
+
+    /** Magic number at beginning of a catalog file: "TPLC". */
+    private static final int MAGIC = 0x54504C43;
+
+    /** Current version of binary format. */
+    private static final byte VERSION = 1;
+
+    /** Key on font and construction parameters, lazily computed. */
+    private static volatile String key;
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //------//
+    // load //
+    //------//
+    /**
+     * Load the descriptors of the catalog for provided interline, if available on disk.
+     *
+     * @param interline the catalog interline
+     * @return the descriptors, or null if not available
+     */
+    static Map<Shape, ShapeDescriptor> load (int interline)
+    {
+        final Path path = getPath(interline);
+
+        if (!Files.exists(path)) {
+            return null;
+        }
+
+        try {
+            final Map<Shape, ShapeDescriptor> descriptors = read(path, interline);
+            logger.debug("Loaded templates catalog from {}", path);
+
+            return descriptors;
+        } catch (IOException ex) {
+            logger.warn("Could not load templates catalog {} {}", path, ex.toString());
+
+            return null;
+        }
+    }
+
+    //------//
+    // read //
+    //------//
+    /**
+     * Read catalog descriptors from the provided file, via memory-mapping.
+     *
+     * @param path      the catalog file
+     * @param interline the expected catalog interline
+     * @return the descriptors read
+     * @throws IOException if file cannot be read or is not a valid complete catalog
+     */
+    static Map<Shape, ShapeDescriptor> read (Path path,
+                                             int interline)
+            throws IOException
+    {
+        final ByteBuffer buffer;
+        final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+
+        try {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } finally {
+            channel.close();
+        }
+
+        return decode(buffer, interline);
+    }
+
+    //------//
+    // save //
+    //------//
+    /**
+     * Save the descriptors of the catalog for provided interline.
+     * <p>
+     * Writing is done in a temporary file then moved to final location, so that other JVMs never
+     * see a partial file.
+     * Files for the same interline but with an obsolete key are deleted.
+     *
+     * @param interline   the catalog interline
+     * @param descriptors the catalog descriptors
+     */
+    static void save (int interline,
+                      Map<Shape, ShapeDescriptor> descriptors)
+    {
+        final Path path = getPath(interline);
+
+        try {
+            Files.createDirectories(FOLDER);
+            deleteObsolete(interline, path);
+
+            final Path tmp = Files.createTempFile(FOLDER, PREFIX, ".tmp");
+            write(tmp, interline, descriptors);
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING);
+            logger.debug("Saved templates catalog to {}", path);
+        } catch (IOException ex) {
+            logger.warn("Could not save templates catalog {} {}", path, ex.toString());
+        }
+    }
+
+    //-------//
+    // write //
+    //-------//
+    /**
+     * Write catalog descriptors to the provided file.
+     *
+     * @param path        the target file
+     * @param interline   the catalog interline
+     * @param descriptors the catalog descriptors
+     * @throws IOException if file cannot be written
+     */
+    static void write (Path path,
+                       int interline,
+                       Map<Shape, ShapeDescriptor> descriptors)
+            throws IOException
+    {
+        final DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(path)));
+
+        try {
+            encode(interline, descriptors, out);
+        } finally {
+            out.close();
+        }
+    }
+
+    //--------//
+    // decode //
+    //--------//
+    private static Map<Shape, ShapeDescriptor> decode (ByteBuffer buffer,
+                                                       int interline)
+            throws IOException
+    {
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a templates catalog");
+            }
+
+            final byte version = buffer.get();
+
+            if (version != VERSION) {
+                throw new IOException("Unsupported templates catalog version " + version);
+            }
+
+            if (buffer.getInt() != interline) {
+                throw new IOException("Interline mismatch");
+            }
+
+            final Map<Shape, ShapeDescriptor> descriptors = new EnumMap<Shape, ShapeDescriptor>(
+                    Shape.class);
+            final int count = buffer.getInt();
+
+            for (int i = 0; i < count; i++) {
+                final Shape shape = Shape.valueOf(getString(buffer));
+                final int tplInterline = buffer.getInt();
+                final int width = buffer.getInt();
+                final int height = buffer.getInt();
+                final Rectangle symbolBounds = new Rectangle(
+                        buffer.getInt(),
+                        buffer.getInt(),
+                        buffer.getInt(),
+                        buffer.getInt());
+
+                final int anchorCount = buffer.getInt();
+                final Map<Anchor, Point> offsets = new EnumMap<Anchor, Point>(Anchor.class);
+
+                for (int ia = 0; ia < anchorCount; ia++) {
+                    final Anchor anchor = Anchor.valueOf(getString(buffer));
+                    offsets.put(anchor, new Point(buffer.getInt(), buffer.getInt()));
+                }
+
+                final int pointCount = buffer.getInt();
+                final List<PixelDistance> keyPoints = new ArrayList<PixelDistance>(pointCount);
+
+                for (int ip = 0; ip < pointCount; ip++) {
+                    keyPoints.add(
+                            new PixelDistance(buffer.getInt(), buffer.getInt(), buffer.getDouble()));
+                }
+
+                final Template template = new Template(
+                        shape,
+                        tplInterline,
+                        new TemplateSymbol(shape, ShapeDescriptor.getCode(shape)),
+                        width,
+                        height,
+                        keyPoints,
+                        symbolBounds);
+
+                for (Map.Entry<Anchor, Point> entry : offsets.entrySet()) {
+                    template.setOffset(entry.getKey(), entry.getValue());
+                }
+
+                descriptors.put(shape, new ShapeDescriptor(interline, template));
+            }
+
+            // Check catalog is complete
+            if (!descriptors.keySet().containsAll(ShapeSet.TemplateNotes)) {
+                throw new IOException("Incomplete templates catalog");
+            }
+
+            return descriptors;
+        } catch (BufferUnderflowException ex) {
+            throw new IOException("Truncated templates catalog", ex);
+        } catch (IllegalArgumentException ex) {
+            throw new IOException("Invalid templates catalog", ex);
+        }
+    }
+
+    //----------------//
+    // deleteObsolete //
+    //----------------//
+    private static void deleteObsolete (int interline,
+                                        Path current)
+            throws IOException
+    {
+        final DirectoryStream<Path> stream = Files.newDirectoryStream(
+                FOLDER,
+                PREFIX + interline + "-*" + EXTENSION);
+
+        try {
+            for (Path path : stream) {
+                if (!path.equals(current)) {
+                    logger.debug("Deleting obsolete templates catalog {}", path);
+                    Files.deleteIfExists(path);
+                }
+            }
+        } finally {
+            stream.close();
+        }
+    }
+
+    //--------//
+    // encode //
+    //--------//
+    private static void encode (int interline,
+                                Map<Shape, ShapeDescriptor> descriptors,
+                                DataOutputStream out)
+            throws IOException
+    {
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeInt(interline);
+        out.writeInt(descriptors.size());
+
+        for (ShapeDescriptor descriptor : descriptors.values()) {
+            final Template template = descriptor.getTemplate();
+            putString(out, template.getShape().name());
+            out.writeInt(template.getInterline());
+            out.writeInt(template.getWidth());
+            out.writeInt(template.getHeight());
+
+            final Rectangle sym = template.getSymbolBounds();
+            out.writeInt(sym.x);
+            out.writeInt(sym.y);
+            out.writeInt(sym.width);
+            out.writeInt(sym.height);
+
+            final Map<Anchor, Point> offsets = template.getOffsets();
+            out.writeInt(offsets.size());
+
+            for (Map.Entry<Anchor, Point> entry : offsets.entrySet()) {
+                putString(out, entry.getKey().name());
+                out.writeInt(entry.getValue().x);
+                out.writeInt(entry.getValue().y);
+            }
+
+            final List<PixelDistance> keyPoints = template.getKeyPoints();
+            out.writeInt(keyPoints.size());
+
+            for (PixelDistance pix : keyPoints) {
+                out.writeInt(pix.x);
+                out.writeInt(pix.y);
+                out.writeDouble(pix.d);
+            }
+        }
+    }
+
+    //--------//
+    // getKey //
+    //--------//
+    /**
+     * Report the key on music font and template construction parameters.
+     * <p>
+     * Music font is identified by its name, its number of glyphs and the bounds of all template
+     * symbols, since the font is referred to by name and may vary from one installation to
+     * the other.
+     *
+     * @return the key, as an hexadecimal string
+     */
+    private static String getKey ()
+    {
+        if (key == null) {
+            final MusicFont font = MusicFont.baseMusicFont;
+            final StringBuilder sb = new StringBuilder();
+            sb.append(font.getFontName()).append(';').append(font.getNumGlyphs());
+
+            for (Shape shape : ShapeSet.TemplateNotes) {
+                final TemplateSymbol symbol = new TemplateSymbol(
+                        shape,
+                        ShapeDescriptor.getCode(shape));
+                sb.append(';').append(shape).append(symbol.getSymbolBounds(font));
+            }
+
+            sb.append(';').append(ShapeDescriptor.getSignature());
+
+            final CRC32 crc = new CRC32();
+            crc.update(sb.toString().getBytes(StandardCharsets.UTF_8));
+            key = Long.toHexString(crc.getValue());
+            logger.debug("Templates key {} for {}", key, sb);
+        }
+
+        return key;
+    }
+
+    //---------//
+    // getPath //
+    //---------//
+    private static Path getPath (int interline)
+    {
+        return FOLDER.resolve(PREFIX + interline + "-" + getKey() + EXTENSION);
+    }
+
+    //-----------//
+    // getString //
+    //-----------//
+    private static String getString (ByteBuffer buffer)
+            throws IOException
+    {
+        final int length = buffer.getShort();
+
+        if (length < 0) {
+            throw new IOException("Invalid string length " + length);
+        }
+
+        final byte[] bytes = new byte[length];
+        buffer.get(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    //-----------//
+    // putString //
+    //-----------//
+    private static void putString (DataOutputStream out,
+                                   String str)
+            throws IOException
+    {
+        final byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+}
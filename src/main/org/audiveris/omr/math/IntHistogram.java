@@ -0,0 +1,363 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                    I n t H i s t o g r a m                                     //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.math;
+
+import org.audiveris.omr.math.Histogram.MaxEntry;
+import org.audiveris.omr.math.Histogram.Peak;
+import org.audiveris.omr.math.Histogram.PeakEntry;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Class {@code IntHistogram} is an histogram whose buckets are the integer values of a
+ * fixed range, with counts kept in a primitive array.
+ * <p>
+ * It provides the peak retrieval features of {@link Histogram} (quorum, double peaks, local
+ * maxima) without boxing of keys and counts.
+ * Within the range, a bucket never incremented simply has a zero count.
+ * <p>
+ * Several partial histograms, typically populated by different threads on different parts of an
+ * image, can be merged into one.
+ *
+ * @author Hervé Bitteur
+ */
+public class IntHistogram
+        extends IntegerFunction
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    /** To sort peaks by decreasing value. */
+    private static final Comparator<PeakEntry<Double>> reversePeakComparator = new Comparator<PeakEntry<Double>>()
+    {
+        @Override
+        public int compare (PeakEntry<Double> e1,
+                            PeakEntry<Double> e2)
+        {
+            // Put largest value first!
+            return Double.compare(e2.getValue(), e1.getValue());
+        }
+    };
+
+    /** To sort maxima by decreasing value. */
+    private static final Comparator<MaxEntry<Integer>> reverseMaxComparator = new Comparator<MaxEntry<Integer>>()
+    {
+        @Override
+        public int compare (MaxEntry<Integer> e1,
+                            MaxEntry<Integer> e2)
+        {
+            // Put largest value first!
+            return Double.compare(e2.getValue(), e1.getValue());
+        }
+    };
+
+    //~ Instance fields ----------------------------------------------------------------------------
+
+    /** Total count. */
+    private int totalCount;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new {@code IntHistogram} object.
+     *
+     * @param xMin lowest bucket
+     * @param xMax highest bucket
+     */
+    public IntHistogram (int xMin,
+                         int xMax)
+    {
+        super(xMin, xMax);
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //----------//
+    // addValue //
+    //----------//
+    @Override
+    public void addValue (int x,
+                          int delta)
+    {
+        increaseCount(x, delta);
+    }
+
+    //-------//
+    // clear //
+    //-------//
+    public void clear ()
+    {
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 0;
+        }
+
+        totalCount = 0;
+    }
+
+    //----------------//
+    // getDoublePeaks //
+    //----------------//
+    /**
+     * Report the sequence of bucket peaks whose count is equal to or
+     * greater than the specified minCount value.
+     *
+     * @param minCount the desired minimum count value
+     * @return the (perhaps empty but not null) sequence of peaks of buckets, sorted by decreasing
+     *         count
+     */
+    public List<PeakEntry<Double>> getDoublePeaks (int minCount)
+    {
+        final List<PeakEntry<Double>> peaks = new ArrayList<PeakEntry<Double>>();
+        int start = 0;
+        int best = 0;
+        int bestCount = 0;
+        boolean isAbove = false;
+
+        for (int x = xMin; x <= xMax; x++) {
+            final int count = values[x - xMin];
+
+            if (count >= minCount) {
+                if (!isAbove) { // Below -> Above
+                    start = best = x;
+                    bestCount = count;
+                    isAbove = true;
+                } else if (bestCount < count) {
+                    best = x;
+                    bestCount = count;
+                }
+            } else if (isAbove) { // Above -> Below
+                peaks.add(createPeakEntry(start, best, x - 1, bestCount, minCount));
+                isAbove = false;
+            }
+        }
+
+        // Last range
+        if (isAbove) {
+            peaks.add(createPeakEntry(start, best, xMax, bestCount, minCount));
+        }
+
+        // Sort by decreasing count values
+        Collections.sort(peaks, reversePeakComparator);
+
+        return peaks;
+    }
+
+    //----------------//
+    // getLocalMaxima //
+    //----------------//
+    /**
+     * Report the local maximum points, sorted by decreasing count
+     *
+     * @return the (count-based) sorted sequence of local maxima
+     */
+    public List<MaxEntry<Integer>> getLocalMaxima ()
+    {
+        final List<MaxEntry<Integer>> maxima = new ArrayList<MaxEntry<Integer>>();
+        boolean growing = false;
+
+        for (int x = xMin + 1; x <= xMax; x++) {
+            final int prevCount = values[x - 1 - xMin];
+
+            if (values[x - xMin] >= prevCount) {
+                growing = true;
+            } else {
+                if (growing) {
+                    // End of a local max
+                    maxima.add(new MaxEntry<Integer>(x - 1, prevCount / (double) totalCount));
+                }
+
+                growing = false;
+            }
+        }
+
+        // Sort by decreasing count values
+        Collections.sort(maxima, reverseMaxComparator);
+
+        return maxima;
+    }
+
+    //--------------//
+    // getMaxBucket //
+    //--------------//
+    /**
+     * Report the bucket with highest count
+     *
+     * @return the (first) most popular bucket
+     */
+    public int getMaxBucket ()
+    {
+        return argMax(xMin, xMax);
+    }
+
+    //---------//
+    // getPeak //
+    //---------//
+    /**
+     * Retrieve details on a specific peak
+     *
+     * @param quorumRatio quorum ratio to select peaks
+     * @param spreadRatio spread ratio, if any, to refine values
+     * @param index       desired peak index (counted from 0)
+     * @return the desired peak, or null
+     */
+    public PeakEntry<Double> getPeak (double quorumRatio,
+                                      Double spreadRatio,
+                                      int index)
+    {
+        PeakEntry<Double> peak = null;
+
+        // Find peak(s) using quorum threshold
+        List<PeakEntry<Double>> peaks = getDoublePeaks(getQuorumValue(quorumRatio));
+
+        if (index < peaks.size()) {
+            peak = peaks.get(index);
+
+            // Refine peak using spread threshold?
+            if (spreadRatio != null) {
+                peaks = getDoublePeaks(getQuorumValue(peak.getValue() * spreadRatio));
+
+                if (index < peaks.size()) {
+                    peak = peaks.get(index);
+                }
+            }
+        }
+
+        return peak;
+    }
+
+    //----------------//
+    // getQuorumValue //
+    //----------------//
+    /**
+     * Based on the current population, report the quorum value
+     * corresponding to the provided quorum ratio
+     *
+     * @param quorumRatio quorum specified as a percentage of total count
+     * @return the quorum value
+     */
+    public int getQuorumValue (double quorumRatio)
+    {
+        return (int) Math.rint(quorumRatio * totalCount);
+    }
+
+    //---------------//
+    // getTotalCount //
+    //---------------//
+    /**
+     * Report the total counts of all buckets
+     *
+     * @return the sum of all counts
+     */
+    public int getTotalCount ()
+    {
+        return totalCount;
+    }
+
+    //---------------//
+    // increaseCount //
+    //---------------//
+    /**
+     * Increase the count of a bucket.
+     *
+     * @param bucket the bucket, within histogram range
+     * @param delta  the count increment
+     */
+    public void increaseCount (int bucket,
+                               int delta)
+    {
+        values[bucket - xMin] += delta;
+        totalCount += delta;
+    }
+
+    //-------//
+    // merge //
+    //-------//
+    /**
+     * Add the counts of another histogram, defined on the same range.
+     *
+     * @param that the (partial) histogram to add
+     */
+    public void merge (IntHistogram that)
+    {
+        if ((that.xMin != xMin) || (that.xMax != xMax)) {
+            throw new IllegalArgumentException("Merging histograms with different ranges");
+        }
+
+        for (int i = 0; i < values.length; i++) {
+            values[i] += that.values[i];
+        }
+
+        totalCount += that.totalCount;
+    }
+
+    //----------//
+    // setValue //
+    //----------//
+    @Override
+    public void setValue (int x,
+                          int y)
+    {
+        totalCount += (y - getValue(x));
+        super.setValue(x, y);
+    }
+
+    //-----------------//
+    // createPeakEntry //
+    //-----------------//
+    private PeakEntry<Double> createPeakEntry (int first,
+                                               int best,
+                                               int second,
+                                               int bestCount,
+                                               int count)
+    {
+        // Use interpolation for more accurate data on first & second
+        double preciseFirst = first;
+
+        if (first > xMin) {
+            preciseFirst = preciseKey(first - 1, count);
+        }
+
+        double preciseSecond = second;
+
+        if (second < xMax) {
+            preciseSecond = preciseKey(second, count);
+        }
+
+        return new PeakEntry<Double>(
+                new Peak<Double>(preciseFirst, (double) best, preciseSecond),
+                (double) bestCount / totalCount);
+    }
+
+    //------------//
+    // preciseKey //
+    //------------//
+    private double preciseKey (int prev,
+                               int count)
+    {
+        // Use interpolation for accurate data between prev & next buckets
+        final double prevCount = values[prev - xMin];
+        final double nextCount = values[prev + 1 - xMin];
+
+        return ((prev * (nextCount - count)) + ((prev + 1) * (count - prevCount)))
+               / (nextCount - prevCount);
+    }
+}
@@ -56,7 +56,7 @@ public class IntegerFunction
     protected final int xMax;
 
     /** Array of y value for each x. */
-    private final int[] values;
+    protected final int[] values;
 
     //~ Constructors -------------------------------------------------------------------------------
     /**
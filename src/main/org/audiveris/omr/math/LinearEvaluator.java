@@ -21,6 +21,8 @@
 // </editor-fold>
 package org.audiveris.omr.math;
 
+import org.audiveris.omr.util.JaxbRegistry;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -34,8 +36,6 @@ import java.util.TreeMap;
 
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
-import javax.xml.bind.Marshaller;
-import javax.xml.bind.Unmarshaller;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlAttribute;
@@ -73,9 +73,6 @@ public class LinearEvaluator
     private static final Logger logger = LoggerFactory.getLogger(
             LinearEvaluator.class);
 
-    /** Un/marshalling context for use with JAXB */
-    private static volatile JAXBContext jaxbContext;
-
     /** To avoid infinity */
     public static final double INFINITE_DISTANCE = 50e50;
 
@@ -335,9 +332,7 @@ public class LinearEvaluator
     public void marshal (OutputStream os)
             throws JAXBException
     {
-        Marshaller m = getJaxbContext().createMarshaller();
-        m.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
-        m.marshal(this, os);
+        JaxbRegistry.marshal(this, os, getJaxbContext());
         logger.debug("LinearEvaluator marshalled");
     }
 
@@ -428,8 +423,7 @@ public class LinearEvaluator
     public static LinearEvaluator unmarshal (InputStream in)
             throws JAXBException
     {
-        Unmarshaller um = getJaxbContext().createUnmarshaller();
-        LinearEvaluator evaluator = (LinearEvaluator) um.unmarshal(in);
+        LinearEvaluator evaluator = (LinearEvaluator) JaxbRegistry.unmarshal(in, getJaxbContext());
         logger.debug("LinearEvaluator unmarshalled");
 
         return evaluator;
@@ -441,12 +435,7 @@ public class LinearEvaluator
     private static JAXBContext getJaxbContext ()
             throws JAXBException
     {
-        // Lazy creation
-        if (jaxbContext == null) {
-            jaxbContext = JAXBContext.newInstance(LinearEvaluator.class);
-        }
-
-        return jaxbContext;
+        return JaxbRegistry.getContext(LinearEvaluator.class);
     }
 
     //----------------//
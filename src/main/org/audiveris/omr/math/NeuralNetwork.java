@@ -22,6 +22,7 @@
 package org.audiveris.omr.math;
 
 import org.audiveris.omr.classifier.TrainingMonitor;
+import org.audiveris.omr.util.JaxbRegistry;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -32,8 +33,6 @@ import java.util.Objects;
 
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
-import javax.xml.bind.Marshaller;
-import javax.xml.bind.Unmarshaller;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlAttribute;
@@ -67,9 +66,6 @@ public class NeuralNetwork
     private static final Logger logger = LoggerFactory.getLogger(
             NeuralNetwork.class);
 
-    /** Un/marshalling context for use with JAXB */
-    private static volatile JAXBContext jaxbContext;
-
     //~ Instance fields ----------------------------------------------------------------------------
     //
     /** Size of input layer. */
@@ -220,8 +216,7 @@ public class NeuralNetwork
     public static NeuralNetwork unmarshal (InputStream in)
             throws JAXBException
     {
-        Unmarshaller um = getJaxbContext().createUnmarshaller();
-        NeuralNetwork nn = (NeuralNetwork) um.unmarshal(in);
+        NeuralNetwork nn = (NeuralNetwork) JaxbRegistry.unmarshal(in, getJaxbContext());
         logger.debug("Network unmarshalled");
 
         return nn;
@@ -350,9 +345,7 @@ public class NeuralNetwork
     public void marshal (OutputStream os)
             throws JAXBException
     {
-        Marshaller m = getJaxbContext().createMarshaller();
-        m.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
-        m.marshal(this, os);
+        JaxbRegistry.marshal(this, os, getJaxbContext());
         logger.debug("Network marshalled");
     }
 
@@ -736,12 +729,7 @@ public class NeuralNetwork
     private static JAXBContext getJaxbContext ()
             throws JAXBException
     {
-        // Lazy creation
-        if (jaxbContext == null) {
-            jaxbContext = JAXBContext.newInstance(NeuralNetwork.class);
-        }
-
-        return jaxbContext;
+        return JaxbRegistry.getContext(NeuralNetwork.class);
     }
 
     private double relu (double val)
@@ -33,6 +33,7 @@ import org.audiveris.omr.moments.BasicARTMoments;
 import org.audiveris.omr.moments.GeometricMoments;
 import static org.audiveris.omr.run.Orientation.HORIZONTAL;
 import org.audiveris.omr.util.ByteUtil;
+import org.audiveris.omr.util.JaxbRegistry;
 import org.audiveris.omr.util.Predicate;
 
 import org.slf4j.Logger;
@@ -101,8 +102,6 @@ public class RunTable
     private static final Logger logger = LoggerFactory.getLogger(
             RunTable.class);
 
-    private static JAXBContext jaxbContext;
-
     //~ Instance fields ----------------------------------------------------------------------------
     // Persistent data
     //----------------
@@ -893,6 +892,56 @@ public class RunTable
         return runService;
     }
 
+    //---------//
+    // getRuns //
+    //---------//
+    /**
+     * Read the foreground runs of a sequence directly from its RLE encoding, without
+     * any {@link Run} or iterator allocation.
+     * <p>
+     * The provided arrays must be able to hold all the runs of the sequence, that is
+     * (1 + sequenceLength / 2) runs, where sequenceLength is the table height for vertical
+     * runs and the table width for horizontal runs.
+     *
+     * @param index   index of the sequence
+     * @param starts  (output) start of each run
+     * @param lengths (output) length of each run
+     * @return the number of runs read
+     */
+    public int getRuns (int index,
+                        int[] starts,
+                        int[] lengths)
+    {
+        final RunSequence seq = sequences[index];
+
+        if ((seq == null) || (seq.rle == null)) {
+            return 0;
+        }
+
+        final short[] rle = seq.rle;
+        int count = 0;
+        int loc = 0;
+
+        for (int i = 0; i < rle.length; i += 2) {
+            final int foreLg = rle[i] & 0xFFFF;
+
+            // Skip an initial background run
+            if ((i != 0) || (foreLg != 0)) {
+                starts[count] = loc;
+                lengths[count] = foreLg;
+                count++;
+            }
+
+            loc += foreLg;
+
+            if ((i + 1) < rle.length) {
+                loc += (rle[i + 1] & 0xFFFF);
+            }
+        }
+
+        return count;
+    }
+
     //---------//
     // getSize //
     //---------//
@@ -961,12 +1010,8 @@ public class RunTable
         try {
             InputStream is = Files.newInputStream(path, StandardOpenOption.READ);
 
-            if (jaxbContext == null) {
-                jaxbContext = JAXBContext.newInstance(RunTable.class);
-            }
-
-            Unmarshaller um = jaxbContext.createUnmarshaller();
-            RunTable runTable = (RunTable) um.unmarshal(is);
+            JAXBContext jaxbContext = JaxbRegistry.getContext(RunTable.class);
+            RunTable runTable = (RunTable) JaxbRegistry.unmarshal(is, jaxbContext);
             is.close();
             logger.debug("Unmarshalled {}", runTable);
 
@@ -1702,6 +1747,16 @@ public class RunTable
             return Arrays.equals(rle, that.rle);
         }
 
+        /**
+         * Report the raw run-length encoding of this sequence.
+         *
+         * @return the (non-copied) RLE array, perhaps null
+         */
+        short[] getRle ()
+        {
+            return rle;
+        }
+
         @Override
         public int hashCode ()
         {
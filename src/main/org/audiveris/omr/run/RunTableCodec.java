@@ -0,0 +1,276 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                   R u n T a b l e C o d e c                                    //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.run;
+
+import org.audiveris.omr.run.RunTable.RunSequence;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Class {@code RunTableCodec} handles the compact binary format of a {@link RunTable} on
+ * disk.
+ * <p>
+ * This format replaces the former JAXB XML format (which remains readable via
+ * {@link RunTable#unmarshal(java.nio.file.Path)}) for the tables saved in book files.
+ * The layout is:
+ * <ol>
+ * <li>A header: magic number (4 bytes), format version (1 byte), orientation (1 byte),
+ * width and height (as var-ints).</li>
+ * <li>For each sequence of the table: the count of RLE lengths (var-int, 0 for an empty
+ * sequence) followed by each RLE length (var-int).</li>
+ * </ol>
+ * Since RLE values are already lengths (that is deltas between run boundaries), they are
+ * small numbers which mostly fit in a single byte as var-ints.
+ *
+ * @author Hervé Bitteur
+ */
+public abstract class RunTableCodec
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Logger logger = LoggerFactory.getLogger(RunTableCodec.class);
+
+    /** File extension for a binary run table. */
+    public static final String EXTENSION = ".bin";
+
+    /** Magic number at beginning of a binary run table: "RTAB". */
+    private static final int MAGIC = 0x52544142;
+
+    /** Current version of binary format. */
+    private static final byte VERSION = 1;
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //--------//
+    // decode //
+    //--------//
+    /**
+     * Decode a run table from the provided buffer.
+     *
+     * @param buffer the buffer, positioned at beginning of binary table
+     * @return the decoded run table
+     * @throws IOException if buffer content is not a valid binary run table
+     */
+    public static RunTable decode (ByteBuffer buffer)
+            throws IOException
+    {
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a binary run table");
+            }
+
+            final byte version = buffer.get();
+
+            if (version != VERSION) {
+                throw new IOException("Unsupported binary run table version " + version);
+            }
+
+            final Orientation orientation = Orientation.values()[buffer.get()];
+            final int width = readVarInt(buffer);
+            final int height = readVarInt(buffer);
+            final RunTable table = new RunTable(orientation, width, height);
+
+            for (int i = 0, iBreak = table.getSize(); i < iBreak; i++) {
+                final int length = readVarInt(buffer);
+
+                if (length > 0) {
+                    final short[] rle = new short[length];
+
+                    for (int j = 0; j < length; j++) {
+                        rle[j] = (short) readVarInt(buffer);
+                    }
+
+                    table.setSequence(i, new RunSequence(rle));
+                }
+            }
+
+            return table;
+        } catch (BufferUnderflowException ex) {
+            throw new IOException("Truncated binary run table", ex);
+        } catch (ArrayIndexOutOfBoundsException ex) {
+            throw new IOException("Corrupted binary run table", ex);
+        }
+    }
+
+    //--------//
+    // encode //
+    //--------//
+    /**
+     * Encode the provided run table to the provided output stream.
+     *
+     * @param table the table to encode
+     * @param os    the output stream, not closed by this method
+     * @throws IOException if anything goes wrong
+     */
+    public static void encode (RunTable table,
+                               OutputStream os)
+            throws IOException
+    {
+        os.write(MAGIC >>> 24);
+        os.write(MAGIC >>> 16);
+        os.write(MAGIC >>> 8);
+        os.write(MAGIC);
+        os.write(VERSION);
+        os.write(table.getOrientation().ordinal());
+        writeVarInt(os, table.getWidth());
+        writeVarInt(os, table.getHeight());
+
+        for (int i = 0, iBreak = table.getSize(); i < iBreak; i++) {
+            final RunSequence seq = table.getSequence(i);
+            final short[] rle = (seq != null) ? seq.getRle() : null;
+
+            if (rle == null) {
+                writeVarInt(os, 0);
+            } else {
+                writeVarInt(os, rle.length);
+
+                for (short val : rle) {
+                    writeVarInt(os, val & 0xFFFF);
+                }
+            }
+        }
+    }
+
+    //------//
+    // read //
+    //------//
+    /**
+     * Read a binary run table from the provided path.
+     * <p>
+     * A file on default file system is memory-mapped, while an entry in a zipped book is read
+     * at once through its byte channel.
+     *
+     * @param path path to binary table
+     * @return the run table read
+     * @throws IOException if anything goes wrong
+     */
+    public static RunTable read (Path path)
+            throws IOException
+    {
+        logger.debug("RunTable reading {}", path);
+
+        final ByteBuffer buffer;
+
+        if (path.getFileSystem() == FileSystems.getDefault()) {
+            final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+
+            try {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            } finally {
+                channel.close();
+            }
+        } else {
+            final SeekableByteChannel channel = Files.newByteChannel(path, StandardOpenOption.READ);
+
+            try {
+                buffer = ByteBuffer.allocate((int) channel.size());
+
+                while (buffer.hasRemaining() && (channel.read(buffer) != -1)) {
+                }
+
+                buffer.flip();
+            } finally {
+                channel.close();
+            }
+        }
+
+        return decode(buffer);
+    }
+
+    //-------//
+    // write //
+    //-------//
+    /**
+     * Write the provided run table in binary format to the provided path.
+     * Any existing file at this path is overwritten.
+     *
+     * @param table the table to write
+     * @param path  the target path
+     * @throws IOException if anything goes wrong
+     */
+    public static void write (RunTable table,
+                              Path path)
+            throws IOException
+    {
+        final OutputStream os = new BufferedOutputStream(
+                Files.newOutputStream(
+                        path,
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING,
+                        StandardOpenOption.WRITE));
+
+        try {
+            encode(table, os);
+        } finally {
+            os.close();
+        }
+
+        logger.debug("RunTable written to {}", path);
+    }
+
+    //------------//
+    // readVarInt //
+    //------------//
+    private static int readVarInt (ByteBuffer buffer)
+            throws IOException
+    {
+        int value = 0;
+
+        for (int shift = 0; shift < 32; shift += 7) {
+            final int b = buffer.get() & 0xFF;
+            value |= (b & 0x7F) << shift;
+
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+
+        throw new IOException("Malformed var-int in binary run table");
+    }
+
+    //-------------//
+    // writeVarInt //
+    //-------------//
+    private static void writeVarInt (OutputStream os,
+                                     int value)
+            throws IOException
+    {
+        while ((value & ~0x7F) != 0) {
+            os.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+
+        os.write(value);
+    }
+}
@@ -26,6 +26,7 @@ import org.audiveris.omr.glyph.Glyphs;
 import org.audiveris.omr.sheet.Sheet;
 import org.audiveris.omr.sheet.SystemInfo;
 import org.audiveris.omr.sheet.SystemManager;
+import org.audiveris.omr.step.Step;
 
 import java.util.Collection;
 import java.util.LinkedHashSet;
@@ -105,7 +106,8 @@ public abstract class GlyphTask
     @Override
     public void epilog (Sheet sheet)
     {
-        ///Stepping.reprocessSheet(Step.SYMBOLS, sheet, getImpactedSystems(sheet), false);
+        // Re-process just the impacted systems
+        sheet.getStub().reprocessSystems(Step.SYMBOLS, getImpactedSystems(sheet));
     }
 
     //--------------------//
@@ -205,7 +207,8 @@ public abstract class GlyphTask
     //-----------------------//
     /**
      * Report the set of systems that are impacted by the action, as determined
-     * by the *current status* of the glyphs *currently* pointed by the sections
+     * by the *current status* of the glyphs *currently* pointed by the sections, and by the
+     * systems dependency tracking.
      *
      * @param sheet the containing sheet
      * @return the ordered set of impacted systems
@@ -217,16 +220,13 @@ public abstract class GlyphTask
 
         for (Glyph glyph : glyphs) {
             if (glyph != null) {
-                for (SystemInfo system : systemManager.getSystemsOf(glyph)) {
-                    impactedSystems.add(system);
+                impactedSystems.addAll(systemManager.getSystemsOf(glyph));
 
-                    //                    Shape shape = glyph.getShape();
-                    //
-                    //                    if ((shape != null) && shape.isPersistent()) {
-                    // Include all following systems
-                    impactedSystems.addAll(remaining(system));
-
-                    //                    }
+                // Include systems that have consumed this glyph
+                for (SystemInfo system : sheet.getSystems()) {
+                    if (system.dependsOn(glyph)) {
+                        impactedSystems.add(system);
+                    }
                 }
             }
         }
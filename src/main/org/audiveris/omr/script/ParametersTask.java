@@ -24,6 +24,7 @@ package org.audiveris.omr.script;
 import org.audiveris.omr.image.AdaptiveDescriptor;
 import org.audiveris.omr.image.FilterDescriptor;
 import org.audiveris.omr.image.GlobalDescriptor;
+import org.audiveris.omr.image.IntegralDescriptor;
 import org.audiveris.omr.sheet.Book;
 import org.audiveris.omr.sheet.Sheet;
 import org.audiveris.omr.sheet.SheetStub;
@@ -64,7 +65,8 @@ public class ParametersTask
     /** Pixel filter. */
     @XmlElementRefs({
         @XmlElementRef(type = GlobalDescriptor.class),
-        @XmlElementRef(type = AdaptiveDescriptor.class)
+        @XmlElementRef(type = AdaptiveDescriptor.class),
+        @XmlElementRef(type = IntegralDescriptor.class)
     })
     private FilterDescriptor filterDescriptor;
 
@@ -399,7 +401,8 @@ public class ParametersTask
         /** Pixel filter. */
         @XmlElementRefs({
             @XmlElementRef(type = GlobalDescriptor.class),
-            @XmlElementRef(type = AdaptiveDescriptor.class)
+            @XmlElementRef(type = AdaptiveDescriptor.class),
+            @XmlElementRef(type = IntegralDescriptor.class)
         })
         private FilterDescriptor filterDescriptor;
 
@@ -25,6 +25,7 @@ import org.audiveris.omr.OMR;
 import org.audiveris.omr.sheet.Book;
 import org.audiveris.omr.sheet.BookManager;
 import org.audiveris.omr.step.ProcessingCancellationException;
+import org.audiveris.omr.util.JaxbRegistry;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -37,8 +38,6 @@ import java.io.OutputStream;
 
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
-import javax.xml.bind.Marshaller;
-import javax.xml.bind.Unmarshaller;
 
 /**
  * Class {@code ScriptManager} is in charge of handling storing and loading of scripts.
@@ -51,9 +50,6 @@ public class ScriptManager
 
     private static final Logger logger = LoggerFactory.getLogger(ScriptManager.class);
 
-    /** Un/marshalling context for use with JAXB. */
-    private static volatile JAXBContext jaxbContext;
-
     //~ Constructors -------------------------------------------------------------------------------
     /**
      * Not meant to be publicly instantiated.
@@ -88,9 +84,7 @@ public class ScriptManager
     public Script load (InputStream input)
     {
         try {
-            Unmarshaller um = getJaxbContext().createUnmarshaller();
-
-            return (Script) um.unmarshal(input);
+            return (Script) JaxbRegistry.unmarshal(input, getJaxbContext());
         } catch (JAXBException ex) {
             logger.warn("Cannot unmarshal script", ex);
 
@@ -176,9 +170,7 @@ public class ScriptManager
     {
         logger.debug("Storing {}", script);
 
-        Marshaller m = getJaxbContext().createMarshaller();
-        m.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
-        m.marshal(script, output);
+        JaxbRegistry.marshal(script, output, getJaxbContext());
 
         // Flag the script with this event
         script.setModified(false);
@@ -190,16 +182,7 @@ public class ScriptManager
     private JAXBContext getJaxbContext ()
             throws JAXBException
     {
-        // Lazy creation
-        if (jaxbContext == null) {
-            synchronized (this) {
-                if (jaxbContext == null) {
-                    jaxbContext = JAXBContext.newInstance(Script.class);
-                }
-            }
-        }
-
-        return jaxbContext;
+        return JaxbRegistry.getContext(Script.class);
     }
 
     //~ Inner Interfaces ---------------------------------------------------------------------------
@@ -24,6 +24,7 @@ package org.audiveris.omr.sheet;
 import org.audiveris.omr.WellKnowns;
 import org.audiveris.omr.constant.Constant;
 import org.audiveris.omr.constant.ConstantSet;
+import org.audiveris.omr.util.JaxbRegistry;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -36,7 +37,6 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import javax.xml.bind.JAXBContext;
-import javax.xml.bind.Unmarshaller;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlElement;
@@ -110,10 +110,9 @@ public class AliasPatterns
                 // Retrieve the raw strings
                 URL url = WellKnowns.CONFIG_FOLDER.resolve("alias-patterns.xml").toUri()
                         .normalize().toURL();
-                JAXBContext jaxbContext = JAXBContext.newInstance(Strings.class);
-                Unmarshaller um = jaxbContext.createUnmarshaller();
+                JAXBContext jaxbContext = JaxbRegistry.getContext(Strings.class);
                 InputStream input = url.openStream();
-                Strings strings = (Strings) um.unmarshal(input);
+                Strings strings = (Strings) JaxbRegistry.unmarshal(input, jaxbContext);
                 List<String> stringList = strings.list;
 
                 // Compile strings into patterns
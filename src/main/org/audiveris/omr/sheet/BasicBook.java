@@ -47,9 +47,11 @@ import org.audiveris.omr.sheet.ui.StubsController;
 import org.audiveris.omr.step.ProcessingCancellationException;
 import org.audiveris.omr.step.Step;
 import org.audiveris.omr.step.StepException;
+import org.audiveris.omr.step.StepScheduler;
 import org.audiveris.omr.step.ui.StepMonitoring;
 import org.audiveris.omr.text.Language;
 import org.audiveris.omr.util.FileUtil;
+import org.audiveris.omr.util.JaxbRegistry;
 import org.audiveris.omr.util.Memory;
 import org.audiveris.omr.util.OmrExecutors;
 import org.audiveris.omr.util.Param;
@@ -65,10 +67,12 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
 import java.nio.file.FileSystem;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -87,8 +91,6 @@ import javax.swing.JFrame;
 import javax.swing.SwingUtilities;
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
-import javax.xml.bind.Marshaller;
-import javax.xml.bind.Unmarshaller;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlAttribute;
@@ -113,9 +115,6 @@ public class BasicBook
     private static final Logger logger = LoggerFactory.getLogger(
             Book.class);
 
-    /** Un/marshalling context for use with JAXB. */
-    private static volatile JAXBContext jaxbContext;
-
     //~ Instance fields ----------------------------------------------------------------------------
     //
     // Persistent data
@@ -196,6 +195,15 @@ public class BasicBook
     /** Book-level sample repository. */
     private SampleRepository repository;
 
+    /** Loader on input file, kept open while sheets are processed in sequence. */
+    private ImageLoading.Loader imageLoader;
+
+    /** Lock on imageLoader, since loaders are not meant for concurrent use. */
+    private final Object imageLoaderLock = new Object();
+
+    /** Set while sheets are loaded in sequence, allowing to share imageLoader. */
+    private volatile boolean sequentialLoading;
+
     //~ Constructors -------------------------------------------------------------------------------
     /**
      * Create a Book with a path to an input images file.
@@ -333,6 +341,9 @@ public class BasicBook
             bookBrowser.close();
         }
 
+        // Release input file, if still open
+        disposeImageLoader();
+
         // Remove from OMR instances
         OMR.engine.removeBook(this);
 
@@ -899,8 +910,7 @@ public class BasicBook
             Path internalsPath = rootPath.resolve(Book.BOOK_INTERNALS);
             InputStream is = Files.newInputStream(internalsPath, StandardOpenOption.READ);
 
-            Unmarshaller um = getJaxbContext().createUnmarshaller();
-            book = (BasicBook) um.unmarshal(is);
+            book = (BasicBook) JaxbRegistry.unmarshal(is, getJaxbContext());
             book.getLock().lock();
             LogUtil.start(book);
             book.initTransients(null, bookPath);
@@ -964,26 +974,46 @@ public class BasicBook
     //----------------//
     // loadSheetImage //
     //----------------//
+    /**
+     * {@inheritDoc}
+     * <p>
+     * When sheets are processed in sequence, the image loader is kept open from one sheet to the
+     * next, so that a multi-image input file (typically a PDF) is parsed only once. It is released
+     * when the last image has been loaded or when the sequential processing is over.
+     * <p>
+     * Otherwise, a dedicated loader is used for each call, so that sheets processed in parallel
+     * can load their images concurrently.
+     */
     @Override
     public BufferedImage loadSheetImage (int id)
     {
-        try {
-            final ImageLoading.Loader loader = ImageLoading.getLoader(path);
+        if (!sequentialLoading) {
+            return loadSheetImageAlone(id);
+        }
 
-            if (loader == null) {
-                return null;
-            }
+        synchronized (imageLoaderLock) {
+            try {
+                if (imageLoader == null) {
+                    imageLoader = ImageLoading.getLoader(path);
 
-            BufferedImage img = loader.getImage(id);
-            logger.info("Loaded image size: {}x{}", img.getWidth(), img.getHeight());
+                    if (imageLoader == null) {
+                        return null;
+                    }
+                }
 
-            loader.dispose();
+                BufferedImage img = imageLoader.getImage(id);
+                logger.info("Loaded image size: {}x{}", img.getWidth(), img.getHeight());
 
-            return img;
-        } catch (IOException ex) {
-            logger.warn("Error in book.loadSheetImage", ex);
+                if (id == imageLoader.getImageCount()) {
+                    disposeImageLoader();
+                }
 
-            return null;
+                return img;
+            } catch (IOException ex) {
+                logger.warn("Error in book.loadSheetImage", ex);
+
+                return null;
+            }
         }
     }
 
@@ -1070,13 +1100,18 @@ public class BasicBook
                     force ? " force" : "",
                     ids(concernedStubs));
 
+            final boolean parallel = isMultiSheet()
+                                     && constants.processAllStubsInParallel.isSet()
+                                     && (OmrExecutors.defaultParallelism.getTarget() == true);
+
+            // Sheets loaded in sequence can share the same image loader
+            sequentialLoading = !parallel;
+
             try {
                 boolean someFailure = false;
                 StepMonitoring.notifyStart();
 
-                if (isMultiSheet()
-                    && constants.processAllStubsInParallel.isSet()
-                    && (OmrExecutors.defaultParallelism.getTarget() == true)) {
+                if (parallel) {
                     // Process all stubs in parallel
                     List<Callable<Boolean>> tasks = new ArrayList<Callable<Boolean>>();
 
@@ -1091,7 +1126,14 @@ public class BasicBook
                                 LogUtil.start(stub);
 
                                 try {
-                                    return stub.reachStep(target, force);
+                                    boolean ok = stub.reachStep(target, force);
+
+                                    // In batch, release sheet memory for the next admitted sheets
+                                    if (ok && (OMR.gui == null)) {
+                                        stub.swapSheet();
+                                    }
+
+                                    return ok;
                                 } finally {
                                     LogUtil.stopStub();
                                 }
@@ -1100,8 +1142,8 @@ public class BasicBook
                     }
 
                     try {
-                        List<Future<Boolean>> futures = OmrExecutors.getCachedLowExecutor()
-                                .invokeAll(tasks);
+                        // Sheets are admitted according to CPUs and available memory
+                        List<Future<Boolean>> futures = StepScheduler.invokeSheets(tasks);
 
                         for (Future<Boolean> future : futures) {
                             try {
@@ -1119,6 +1161,14 @@ public class BasicBook
                         logger.warn("Error in parallel reachBookStep", ex);
                         someFailure = true;
                     }
+                } else if (isMultiSheet() && constants.processStubsInPipeline.isSet()) {
+                    // Process stubs through a pipeline of step groups
+                    try {
+                        return new StepPipeline(concernedStubs, target, force).process();
+                    } catch (InterruptedException ex) {
+                        logger.warn("Error in pipelined reachBookStep", ex);
+                        someFailure = true;
+                    }
                 } else {
                     // Process one stub after the other
                     for (SheetStub stub : concernedStubs) {
@@ -1149,6 +1199,8 @@ public class BasicBook
 
                 return !someFailure;
             } finally {
+                sequentialLoading = false;
+                disposeImageLoader();
                 LogUtil.stopStub();
                 StepMonitoring.notifyStop();
 
@@ -1273,8 +1325,6 @@ public class BasicBook
     public void store (Path bookPath,
                        boolean withBackup)
     {
-        Memory.gc(); // Launch garbage collection, to save on weak glyph references ...
-
         boolean diskWritten = false; // Has disk actually been written?
 
         // Backup existing book file?
@@ -1300,51 +1350,37 @@ public class BasicBook
                 } else {
                     root = ZipFileSystem.open(bookPath);
                 }
-
-                if (modified) {
-                    storeBookInfo(root); // Book info (book.xml)
-                    diskWritten = true;
-                }
-
-                // Contained sheets
-                for (SheetStub stub : stubs) {
-                    if (stub.isModified()) {
-                        final Path sheetFolder = root.resolve(INTERNALS_RADIX + stub.getNumber());
-                        stub.getSheet().store(sheetFolder, null);
-                        diskWritten = true;
-                    }
-                }
-
-                // Separate repository
-                if ((repository != null) && repository.isModified()) {
-                    repository.storeRepository();
-                }
             } else {
                 // (Store as): Switch from old to new book file
-                root = createBookFile(bookPath);
-                diskWritten = true;
-
-                if (modified) {
-                    storeBookInfo(root); // Book info (book.xml)
+                if (Files.exists(this.bookPath)) {
+                    // Raw copy of old book file, only modified entries will be rewritten
+                    Files.copy(this.bookPath, bookPath, StandardCopyOption.REPLACE_EXISTING);
+                    root = ZipFileSystem.open(bookPath);
+                    deleteObsoleteSheets(root);
+                } else {
+                    root = createBookFile(bookPath);
                 }
 
-                // Contained sheets
-                final Path oldRoot = openBookFile(this.bookPath);
+                diskWritten = true;
+            }
 
-                for (SheetStub stub : stubs) {
-                    final Path oldSheetPath = oldRoot.resolve(INTERNALS_RADIX + stub.getNumber());
-                    final Path sheetPath = root.resolve(INTERNALS_RADIX + stub.getNumber());
+            if (modified) {
+                storeBookInfo(root); // Book info (book.xml)
+                diskWritten = true;
+            }
 
-                    if (stub.isModified()) {
-                        stub.getSheet().store(sheetPath, oldSheetPath);
-                    } else if (Files.exists(oldSheetPath)) {
-                        FileUtil.copyTree(oldSheetPath, sheetPath);
-                    }
-                }
+            // Contained sheets
+            if (storeSheets(root)) {
+                diskWritten = true;
+            }
 
-                oldRoot.getFileSystem().close(); // Close old book file
+            // Separate repository
+            if ((repository != null) && repository.isModified()) {
+                repository.storeRepository();
             }
 
+            // Closing the file system writes the zip file in one pass:
+            // untouched entries are copied as is, without being decompressed & recompressed
             root.getFileSystem().close();
             this.bookPath = bookPath;
 
@@ -1384,9 +1420,7 @@ public class BasicBook
         Files.deleteIfExists(bookInternals);
 
         OutputStream os = Files.newOutputStream(bookInternals, StandardOpenOption.CREATE);
-        Marshaller m = getJaxbContext().createMarshaller();
-        m.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
-        m.marshal(this, os);
+        JaxbRegistry.marshal(this, os, getJaxbContext());
         os.close();
 
         setModified(false);
@@ -1563,6 +1597,62 @@ public class BasicBook
         return null;
     }
 
+    //--------------------//
+    // disposeImageLoader //
+    //--------------------//
+    /**
+     * Release the cached image loader, if any.
+     */
+    private void disposeImageLoader ()
+    {
+        synchronized (imageLoaderLock) {
+            if (imageLoader != null) {
+                imageLoader.dispose();
+                imageLoader = null;
+            }
+        }
+    }
+
+    //----------------------//
+    // deleteObsoleteSheets //
+    //----------------------//
+    /**
+     * In a book file copied from the old one, delete the folders of sheets that no longer
+     * exist in this book.
+     *
+     * @param root root of book file system
+     * @throws IOException if anything goes wrong
+     */
+    private void deleteObsoleteSheets (Path root)
+            throws IOException
+    {
+        final Set<String> names = new TreeSet<String>();
+
+        for (SheetStub stub : stubs) {
+            names.add(INTERNALS_RADIX + stub.getNumber());
+        }
+
+        final List<Path> obsoletes = new ArrayList<Path>();
+        final DirectoryStream<Path> stream = Files.newDirectoryStream(root, INTERNALS_RADIX + "*");
+
+        try {
+            for (Path path : stream) {
+                final String name = path.getFileName().toString();
+
+                if (Files.isDirectory(path) && !names.contains(name)) {
+                    obsoletes.add(path);
+                }
+            }
+        } finally {
+            stream.close();
+        }
+
+        for (Path path : obsoletes) {
+            FileUtil.deleteDirectory(path);
+            logger.debug("Deleted obsolete {}", path);
+        }
+    }
+
     //----------------//
     // createBookFile //
     //----------------//
@@ -1606,12 +1696,7 @@ public class BasicBook
     private static JAXBContext getJaxbContext ()
             throws JAXBException
     {
-        // Lazy creation
-        if (jaxbContext == null) {
-            jaxbContext = JAXBContext.newInstance(BasicBook.class, RunTable.class);
-        }
-
-        return jaxbContext;
+        return JaxbRegistry.getContext(BasicBook.class, RunTable.class);
     }
 
     //------------------//
@@ -1843,6 +1928,39 @@ public class BasicBook
         logger.debug("Inserted scores:{}", scores.subList(insertIndex, index));
     }
 
+    //---------------------//
+    // loadSheetImageAlone //
+    //---------------------//
+    /**
+     * Load a sheet image through a loader dedicated to this call.
+     *
+     * @param id sheet id
+     * @return the loaded image, or null if failed
+     */
+    private BufferedImage loadSheetImageAlone (int id)
+    {
+        try {
+            final ImageLoading.Loader loader = ImageLoading.getLoader(path);
+
+            if (loader == null) {
+                return null;
+            }
+
+            try {
+                BufferedImage img = loader.getImage(id);
+                logger.info("Loaded image size: {}x{}", img.getWidth(), img.getHeight());
+
+                return img;
+            } finally {
+                loader.dispose();
+            }
+        } catch (IOException ex) {
+            logger.warn("Error in book.loadSheetImage", ex);
+
+            return null;
+        }
+    }
+
     //--------------------//
     // makeReadyForExport //
     //--------------------//
@@ -1897,6 +2015,81 @@ public class BasicBook
         return impacted;
     }
 
+    //-------------//
+    // storeSheets //
+    //-------------//
+    /**
+     * Store every modified sheet into the provided book file system.
+     * <p>
+     * Sheets are marshalled in parallel when allowed, since the (zip) file system accepts
+     * concurrent writes of separate entries.
+     *
+     * @param root root of book file system
+     * @return true if some sheet was actually stored
+     */
+    private boolean storeSheets (final Path root)
+    {
+        final List<SheetStub> modifiedStubs = new ArrayList<SheetStub>();
+
+        for (SheetStub stub : stubs) {
+            if (stub.isModified()) {
+                modifiedStubs.add(stub);
+            }
+        }
+
+        if ((modifiedStubs.size() > 1)
+            && constants.storeSheetsInParallel.isSet()
+            && (OmrExecutors.defaultParallelism.getTarget() == true)) {
+            // Store all modified sheets in parallel
+            List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+
+            for (final SheetStub stub : modifiedStubs) {
+                tasks.add(
+                        new Callable<Void>()
+                {
+                    @Override
+                    public Void call ()
+                            throws Exception
+                    {
+                        LogUtil.start(stub);
+
+                        try {
+                            final Path sheetFolder = root.resolve(
+                                    INTERNALS_RADIX + stub.getNumber());
+                            stub.getSheet().store(sheetFolder, null);
+
+                            return null;
+                        } finally {
+                            LogUtil.stopStub();
+                        }
+                    }
+                });
+            }
+
+            try {
+                List<Future<Void>> futures = OmrExecutors.getCachedLowExecutor().invokeAll(tasks);
+
+                for (Future<Void> future : futures) {
+                    try {
+                        future.get();
+                    } catch (Exception ex) {
+                        logger.warn("Error storing sheet " + ex, ex);
+                    }
+                }
+            } catch (InterruptedException ex) {
+                logger.warn("Interrupted while storing sheets", ex);
+            }
+        } else {
+            // Store one sheet after the other
+            for (SheetStub stub : modifiedStubs) {
+                final Path sheetFolder = root.resolve(INTERNALS_RADIX + stub.getNumber());
+                stub.getSheet().store(sheetFolder, null);
+            }
+        }
+
+        return !modifiedStubs.isEmpty();
+    }
+
     //~ Inner Classes ------------------------------------------------------------------------------
     //---------//
     // Adapter //
@@ -1937,5 +2130,13 @@ public class BasicBook
         private final Constant.Boolean processAllStubsInParallel = new Constant.Boolean(
                 false,
                 "Should we process all stubs of a book in parallel? (beware of many stubs)");
+
+        private final Constant.Boolean processStubsInPipeline = new Constant.Boolean(
+                false,
+                "Should we process stubs through a pipeline of step groups?");
+
+        private final Constant.Boolean storeSheetsInParallel = new Constant.Boolean(
+                true,
+                "Should we store the modified sheets of a book in parallel?");
     }
 }
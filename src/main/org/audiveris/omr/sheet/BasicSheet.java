@@ -58,6 +58,7 @@ import org.audiveris.omr.ui.util.WeakItemRenderer;
 import org.audiveris.omr.util.Dumping;
 import org.audiveris.omr.util.FileUtil;
 import org.audiveris.omr.util.Jaxb;
+import org.audiveris.omr.util.JaxbRegistry;
 import org.audiveris.omr.util.Navigable;
 
 import org.slf4j.Logger;
@@ -83,8 +84,6 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
-import javax.xml.bind.Marshaller;
-import javax.xml.bind.Unmarshaller;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlAttribute;
@@ -126,9 +125,6 @@ public class BasicSheet
         LocationEvent.class, PixelEvent.class
     };
 
-    /** Un/marshalling context for use with JAXB. */
-    private static volatile JAXBContext jaxbContext;
-
     //~ Instance fields ----------------------------------------------------------------------------
     //
     // Persistent data
@@ -899,9 +895,7 @@ public class BasicSheet
             Files.createDirectories(sheetFolder);
 
             OutputStream os = Files.newOutputStream(structurePath, StandardOpenOption.CREATE);
-            Marshaller m = getJaxbContext().createMarshaller();
-            m.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
-            m.marshal(this, os);
+            JaxbRegistry.marshal(this, os, getJaxbContext());
             os.close();
             stub.setModified(false);
             logger.info("Stored {}", structurePath);
@@ -934,10 +928,7 @@ public class BasicSheet
     public static BasicSheet unmarshal (InputStream in)
             throws JAXBException
     {
-        Unmarshaller um = getJaxbContext().createUnmarshaller();
-
-        ///um.setListener(new Jaxb.UnmarshalLogger());
-        BasicSheet sheet = (BasicSheet) um.unmarshal(in);
+        BasicSheet sheet = (BasicSheet) JaxbRegistry.unmarshal(in, getJaxbContext());
         logger.debug("Sheet unmarshalled");
 
         return sheet;
@@ -1032,12 +1023,7 @@ public class BasicSheet
     private static JAXBContext getJaxbContext ()
             throws JAXBException
     {
-        // Lazy creation
-        if (jaxbContext == null) {
-            jaxbContext = JAXBContext.newInstance(BasicSheet.class);
-        }
-
-        return jaxbContext;
+        return JaxbRegistry.getContext(BasicSheet.class);
     }
 
     //-------------------------//
@@ -55,6 +55,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.SortedSet;
@@ -583,6 +584,93 @@ public class BasicStub
         return ok;
     }
 
+    //------------------//
+    // reprocessSystems //
+    //------------------//
+    @Override
+    public boolean reprocessSystems (Step from,
+                                     Collection<SystemInfo> systems)
+    {
+        final Step latest = getLatestStep();
+
+        if ((latest == null) || (latest.compareTo(from) < 0) || !hasSheet()) {
+            return true; // Nothing to re-process
+        }
+
+        // Steps up to GRID rebuild the systems themselves
+        if (from.compareTo(Step.GRID) <= 0) {
+            logger.warn("Sheet#{} cannot re-process systems from {}, left as is", number, from);
+
+            return false;
+        }
+
+        final StopWatch watch = new StopWatch("reprocessSystems " + from);
+        final EnumSet<Step> steps = EnumSet.range(from, latest);
+        boolean ok = false;
+        getLock().lock();
+
+        try {
+            logger.debug(
+                    "Sheet#{} re-processing {} on {}",
+                    number,
+                    steps,
+                    SystemInfo.toString(systems));
+
+            ok = SystemFootprint.reprocess(
+                    steps,
+                    sheet.getSystems(),
+                    systems,
+                    new SystemFootprint.StepRunner()
+            {
+                @Override
+                public void run (Step step,
+                                 Collection<SystemInfo> scope)
+                        throws StepException
+                {
+                    watch.start(step.name());
+                    setCurrentStep(step);
+
+                    try {
+                        if (step.isSystemWise()) {
+                            step.doSystems(sheet, scope);
+                        } else {
+                            step.doit(sheet);
+                        }
+                    } finally {
+                        setCurrentStep(null);
+                    }
+                }
+            });
+
+            if (ok) {
+                setModified(true);
+            } else {
+                // No tracking (reloaded sheet or section steps): a full reset would lose user work
+                logger.warn(
+                        "Sheet#{} cannot re-process systems for {}: no dependency tracking"
+                        + " (sheet reloaded from disk, or step building sections)."
+                        + " Systems left as is, re-run {} on the whole sheet to update them.",
+                        number,
+                        steps,
+                        from);
+            }
+        } catch (ProcessingCancellationException pce) {
+            throw pce;
+        } catch (StepException ignored) {
+            logger.info("StepException detected in re-processing {}", steps);
+        } catch (Exception ex) {
+            logger.warn("Error in re-processing {} {}", steps, ex.toString(), ex);
+        } finally {
+            if (constants.printWatch.isSet()) {
+                watch.print();
+            }
+
+            getLock().unlock();
+        }
+
+        return ok;
+    }
+
     //-------//
     // reset //
     //-------//
@@ -807,6 +895,11 @@ public class BasicStub
                         setModified(true); // At beginning of processing
                         sheet.reset(step); // Reset sheet relevant data
                         step.doit(sheet); // Standard processing on an existing sheet
+
+                        for (SystemInfo system : sheet.getSystems()) {
+                            system.getFootprint().setTracked(step);
+                        }
+
                         done(step); // Full completion
                     } finally {
                         LogUtil.stopBook();
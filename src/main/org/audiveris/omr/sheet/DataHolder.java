@@ -21,6 +21,8 @@
 // </editor-fold>
 package org.audiveris.omr.sheet;
 
+import org.audiveris.omr.util.JaxbRegistry;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -30,7 +32,6 @@ import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 
 import javax.xml.bind.JAXBContext;
-import javax.xml.bind.Unmarshaller;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlAttribute;
@@ -113,8 +114,7 @@ public class DataHolder<T>
                 book.getLock().lock();
 
                 if (data == null) {
-                    JAXBContext jaxbContext = JAXBContext.newInstance(classe);
-                    Unmarshaller um = jaxbContext.createUnmarshaller();
+                    JAXBContext jaxbContext = JaxbRegistry.getContext(classe);
 
                     // Open book file system
                     Path dataFile = book.openSheetFolder(sheet.getStub().getNumber())
@@ -122,7 +122,7 @@ public class DataHolder<T>
                     logger.debug("path: {}", dataFile);
 
                     InputStream is = Files.newInputStream(dataFile, StandardOpenOption.READ);
-                    data = (T) um.unmarshal(is);
+                    data = (T) JaxbRegistry.unmarshal(is, jaxbContext);
                     is.close();
                     logger.info("Loaded {}", dataFile);
                     dataFile.getFileSystem().close(); // Close book file system
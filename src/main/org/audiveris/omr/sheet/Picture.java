@@ -36,6 +36,7 @@ import org.audiveris.omr.image.PixelFilter;
 import org.audiveris.omr.image.PixelSource;
 import static org.audiveris.omr.run.Orientation.VERTICAL;
 import org.audiveris.omr.run.RunTable;
+import org.audiveris.omr.run.RunTableCodec;
 import org.audiveris.omr.run.RunTableFactory;
 import org.audiveris.omr.sheet.grid.LineInfo;
 import org.audiveris.omr.ui.selection.LocationEvent;
@@ -58,18 +59,14 @@ import java.awt.image.BufferedImage;
 import java.awt.image.ColorModel;
 import java.awt.image.SampleModel;
 import java.io.IOException;
-import java.io.OutputStream;
 import java.lang.ref.WeakReference;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
 import java.util.EnumMap;
 import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentSkipListMap;
 
 import javax.media.jai.JAI;
-import javax.xml.bind.JAXBContext;
-import javax.xml.bind.Marshaller;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlAttribute;
@@ -765,13 +762,13 @@ public class Picture
         for (Entry<TableKey, RunTableHolder> entry : tables.entrySet()) {
             final TableKey key = entry.getKey();
             final RunTableHolder holder = entry.getValue();
-            final Path tablepath = sheetPath.resolve(key + ".xml");
 
             if (!holder.hasData()) {
                 if (oldSheetPath != null) {
                     try {
-                        // Copy from old book file to new
-                        Path oldTablePath = oldSheetPath.resolve(key + ".xml");
+                        // Copy from old book file to new, keeping the existing format
+                        final Path tablepath = sheetPath.resolve(holder.getPathString());
+                        Path oldTablePath = oldSheetPath.resolve(holder.getPathString());
                         Files.copy(oldTablePath, tablepath);
                         logger.info("Copied {}", tablepath);
                     } catch (IOException ex) {
@@ -780,15 +777,15 @@ public class Picture
                 }
             } else if (holder.isModified()) {
                 try {
-                    Files.deleteIfExists(tablepath);
-
-                    OutputStream os = Files.newOutputStream(tablepath, StandardOpenOption.CREATE);
-                    Marshaller m = JAXBContext.newInstance(RunTable.class).createMarshaller();
-                    m.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
+                    // Table is always written in binary format, replacing any older XML file
+                    if (holder.isXml()) {
+                        Files.deleteIfExists(sheetPath.resolve(holder.getPathString()));
+                        holder.setPathString(RunTableHolder.getBinaryFileName(key));
+                    }
 
+                    final Path tablepath = sheetPath.resolve(holder.getPathString());
                     RunTable table = holder.getData(sheet.getStub());
-                    m.marshal(table, os);
-                    os.close();
+                    RunTableCodec.write(table, tablepath);
                     holder.setModified(false);
                     logger.info("Stored {}", tablepath);
                 } catch (Exception ex) {
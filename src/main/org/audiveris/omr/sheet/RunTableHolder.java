@@ -22,18 +22,14 @@
 package org.audiveris.omr.sheet;
 
 import org.audiveris.omr.run.RunTable;
+import org.audiveris.omr.run.RunTableCodec;
 import org.audiveris.omr.sheet.Picture.TableKey;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.InputStream;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
 
-import javax.xml.bind.JAXBContext;
-import javax.xml.bind.Unmarshaller;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlAttribute;
@@ -41,6 +37,9 @@ import javax.xml.bind.annotation.XmlAttribute;
 /**
  * Class {@code RunTableHolder} holds the reference to a run table, at least the path
  * to its marshalled data on disk, and (on demand) the unmarshalled run table itself.
+ * <p>
+ * Data is stored in compact binary format (see {@link RunTableCodec}), while data from older
+ * books may still be found in XML format (".xml" path) and is then unmarshalled via JAXB.
  *
  * @author Hervé Bitteur
  */
@@ -52,13 +51,16 @@ public class RunTableHolder
     private static final Logger logger = LoggerFactory.getLogger(
             RunTableHolder.class);
 
+    /** File extension for a table in former XML format. */
+    private static final String XML_EXTENSION = ".xml";
+
     //~ Instance fields ----------------------------------------------------------------------------
     /** Direct access to data, if any. */
     private RunTable data;
 
     /** Path to data on disk. */
     @XmlAttribute(name = "path")
-    private final String pathString;
+    private String pathString;
 
     /** To avoid useless marshalling to disk. */
     private boolean modified = false;
@@ -71,7 +73,7 @@ public class RunTableHolder
      */
     public RunTableHolder (TableKey key)
     {
-        pathString = key + ".xml";
+        pathString = getBinaryFileName(key);
     }
 
     /** No-arg constructor needed for JAXB. */
@@ -97,19 +99,21 @@ public class RunTableHolder
                 stub.getBook().getLock().lock();
 
                 if (data == null) {
-                    JAXBContext jaxbContext = JAXBContext.newInstance(RunTable.class);
-                    Unmarshaller um = jaxbContext.createUnmarshaller();
-
                     // Open book file system
                     Path dataFile = stub.getBook().openSheetFolder(stub.getNumber())
                             .resolve(pathString);
                     logger.debug("path: {}", dataFile);
 
-                    InputStream is = Files.newInputStream(dataFile, StandardOpenOption.READ);
-                    data = (RunTable) um.unmarshal(is);
-                    is.close();
+                    try {
+                        if (isXml()) {
+                            data = RunTable.unmarshal(dataFile); // Older book
+                        } else {
+                            data = RunTableCodec.read(dataFile);
+                        }
+                    } finally {
+                        dataFile.getFileSystem().close(); // Close book file system
+                    }
 
-                    dataFile.getFileSystem().close(); // Close book file system
                     modified = false;
                     logger.debug("Loaded {}", dataFile);
                 }
@@ -123,6 +127,33 @@ public class RunTableHolder
         return data;
     }
 
+    //-------------------//
+    // getBinaryFileName //
+    //-------------------//
+    /**
+     * Report the name of binary file for the provided table key.
+     *
+     * @param key table key
+     * @return the binary file name
+     */
+    public static String getBinaryFileName (TableKey key)
+    {
+        return key + RunTableCodec.EXTENSION;
+    }
+
+    //---------------//
+    // getPathString //
+    //---------------//
+    /**
+     * Report the name of data file within sheet folder.
+     *
+     * @return the data file name
+     */
+    public String getPathString ()
+    {
+        return pathString;
+    }
+
     //---------//
     // hasData //
     //---------//
@@ -139,6 +170,19 @@ public class RunTableHolder
         return modified;
     }
 
+    //-------//
+    // isXml //
+    //-------//
+    /**
+     * Report whether the data file is in former XML format.
+     *
+     * @return true for XML format
+     */
+    public boolean isXml ()
+    {
+        return (pathString != null) && pathString.endsWith(XML_EXTENSION);
+    }
+
     //---------//
     // setData //
     //---------//
@@ -156,4 +200,17 @@ public class RunTableHolder
     {
         modified = bool;
     }
+
+    //---------------//
+    // setPathString //
+    //---------------//
+    /**
+     * Set the name of data file within sheet folder.
+     *
+     * @param pathString the new data file name
+     */
+    public void setPathString (String pathString)
+    {
+        this.pathString = pathString;
+    }
 }
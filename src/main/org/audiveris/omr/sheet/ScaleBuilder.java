@@ -24,10 +24,10 @@ package org.audiveris.omr.sheet;
 import static org.audiveris.omr.WellKnowns.LINE_SEPARATOR;
 import org.audiveris.omr.constant.Constant;
 import org.audiveris.omr.constant.ConstantSet;
+import org.audiveris.omr.image.ImageBands;
 import org.audiveris.omr.math.HiLoPeakFinder;
-import org.audiveris.omr.math.IntegerFunction;
+import org.audiveris.omr.math.IntHistogram;
 import org.audiveris.omr.math.Range;
-import org.audiveris.omr.run.Run;
 import org.audiveris.omr.run.RunTable;
 import org.audiveris.omr.sheet.Scale.BeamScale;
 import org.audiveris.omr.sheet.Scale.InterlineScale;
@@ -40,7 +40,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.awt.Point;
-import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -348,19 +347,23 @@ public class ScaleBuilder
 
         final int maxWhite;
 
-        final IntegerFunction blackFunction;
+        final IntHistogram blackFunction;
 
         final HiLoPeakFinder blackFinder;
 
-        final IntegerFunction comboFunction;
+        final IntHistogram comboFunction;
 
         final HiLoPeakFinder comboFinder;
 
+        // Maximum number of runs in an image column
+        final int runCapacity;
+
         //~ Constructors ---------------------------------------------------------------------------
         public HistoKeeper ()
         {
             maxBlack = binary.getHeight() / 16;
             maxWhite = binary.getHeight() / 4;
+            runCapacity = 1 + (binary.getHeight() / 2);
             logger.debug(
                     "maxBlack:{}, maxWhite:{}, maxCombo:{}",
                     maxBlack,
@@ -368,10 +371,10 @@ public class ScaleBuilder
                     maxBlack + maxWhite);
 
             // Allocate histograms
-            blackFunction = new IntegerFunction(0, maxBlack);
+            blackFunction = new IntHistogram(0, maxBlack);
             blackFinder = new HiLoPeakFinder("black", blackFunction);
 
-            comboFunction = new IntegerFunction(0, maxBlack + maxWhite);
+            comboFunction = new IntHistogram(0, maxBlack + maxWhite);
             comboFinder = new HiLoPeakFinder("combo", comboFunction);
         }
 
@@ -381,18 +384,42 @@ public class ScaleBuilder
         //-------------//
         /**
          * Populate the black histogram.
+         * <p>
+         * Image columns are processed by stripes, each stripe filling its own partial histogram.
          */
         public void buildBlacks ()
         {
-            for (int x = 0, width = binary.getWidth(); x < width; x++) {
-                for (Iterator<Run> it = binary.iterator(x); it.hasNext();) {
-                    int black = it.next().getLength();
+            ImageBands.process(
+                    0,
+                    binary.getWidth(),
+                    1,
+                    new ImageBands.Adapter()
+            {
+                @Override
+                public void processBand (int xStart,
+                                         int xStop)
+                {
+                    final IntHistogram partial = new IntHistogram(0, maxBlack);
+                    final int[] starts = new int[runCapacity];
+                    final int[] lengths = new int[runCapacity];
+
+                    for (int x = xStart; x < xStop; x++) {
+                        final int count = binary.getRuns(x, starts, lengths);
+
+                        for (int i = 0; i < count; i++) {
+                            final int black = lengths[i];
+
+                            if (black <= maxBlack) {
+                                partial.increaseCount(black, 1);
+                            }
+                        }
+                    }
 
-                    if (black <= maxBlack) {
-                        blackFunction.addValue(black, 1);
+                    synchronized (blackFunction) {
+                        blackFunction.merge(partial);
                     }
                 }
-            }
+            });
 
             if (logger.isDebugEnabled()) {
                 blackFunction.print(System.out);
@@ -404,41 +431,66 @@ public class ScaleBuilder
         //-------------//
         /**
          * Populate the combo histogram.
+         * <p>
+         * Image columns are processed by stripes, each stripe filling its own partial histogram.
          */
         public void buildCombos ()
         {
-            for (int x = 0, width = binary.getWidth(); x < width; x++) {
-                int yLast = 0; // Ordinate of first pixel not yet processed
-                int lastBlack = 0; // Length of last valid black run
-
-                for (Iterator<Run> it = binary.iterator(x); it.hasNext();) {
-                    Run run = it.next();
-                    final int y = run.getStart();
-                    final int black = run.getLength();
-
-                    if ((black < blackPeak.min) || (black > blackPeak.max)) {
-                        lastBlack = 0;
-                    } else {
-                        if (y > yLast) {
-                            // Process the white run before this black run
-                            int white = y - yLast;
-
-                            // A white run between valid black runs?: B1, W, B2
-                            // Combo 1 is defined as B1 + W, that is [-----]
-                            // Combo 2 is defined as W + B2, that is     [-----]
-                            // combo1 + combo2 = 2 * (1/2 * B1 + W + 1/2 * B2) = 2 * combo
-                            if ((white <= maxWhite) && (lastBlack != 0)) {
-                                comboFunction.addValue(lastBlack + white, 1); // B1 + W
-                                comboFunction.addValue(white + black, 1); // W + B2
+            final int minBlack = blackPeak.min;
+            final int maxPeakBlack = blackPeak.max;
+
+            ImageBands.process(
+                    0,
+                    binary.getWidth(),
+                    1,
+                    new ImageBands.Adapter()
+            {
+                @Override
+                public void processBand (int xStart,
+                                         int xStop)
+                {
+                    final IntHistogram partial = new IntHistogram(0, maxBlack + maxWhite);
+                    final int[] starts = new int[runCapacity];
+                    final int[] lengths = new int[runCapacity];
+
+                    for (int x = xStart; x < xStop; x++) {
+                        final int count = binary.getRuns(x, starts, lengths);
+                        int yLast = 0; // Ordinate of first pixel not yet processed
+                        int lastBlack = 0; // Length of last valid black run
+
+                        for (int i = 0; i < count; i++) {
+                            final int y = starts[i];
+                            final int black = lengths[i];
+
+                            if ((black < minBlack) || (black > maxPeakBlack)) {
+                                lastBlack = 0;
+                            } else {
+                                if (y > yLast) {
+                                    // Process the white run before this black run
+                                    int white = y - yLast;
+
+                                    // A white run between valid black runs?: B1, W, B2
+                                    // Combo 1 is defined as B1 + W, that is [-----]
+                                    // Combo 2 is defined as W + B2, that is     [-----]
+                                    // combo1 + combo2 = 2 * (1/2 * B1 + W + 1/2 * B2) = 2 * combo
+                                    if ((white <= maxWhite) && (lastBlack != 0)) {
+                                        partial.increaseCount(lastBlack + white, 1); // B1 + W
+                                        partial.increaseCount(white + black, 1); // W + B2
+                                    }
+                                }
+
+                                lastBlack = black;
                             }
-                        }
 
-                        lastBlack = black;
+                            yLast = y + black;
+                        }
                     }
 
-                    yLast = y + black;
+                    synchronized (comboFunction) {
+                        comboFunction.merge(partial);
+                    }
                 }
-            }
+            });
 
             if (logger.isDebugEnabled()) {
                 comboFunction.print(System.out);
@@ -28,6 +28,7 @@ import org.audiveris.omr.step.Step;
 import org.audiveris.omr.step.StepException;
 import org.audiveris.omr.util.LiveParam;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.locks.Lock;
 
@@ -216,6 +217,25 @@ public interface SheetStub
     boolean reachStep (Step step,
                        boolean force);
 
+    /**
+     * Re-process the provided systems, from the provided step to the latest step done.
+     * <p>
+     * The inters and relations created by step processing in these systems are discarded and the
+     * steps are re-run on just these systems, while the other systems are kept as they are.
+     * Inters and relations not created by step processing (typically by the user) are kept.
+     * <p>
+     * If the dependency tracking does not allow such limited re-processing (for a sheet reloaded
+     * from disk, for a step building sections, or for a step up to GRID), a warning is logged
+     * and the sheet is left as it is, rather than reset and fully re-processed, which would lose
+     * the user work.
+     *
+     * @param from    the first step to re-run
+     * @param systems the impacted systems
+     * @return true if OK, false if re-processing failed or could not be limited to these systems
+     */
+    boolean reprocessSystems (Step from,
+                              Collection<SystemInfo> systems);
+
     /**
      * Reset this stub to its initial state (that is valid and non-processed).
      */
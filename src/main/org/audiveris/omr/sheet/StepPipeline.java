@@ -0,0 +1,300 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                    S t e p P i p e l i n e                                     //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.sheet;
+
+import org.audiveris.omr.OMR;
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
+import org.audiveris.omr.log.LogUtil;
+import org.audiveris.omr.step.Step;
+import org.audiveris.omr.util.OmrExecutors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+
+/**
+ * Class {@code StepPipeline} processes the sheets of a book through a pipeline of
+ * step groups, so that several sheets progress at the same time, each in a different group.
+ * <p>
+ * The step groups are:
+ * <ol>
+ * <li>Decoding and binarization (LOAD, BINARY), mostly I/O bound,</li>
+ * <li>Scale and grid (SCALE, GRID),</li>
+ * <li>Symbol steps (HEADERS ... LINKS),</li>
+ * <li>Page (PAGE).</li>
+ * </ol>
+ * Each group is handled by its own thread, which processes sheets in book order.
+ * Groups are connected by bounded queues, so the number of sheets resident in memory is capped
+ * by the number of groups plus the total capacity of the queues.
+ * <p>
+ * A sheet which fails in a group is no longer processed by the following groups.
+ * If a group task aborts, the other groups are cancelled rather than left waiting on their
+ * queues.
+ * In batch mode, each sheet is swapped out of memory at the end of the pipeline.
+ *
+ * @author Hervé Bitteur
+ */
+public class StepPipeline
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Constants constants = new Constants();
+
+    private static final Logger logger = LoggerFactory.getLogger(StepPipeline.class);
+
+    /** Last step of each step group. */
+    private static final Step[] GROUP_ENDS = new Step[]{
+        Step.BINARY, Step.GRID, Step.LINKS, Step.PAGE
+    };
+
+    //~ Instance fields ----------------------------------------------------------------------------
+    /** Sheets to process, in book order. */
+    private final List<SheetStub> stubs;
+
+    /** Final step to reach. */
+    private final Step target;
+
+    /** Should we force processing?. */
+    private final boolean force;
+
+    /** Sheets that have failed so far. */
+    private final Set<SheetStub> failures = Collections.newSetFromMap(
+            new ConcurrentHashMap<SheetStub, Boolean>());
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new {@code StepPipeline} object.
+     *
+     * @param stubs  the sheets to process, in desired order
+     * @param target the step to reach for each sheet
+     * @param force  true to force processing even if target is already reached
+     */
+    public StepPipeline (List<SheetStub> stubs,
+                         Step target,
+                         boolean force)
+    {
+        this.stubs = stubs;
+        this.target = target;
+        this.force = force;
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //---------//
+    // process //
+    //---------//
+    /**
+     * Run all sheets through the pipeline and wait for completion.
+     *
+     * @return true if all sheets successfully reached the target step
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean process ()
+            throws InterruptedException
+    {
+        // Targets of the groups needed to reach the final target
+        final List<Step> groupTargets = new ArrayList<Step>();
+
+        for (Step end : GROUP_ENDS) {
+            if (end.compareTo(target) >= 0) {
+                groupTargets.add(target);
+
+                break;
+            }
+
+            groupTargets.add(end);
+        }
+
+        logger.info("Pipeline on {} sheets, groups ending at {}", stubs.size(), groupTargets);
+
+        // One task per group, connected by bounded queues
+        final CompletionService<Void> service = new ExecutorCompletionService<Void>(
+                OmrExecutors.getCachedLowExecutor());
+        final List<Future<Void>> futures = new ArrayList<Future<Void>>();
+        BlockingQueue<SheetStub> input = null;
+
+        for (int i = 0; i < groupTargets.size(); i++) {
+            final BlockingQueue<SheetStub> output = (i < (groupTargets.size() - 1))
+                    ? new ArrayBlockingQueue<SheetStub>(constants.queueCapacity.getValue()) : null;
+            futures.add(service.submit(new GroupTask(groupTargets.get(i), i == 0, input, output)));
+            input = output;
+        }
+
+        // Wait for groups in completion order, so that an aborted group stops the whole pipeline
+        try {
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    service.take().get();
+                } catch (ExecutionException ex) {
+                    // The other groups would wait forever on their queues
+                    logger.warn("Error in pipeline " + ex, ex);
+                    cancel(futures);
+
+                    return false;
+                }
+            }
+        } catch (InterruptedException ex) {
+            cancel(futures);
+            throw ex;
+        }
+
+        return failures.isEmpty();
+    }
+
+    //--------//
+    // cancel //
+    //--------//
+    /**
+     * Cancel the group tasks still running, interrupting their waits on queues.
+     *
+     * @param futures the group tasks
+     */
+    private static void cancel (List<Future<Void>> futures)
+    {
+        for (Future<Void> future : futures) {
+            future.cancel(true);
+        }
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final Constant.Integer queueCapacity = new Constant.Integer(
+                "Sheets",
+                1,
+                "Maximum number of sheets waiting between two step groups");
+    }
+
+    //-----------//
+    // GroupTask //
+    //-----------//
+    /**
+     * Processing of one step group on every sheet, one after the other.
+     */
+    private class GroupTask
+            implements Callable<Void>
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        /** Step to reach in this group. */
+        private final Step groupTarget;
+
+        /** True for the first group. */
+        private final boolean first;
+
+        /** Incoming sheets, null for first group. */
+        private final BlockingQueue<SheetStub> input;
+
+        /** Outgoing sheets, null for last group. */
+        private final BlockingQueue<SheetStub> output;
+
+        //~ Constructors ---------------------------------------------------------------------------
+        public GroupTask (Step groupTarget,
+                          boolean first,
+                          BlockingQueue<SheetStub> input,
+                          BlockingQueue<SheetStub> output)
+        {
+            this.groupTarget = groupTarget;
+            this.first = first;
+            this.input = input;
+            this.output = output;
+        }
+
+        //~ Methods --------------------------------------------------------------------------------
+        @Override
+        public Void call ()
+                throws Exception
+        {
+            // Every sheet goes through every group, to keep the count of items in the pipeline
+            for (int i = 0; i < stubs.size(); i++) {
+                final SheetStub stub = (input == null) ? stubs.get(i) : input.take();
+
+                try {
+                    if (!failures.contains(stub)) {
+                        processStub(stub);
+                    }
+                } finally {
+                    // Hand the sheet over, even on error, so that next group is not left waiting
+                    if (output != null) {
+                        output.put(stub);
+                    }
+                }
+
+                if ((output == null) && (OMR.gui == null) && !failures.contains(stub)) {
+                    // Save sheet to disk and release its memory
+                    stub.swapSheet();
+                }
+            }
+
+            return null;
+        }
+
+        //-------------//
+        // processStub //
+        //-------------//
+        /**
+         * Make the provided sheet reach the group target.
+         * <p>
+         * As in sequential processing, forcing resets a sheet only if it has already reached the
+         * final target, and this is done only once, at beginning of pipeline.
+         *
+         * @param stub the sheet to process
+         */
+        private void processStub (SheetStub stub)
+        {
+            final boolean reset = force && first && stub.isDone(target);
+            boolean ok = false;
+            LogUtil.start(stub);
+
+            try {
+                ok = stub.reachStep(groupTarget, reset);
+            } catch (Exception ex) {
+                // Let processing continue for the other stubs
+                logger.warn("Error processing stub " + ex, ex);
+            } finally {
+                if (!ok) {
+                    failures.add(stub);
+                }
+
+                LogUtil.stopStub();
+            }
+        }
+    }
+}
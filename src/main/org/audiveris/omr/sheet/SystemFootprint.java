@@ -0,0 +1,343 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                 S y s t e m F o o t p r i n t                                  //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.sheet;
+
+import org.audiveris.omr.glyph.Glyph;
+import org.audiveris.omr.sig.SIGraph;
+import org.audiveris.omr.sig.inter.Inter;
+import org.audiveris.omr.sig.relation.Relation;
+import org.audiveris.omr.step.Step;
+import org.audiveris.omr.step.StepException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Class {@code SystemFootprint} records, for a system, the inters and relations created
+ * by each step and the glyphs consumed by the system.
+ * <p>
+ * This dependency tracking allows to re-process, after a manual or scripted modification, only
+ * the systems impacted by the modification, while the SIG of the other systems is kept as is.
+ * Inters and relations created outside of any step processing (typically by the user) are not
+ * recorded, hence they survive any re-processing.
+ * <p>
+ * Lag sections are not recorded. Hence the steps which build sections ({@link #UNTRACKED_STEPS})
+ * are never tracked, and re-processing is refused for them.
+ * <p>
+ * Tracking is transient, so a system reloaded from disk has no footprint and cannot be
+ * re-processed incrementally until its steps are processed again.
+ *
+ * @author Hervé Bitteur
+ */
+public class SystemFootprint
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    /** Steps which build lag sections, and thus cannot be tracked. */
+    public static final Set<Step> UNTRACKED_STEPS = Collections.unmodifiableSet(
+            EnumSet.of(Step.BEAMS, Step.LEDGERS, Step.CUE_BEAMS, Step.TEXTS));
+
+    //~ Instance fields ----------------------------------------------------------------------------
+
+    /** Inters created by each step. */
+    private final Map<Step, Set<Inter>> stepInters = new EnumMap<Step, Set<Inter>>(Step.class);
+
+    /** Relations created by each step. */
+    private final Map<Step, Set<Relation>> stepRelations = new EnumMap<Step, Set<Relation>>(
+            Step.class);
+
+    /** Glyphs consumed by the system. */
+    private final Set<Glyph> glyphs = new LinkedHashSet<Glyph>();
+
+    /** Steps processed while tracking was active. */
+    private final EnumSet<Step> trackedSteps = EnumSet.noneOf(Step.class);
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //----------//
+    // addGlyph //
+    //----------//
+    /**
+     * Record that the provided glyph is consumed by the system.
+     *
+     * @param glyph the consumed glyph
+     */
+    public synchronized void addGlyph (Glyph glyph)
+    {
+        glyphs.add(glyph);
+    }
+
+    //----------//
+    // addInter //
+    //----------//
+    /**
+     * Record that the provided inter has been created by the provided step.
+     *
+     * @param step  the creating step
+     * @param inter the created inter
+     */
+    public synchronized void addInter (Step step,
+                                       Inter inter)
+    {
+        Set<Inter> set = stepInters.get(step);
+
+        if (set == null) {
+            stepInters.put(step, set = new LinkedHashSet<Inter>());
+        }
+
+        set.add(inter);
+    }
+
+    //-------------//
+    // addRelation //
+    //-------------//
+    /**
+     * Record that the provided relation has been created by the provided step.
+     *
+     * @param step     the creating step
+     * @param relation the created relation
+     */
+    public synchronized void addRelation (Step step,
+                                          Relation relation)
+    {
+        Set<Relation> set = stepRelations.get(step);
+
+        if (set == null) {
+            stepRelations.put(step, set = new LinkedHashSet<Relation>());
+        }
+
+        set.add(relation);
+    }
+
+    //-----------//
+    // dependsOn //
+    //-----------//
+    /**
+     * Report whether the system has consumed the provided glyph, either directly or
+     * through one of the inters created by step processing.
+     *
+     * @param glyph the glyph to check
+     * @return true if so
+     */
+    public synchronized boolean dependsOn (Glyph glyph)
+    {
+        if (glyphs.contains(glyph)) {
+            return true;
+        }
+
+        for (Set<Inter> set : stepInters.values()) {
+            for (Inter inter : set) {
+                if (!inter.isDeleted() && (inter.getGlyph() == glyph)) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    //-----------//
+    // isTracked //
+    //-----------//
+    /**
+     * Report whether all the provided steps were processed while tracking was active.
+     *
+     * @param steps the steps to check
+     * @return true if footprint is complete for these steps
+     */
+    public synchronized boolean isTracked (Set<Step> steps)
+    {
+        return trackedSteps.containsAll(steps);
+    }
+
+    //--------------//
+    // removeInters //
+    //--------------//
+    /**
+     * Forget and report the inters created by the provided step, which are still alive.
+     *
+     * @param step the creating step
+     * @return the live inters created by step, perhaps empty
+     */
+    public synchronized List<Inter> removeInters (Step step)
+    {
+        final List<Inter> list = new ArrayList<Inter>();
+        final Set<Inter> set = stepInters.remove(step);
+
+        if (set != null) {
+            for (Inter inter : set) {
+                if (!inter.isDeleted()) {
+                    list.add(inter);
+                }
+            }
+        }
+
+        return list;
+    }
+
+    //-----------------//
+    // removeRelations //
+    //-----------------//
+    /**
+     * Forget and report the relations created by the provided step.
+     *
+     * @param step the creating step
+     * @return the relations created by step, perhaps empty (some may be no longer in sig)
+     */
+    public synchronized List<Relation> removeRelations (Step step)
+    {
+        final Set<Relation> set = stepRelations.remove(step);
+
+        if (set == null) {
+            return Collections.emptyList();
+        }
+
+        return new ArrayList<Relation>(set);
+    }
+
+    //-----------//
+    // reprocess //
+    //-----------//
+    /**
+     * Re-process some systems, for the provided steps.
+     * <p>
+     * For each step, the systems in scope are the provided systems if the step is system-wise, or
+     * all sheet systems otherwise.
+     * If any system in scope has no tracking for the step, nothing is modified and false is
+     * returned.
+     * Otherwise, the relations and inters created by the steps in the systems in scope are
+     * discarded (in reverse step order), then the steps are run again (in step order).
+     * Inters and relations not created by step processing are kept, and so are the systems out of
+     * scope.
+     *
+     * @param steps      the steps to re-run
+     * @param allSystems all the sheet systems
+     * @param systems    the impacted systems
+     * @param runner     the actual step runner
+     * @return true if re-processing was done, false if tracking was not available
+     * @throws StepException if a step processing had to stop
+     */
+    public static boolean reprocess (EnumSet<Step> steps,
+                                     List<SystemInfo> allSystems,
+                                     Collection<SystemInfo> systems,
+                                     StepRunner runner)
+            throws StepException
+    {
+        // Check that dependency tracking is available for all involved systems
+        for (Step step : steps) {
+            final EnumSet<Step> stepSet = EnumSet.of(step);
+
+            for (SystemInfo system : step.isSystemWise() ? systems : allSystems) {
+                if (!system.getFootprint().isTracked(stepSet)) {
+                    return false;
+                }
+            }
+        }
+
+        // Discard inters created by these steps, in reverse order
+        final List<Step> reversed = new ArrayList<Step>(steps);
+        Collections.reverse(reversed);
+
+        for (Step step : reversed) {
+            for (SystemInfo system : step.isSystemWise() ? systems : allSystems) {
+                final SIGraph sig = system.getSig();
+                final SystemFootprint footprint = system.getFootprint();
+
+                // Relations between surviving inters would be created again
+                for (Relation relation : footprint.removeRelations(step)) {
+                    if (sig.containsEdge(relation)) {
+                        sig.removeEdge(relation);
+                    }
+                }
+
+                sig.deleteInters(footprint.removeInters(step));
+            }
+        }
+
+        // Re-run the steps
+        for (Step step : steps) {
+            final Collection<SystemInfo> scope = step.isSystemWise() ? systems : allSystems;
+            runner.run(step, scope);
+
+            for (SystemInfo system : scope) {
+                system.getFootprint().setTracked(step);
+            }
+        }
+
+        return true;
+    }
+
+    //------------//
+    // setTracked //
+    //------------//
+    /**
+     * Record that the provided step has been processed with tracking active, unless
+     * the step is one of {@link #UNTRACKED_STEPS}.
+     * This is also the opportunity to forget the inters deleted so far.
+     *
+     * @param step the processed step
+     */
+    public synchronized void setTracked (Step step)
+    {
+        if (!UNTRACKED_STEPS.contains(step)) {
+            trackedSteps.add(step);
+        }
+
+        for (Set<Inter> set : stepInters.values()) {
+            for (Iterator<Inter> it = set.iterator(); it.hasNext();) {
+                if (it.next().isDeleted()) {
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    //~ Inner Interfaces ---------------------------------------------------------------------------
+    //------------//
+    // StepRunner //
+    //------------//
+    /**
+     * Runs a step on some systems, with tracking of the inters and relations created.
+     */
+    public interface StepRunner
+    {
+        //~ Methods --------------------------------------------------------------------------------
+
+        /**
+         * Run the provided step on the provided systems.
+         *
+         * @param step    the step to run
+         * @param systems the systems to process
+         * @throws StepException if step processing had to stop
+         */
+        void run (Step step,
+                  Collection<SystemInfo> systems)
+                throws StepException;
+    }
+}
@@ -189,6 +189,9 @@ public class SystemInfo
     /** Very temporary set, used only during SIG marshalling. */
     private InterSet interSet;
 
+    /** Dependency tracking, for incremental re-processing. */
+    private final SystemFootprint footprint = new SystemFootprint();
+
     //~ Constructors -------------------------------------------------------------------------------
     /**
      * Create a SystemInfo entity, to register the provided parameters.
@@ -229,6 +232,7 @@ public class SystemInfo
     public void addFreeGlyph (Glyph glyph)
     {
         freeGlyphs.add((BasicGlyph) glyph);
+        footprint.addGlyph(glyph);
     }
 
     //---------//
@@ -301,6 +305,21 @@ public class SystemInfo
         return Integer.compare(id, that.id);
     }
 
+    //-----------//
+    // dependsOn //
+    //-----------//
+    /**
+     * Report whether this system depends on the provided glyph, because the glyph is
+     * one of its free glyphs or has been consumed by its processing.
+     *
+     * @param glyph the glyph to check
+     * @return true if so
+     */
+    public boolean dependsOn (Glyph glyph)
+    {
+        return freeGlyphs.contains(glyph) || footprint.dependsOn(glyph);
+    }
+
     //----------------//
     // estimatedPitch //
     //----------------//
@@ -481,6 +500,19 @@ public class SystemInfo
         return null;
     }
 
+    //--------------//
+    // getFootprint //
+    //--------------//
+    /**
+     * Report the dependency tracking of this system.
+     *
+     * @return the system footprint
+     */
+    public SystemFootprint getFootprint ()
+    {
+        return footprint;
+    }
+
     //------------------//
     // getGroupedGlyphs //
     //------------------//
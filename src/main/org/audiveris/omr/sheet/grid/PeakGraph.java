@@ -23,12 +23,15 @@ package org.audiveris.omr.sheet.grid;
 
 import ij.process.ByteProcessor;
 
+import org.audiveris.omr.Main;
 import org.audiveris.omr.constant.Constant;
 import org.audiveris.omr.constant.ConstantSet;
 import org.audiveris.omr.glyph.dynamic.Filament;
+import org.audiveris.omr.image.ColumnSums;
 import org.audiveris.omr.lag.Lag;
 import org.audiveris.omr.lag.Lags;
 import org.audiveris.omr.lag.Section;
+import org.audiveris.omr.log.LogUtil;
 import org.audiveris.omr.math.AreaUtil;
 import org.audiveris.omr.math.GeoPath;
 import org.audiveris.omr.math.LineUtil;
@@ -42,7 +45,9 @@ import org.audiveris.omr.sheet.StaffManager;
 import org.audiveris.omr.sheet.SystemInfo;
 import org.audiveris.omr.sheet.SystemManager;
 import static org.audiveris.omr.sheet.grid.StaffPeak.Attribute.BRACE;
+import org.audiveris.omr.step.ProcessingCancellationException;
 import org.audiveris.omr.step.StepException;
+import org.audiveris.omr.step.StepScheduler;
 import org.audiveris.omr.util.Dumping;
 import org.audiveris.omr.util.HorizontalSide;
 import static org.audiveris.omr.util.HorizontalSide.LEFT;
@@ -67,6 +72,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -74,6 +80,7 @@ import java.util.Map.Entry;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
 
 /**
  * Class {@code PeakGraph} handles the graph of all StaffPeak instances in a sheet,
@@ -107,6 +114,9 @@ public class PeakGraph
     /** Specific builder for peak-based filaments. */
     private final BarFilamentBuilder filamentBuilder;
 
+    /** True for running per-staff tasks in parallel. */
+    private final boolean parallel;
+
     //~ Constructors -------------------------------------------------------------------------------
     /**
      * Creates a new {@code PeakGraph} object.
@@ -116,10 +126,25 @@ public class PeakGraph
      */
     public PeakGraph (Sheet sheet,
                       List<StaffProjector> projectors)
+    {
+        this(sheet, projectors, Main.processSystemsInParallel());
+    }
+
+    /**
+     * Creates a new {@code PeakGraph} object, with an explicit parallelism policy.
+     *
+     * @param sheet      the sheet to process
+     * @param projectors the projector for each staff
+     * @param parallel   true for running per-staff tasks in parallel
+     */
+    PeakGraph (Sheet sheet,
+               List<StaffProjector> projectors,
+               boolean parallel)
     {
         super(BarAlignment.class);
         this.sheet = sheet;
         this.projectors = projectors;
+        this.parallel = parallel;
 
         params = new Parameters(sheet.getScale());
 
@@ -415,48 +440,13 @@ public class PeakGraph
     {
         ByteProcessor pixelFilter = sheet.getPicture().getSource(
                 Picture.SourceKey.BINARY);
-        StaffPeak p1 = alignment.topPeak;
-        StaffPeak p2 = alignment.bottomPeak;
-        final boolean vip = p1.isVip() && p2.isVip();
-
-        // Theoretical lines on left and right sides
-        final GeoPath leftLine = new GeoPath(
-                new Line2D.Double(
-                        new Point2D.Double(p1.getStart(), p1.getBottom()),
-                        new Point2D.Double(p2.getStart(), p2.getTop())));
-        final GeoPath rightLine = new GeoPath(
-                new Line2D.Double(
-                        new Point2D.Double(p1.getStop(), p1.getBottom()),
-                        new Point2D.Double(p2.getStop(), p2.getTop())));
-        final AreaUtil.CoreData data = AreaUtil.verticalCore(pixelFilter, leftLine, rightLine);
-
-        if (vip) {
-            logger.info("VIP running checkConnection {} and {} {}", p1, p2, data);
-        }
-
-        if ((data.gap <= params.maxConnectionGap)
-            && (data.whiteRatio <= params.maxConnectionWhiteRatio)) {
-            double gapImpact = 1 - (data.gap / params.maxConnectionGap);
-            double whiteImpact = 1 - (data.whiteRatio / params.maxConnectionWhiteRatio);
-            BarConnection connection = new BarConnection(alignment, gapImpact, whiteImpact);
+        BarConnection connection = computeConnection(pixelFilter, alignment);
 
-            if (logger.isDebugEnabled() || vip) {
-                logger.info("VIP {}", connection);
-            }
-
-            StaffPeak source = getEdgeSource(alignment);
-            StaffPeak target = getEdgeTarget(alignment);
-            removeEdge(alignment);
-            addEdge(source, target, connection);
-
-            return connection;
+        if (connection != null) {
+            replaceEdge(alignment, connection);
         }
 
-        if (vip) {
-            logger.info("VIP no connection between {} and {}", p1, p2);
-        }
-
-        return null;
+        return connection;
     }
 
     //---------------//
@@ -573,6 +563,59 @@ public class PeakGraph
         return map;
     }
 
+    //-------------------//
+    // computeConnection //
+    //-------------------//
+    /**
+     * Compute the connection, if any, that the provided alignment would make.
+     * The graph is not modified.
+     *
+     * @param pixelFilter the binary source
+     * @param alignment   the alignment to check
+     * @return the connection if OK, null otherwise
+     */
+    private BarConnection computeConnection (ByteProcessor pixelFilter,
+                                             BarAlignment alignment)
+    {
+        StaffPeak p1 = alignment.topPeak;
+        StaffPeak p2 = alignment.bottomPeak;
+        final boolean vip = p1.isVip() && p2.isVip();
+
+        // Theoretical lines on left and right sides
+        final GeoPath leftLine = new GeoPath(
+                new Line2D.Double(
+                        new Point2D.Double(p1.getStart(), p1.getBottom()),
+                        new Point2D.Double(p2.getStart(), p2.getTop())));
+        final GeoPath rightLine = new GeoPath(
+                new Line2D.Double(
+                        new Point2D.Double(p1.getStop(), p1.getBottom()),
+                        new Point2D.Double(p2.getStop(), p2.getTop())));
+        final AreaUtil.CoreData data = AreaUtil.verticalCore(pixelFilter, leftLine, rightLine);
+
+        if (vip) {
+            logger.info("VIP running checkConnection {} and {} {}", p1, p2, data);
+        }
+
+        if ((data.gap <= params.maxConnectionGap)
+            && (data.whiteRatio <= params.maxConnectionWhiteRatio)) {
+            double gapImpact = 1 - (data.gap / params.maxConnectionGap);
+            double whiteImpact = 1 - (data.whiteRatio / params.maxConnectionWhiteRatio);
+            BarConnection connection = new BarConnection(alignment, gapImpact, whiteImpact);
+
+            if (logger.isDebugEnabled() || vip) {
+                logger.info("VIP {}", connection);
+            }
+
+            return connection;
+        }
+
+        if (vip) {
+            logger.info("VIP no connection between {} and {}", p1, p2);
+        }
+
+        return null;
+    }
+
     //---------------//
     // createSubPeak //
     //---------------//
@@ -758,16 +801,11 @@ public class PeakGraph
     private List<BarAlignment> findAlignmentsBelow (StaffPeak peak,
                                                     Staff staffBelow)
     {
-        List<BarAlignment> alignments = new ArrayList<BarAlignment>();
+        List<BarAlignment> alignments = getAlignmentsBelow(peak, staffBelow);
 
-        for (StaffPeak peakBelow : projectorOf(staffBelow).getPeaks()) {
-            BarAlignment alignment = checkAlignment(peak, peakBelow, true, true);
-
-            if (alignment != null) {
-                logger.debug("{}", alignment);
-                addEdge(peak, peakBelow, alignment);
-                alignments.add(alignment);
-            }
+        for (BarAlignment alignment : alignments) {
+            logger.debug("{}", alignment);
+            addEdge(peak, alignment.bottomPeak, alignment);
         }
 
         return alignments;
@@ -781,8 +819,11 @@ public class PeakGraph
      */
     private void findAllAlignments ()
     {
-        // Check for peaks aligned across staves
-        for (StaffProjector projector : projectors) {
+        // Check for peaks aligned across staves, perhaps in parallel, one task per staff
+        final List<List<BarAlignment>> found = new ArrayList<List<BarAlignment>>();
+        final List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+
+        for (final StaffProjector projector : projectors) {
             final Staff staff = projector.getStaff();
             final List<Staff> stavesBelow = staffManager.vertNeighbors(staff, BOTTOM);
 
@@ -792,10 +833,33 @@ public class PeakGraph
                 continue;
             }
 
-            for (StaffPeak peak : projector.getPeaks()) {
-                for (Staff staffBelow : stavesBelow) {
-                    findAlignmentsBelow(peak, staffBelow);
+            final List<BarAlignment> alignments = new ArrayList<BarAlignment>();
+            found.add(alignments);
+            tasks.add(
+                    new Callable<Void>()
+            {
+                @Override
+                public Void call ()
+                        throws Exception
+                {
+                    for (StaffPeak peak : projector.getPeaks()) {
+                        for (Staff staffBelow : stavesBelow) {
+                            alignments.addAll(getAlignmentsBelow(peak, staffBelow));
+                        }
+                    }
+
+                    return null;
                 }
+            });
+        }
+
+        invokeStaffTasks(tasks);
+
+        // Insert alignments in graph, in staff order
+        for (List<BarAlignment> alignments : found) {
+            for (BarAlignment alignment : alignments) {
+                logger.debug("{}", alignment);
+                addEdge(alignment.topPeak, alignment.bottomPeak, alignment);
             }
         }
     }
@@ -808,11 +872,35 @@ public class PeakGraph
      */
     private void findBarPeaks ()
     {
-        // Analysis staff per staff
+        // Column sums are built once for the whole sheet, unless it is too high for them
+        final ByteProcessor binary = sheet.getPicture().getSource(Picture.SourceKey.BINARY);
+        final ColumnSums columnSums = (binary.getHeight() <= ColumnSums.MAX_HEIGHT)
+                ? new ColumnSums(binary) : null;
+
+        // Analysis staff per staff, perhaps in parallel
+        final List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+
         for (Staff staff : staffManager.getStaves()) {
-            StaffProjector projector = new StaffProjector(sheet, staff, this);
+            final StaffProjector projector = new StaffProjector(sheet, staff, this, columnSums);
             projectors.add(projector);
-            projector.process();
+            tasks.add(
+                    new Callable<Void>()
+            {
+                @Override
+                public Void call ()
+                        throws Exception
+                {
+                    projector.process();
+
+                    return null;
+                }
+            });
+        }
+
+        invokeStaffTasks(tasks);
+
+        // Insert peaks in graph, in staff order
+        for (StaffProjector projector : projectors) {
             Graphs.addAllVertices(this, projector.getPeaks());
         }
     }
@@ -825,11 +913,84 @@ public class PeakGraph
      */
     private void findConnections ()
     {
-        // Check among the alignments for peaks connected across staves
-        for (BarAlignment alignment : new ArrayList<BarAlignment>(edgeSet())) {
-            // Look for concrete connection
-            checkConnection(alignment);
+        // Check among the alignments for peaks connected across staves, perhaps in parallel
+        final ByteProcessor pixelFilter = sheet.getPicture().getSource(
+                Picture.SourceKey.BINARY);
+        final List<BarAlignment> alignments = new ArrayList<BarAlignment>(edgeSet());
+        final BarConnection[] connections = new BarConnection[alignments.size()];
+
+        // Indices of alignments, grouped by top staff
+        final Map<Staff, List<Integer>> staffIndices = new LinkedHashMap<Staff, List<Integer>>();
+
+        for (int i = 0; i < connections.length; i++) {
+            final Staff staff = alignments.get(i).topPeak.getStaff();
+            List<Integer> indices = staffIndices.get(staff);
+
+            if (indices == null) {
+                staffIndices.put(staff, indices = new ArrayList<Integer>());
+            }
+
+            indices.add(i);
+        }
+
+        // One task per top staff
+        final List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+
+        for (final List<Integer> indices : staffIndices.values()) {
+            tasks.add(
+                    new Callable<Void>()
+            {
+                @Override
+                public Void call ()
+                        throws Exception
+                {
+                    // Look for concrete connections
+                    for (int index : indices) {
+                        connections[index] = computeConnection(
+                                pixelFilter,
+                                alignments.get(index));
+                    }
+
+                    return null;
+                }
+            });
+        }
+
+        invokeStaffTasks(tasks);
+
+        // Replace alignments by connections, in alignment order
+        for (int i = 0; i < connections.length; i++) {
+            if (connections[i] != null) {
+                replaceEdge(alignments.get(i), connections[i]);
+            }
+        }
+    }
+
+    //--------------------//
+    // getAlignmentsBelow //
+    //--------------------//
+    /**
+     * Report the alignments between provided peak and the peaks of provided staff below.
+     * The graph is not modified.
+     *
+     * @param peak       the reference peak
+     * @param staffBelow the staff below to be browsed for alignment with peak
+     * @return the alignments found, perhaps empty
+     */
+    private List<BarAlignment> getAlignmentsBelow (StaffPeak peak,
+                                                   Staff staffBelow)
+    {
+        List<BarAlignment> alignments = new ArrayList<BarAlignment>();
+
+        for (StaffPeak peakBelow : projectorOf(staffBelow).getPeaks()) {
+            BarAlignment alignment = checkAlignment(peak, peakBelow, true, true);
+
+            if (alignment != null) {
+                alignments.add(alignment);
+            }
         }
+
+        return alignments;
     }
 
     //-------------------//
@@ -1113,6 +1274,61 @@ public class PeakGraph
         return all.subList(iMin, iMax + 1);
     }
 
+    //------------------//
+    // invokeStaffTasks //
+    //------------------//
+    /**
+     * Run the provided tasks, in parallel if allowed for this graph, and wait for
+     * their completion.
+     * <p>
+     * Tasks must not modify the graph, their results being merged by the caller in a
+     * deterministic order.
+     *
+     * @param tasks the tasks to run
+     */
+    private void invokeStaffTasks (List<Callable<Void>> tasks)
+    {
+        try {
+            if (parallel) {
+                final List<Callable<Void>> logged = new ArrayList<Callable<Void>>(tasks.size());
+
+                for (final Callable<Void> task : tasks) {
+                    logged.add(
+                            new Callable<Void>()
+                    {
+                        @Override
+                        public Void call ()
+                                throws Exception
+                        {
+                            try {
+                                LogUtil.start(sheet.getStub());
+
+                                return task.call();
+                            } finally {
+                                LogUtil.stopStub();
+                            }
+                        }
+                    });
+                }
+
+                // In parallel, on the pool shared by all sheets
+                StepScheduler.invokeSystems(sheet.getStub().getCurrentStep(), logged);
+            } else {
+                // In sequence
+                for (Callable<Void> task : tasks) {
+                    task.call();
+                }
+            }
+        } catch (InterruptedException ex) {
+            logger.warn("PeakGraph got interrupted");
+            throw new ProcessingCancellationException(ex);
+        } catch (RuntimeException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
     //-------------//
     // projectorOf //
     //-------------//
@@ -1248,6 +1464,24 @@ public class PeakGraph
         }
     }
 
+    //-------------//
+    // replaceEdge //
+    //-------------//
+    /**
+     * Replace an alignment by the connection found for it.
+     *
+     * @param alignment  the alignment to replace
+     * @param connection the connection to insert
+     */
+    private void replaceEdge (BarAlignment alignment,
+                              BarConnection connection)
+    {
+        StaffPeak source = getEdgeSource(alignment);
+        StaffPeak target = getEdgeTarget(alignment);
+        removeEdge(alignment);
+        addEdge(source, target, connection);
+    }
+
     //-----------------//
     // solveAlignments //
     //-----------------//
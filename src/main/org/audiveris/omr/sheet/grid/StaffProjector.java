@@ -24,10 +24,10 @@ package org.audiveris.omr.sheet.grid;
 import ij.process.ByteProcessor;
 
 import org.audiveris.omr.constant.ConstantSet;
+import org.audiveris.omr.image.ColumnSums;
 import org.audiveris.omr.math.AreaUtil;
 import org.audiveris.omr.math.AreaUtil.CoreData;
 import org.audiveris.omr.math.GeoPath;
-import org.audiveris.omr.math.Projection;
 import org.audiveris.omr.sheet.Picture;
 import org.audiveris.omr.sheet.Scale;
 import org.audiveris.omr.sheet.Scale.InterlineScale;
@@ -140,6 +140,9 @@ public class StaffProjector
     /** Pixel source. */
     private final ByteProcessor pixelFilter;
 
+    /** Per-column cumulated foreground pixels, shared by all staves of the sheet, or null. */
+    private final ColumnSums columnSums;
+
     /** Sequence of all blank regions found, whatever their width. */
     private final List<Blank> allBlanks = new ArrayList<Blank>();
 
@@ -157,14 +160,14 @@ public class StaffProjector
     private final Graph<StaffPeak, BarAlignment> peakGraph;
 
     /** Count of cumulated foreground pixels, indexed by abscissa. */
-    private Projection projection;
+    private int[] projection;
 
     /** Initial brace peak, if any. */
     private StaffPeak bracePeak;
 
     //~ Constructors -------------------------------------------------------------------------------
     /**
-     * Creates a new {@code StaffProjector} object.
+     * Creates a new {@code StaffProjector} object, which scans the staff pixels only.
      *
      * @param sheet     containing sheet
      * @param staff     staff to analyze
@@ -173,6 +176,22 @@ public class StaffProjector
     public StaffProjector (Sheet sheet,
                            Staff staff,
                            PeakGraph peakGraph)
+    {
+        this(sheet, staff, peakGraph, null);
+    }
+
+    /**
+     * Creates a new {@code StaffProjector} object, using column sums already built.
+     *
+     * @param sheet      containing sheet
+     * @param staff      staff to analyze
+     * @param peakGraph  sheet graph of peaks
+     * @param columnSums column sums of sheet binary source, or null to scan staff pixels
+     */
+    public StaffProjector (Sheet sheet,
+                           Staff staff,
+                           PeakGraph peakGraph,
+                           ColumnSums columnSums)
     {
         this.sheet = sheet;
         this.staff = staff;
@@ -180,6 +199,7 @@ public class StaffProjector
 
         Picture picture = sheet.getPicture();
         pixelFilter = picture.getSource(Picture.SourceKey.BINARY);
+        this.columnSums = columnSums;
 
         scale = sheet.getScale();
         params = new Parameters(scale, staff.getSpecificInterline());
@@ -276,7 +296,7 @@ public class StaffProjector
         // Browse from right to left
         // First finding valley left of bar, then brace peak if any
         for (int x = maxRight; x >= xMin; x--) {
-            int value = projection.getValue(x);
+            int value = projection[x];
 
             if (value >= minValue) {
                 if (!valleyHit) {
@@ -611,13 +631,13 @@ public class StaffProjector
         int stop;
 
         for (int x = rangeStart; x <= rangeStop; x++) {
-            final int der = projection.getDerivative(x);
+            final int der = getDerivative(x);
 
             if (der >= params.minDerivative) {
                 int maxDer = der;
 
                 for (int xx = x + 1; xx <= rangeStop; xx++) {
-                    int xxDer = projection.getDerivative(xx);
+                    int xxDer = getDerivative(xx);
 
                     if (xxDer > maxDer) {
                         maxDer = xxDer;
@@ -632,7 +652,7 @@ public class StaffProjector
                 int minDer = der;
 
                 for (int xx = x + 1; xx <= xClamp(rangeStop + 1); xx++) {
-                    int xxDer = projection.getDerivative(xx);
+                    int xxDer = getDerivative(xx);
 
                     if (xxDer <= minDer) {
                         minDer = xxDer;
@@ -731,7 +751,7 @@ public class StaffProjector
      */
     private void computeProjection ()
     {
-        projection = new Projection.Short(0, sheet.getWidth() - 1);
+        projection = new int[sheet.getWidth()];
 
         final LineInfo firstLine = staff.getFirstLine();
         final LineInfo lastLine = staff.getLastLine();
@@ -740,17 +760,22 @@ public class StaffProjector
         final int xMax = xClamp(staff.getAbscissa(RIGHT) + dx);
 
         for (int x = xMin; x <= xMax; x++) {
-            int yMin = firstLine.yAt(x);
-            int yMax = lastLine.yAt(x);
-            short count = 0;
+            final int yMin = firstLine.yAt(x);
+            final int yMax = lastLine.yAt(x);
+
+            if (columnSums != null) {
+                projection[x] = columnSums.getCount(x, yMin, yMax);
+            } else {
+                int count = 0;
 
-            for (int y = yMin; y <= yMax; y++) {
-                if (pixelFilter.get(x, y) == 0) {
-                    count++;
+                for (int y = yMin; y <= yMax; y++) {
+                    if (pixelFilter.get(x, y) == 0) {
+                        count++;
+                    }
                 }
-            }
 
-            projection.increment(x, count);
+                projection[x] = count;
+            }
         }
     }
 
@@ -781,10 +806,10 @@ public class StaffProjector
         }
 
         int start = (leftBlank != null) ? leftBlank.stop : rawStart;
-        int val = projection.getValue(start);
+        int val = projection[start];
 
         for (int x = start - 1; x >= 0; x--) {
-            int nextVal = projection.getValue(x);
+            int nextVal = projection[x];
 
             if (nextVal < val) {
                 val = nextVal;
@@ -800,7 +825,7 @@ public class StaffProjector
         int stop = -1;
 
         for (int x = rawStop; x <= maxRight; x++) {
-            val = projection.getValue(x);
+            val = projection[x];
 
             if (val < bestVal) {
                 bestVal = val;
@@ -869,7 +894,7 @@ public class StaffProjector
         int value = 0;
 
         for (int x = start; x <= stop; x++) {
-            value = Math.max(value, projection.getValue(x));
+            value = Math.max(value, projection[x]);
         }
 
         // Compute largest white gap
@@ -926,7 +951,7 @@ public class StaffProjector
         int stop = -1;
 
         for (int x = 0; x < sheetWidth; x++) {
-            if (projection.getValue(x) <= maxValue) {
+            if (projection[x] <= maxValue) {
                 // No line detected
                 if (start == -1) {
                     start = x;
@@ -957,7 +982,8 @@ public class StaffProjector
     //-----------//
     /**
      * Retrieve the relevant (bar line) peaks in the staff projection.
-     * This populates the 'peaks' sequence.
+     * This populates the 'peaks' sequence, but not the peak graph, so that staves can be
+     * processed in parallel.
      */
     private void findPeaks ()
     {
@@ -973,7 +999,7 @@ public class StaffProjector
         int stop = -1;
 
         for (int x = xMin; x <= xMax; x++) {
-            int value = projection.getValue(x);
+            int value = projection[x];
 
             if (value >= minValue) {
                 if (start == -1) {
@@ -984,7 +1010,6 @@ public class StaffProjector
             } else if (start != -1) {
                 for (StaffPeak peak : browseRange(start, stop)) {
                     peaks.add(peak);
-                    peakGraph.addVertex(peak);
 
                     // Make sure peaks do not overlap
                     x = Math.max(x, peak.getStop());
@@ -1000,13 +1025,30 @@ public class StaffProjector
 
             if (peak != null) {
                 peaks.add(peak);
-                peakGraph.addVertex(peak);
             }
         }
 
         logger.debug("Staff#{} peaks:{}", staff.getId(), peaks);
     }
 
+    //---------------//
+    // getDerivative //
+    //---------------//
+    /**
+     * Report a simplistic projection derivative at provided abscissa.
+     *
+     * @param x provided abscissa
+     * @return projection at x minus projection at (x - 1), or 0 for x = 0
+     */
+    private int getDerivative (int x)
+    {
+        if (x <= 0) {
+            return 0;
+        }
+
+        return projection[x] - projection[x - 1];
+    }
+
     //----------------//
     // refinePeakSide //
     //----------------//
@@ -1039,7 +1081,7 @@ public class StaffProjector
         Integer bestX = null; // Abscissa at best derivative
 
         for (int x = x1; (dir * (x2 - x)) >= 0; x += dir) {
-            final int der = projection.getDerivative(x);
+            final int der = getDerivative(x);
 
             if ((dir * (bestDer - der)) > 0) {
                 bestDer = der;
@@ -1059,7 +1101,7 @@ public class StaffProjector
             int border = (dir > 0) ? (sheet.getWidth() - 1) : 0;
 
             if (x2 == border) {
-                final int der = projection.getValue(border);
+                final int der = projection[border];
 
                 if (der >= params.minDerivative) {
                     double derImpact = (double) der / (params.barThreshold - params.minDerivative);
@@ -1416,7 +1458,7 @@ public class StaffProjector
                 XYSeries valueSeries = new XYSeries("Cumuls", false); // No autosort
 
                 for (int x = xMin; x <= xMax; x++) {
-                    valueSeries.add(x, projection.getValue(x));
+                    valueSeries.add(x, projection[x]);
                 }
 
                 add(valueSeries, Colors.CHART_VALUE, false);
@@ -1427,7 +1469,7 @@ public class StaffProjector
                 XYSeries derivativeSeries = new XYSeries("Derivatives", false); // No autosort
 
                 for (int x = xMin; x <= xMax; x++) {
-                    derivativeSeries.add(x, projection.getDerivative(x));
+                    derivativeSeries.add(x, getDerivative(x));
                 }
 
                 add(derivativeSeries, Colors.CHART_DERIVATIVE, false);
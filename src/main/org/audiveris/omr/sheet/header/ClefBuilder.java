@@ -714,33 +714,51 @@ public class ClefBuilder
         public void evaluateGlyph (Glyph glyph,
                                    Set<Glyph> parts)
         {
-            trials++;
+            evaluateGlyphs(
+                    Collections.singletonList(glyph),
+                    Collections.singletonList(parts));
+        }
 
-            if (glyph.getId() == 0) {
-                glyph = system.registerGlyph(glyph, null);
-            }
+        @Override
+        public void evaluateGlyphs (List<Glyph> glyphs,
+                                    List<Set<Glyph>> parts)
+        {
+            final List<Glyph> registered = new ArrayList<Glyph>(glyphs.size());
 
-            glyphCandidates.add(glyph);
+            for (Glyph glyph : glyphs) {
+                trials++;
 
-            logger.debug("ClefAdapter evaluateGlyph on {}", glyph);
+                if (glyph.getId() == 0) {
+                    glyph = system.registerGlyph(glyph, null);
+                }
 
-            Evaluation[] evals = classifier.evaluate(
-                    glyph,
+                glyphCandidates.add(glyph);
+                registered.add(glyph);
+
+                logger.debug("ClefAdapter evaluateGlyph on {}", glyph);
+            }
+
+            final List<Evaluation[]> allEvals = classifier.evaluate(
+                    registered,
                     staff.getSpecificInterline(),
                     params.maxEvalRank,
                     Grades.clefMinGrade / Inter.intrinsicRatio,
                     null);
 
-            for (Evaluation eval : evals) {
-                final Shape shape = eval.shape;
+            for (int i = 0; i < registered.size(); i++) {
+                final Glyph glyph = registered.get(i);
+
+                for (Evaluation eval : allEvals.get(i)) {
+                    final Shape shape = eval.shape;
 
-                if (HEADER_CLEF_SHAPES.contains(shape)) {
-                    final double grade = Inter.intrinsicRatio * eval.grade;
-                    ClefKind kind = ClefInter.kindOf(glyph, shape, staff);
-                    ClefInter bestInter = bestMap.get(kind);
+                    if (HEADER_CLEF_SHAPES.contains(shape)) {
+                        final double grade = Inter.intrinsicRatio * eval.grade;
+                        ClefKind kind = ClefInter.kindOf(glyph, shape, staff);
+                        ClefInter bestInter = bestMap.get(kind);
 
-                    if ((bestInter == null) || (bestInter.getGrade() < grade)) {
-                        bestMap.put(kind, ClefInter.create(glyph, shape, grade, staff));
+                        if ((bestInter == null) || (bestInter.getGrade() < grade)) {
+                            bestMap.put(kind, ClefInter.create(glyph, shape, grade, staff));
+                        }
                     }
                 }
             }
@@ -698,6 +698,80 @@ public class KeyExtractor
         }
 
         //~ Methods --------------------------------------------------------------------------------
+        @Override
+        public void evaluateGlyph (Glyph glyph,
+                                   Set<Glyph> parts)
+        {
+            evaluateGlyphs(
+                    Collections.singletonList(glyph),
+                    Collections.singletonList(parts));
+        }
+
+        @Override
+        public void evaluateGlyphs (List<Glyph> glyphs,
+                                    List<Set<Glyph>> parts)
+        {
+            final List<Glyph> kept = new ArrayList<Glyph>(glyphs.size());
+            final List<Set<Glyph>> keptParts = new ArrayList<Set<Glyph>>(glyphs.size());
+
+            for (int i = 0; i < glyphs.size(); i++) {
+                Glyph glyph = glyphs.get(i);
+
+                if (isTooSmall(glyph.getBounds())) {
+                    continue;
+                }
+
+                final KeySlice slice = getSlice(glyph);
+
+                if ((slice != null) && !embracesSlicePeaks(slice, glyph)) {
+                    continue;
+                }
+
+                trials++;
+
+                if (glyph.getId() == 0) {
+                    glyph = sheet.getGlyphIndex().registerOriginal(glyph);
+                    system.addFreeGlyph(glyph);
+                }
+
+                if (glyph.isVip()) {
+                    logger.info("VIP evaluateGlyphs for {}", glyph);
+                }
+
+                glyphCandidates.add(glyph);
+                kept.add(glyph);
+                keptParts.add(parts.get(i));
+            }
+
+            if (kept.isEmpty()) {
+                return;
+            }
+
+            final List<Evaluation[]> allEvals = classifier.evaluate(
+                    kept,
+                    sheet.getInterline(),
+                    params.maxEvalRank,
+                    minGrade / Inter.intrinsicRatio,
+                    null);
+
+            for (int i = 0; i < kept.size(); i++) {
+                final Glyph glyph = kept.get(i);
+
+                for (Evaluation eval : allEvals.get(i)) {
+                    final Shape shape = eval.shape;
+
+                    if (targetShapes.contains(shape)) {
+                        logger.debug(
+                                "glyph#{} width:{} {}",
+                                glyph.getId(),
+                                glyph.getWidth(),
+                                eval);
+                        keepCandidate(glyph, keptParts.get(i), eval);
+                    }
+                }
+            }
+        }
+
         @Override
         public boolean isTooHeavy (int weight)
         {
@@ -747,47 +821,13 @@ public class KeyExtractor
             return true;
         }
 
-        protected void evaluateSliceGlyph (KeySlice slice,
-                                           Glyph glyph,
-                                           Set<Glyph> parts)
-        {
-            if (isTooSmall(glyph.getBounds())) {
-                return;
-            }
-
-            if ((slice != null) && !embracesSlicePeaks(slice, glyph)) {
-                return;
-            }
-
-            trials++;
-
-            if (glyph.getId() == 0) {
-                glyph = sheet.getGlyphIndex().registerOriginal(glyph);
-                system.addFreeGlyph(glyph);
-            }
-
-            if (glyph.isVip()) {
-                logger.info("VIP evaluateSliceGlyph for {}", glyph);
-            }
-
-            glyphCandidates.add(glyph);
-
-            Evaluation[] evals = classifier.evaluate(
-                    glyph,
-                    sheet.getInterline(),
-                    params.maxEvalRank,
-                    minGrade / Inter.intrinsicRatio,
-                    null);
-
-            for (Evaluation eval : evals) {
-                final Shape shape = eval.shape;
-
-                if (targetShapes.contains(shape)) {
-                    logger.debug("glyph#{} width:{} {}", glyph.getId(), glyph.getWidth(), eval);
-                    keepCandidate(glyph, parts, eval);
-                }
-            }
-        }
+        /**
+         * Report the slice impacted by the provided glyph.
+         *
+         * @param glyph the glyph at hand
+         * @return the impacted slice, perhaps null
+         */
+        protected abstract KeySlice getSlice (Glyph glyph);
 
         protected abstract void keepCandidate (Glyph glyph,
                                                Set<Glyph> parts,
@@ -873,12 +913,10 @@ public class KeyExtractor
 
         //~ Methods --------------------------------------------------------------------------------
         @Override
-        public void evaluateGlyph (Glyph glyph,
-                                   Set<Glyph> parts)
+        protected KeySlice getSlice (Glyph glyph)
         {
             // Retrieve impacted slice
-            final KeySlice slice = roi.sliceOf(glyph.getCentroid().x);
-            evaluateSliceGlyph(slice, glyph, parts);
+            return roi.sliceOf(glyph.getCentroid().x);
         }
 
         @Override
@@ -969,10 +1007,9 @@ public class KeyExtractor
 
         //~ Methods --------------------------------------------------------------------------------
         @Override
-        public void evaluateGlyph (Glyph glyph,
-                                   Set<Glyph> parts)
+        protected KeySlice getSlice (Glyph glyph)
         {
-            evaluateSliceGlyph(slice, glyph, parts);
+            return slice;
         }
 
         @Override
@@ -1661,24 +1661,15 @@ public abstract class TimeBuilder
 
         //~ Methods --------------------------------------------------------------------------------
         @Override
-        public void evaluateGlyph (Glyph glyph,
-                                   Set<Glyph> parts)
+        public boolean isTooLight (int weight)
         {
-            trials++;
-
-            if (glyph.getId() == 0) {
-                glyph = system.registerGlyph(glyph, null);
-            }
-
-            glyphCandidates.add(glyph);
-
-            Evaluation[] evals = ShapeClassifier.getInstance().evaluate(
-                    glyph,
-                    staff.getSpecificInterline(),
-                    params.maxEvalRank,
-                    Grades.timeMinGrade / Inter.intrinsicRatio,
-                    null);
+            return weight < params.minHalfTimeWeight;
+        }
 
+        @Override
+        protected void processEvaluations (Glyph glyph,
+                                           Evaluation[] evals)
+        {
             for (Evaluation eval : evals) {
                 final Shape shape = eval.shape;
 
@@ -1702,12 +1693,6 @@ public abstract class TimeBuilder
                 }
             }
         }
-
-        @Override
-        public boolean isTooLight (int weight)
-        {
-            return weight < params.minHalfTimeWeight;
-        }
     }
 
     //-------------//
@@ -1735,6 +1720,44 @@ public abstract class TimeBuilder
             }
         }
 
+        @Override
+        public void evaluateGlyph (Glyph glyph,
+                                   Set<Glyph> parts)
+        {
+            evaluateGlyphs(
+                    Collections.singletonList(glyph),
+                    Collections.singletonList(parts));
+        }
+
+        @Override
+        public void evaluateGlyphs (List<Glyph> glyphs,
+                                    List<Set<Glyph>> parts)
+        {
+            final List<Glyph> registered = new ArrayList<Glyph>(glyphs.size());
+
+            for (Glyph glyph : glyphs) {
+                trials++;
+
+                if (glyph.getId() == 0) {
+                    glyph = system.registerGlyph(glyph, null);
+                }
+
+                glyphCandidates.add(glyph);
+                registered.add(glyph);
+            }
+
+            final List<Evaluation[]> allEvals = ShapeClassifier.getInstance().evaluate(
+                    registered,
+                    staff.getSpecificInterline(),
+                    params.maxEvalRank,
+                    Grades.timeMinGrade / Inter.intrinsicRatio,
+                    null);
+
+            for (int i = 0; i < registered.size(); i++) {
+                processEvaluations(registered.get(i), allEvals.get(i));
+            }
+        }
+
         public Inter getSingleInter ()
         {
             for (Inter inter : bestMap.values()) {
@@ -1751,6 +1774,15 @@ public abstract class TimeBuilder
         {
             return bounds.width > params.maxTimeWidth;
         }
+
+        /**
+         * Use the evaluations of a glyph to update the best inter per time shape.
+         *
+         * @param glyph the evaluated glyph
+         * @param evals the acceptable glyph evaluations
+         */
+        protected abstract void processEvaluations (Glyph glyph,
+                                                    Evaluation[] evals);
     }
 
     //--------------//
@@ -1773,25 +1805,16 @@ public abstract class TimeBuilder
 
         //~ Methods --------------------------------------------------------------------------------
         @Override
-        public void evaluateGlyph (Glyph glyph,
-                                   Set<Glyph> parts)
+        public boolean isTooLight (int weight)
         {
-            //TODO: check glyph centroid for a whole symbol is not too far from staff middle line
-            trials++;
-
-            if (glyph.getId() == 0) {
-                glyph = system.registerGlyph(glyph, null);
-            }
-
-            glyphCandidates.add(glyph);
-
-            Evaluation[] evals = ShapeClassifier.getInstance().evaluate(
-                    glyph,
-                    staff.getSpecificInterline(),
-                    params.maxEvalRank,
-                    Grades.timeMinGrade / Inter.intrinsicRatio,
-                    null);
+            return weight < params.minWholeTimeWeight;
+        }
 
+        @Override
+        protected void processEvaluations (Glyph glyph,
+                                           Evaluation[] evals)
+        {
+            //TODO: check glyph centroid for a whole symbol is not too far from staff middle line
             for (Evaluation eval : evals) {
                 final Shape shape = eval.shape;
 
@@ -1809,11 +1832,5 @@ public abstract class TimeBuilder
                 }
             }
         }
-
-        @Override
-        public boolean isTooLight (int weight)
-        {
-            return weight < params.minWholeTimeWeight;
-        }
     }
 }
@@ -32,11 +32,13 @@ import org.audiveris.omr.glyph.ShapeSet;
 import org.audiveris.omr.glyph.Symbol;
 import org.audiveris.omr.image.Anchored.Anchor;
 import static org.audiveris.omr.image.Anchored.Anchor.*;
+import org.audiveris.omr.image.DistanceRanges;
 import org.audiveris.omr.image.DistanceTable;
 import org.audiveris.omr.image.PixelDistance;
 import org.audiveris.omr.image.ShapeDescriptor;
 import org.audiveris.omr.image.TemplateFactory;
 import org.audiveris.omr.image.TemplateFactory.Catalog;
+import org.audiveris.omr.image.TemplateKernel;
 import org.audiveris.omr.math.GeoOrder;
 import org.audiveris.omr.math.GeoPath;
 import org.audiveris.omr.math.GeoUtil;
@@ -77,8 +79,10 @@ import java.awt.geom.Rectangle2D;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -156,6 +160,13 @@ public class NoteHeadsBuilder
     /** The <b>properly scaled</b> templates to use. */
     private Catalog catalog;
 
+    /** Templates of current catalog, compiled on distance table. Empty if not used. */
+    private final Map<Shape, TemplateKernel> kernels = new EnumMap<Shape, TemplateKernel>(
+            Shape.class);
+
+    /** The catalog kernels have been compiled from. */
+    private Catalog kernelsCatalog;
+
     /** The competing interpretations for the system. */
     private List<Inter> systemCompetitors;
 
@@ -226,6 +237,10 @@ public class NoteHeadsBuilder
 
             catalog = TemplateFactory.getInstance().getCatalog(staff.getSpecificInterline());
 
+            if (constants.useKernels.isSet()) {
+                compileKernels();
+            }
+
             List<Inter> ch = new ArrayList<Inter>(); // Created Heads for this staff
 
             // First, process all seed-based heads for the staff
@@ -359,6 +374,28 @@ public class NoteHeadsBuilder
         return NO_OFFSETS;
     }
 
+    //----------------//
+    // compileKernels //
+    //----------------//
+    /**
+     * Compile the templates of current catalog on system distance table, unless already
+     * done for this catalog.
+     */
+    private void compileKernels ()
+    {
+        if (kernelsCatalog == catalog) {
+            return;
+        }
+
+        kernels.clear();
+
+        for (Shape shape : ShapeSet.TemplateNotes) {
+            kernels.put(shape, catalog.getDescriptor(shape).getTemplate().compile(distances));
+        }
+
+        kernelsCatalog = catalog;
+    }
+
     //-------------//
     // createInter //
     //-------------//
@@ -829,6 +866,14 @@ public class NoteHeadsBuilder
                 false,
                 "Should we allow staff attachments for created areas?");
 
+        private final Constant.Boolean useKernels = new Constant.Boolean(
+                true,
+                "Should we evaluate templates via compiled kernels?");
+
+        private final Constant.Boolean useColumnBounds = new Constant.Boolean(
+                true,
+                "Should we skip range columns whose distance lower bound is not acceptable?");
+
         private final Constant.Double maxMatchingDistance = new Constant.Double(
                 "distance",
                 1.75, // 1.5,
@@ -1040,15 +1085,23 @@ public class NoteHeadsBuilder
 
         int abandons;
 
+        /** Column lower bounds computed. */
+        int bounds;
+
+        /** Columns skipped because of their lower bound. */
+        int pruned;
+
         //~ Methods --------------------------------------------------------------------------------
         @Override
         public String toString ()
         {
             return String.format(
-                    "%7d overlaps, %7d evals, %7d abandons",
+                    "%7d overlaps, %7d evals, %7d abandons, %7d bounds, %7d pruned",
                     overlaps,
                     evals,
-                    abandons);
+                    abandons,
+                    bounds,
+                    pruned);
         }
     }
 
@@ -1084,6 +1137,21 @@ public class NoteHeadsBuilder
         /** Offsets tried around a given ordinate. */
         private final int[] yOffsets;
 
+        /** Smallest value in yOffsets. */
+        private final int columnTop;
+
+        /** Height of yOffsets span. */
+        private final int columnHeight;
+
+        /** Column ordinates, parallel to yOffsets. */
+        private final int[] columnYs;
+
+        /** Column locations to skip, parallel to yOffsets. */
+        private final boolean[] columnSkips;
+
+        /** Column distances, parallel to yOffsets. */
+        private final double[] columnDists;
+
         //~ Constructors ---------------------------------------------------------------------------
         /**
          * Create a Scanner, dedicated to a staff line or ledger.
@@ -1110,6 +1178,20 @@ public class NoteHeadsBuilder
             boolean isOpen = ((pitch % 2) != 0) && ((line2 == null) || (Math.abs(pitch) == 5));
             yOffsets = computeYOffsets(isOpen);
 
+            int top = 0;
+            int bottom = 0;
+
+            for (int yOffset : yOffsets) {
+                top = Math.min(top, yOffset);
+                bottom = Math.max(bottom, yOffset);
+            }
+
+            columnTop = top;
+            columnHeight = bottom - top + 1;
+            columnYs = new int[yOffsets.length];
+            columnSkips = new boolean[yOffsets.length];
+            columnDists = new double[yOffsets.length];
+
             final Staff staff = line.getStaff();
             interline = staff.getSpecificInterline();
             ledgers = getLedgerAdapters(staff, pitch);
@@ -1196,10 +1278,21 @@ public class NoteHeadsBuilder
         //------//
         // eval //
         //------//
+        /**
+         * Evaluate a shape at a given location.
+         *
+         * @param shape       the shape to evaluate
+         * @param x           location abscissa
+         * @param y           location ordinate
+         * @param anchor      template anchor at location
+         * @param maxDistance distance beyond which evaluation can be abandoned
+         * @return the location distance (infinite if abandoned), or null if location is occupied
+         */
         private PixelDistance eval (Shape shape,
                                     int x,
                                     int y,
-                                    Anchor anchor)
+                                    Anchor anchor,
+                                    double maxDistance)
         {
             final ShapeDescriptor desc = catalog.getDescriptor(shape);
             final Rectangle symBox = desc.getSymbolBoundsAt(x, y, anchor);
@@ -1217,7 +1310,9 @@ public class NoteHeadsBuilder
             }
 
             // Then try (all variants for) the shape and keep the best dist
-            double dist = desc.evaluate(x, y, anchor, distances);
+            final TemplateKernel kernel = kernels.get(shape);
+            final double dist = (kernel != null) ? kernel.evaluate(x, y, anchor, maxDistance)
+                    : desc.evaluate(x, y, anchor, distances);
 
             if (useSeeds) {
                 seedsPerf.evals++;
@@ -1228,6 +1323,54 @@ public class NoteHeadsBuilder
             return new PixelDistance(x, y, dist);
         }
 
+        //-----------------//
+        // getColumnRanges //
+        //-----------------//
+        /**
+         * Build the distance ranges needed to bound the distance of every column in the
+         * provided range of the line.
+         * <p>
+         * This is worthwhile only for columns of several locations evaluated via kernels.
+         *
+         * @param scanLeft  range starting abscissa
+         * @param scanRight range stopping abscissa
+         * @return the column ranges, or null if columns are not to be bounded
+         */
+        private DistanceRanges getColumnRanges (int scanLeft,
+                                                int scanRight)
+        {
+            if (kernels.isEmpty() || !constants.useColumnBounds.isSet() || (columnHeight < 2)) {
+                return null;
+            }
+
+            int yLow = Integer.MAX_VALUE;
+            int yHigh = Integer.MIN_VALUE;
+
+            for (int x = scanLeft; x <= scanRight; x++) {
+                final int y0 = getTheoreticalOrdinate(x);
+                yLow = Math.min(yLow, y0);
+                yHigh = Math.max(yHigh, y0);
+            }
+
+            int width = 0;
+            int height = 0;
+
+            for (Shape shape : ShapeSet.TemplateNotes) {
+                final ShapeDescriptor desc = catalog.getDescriptor(shape);
+                width = Math.max(width, desc.getWidth());
+                height = Math.max(height, desc.getHeight());
+            }
+
+            // Windows for all key points of all templates, whatever the anchor
+            final Rectangle roi = new Rectangle(
+                    scanLeft - width,
+                    (yLow + columnTop) - height,
+                    (scanRight - scanLeft) + 1 + (2 * width),
+                    (yHigh - yLow) + 1 + (2 * height));
+
+            return new DistanceRanges(distances, roi, columnHeight);
+        }
+
         //----------------------//
         // getRelevantAbscissae //
         //----------------------//
@@ -1341,6 +1484,9 @@ public class NoteHeadsBuilder
             // OK for blacks, not for voids
             boolean[] relevants = getRelevantAbscissae(scanLeft, scanRight);
 
+            // Use column lower bounds, if any, to skip the columns that cannot match
+            final DistanceRanges ranges = getColumnRanges(scanLeft, scanRight);
+
             // Scan from left to right
             for (int x0 = scanLeft; x0 <= scanRight; x0++) {
                 final int y0 = getTheoreticalOrdinate(x0);
@@ -1352,21 +1498,46 @@ public class NoteHeadsBuilder
                 for (Shape shape : shapeSet) {
                     PixelDistance bestDist = null;
 
-                    for (int yOffset : yOffsets) {
-                        final int y = y0 + yOffset;
-                        PixelDistance dist = eval(shape, x0, y, MIDDLE_LEFT);
+                    if (!kernels.isEmpty()) {
+                        if (ranges != null) {
+                            rangePerf.bounds++;
 
-                        if ((dist != null) && (dist.d <= params.maxMatchingDistance)) {
-                            if ((bestDist == null) || (bestDist.d > dist.d)) {
-                                bestDist = dist;
+                            final double bound = kernels.get(shape).getLowerBound(
+                                    ranges,
+                                    x0,
+                                    y0 + columnTop,
+                                    MIDDLE_LEFT);
+
+                            if (bound > params.maxMatchingDistance) {
+                                rangePerf.pruned++;
+
+                                continue;
                             }
-                        } else if (y == y0) {
-                            // This is the very first (best guess) location tried.
-                            // If eval is really bad, stop immediately
-                            if ((dist == null) || (dist.d >= params.reallyBadDistance)) {
-                                rangePerf.abandons++;
+                        }
 
-                                continue ShapeLoop;
+                        bestDist = scanColumn(shape, x0, y0);
+                    } else {
+                        for (int yOffset : yOffsets) {
+                            final int y = y0 + yOffset;
+                            PixelDistance dist = eval(
+                                    shape,
+                                    x0,
+                                    y,
+                                    MIDDLE_LEFT,
+                                    Double.POSITIVE_INFINITY);
+
+                            if ((dist != null) && (dist.d <= params.maxMatchingDistance)) {
+                                if ((bestDist == null) || (bestDist.d > dist.d)) {
+                                    bestDist = dist;
+                                }
+                            } else if (y == y0) {
+                                // This is the very first (best guess) location tried.
+                                // If eval is really bad, stop immediately
+                                if ((dist == null) || (dist.d >= params.reallyBadDistance)) {
+                                    rangePerf.abandons++;
+
+                                    continue ShapeLoop;
+                                }
                             }
                         }
                     }
@@ -1439,13 +1610,20 @@ public class NoteHeadsBuilder
 
                             for (int xOffset : xOffsets) {
                                 final int x = x0 + xOffset;
-                                PixelDistance loc = eval(shape, x, y, anchor);
+                                final boolean isFirst = (x == x0) && (y == y0);
+                                PixelDistance loc = eval(
+                                        shape,
+                                        x,
+                                        y,
+                                        anchor,
+                                        isFirst ? params.reallyBadDistance
+                                                : params.maxMatchingDistance);
 
                                 if ((loc != null) && (loc.d <= params.maxMatchingDistance)) {
                                     if ((bestLoc == null) || (bestLoc.d > loc.d)) {
                                         bestLoc = loc;
                                     }
-                                } else if ((x == x0) && (y == y0)) {
+                                } else if (isFirst) {
                                     // This is the very first (best guess) location tried.
                                     // If eval is really bad, stop immediately
                                     if ((loc == null) || (loc.d >= params.reallyBadDistance)) {
@@ -1480,6 +1658,74 @@ public class NoteHeadsBuilder
 
             return inters;
         }
+
+        //------------//
+        // scanColumn //
+        //------------//
+        /**
+         * Evaluate a shape on the column of locations (x0, y0 + yOffsets), via its compiled
+         * kernel.
+         * <p>
+         * The first location (y0) is the best guess and is evaluated first: if it is occupied or
+         * really bad, the whole column is abandoned.
+         * Otherwise, all other free locations are scored in one call.
+         *
+         * @param shape the shape to evaluate
+         * @param x0    column abscissa
+         * @param y0    theoretical ordinate
+         * @return the best acceptable location, or null
+         */
+        private PixelDistance scanColumn (Shape shape,
+                                          int x0,
+                                          int y0)
+        {
+            final PixelDistance first = eval(shape, x0, y0, MIDDLE_LEFT, params.reallyBadDistance);
+
+            if ((first == null) || (first.d >= params.reallyBadDistance)) {
+                rangePerf.abandons++;
+
+                return null;
+            }
+
+            PixelDistance bestDist = (first.d <= params.maxMatchingDistance) ? first : null;
+
+            if (yOffsets.length == 1) {
+                return bestDist;
+            }
+
+            // Skip first location (already evaluated) and locations used by competitors
+            final ShapeDescriptor desc = catalog.getDescriptor(shape);
+            columnSkips[0] = true;
+
+            for (int i = 1; i < yOffsets.length; i++) {
+                columnYs[i] = y0 + yOffsets[i];
+
+                final Rectangle symBox = desc.getSymbolBoundsAt(x0, columnYs[i], MIDDLE_LEFT);
+                columnSkips[i] = overlap(symBox, competitors);
+
+                if (columnSkips[i]) {
+                    rangePerf.overlaps++;
+                }
+            }
+
+            rangePerf.evals += kernels.get(shape).evaluateColumn(
+                    x0,
+                    columnYs,
+                    columnSkips,
+                    MIDDLE_LEFT,
+                    params.maxMatchingDistance,
+                    columnDists);
+
+            for (int i = 1; i < yOffsets.length; i++) {
+                if (!columnSkips[i] && (columnDists[i] <= params.maxMatchingDistance)) {
+                    if ((bestDist == null) || (bestDist.d > columnDists[i])) {
+                        bestDist = new PixelDistance(x0, columnYs[i], columnDists[i]);
+                    }
+                }
+            }
+
+            return bestDist;
+        }
     }
 
     //------------------//
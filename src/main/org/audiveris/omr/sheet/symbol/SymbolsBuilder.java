@@ -133,7 +133,8 @@ public class SymbolsBuilder
      *       + cluster.decompose()                      // Decompose cluster into all subsets
      *       + FOREACH subset process(subset):
      *          - build compound glyph                  // Build one compound glyph per subset
-     *          - evaluateGlyph(compound)               // Run shape classifier on compound
+     *       + FOREACH batch of compounds:
+     *          - evaluateGlyphs(compounds)             // Run shape classifiers on the batch
      *          - FOREACH acceptable evaluation
      *             + symbolFactory.create(eval, glyph) // Create inter(s) related to evaluation
      * </pre>
@@ -168,6 +169,46 @@ public class SymbolsBuilder
         }
     }
 
+    //--------------//
+    // createInters //
+    //--------------//
+    /**
+     * Create the inter instance for a glyph, if both classifiers agree on its shape.
+     *
+     * @param glyph        the evaluated glyph
+     * @param closestStaff the staff closest to glyph
+     * @param evals        evaluations by first classifier
+     * @param evals2       evaluations by second classifier
+     */
+    private void createInters (Glyph glyph,
+                               Staff closestStaff,
+                               Evaluation[] evals,
+                               Evaluation[] evals2)
+    {
+        if (evals.length > 0) {
+            //            // Create one interpretation for each acceptable evaluation
+            //            for (Evaluation eval : evals) {
+            //                try {
+            //                    factory.create(eval, glyph, closestStaff);
+            //                } catch (Exception ex) {
+            //                    logger.warn("Error in glyph evaluation " + ex, ex);
+            //                }
+            //            }
+            //
+            Evaluation eval = evals[0];
+
+            if (evals2.length > 0) {
+                if (eval.shape == evals2[0].shape) {
+                    try {
+                        factory.create(eval, glyph, closestStaff);
+                    } catch (Exception ex) {
+                        logger.warn("Error in glyph evaluation " + ex, ex);
+                    }
+                }
+            }
+        }
+    }
+
     //---------------//
     // evaluateGlyph //
     //---------------//
@@ -178,58 +219,64 @@ public class SymbolsBuilder
      */
     private void evaluateGlyph (Glyph glyph)
     {
-        if (glyph.getId() == 0) {
-            glyph = sheet.getGlyphIndex().registerOriginal(glyph);
-        }
+        evaluateGlyphs(Collections.singletonList(glyph));
+    }
+
+    //----------------//
+    // evaluateGlyphs //
+    //----------------//
+    /**
+     * Evaluate a batch of glyphs and create all acceptable inter instances.
+     * <p>
+     * Each classifier is run only once on the whole batch.
+     *
+     * @param glyphs the glyphs to evaluate
+     */
+    private void evaluateGlyphs (List<Glyph> glyphs)
+    {
+        final List<Glyph> candidates = new ArrayList<Glyph>(glyphs.size());
+        final List<Staff> staves = new ArrayList<Staff>(glyphs.size());
 
-        logger.debug("evaluateGlyph on {}", glyph);
+        for (Glyph glyph : glyphs) {
+            if (glyph.getId() == 0) {
+                glyph = sheet.getGlyphIndex().registerOriginal(glyph);
+            }
 
-        if (glyph.isVip()) {
-            logger.info("VIP evaluateGlyph on {}", glyph);
-        }
+            logger.debug("evaluateGlyph on {}", glyph);
 
-        final Point center = glyph.getCenter();
-        final Staff closestStaff = system.getClosestStaff(center); // Just an indication!
+            if (glyph.isVip()) {
+                logger.info("VIP evaluateGlyph on {}", glyph);
+            }
+
+            final Point center = glyph.getCenter();
+            final Staff closestStaff = system.getClosestStaff(center); // Just an indication!
+
+            if (closestStaff != null) {
+                candidates.add(glyph);
+                staves.add(closestStaff);
+            }
+        }
 
-        if (closestStaff == null) {
+        if (candidates.isEmpty()) {
             return;
         }
 
         // TODO: checks should be run only AFTER both classifiers have been run
-        Evaluation[] evals = classifier.evaluate(
-                glyph,
+        final List<Evaluation[]> allEvals = classifier.evaluate(
+                candidates,
                 system,
                 2,
                 Grades.symbolMinGrade,
                 EnumSet.of(Classifier.Condition.CHECKED));
-        Evaluation[] evals2 = classifier2.evaluate(
-                glyph,
+        final List<Evaluation[]> allEvals2 = classifier2.evaluate(
+                candidates,
                 system,
                 2,
                 Grades.symbolMinGrade, // Not OK for deep classifier!
                 EnumSet.of(Classifier.Condition.CHECKED));
 
-        if (evals.length > 0) {
-            //            // Create one interpretation for each acceptable evaluation
-            //            for (Evaluation eval : evals) {
-            //                try {
-            //                    factory.create(eval, glyph, closestStaff);
-            //                } catch (Exception ex) {
-            //                    logger.warn("Error in glyph evaluation " + ex, ex);
-            //                }
-            //            }
-            //
-            Evaluation eval = evals[0];
-
-            if (evals2.length > 0) {
-                if (eval.shape == evals2[0].shape) {
-                    try {
-                        factory.create(eval, glyph, closestStaff);
-                    } catch (Exception ex) {
-                        logger.warn("Error in glyph evaluation " + ex, ex);
-                    }
-                }
-            }
+        for (int i = 0; i < candidates.size(); i++) {
+            createInters(candidates.get(i), staves.get(i), allEvals.get(i), allEvals2.get(i));
         }
     }
 
@@ -479,6 +526,13 @@ public class SymbolsBuilder
             SymbolsBuilder.this.evaluateGlyph(glyph);
         }
 
+        @Override
+        public void evaluateGlyphs (List<Glyph> glyphs,
+                                    List<Set<Glyph>> parts)
+        {
+            SymbolsBuilder.this.evaluateGlyphs(glyphs);
+        }
+
         @Override
         public boolean isTooLarge (Rectangle symBox)
         {
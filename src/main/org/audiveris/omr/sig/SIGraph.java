@@ -26,10 +26,12 @@ import org.audiveris.omr.constant.ConstantSet;
 import org.audiveris.omr.glyph.Shape;
 import org.audiveris.omr.math.GeoOrder;
 import static org.audiveris.omr.math.GeoOrder.*;
+import org.audiveris.omr.sheet.Scale;
 import org.audiveris.omr.sheet.Staff;
 import org.audiveris.omr.sheet.StaffManager;
 import org.audiveris.omr.sheet.SystemInfo;
 import org.audiveris.omr.sheet.header.StaffHeader;
+import org.audiveris.omr.sig.inter.AbstractChordInter;
 import org.audiveris.omr.sig.inter.HeadInter;
 import org.audiveris.omr.sig.inter.Inter;
 import org.audiveris.omr.sig.inter.InterEnsemble;
@@ -39,8 +41,10 @@ import org.audiveris.omr.sig.relation.Exclusion;
 import org.audiveris.omr.sig.relation.Exclusion.Cause;
 import org.audiveris.omr.sig.relation.Relation;
 import org.audiveris.omr.sig.relation.Support;
+import org.audiveris.omr.step.Step;
 import org.audiveris.omr.util.Navigable;
 import org.audiveris.omr.util.Predicate;
+import org.audiveris.omr.util.SpatialGrid;
 
 import org.jgrapht.Graphs;
 import org.jgrapht.graph.Multigraph;
@@ -90,6 +94,14 @@ public class SIGraph
     /** Content for differed populating after unmarshalling. */
     private SigValue sigValue;
 
+    /** Spatial index of inters, lazily allocated. */
+    @Navigable(false)
+    private SpatialGrid<Inter> spatialIndex;
+
+    /** Inters whose bounds are to be (re-)indexed before next spatial lookup. */
+    @Navigable(false)
+    private final Set<Inter> pendingBounds = new LinkedHashSet<Inter>();
+
     //~ Constructors -------------------------------------------------------------------------------
     /**
      * Creates a new SIGraph object at system level.
@@ -125,6 +137,38 @@ public class SIGraph
     }
 
     //~ Methods ------------------------------------------------------------------------------------
+    //---------//
+    // addEdge //
+    //---------//
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Overridden so that relations created by step processing are recorded in system footprint.
+     *
+     * @param source   the source inter
+     * @param target   the target inter
+     * @param relation the relation to insert
+     * @return true if the relation was actually added
+     */
+    @Override
+    public boolean addEdge (Inter source,
+                            Inter target,
+                            Relation relation)
+    {
+        final boolean res = super.addEdge(source, target, relation);
+
+        // Record creating step, if any, for incremental re-processing
+        if (res && (system != null)) {
+            final Step step = system.getSheet().getStub().getCurrentStep();
+
+            if (step != null) {
+                system.getFootprint().addRelation(step, relation);
+            }
+        }
+
+        return res;
+    }
+
     //-----------//
     // addVertex //
     //-----------//
@@ -152,6 +196,19 @@ public class SIGraph
             system.getSheet().getInterIndex().insert(inter);
         }
 
+        // Update spatial index, bounds being retrieved at next lookup
+        synchronized (pendingBounds) {
+            getSpatialIndex().insert(inter, null);
+            pendingBounds.add(inter);
+        }
+
+        // Record creating step, if any, for incremental re-processing
+        final Step step = system.getSheet().getStub().getCurrentStep();
+
+        if (step != null) {
+            system.getFootprint().addInter(step, inter);
+        }
+
         return res;
     }
 
@@ -221,7 +278,7 @@ public class SIGraph
     {
         List<Inter> found = new ArrayList<Inter>();
 
-        for (Inter inter : vertexSet()) {
+        for (Inter inter : lookupInters(rect)) {
             if (rect.contains(inter.getBounds())) {
                 found.add(inter);
             }
@@ -244,7 +301,7 @@ public class SIGraph
     {
         List<Inter> found = new ArrayList<Inter>();
 
-        for (Inter inter : vertexSet()) {
+        for (Inter inter : lookupInters(new Rectangle(point.x, point.y, 1, 1))) {
             Rectangle bounds = inter.getBounds();
 
             if ((bounds != null) && bounds.contains(point)) {
@@ -950,6 +1007,26 @@ public class SIGraph
         return exclusions;
     }
 
+    //------------------//
+    // invalidateBounds //
+    //------------------//
+    /**
+     * Notify that the bounds of the provided inter may have changed.
+     * <p>
+     * The inter will be re-indexed according to its new bounds before next spatial lookup.
+     * This is a no-op for an inter not in this sig.
+     *
+     * @param inter the inter whose bounds may have changed
+     */
+    public void invalidateBounds (Inter inter)
+    {
+        synchronized (pendingBounds) {
+            if ((spatialIndex != null) && spatialIndex.contains(inter)) {
+                pendingBounds.add(inter);
+            }
+        }
+    }
+
     //--------//
     // inters //
     //--------//
@@ -1218,6 +1295,12 @@ public class SIGraph
         // Remove from inter index
         system.getSheet().getInterIndex().remove(inter);
 
+        // Remove from spatial index
+        synchronized (pendingBounds) {
+            pendingBounds.remove(inter);
+            getSpatialIndex().remove(inter);
+        }
+
         return super.removeVertex(inter);
     }
 
@@ -1329,6 +1412,49 @@ public class SIGraph
         return bestCg;
     }
 
+    //------------------//
+    // getIndexedBounds //
+    //------------------//
+    /**
+     * Report the bounds to record for the provided inter in the spatial index.
+     * <p>
+     * The bounds of an ensemble derive from its members and may evolve without notice,
+     * hence an ensemble is indexed with null bounds (and thus checked by every lookup),
+     * except for a chord which invalidates its bounds whenever its members change.
+     *
+     * @param inter the provided inter
+     * @return the bounds to index, perhaps null
+     */
+    private static Rectangle getIndexedBounds (Inter inter)
+    {
+        if ((inter instanceof InterEnsemble) && !(inter instanceof AbstractChordInter)) {
+            return null;
+        }
+
+        return inter.getBounds();
+    }
+
+    //-----------------//
+    // getSpatialIndex //
+    //-----------------//
+    /**
+     * Report the spatial index of inters, allocated on first call.
+     *
+     * @return the spatial index
+     */
+    private SpatialGrid<Inter> getSpatialIndex ()
+    {
+        synchronized (pendingBounds) {
+            if (spatialIndex == null) {
+                final Scale scale = system.getSheet().getScale();
+                spatialIndex = new SpatialGrid<Inter>(
+                        Math.max(1, scale.toPixels(constants.indexCellSize)));
+            }
+
+            return spatialIndex;
+        }
+    }
+
     //----------------//
     // involvedInters //
     //----------------//
@@ -1344,6 +1470,32 @@ public class SIGraph
         return inters;
     }
 
+    //--------------//
+    // lookupInters //
+    //--------------//
+    /**
+     * Report the inters whose indexed bounds are located around the provided rectangle.
+     * <p>
+     * The pending inters are first (re-)indexed according to their current bounds.
+     *
+     * @param rect the provided rectangle
+     * @return the candidate inters, in sig insertion order
+     */
+    private List<Inter> lookupInters (Rectangle rect)
+    {
+        synchronized (pendingBounds) {
+            final SpatialGrid<Inter> grid = getSpatialIndex();
+
+            for (Inter inter : pendingBounds) {
+                grid.insert(inter, getIndexedBounds(inter));
+            }
+
+            pendingBounds.clear();
+
+            return grid.lookup(rect);
+        }
+    }
+
     //---------//
     // stemsOf //
     //---------//
@@ -1398,6 +1550,10 @@ public class SIGraph
                 "count",
                 6,
                 "Upper limit on number of supports used for contextual grade");
+
+        private final Scale.Fraction indexCellSize = new Scale.Fraction(
+                4.0,
+                "Side of a cell in the spatial index of inters");
     }
 
     //----------------//
@@ -23,11 +23,14 @@ package org.audiveris.omr.step;
 
 import org.audiveris.omr.OMR;
 import org.audiveris.omr.sheet.Sheet;
+import org.audiveris.omr.sheet.SystemInfo;
 import org.audiveris.omr.sheet.ui.SheetTab;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collection;
+
 /**
  * Abstract class {@code AbstractStep} provides a convenient basis for any {@link Step}
  * implementation.
@@ -82,6 +85,27 @@ public abstract class AbstractStep
     public abstract void doit (Sheet sheet)
             throws StepException;
 
+    //-----------//
+    // doSystems //
+    //-----------//
+    /**
+     * Re-perform the step on just the provided systems.
+     * <p>
+     * By default, the step cannot be limited to some systems and is thus performed on the whole
+     * sheet.
+     *
+     * @param sheet   the related sheet
+     * @param systems the systems to process
+     * @throws StepException raised if processing failed
+     * @see #isSystemWise()
+     */
+    public void doSystems (Sheet sheet,
+                           Collection<SystemInfo> systems)
+            throws StepException
+    {
+        doit(sheet);
+    }
+
     //-------------//
     // getSheetTab //
     //-------------//
@@ -94,4 +118,17 @@ public abstract class AbstractStep
     {
         return SheetTab.DATA_TAB;
     }
+
+    //--------------//
+    // isSystemWise //
+    //--------------//
+    /**
+     * Report whether the step can be re-performed on just a subset of sheet systems.
+     *
+     * @return true if {@link #doSystems} actually limits processing to the provided systems
+     */
+    public boolean isSystemWise ()
+    {
+        return false;
+    }
 }
@@ -26,7 +26,6 @@ import org.audiveris.omr.OMR;
 import org.audiveris.omr.log.LogUtil;
 import org.audiveris.omr.sheet.Sheet;
 import org.audiveris.omr.sheet.SystemInfo;
-import org.audiveris.omr.util.OmrExecutors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -103,12 +102,42 @@ public abstract class AbstractSystemStep<C>
         final C context = doProlog(sheet);
 
         // Processing system per system
-        doitPerSystem(sheet, context);
+        doitPerSystem(sheet, sheet.getSystems(), context);
 
         // Final actions
         doEpilog(sheet, context);
     }
 
+    //-----------//
+    // doSystems //
+    //-----------//
+    /**
+     * Re-perform the step on just the provided systems, with the same prolog and
+     * epilog as for the whole sheet.
+     *
+     * @param sheet   the sheet to process
+     * @param systems the systems to process
+     * @throws StepException raised if processing failed
+     */
+    @Override
+    public void doSystems (Sheet sheet,
+                           Collection<SystemInfo> systems)
+            throws StepException
+    {
+        final C context = doProlog(sheet);
+        doitPerSystem(sheet, systems, context);
+        doEpilog(sheet, context);
+    }
+
+    //--------------//
+    // isSystemWise //
+    //--------------//
+    @Override
+    public boolean isSystemWise ()
+    {
+        return true;
+    }
+
     //-------------------//
     // clearSystemErrors //
     //-------------------//
@@ -165,17 +194,19 @@ public abstract class AbstractSystemStep<C>
     /**
      * Launch the system processing (perhaps in parallel, one task per system)
      *
-     * @param systems the systems to process
      * @param sheet   the containing sheet
+     * @param systems the systems to process
+     * @param context the sheet context
      */
     private void doitPerSystem (final Sheet sheet,
+                                final Collection<SystemInfo> systems,
                                 final C context)
     {
         try {
             final boolean parallel = Main.processSystemsInParallel();
             final Collection<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
 
-            for (final SystemInfo system : sheet.getSystems()) {
+            for (final SystemInfo system : systems) {
                 tasks.add(
                         new Callable<Void>()
                 {
@@ -211,8 +242,8 @@ public abstract class AbstractSystemStep<C>
 
             // Process all systems
             if (parallel) {
-                // In parallel
-                OmrExecutors.getLowExecutor().invokeAll(tasks);
+                // In parallel, on the pool shared by all sheets
+                StepScheduler.invokeSystems(sheet.getStub().getCurrentStep(), tasks);
             } else {
                 // In sequence
                 for (Callable<Void> task : tasks) {
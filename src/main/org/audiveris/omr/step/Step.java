@@ -22,6 +22,7 @@
 package org.audiveris.omr.step;
 
 import org.audiveris.omr.sheet.Sheet;
+import org.audiveris.omr.sheet.SystemInfo;
 import org.audiveris.omr.sheet.beam.BeamsStep;
 import org.audiveris.omr.sheet.beam.CueBeamsStep;
 import org.audiveris.omr.sheet.curve.CurvesStep;
@@ -39,6 +40,8 @@ import org.audiveris.omr.sheet.symbol.SymbolsStep;
 import org.audiveris.omr.sheet.ui.SheetTab;
 import org.audiveris.omr.text.TextsStep;
 
+import java.util.Collection;
+
 /**
  * Enum {@code Step} describes the steps of sheet processing pipeline.
  * <p>
@@ -140,6 +143,19 @@ public enum Step
         return helper instanceof AbstractSystemStep;
     }
 
+    //--------------//
+    // isSystemWise //
+    //--------------//
+    /**
+     * Report whether the step can be re-run on just a subset of sheet systems.
+     *
+     * @return true if re-processing can be limited to some systems
+     */
+    public boolean isSystemWise ()
+    {
+        return helper.isSystemWise();
+    }
+
     //-----------//
     // displayUI //
     //-----------//
@@ -168,6 +184,24 @@ public enum Step
         helper.doit(sheet);
     }
 
+    //-----------//
+    // doSystems //
+    //-----------//
+    /**
+     * Re-run the step on just the provided systems.
+     *
+     * @param sheet   the sheet to work upon
+     * @param systems the systems to re-process
+     * @throws StepException if processing had to stop at this step
+     * @see #isSystemWise()
+     */
+    public void doSystems (Sheet sheet,
+                           Collection<SystemInfo> systems)
+            throws StepException
+    {
+        helper.doSystems(sheet, systems);
+    }
+
     //----------------//
     // getDescription //
     //----------------//
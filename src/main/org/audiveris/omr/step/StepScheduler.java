@@ -0,0 +1,362 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                   S t e p S c h e d u l e r                                    //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.step;
+
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
+import org.audiveris.omr.util.OmrExecutors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Class {@code StepScheduler} coordinates the two levels of parallelism in processing:
+ * sheets within a book and systems within a sheet.
+ * <p>
+ * <ul>
+ * <li>Sheet tasks go through an admission gate, which bounds the number of sheets processed
+ * concurrently and holds new sheets while the available heap memory is too low.
+ * At least one sheet is always admitted, to guarantee progress.</li>
+ * <li>System tasks, whatever their sheet, all run on the single work-stealing pool provided by
+ * {@link OmrExecutors#getForkJoinPool()}, so that the small systems of one sheet and the
+ * large systems of another one share the same bounded set of threads.
+ * The number of systems processed concurrently can be further limited per step.</li>
+ * </ul>
+ *
+ * @author Hervé Bitteur
+ */
+public abstract class StepScheduler
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Constants constants = new Constants();
+
+    private static final Logger logger = LoggerFactory.getLogger(StepScheduler.class);
+
+    /** To convert bytes to mega-bytes. */
+    private static final long MEGA = 1024L * 1024L;
+
+    /** Lock for sheet admission. */
+    private static final Lock gateLock = new ReentrantLock();
+
+    /** Signalled when a sheet is released. */
+    private static final Condition sheetReleased = gateLock.newCondition();
+
+    /** Number of sheets currently admitted. */
+    private static int admittedSheets;
+
+    /** Per-step limitation of concurrent system tasks, if any. */
+    private static Map<Step, Semaphore> stepPermits;
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //--------------//
+    // invokeSheets //
+    //--------------//
+    /**
+     * Launch the provided sheet tasks, each one waiting for its admission by the gate.
+     * <p>
+     * Admission is performed in the calling thread, so that no thread is allocated to a sheet
+     * before it can actually run.
+     *
+     * @param <T>   type of task result
+     * @param tasks the sheet tasks, in the desired order
+     * @return the futures, one per task in the same order
+     * @throws InterruptedException if interrupted while waiting for admission
+     */
+    public static <T> List<Future<T>> invokeSheets (List<? extends Callable<T>> tasks)
+            throws InterruptedException
+    {
+        final List<Future<T>> futures = new ArrayList<Future<T>>();
+
+        try {
+            for (final Callable<T> task : tasks) {
+                admitSheet();
+
+                futures.add(
+                        OmrExecutors.getCachedLowExecutor().submit(
+                                new Callable<T>()
+                        {
+                            @Override
+                            public T call ()
+                                    throws Exception
+                            {
+                                try {
+                                    return task.call();
+                                } finally {
+                                    releaseSheet();
+                                }
+                            }
+                        }));
+            }
+        } catch (InterruptedException ex) {
+            for (Future<T> future : futures) {
+                future.cancel(true);
+            }
+
+            throw ex;
+        }
+
+        // Wait for completion
+        for (Future<T> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException ignored) {
+                // Left to the caller, which will get the same exception
+            }
+        }
+
+        return futures;
+    }
+
+    //---------------//
+    // invokeSystems //
+    //---------------//
+    /**
+     * Run the provided system tasks on the shared fork/join pool and wait for their
+     * completion.
+     * <p>
+     * Tasks are pulled from a common queue by a limited number of runners, according to the
+     * pool parallelism and to the limit defined for the step, if any.
+     *
+     * @param step  the step being processed, perhaps null
+     * @param tasks the system tasks
+     * @throws InterruptedException if interrupted while waiting
+     * @throws ExecutionException   if a task failed
+     */
+    public static void invokeSystems (Step step,
+                                      Collection<? extends Callable<Void>> tasks)
+            throws InterruptedException, ExecutionException
+    {
+        final Queue<Callable<Void>> queue = new ConcurrentLinkedQueue<Callable<Void>>(tasks);
+        final Semaphore permits = (step != null) ? getStepPermits().get(step) : null;
+        final int parallelism = OmrExecutors.getForkJoinPool().getParallelism();
+        final int runnerCount = Math.min(tasks.size(), parallelism);
+        final List<Future<Void>> futures = new ArrayList<Future<Void>>();
+
+        try {
+            for (int i = 0; (i < runnerCount) && !queue.isEmpty(); i++) {
+                if (permits != null) {
+                    permits.acquire(); // Acquired by caller, released by runner
+                }
+
+                futures.add(
+                        OmrExecutors.getForkJoinPool().submit(
+                                new Callable<Void>()
+                        {
+                            @Override
+                            public Void call ()
+                                    throws Exception
+                            {
+                                try {
+                                    for (Callable<Void> task; (task = queue.poll()) != null;) {
+                                        task.call();
+                                    }
+
+                                    return null;
+                                } finally {
+                                    if (permits != null) {
+                                        permits.release();
+                                    }
+                                }
+                            }
+                        }));
+            }
+
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException ex) {
+            queue.clear(); // Prevent further tasks
+
+            for (Future<Void> future : futures) {
+                future.cancel(true);
+            }
+
+            throw ex;
+        }
+    }
+
+    //------------//
+    // admitSheet //
+    //------------//
+    /**
+     * Wait until a new sheet can be admitted.
+     */
+    private static void admitSheet ()
+            throws InterruptedException
+    {
+        gateLock.lock();
+
+        try {
+            boolean logged = false;
+
+            while (!canAdmitSheet()) {
+                if (!logged && (admittedSheets < getMaxSheets())) {
+                    logger.info(
+                            "Sheet admission on hold, available memory: {} MB",
+                            getAvailableMemory() / MEGA);
+                    logged = true;
+                }
+
+                sheetReleased.await(constants.memoryCheckPeriod.getValue(), TimeUnit.MILLISECONDS);
+            }
+
+            admittedSheets++;
+        } finally {
+            gateLock.unlock();
+        }
+    }
+
+    //---------------//
+    // canAdmitSheet //
+    //---------------//
+    private static boolean canAdmitSheet ()
+    {
+        if (admittedSheets == 0) {
+            return true; // Always let one sheet go
+        }
+
+        if (admittedSheets >= getMaxSheets()) {
+            return false;
+        }
+
+        return getAvailableMemory() >= (constants.minMemoryPerSheet.getValue() * MEGA);
+    }
+
+    //--------------------//
+    // getAvailableMemory //
+    //--------------------//
+    /**
+     * Report the heap memory still available, either free or not yet allocated.
+     *
+     * @return available memory, in bytes
+     */
+    private static long getAvailableMemory ()
+    {
+        final Runtime runtime = Runtime.getRuntime();
+
+        return runtime.maxMemory() - (runtime.totalMemory() - runtime.freeMemory());
+    }
+
+    //--------------//
+    // getMaxSheets //
+    //--------------//
+    private static int getMaxSheets ()
+    {
+        final int max = constants.maxParallelSheets.getValue();
+
+        return (max > 0) ? max : OmrExecutors.getNumberOfCpus();
+    }
+
+    //----------------//
+    // getStepPermits //
+    //----------------//
+    /**
+     * Lazily decode the per-step limits, defined as a comma-separated list of
+     * STEP:count items, such as "TEXTS:1, RHYTHMS:2".
+     */
+    private static synchronized Map<Step, Semaphore> getStepPermits ()
+    {
+        if (stepPermits == null) {
+            stepPermits = new EnumMap<Step, Semaphore>(Step.class);
+
+            for (String item : constants.systemStepLimits.getValue().split(",")) {
+                item = item.trim();
+
+                if (item.isEmpty()) {
+                    continue;
+                }
+
+                try {
+                    final int colon = item.indexOf(':');
+                    final Step step = Step.valueOf(item.substring(0, colon).trim());
+                    final int limit = Integer.parseInt(item.substring(colon + 1).trim());
+                    stepPermits.put(step, new Semaphore(Math.max(1, limit), true));
+                } catch (Exception ex) {
+                    logger.warn("Illegal step limit: {}", item);
+                }
+            }
+        }
+
+        return stepPermits;
+    }
+
+    //--------------//
+    // releaseSheet //
+    //--------------//
+    private static void releaseSheet ()
+    {
+        gateLock.lock();
+
+        try {
+            admittedSheets--;
+            sheetReleased.signalAll();
+        } finally {
+            gateLock.unlock();
+        }
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final Constant.Integer maxParallelSheets = new Constant.Integer(
+                "Sheets",
+                0,
+                "Maximum number of sheets processed in parallel (0 for the number of CPUs)");
+
+        private final Constant.Integer minMemoryPerSheet = new Constant.Integer(
+                "MegaBytes",
+                400,
+                "Minimum available memory to admit one more sheet in parallel");
+
+        private final Constant.Integer memoryCheckPeriod = new Constant.Integer(
+                "Milliseconds",
+                500,
+                "Period to re-check available memory while sheet admission is on hold");
+
+        private final Constant.String systemStepLimits = new Constant.String(
+                "",
+                "Per-step limits of systems processed in parallel (e.g. TEXTS:1, RHYTHMS:2)");
+    }
+}
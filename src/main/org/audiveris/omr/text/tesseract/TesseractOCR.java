@@ -21,7 +21,6 @@
 // </editor-fold>
 package org.audiveris.omr.text.tesseract;
 
-import org.audiveris.omr.WellKnowns;
 import org.audiveris.omr.constant.Constant;
 import org.audiveris.omr.constant.ConstantSet;
 import org.audiveris.omr.sheet.Scale;
@@ -68,6 +67,9 @@ public class TesseractOCR
     /** Singleton. */
     private static final OCR INSTANCE = new TesseractOCR();
 
+    /** Language used to query the available languages. */
+    private static final String DEFAULT_LANG = "eng";
+
     /** Latin encoder, to check character validity. (not used yet) */
     private static final CharsetEncoder encoder = Charset.forName("iso-8859-1").newEncoder();
 
@@ -109,14 +111,19 @@ public class TesseractOCR
             TreeSet<String> set = new TreeSet<String>();
 
             try {
-                TessBaseAPI api = new TessBaseAPI();
+                final TesseractPool pool = TesseractPool.getInstance();
+                final TessBaseAPI api = pool.acquire(DEFAULT_LANG);
 
-                if (api.Init(WellKnowns.OCR_FOLDER.toString(), "eng") == 0) {
-                    StringGenericVector languages = new StringGenericVector();
-                    api.GetAvailableLanguagesAsVector(languages);
+                if (api != null) {
+                    try {
+                        StringGenericVector languages = new StringGenericVector();
+                        api.GetAvailableLanguagesAsVector(languages);
 
-                    while (!languages.empty()) {
-                        set.add(languages.pop_back().string().getString());
+                        while (!languages.empty()) {
+                            set.add(languages.pop_back().string().getString());
+                        }
+                    } finally {
+                        pool.release(DEFAULT_LANG, api);
                     }
                 } else {
                     logger.warn("Error in loading Tesseract languages");
@@ -93,7 +93,7 @@ public class TesseractOrder
     /** Desired handling of layout. */
     private final int segMode;
 
-    /** The dedicated API. */
+    /** The API borrowed from the engine pool. */
     private TessBaseAPI api;
 
     /** The image being processed. */
@@ -149,20 +149,17 @@ public class TesseractOrder
     // process //
     //---------//
     /**
-     * Actually allocate a Tesseract API and recognize the image.
+     * Actually borrow a Tesseract API, initialized with proper language, and recognize
+     * the image.
      *
      * @return the sequence of lines found
      */
     public List<TextLine> process ()
     {
         try {
-            //api = new TessBaseAPI(WellKnowns.OCR_FOLDER.toString());
-            api = new TessBaseAPI();
-
-            // Init API with proper language
-            if (api.Init(WellKnowns.OCR_FOLDER.toString(), lang) != 0) {
-                logger.warn("Could not initialize Tesseract with lang {}", lang);
+            api = TesseractPool.getInstance().acquire(lang);
 
+            if (api == null) {
                 return finish(null);
             }
 
@@ -190,6 +187,11 @@ public class TesseractOrder
             }
 
             throw new RuntimeException(ex);
+        } finally {
+            // Make sure the borrowed API goes back to the pool in any case
+            if (api != null) {
+                finish(null);
+            }
         }
     }
 
@@ -231,19 +233,21 @@ public class TesseractOrder
     // finish //
     //--------//
     /**
-     * Convenient way to cleanup Tesseract resources while ending the current processing
+     * Convenient way to cleanup Tesseract resources while ending the current processing.
+     * The API is given back to the engine pool, for reuse by a later order.
      *
      * @param lines the lines found, if any
      * @return the lines found, if nay
      */
     private List<TextLine> finish (List<TextLine> lines)
     {
-        if (image != null) {
-            pixDestroy(image);
+        if (api != null) {
+            TesseractPool.getInstance().release(lang, api);
+            api = null;
         }
 
-        if (api != null) {
-            api.End();
+        if (image != null) {
+            pixDestroy(image);
         }
 
         return lines;
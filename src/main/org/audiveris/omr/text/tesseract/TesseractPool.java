@@ -0,0 +1,243 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                   T e s s e r a c t P o o l                                    //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.text.tesseract;
+
+import org.audiveris.omr.WellKnowns;
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
+import org.audiveris.omr.step.ProcessingCancellationException;
+import org.audiveris.omr.util.OmrExecutors;
+
+import org.bytedeco.javacpp.tesseract.TessBaseAPI;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Class {@code TesseractPool} is a bounded pool of initialized Tesseract engines, keyed by
+ * language specification.
+ * <p>
+ * Initializing an engine with its trained data is very expensive, so engines are kept
+ * initialized once created and reused from one OCR order to the other.
+ * An engine is confined to the thread which acquired it, until this thread releases it.
+ * On release, the engine is cleared from its image and recognition results, but keeps its
+ * language data.
+ * <p>
+ * The total number of engines is bounded, by default to the number of CPUs. When the bound is
+ * reached, an idle engine for another language is ended to make room, otherwise the caller waits
+ * until an engine is released.
+ *
+ * @author Hervé Bitteur
+ */
+public class TesseractPool
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Constants constants = new Constants();
+
+    private static final Logger logger = LoggerFactory.getLogger(TesseractPool.class);
+
+    /** Singleton. */
+    private static final TesseractPool INSTANCE = new TesseractPool();
+
+    //~ Instance fields ----------------------------------------------------------------------------
+    /** Idle engines, per language specification, most recently released first. */
+    private final Map<String, Deque<TessBaseAPI>> idles = new HashMap<String, Deque<TessBaseAPI>>();
+
+    /** Number of engines currently allocated, either idle or in use. */
+    private int allocated;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    private TesseractPool ()
+    {
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //-------------//
+    // getInstance //
+    //-------------//
+    /**
+     * Report the pool singleton.
+     *
+     * @return the pool instance
+     */
+    public static TesseractPool getInstance ()
+    {
+        return INSTANCE;
+    }
+
+    //---------//
+    // acquire //
+    //---------//
+    /**
+     * Acquire an engine initialized for the provided language specification.
+     * <p>
+     * The engine must be given back via {@link #release} once the caller is done with it.
+     *
+     * @param lang the language specification
+     * @return the engine, or null if it could not be initialized with this language
+     * @throws UnsatisfiedLinkError when bridge to C++ could not be loaded
+     */
+    public TessBaseAPI acquire (String lang)
+    {
+        final int maxEngines = getMaxEngines();
+
+        synchronized (this) {
+            try {
+                while (true) {
+                    final Deque<TessBaseAPI> deque = idles.get(lang);
+
+                    if ((deque != null) && !deque.isEmpty()) {
+                        return deque.pop();
+                    }
+
+                    if (allocated < maxEngines) {
+                        allocated++; // Slot reserved for a new engine
+
+                        break;
+                    }
+
+                    if (!endIdleEngine()) {
+                        wait();
+                    }
+                }
+            } catch (InterruptedException ex) {
+                throw new ProcessingCancellationException(ex);
+            }
+        }
+
+        // Engine initialization is performed outside of the pool lock
+        boolean success = false;
+
+        try {
+            final TessBaseAPI api = new TessBaseAPI();
+
+            if (api.Init(WellKnowns.OCR_FOLDER.toString(), lang) != 0) {
+                logger.warn("Could not initialize Tesseract with lang {}", lang);
+                api.End();
+
+                return null;
+            }
+
+            logger.debug("Tesseract engine initialized for lang {}", lang);
+            success = true;
+
+            return api;
+        } finally {
+            if (!success) {
+                freeSlot();
+            }
+        }
+    }
+
+    //---------//
+    // release //
+    //---------//
+    /**
+     * Give back an engine, acquired for the provided language specification.
+     *
+     * @param lang the language specification used to acquire the engine
+     * @param api  the engine to release
+     */
+    public void release (String lang,
+                         TessBaseAPI api)
+    {
+        // Clear image and results, language data is kept
+        api.Clear();
+
+        synchronized (this) {
+            Deque<TessBaseAPI> deque = idles.get(lang);
+
+            if (deque == null) {
+                idles.put(lang, deque = new ArrayDeque<TessBaseAPI>());
+            }
+
+            deque.push(api);
+            notifyAll();
+        }
+    }
+
+    //---------------//
+    // endIdleEngine //
+    //---------------//
+    /**
+     * End one idle engine, whatever its language, to make room for a new one.
+     *
+     * @return true if an engine was ended, false if none was idle
+     */
+    private boolean endIdleEngine ()
+    {
+        for (Entry<String, Deque<TessBaseAPI>> entry : idles.entrySet()) {
+            final TessBaseAPI api = entry.getValue().pollLast();
+
+            if (api != null) {
+                logger.debug("Ending idle Tesseract engine for lang {}", entry.getKey());
+                api.End();
+                allocated--;
+
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    //----------//
+    // freeSlot //
+    //----------//
+    private synchronized void freeSlot ()
+    {
+        allocated--;
+        notifyAll();
+    }
+
+    //---------------//
+    // getMaxEngines //
+    //---------------//
+    private static int getMaxEngines ()
+    {
+        final int max = constants.maxEngines.getValue();
+
+        return (max > 0) ? max : OmrExecutors.getNumberOfCpus();
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final Constant.Integer maxEngines = new Constant.Integer(
+                "Engines",
+                0,
+                "Maximum number of Tesseract engines kept initialized (0 for the number of CPUs)");
+    }
+}
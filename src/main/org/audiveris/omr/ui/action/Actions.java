@@ -21,6 +21,8 @@
 // </editor-fold>
 package org.audiveris.omr.ui.action;
 
+import org.audiveris.omr.util.JaxbRegistry;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -35,7 +37,6 @@ import java.util.TreeSet;
 
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
-import javax.xml.bind.Unmarshaller;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlElement;
@@ -54,9 +55,6 @@ public class Actions
 
     private static final Logger logger = LoggerFactory.getLogger(Actions.class);
 
-    /** Context for JAXB unmarshalling. */
-    private static volatile JAXBContext jaxbContext;
-
     /** The collection of all actions loaded so far. */
     private static final Set<ActionDescriptor> allDescriptors = new LinkedHashSet<ActionDescriptor>();
 
@@ -186,12 +184,8 @@ public class Actions
     public static void loadActionDescriptors (InputStream in)
             throws JAXBException
     {
-        if (jaxbContext == null) {
-            jaxbContext = JAXBContext.newInstance(Actions.class);
-        }
-
-        Unmarshaller um = jaxbContext.createUnmarshaller();
-        Actions actions = (Actions) um.unmarshal(in);
+        JAXBContext jaxbContext = JaxbRegistry.getContext(Actions.class);
+        Actions actions = (Actions) JaxbRegistry.unmarshal(in, jaxbContext);
 
         for (ActionDescriptor desc : actions.descriptors) {
             logger.debug("Descriptor unmarshalled {}", desc);
@@ -75,10 +75,8 @@ public abstract class Jaxb
         OutputStream os = null;
 
         try {
-            Marshaller m = jaxbContext.createMarshaller();
-            m.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
             os = Files.newOutputStream(path, CREATE);
-            m.marshal(object, os);
+            JaxbRegistry.marshal(object, os, jaxbContext);
         } finally {
             if (os != null) {
                 os.close();
@@ -96,10 +94,9 @@ public abstract class Jaxb
         InputStream is = null;
 
         try {
-            Unmarshaller um = jaxbContext.createUnmarshaller();
             is = Files.newInputStream(path, StandardOpenOption.READ);
 
-            return um.unmarshal(is);
+            return JaxbRegistry.unmarshal(is, jaxbContext);
         } finally {
             if (is != null) {
                 is.close();
@@ -0,0 +1,316 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                    J a x b R e g i s t r y                                     //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+
+/**
+ * Class {@code JaxbRegistry} is the central, thread-safe registry of JAXB contexts used
+ * throughout the application.
+ * <p>
+ * A JAXB context is expensive to create, so each context is created only once for a given set
+ * of bound classes (regardless of their order) and then shared.
+ * Creation time of each context is reported in the log.
+ * <p>
+ * Since marshallers and unmarshallers are not thread-safe, but rather costly to create, each
+ * registered context keeps a pool of them.
+ * A caller acquires one via {@link #acquireMarshaller} or {@link #acquireUnmarshaller} and
+ * must give it back via {@link #releaseMarshaller} or {@link #releaseUnmarshaller} when done.
+ * <p>
+ * Typical contexts can be created in background at application start, see {@link #warmUp}.
+ *
+ * @author Hervé Bitteur
+ */
+public abstract class JaxbRegistry
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Logger logger = LoggerFactory.getLogger(JaxbRegistry.class);
+
+    /** Entries, per set of bound classes. */
+    private static final ConcurrentMap<Set<Class<?>>, Entry> entries = new ConcurrentHashMap<Set<Class<?>>, Entry>();
+
+    /** Entries, per context created. */
+    private static final ConcurrentMap<JAXBContext, Entry> contextEntries = new ConcurrentHashMap<JAXBContext, Entry>();
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //-------------------//
+    // acquireMarshaller //
+    //-------------------//
+    /**
+     * Acquire a marshaller (with formatted output) for the provided context.
+     *
+     * @param context the JAXB context
+     * @return a marshaller, to be released after use
+     * @throws JAXBException if marshaller could not be created
+     */
+    public static Marshaller acquireMarshaller (JAXBContext context)
+            throws JAXBException
+    {
+        final Entry entry = contextEntries.get(context);
+        Marshaller m = (entry != null) ? entry.marshallers.poll() : null;
+
+        if (m == null) {
+            m = context.createMarshaller();
+        }
+
+        m.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
+
+        return m;
+    }
+
+    //---------------------//
+    // acquireUnmarshaller //
+    //---------------------//
+    /**
+     * Acquire an unmarshaller for the provided context.
+     *
+     * @param context the JAXB context
+     * @return an unmarshaller, to be released after use
+     * @throws JAXBException if unmarshaller could not be created
+     */
+    public static Unmarshaller acquireUnmarshaller (JAXBContext context)
+            throws JAXBException
+    {
+        final Entry entry = contextEntries.get(context);
+        Unmarshaller um = (entry != null) ? entry.unmarshallers.poll() : null;
+
+        if (um == null) {
+            um = context.createUnmarshaller();
+        }
+
+        return um;
+    }
+
+    //------------//
+    // getContext //
+    //------------//
+    /**
+     * Report the (shared) JAXB context for the provided classes, creating it if needed.
+     *
+     * @param classes the classes to be bound, order is irrelevant
+     * @return the JAXB context
+     * @throws JAXBException if context could not be created
+     */
+    public static JAXBContext getContext (Class<?>... classes)
+            throws JAXBException
+    {
+        final Set<Class<?>> key = new HashSet<Class<?>>(Arrays.asList(classes));
+        Entry entry = entries.get(key);
+
+        if (entry == null) {
+            final Entry newEntry = new Entry(classes);
+            entry = entries.putIfAbsent(key, newEntry);
+
+            if (entry == null) {
+                entry = newEntry;
+            }
+        }
+
+        return entry.getContext();
+    }
+
+    //---------//
+    // marshal //
+    //---------//
+    /**
+     * Marshal the provided object to the provided stream, using a pooled marshaller.
+     *
+     * @param object  the object to marshal
+     * @param os      the output stream, not closed by this method
+     * @param context the JAXB context
+     * @throws JAXBException if marshalling failed
+     */
+    public static void marshal (Object object,
+                                OutputStream os,
+                                JAXBContext context)
+            throws JAXBException
+    {
+        final Marshaller m = acquireMarshaller(context);
+
+        try {
+            m.marshal(object, os);
+        } finally {
+            releaseMarshaller(context, m);
+        }
+    }
+
+    //-------------------//
+    // releaseMarshaller //
+    //-------------------//
+    /**
+     * Give back a marshaller acquired via {@link #acquireMarshaller}.
+     *
+     * @param context the JAXB context
+     * @param m       the marshaller to release
+     */
+    public static void releaseMarshaller (JAXBContext context,
+                                          Marshaller m)
+    {
+        final Entry entry = contextEntries.get(context);
+
+        if (entry != null) {
+            m.setListener(null);
+            entry.marshallers.offer(m);
+        }
+    }
+
+    //---------------------//
+    // releaseUnmarshaller //
+    //---------------------//
+    /**
+     * Give back an unmarshaller acquired via {@link #acquireUnmarshaller}.
+     *
+     * @param context the JAXB context
+     * @param um      the unmarshaller to release
+     */
+    public static void releaseUnmarshaller (JAXBContext context,
+                                            Unmarshaller um)
+    {
+        final Entry entry = contextEntries.get(context);
+
+        if (entry != null) {
+            um.setListener(null);
+            entry.unmarshallers.offer(um);
+        }
+    }
+
+    //-----------//
+    // unmarshal //
+    //-----------//
+    /**
+     * Unmarshal an object from the provided stream, using a pooled unmarshaller.
+     *
+     * @param is      the input stream, not closed by this method
+     * @param context the JAXB context
+     * @return the unmarshalled object
+     * @throws JAXBException if unmarshalling failed
+     */
+    public static Object unmarshal (InputStream is,
+                                    JAXBContext context)
+            throws JAXBException
+    {
+        final Unmarshaller um = acquireUnmarshaller(context);
+
+        try {
+            return um.unmarshal(is);
+        } finally {
+            releaseUnmarshaller(context, um);
+        }
+    }
+
+    //--------//
+    // warmUp //
+    //--------//
+    /**
+     * Create in background the JAXB contexts for the provided sets of classes, so that
+     * they are ready when first needed.
+     *
+     * @param classSets the sets of classes, one set per context
+     */
+    public static void warmUp (final Class<?>[]... classSets)
+    {
+        OmrExecutors.getLowExecutor().submit(
+                new Runnable()
+        {
+            @Override
+            public void run ()
+            {
+                for (Class<?>[] classes : classSets) {
+                    try {
+                        getContext(classes);
+                    } catch (Throwable ex) {
+                        logger.warn("Error warming up JAXB context " + ex, ex);
+                    }
+                }
+            }
+        });
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-------//
+    // Entry //
+    //-------//
+    /**
+     * Context for a set of classes, with its pools of marshallers and unmarshallers.
+     */
+    private static class Entry
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        /** Bound classes. */
+        private final Class<?>[] classes;
+
+        /** Pool of available marshallers. */
+        private final Queue<Marshaller> marshallers = new ConcurrentLinkedQueue<Marshaller>();
+
+        /** Pool of available unmarshallers. */
+        private final Queue<Unmarshaller> unmarshallers = new ConcurrentLinkedQueue<Unmarshaller>();
+
+        /** Context, lazily created. */
+        private volatile JAXBContext context;
+
+        //~ Constructors ---------------------------------------------------------------------------
+        public Entry (Class<?>[] classes)
+        {
+            this.classes = classes.clone();
+        }
+
+        //~ Methods --------------------------------------------------------------------------------
+        public JAXBContext getContext ()
+                throws JAXBException
+        {
+            if (context == null) {
+                synchronized (this) {
+                    if (context == null) {
+                        final long start = System.currentTimeMillis();
+                        final JAXBContext ctx = JAXBContext.newInstance(classes);
+                        contextEntries.put(ctx, this);
+                        context = ctx;
+                        logger.info(
+                                "JAXB context for {} created in {} ms",
+                                Arrays.toString(classes),
+                                System.currentTimeMillis() - start);
+                    }
+                }
+            }
+
+            return context;
+        }
+    }
+}
@@ -32,6 +32,8 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -42,6 +44,8 @@ import java.util.concurrent.atomic.AtomicInteger;
  * <li>lowExecutor: a fixed nb (#cpu+1) of threads with low priority</li>
  * <li>highExecutor: a fixed nb (#cpu+1) of threads with high priority</li>
  * <li>cachedLowExecutor: a varying nb of threads with low priority</li>
+ * <li>forkJoinPool: a work-stealing pool of #cpu threads with low priority, shared by all
+ * (system-level) processing tasks</li>
  * </ul>
  *
  * @author Hervé Bitteur
@@ -76,8 +80,14 @@ public class OmrExecutors
 
     private static final Pool cachedLows = new CachedLows();
 
+    private static final Pool forkJoins = new ForkJoins();
+
     /** To handle all the pools as a whole. */
-    private static final Collection<Pool> allPools = Arrays.asList(cachedLows, lows, highs);
+    private static final Collection<Pool> allPools = Arrays.asList(
+            cachedLows,
+            lows,
+            highs,
+            forkJoins);
 
     /** To prevent parallel creation of pools when closing. */
     private static volatile boolean creationAllowed = true;
@@ -104,6 +114,19 @@ public class OmrExecutors
         return cachedLows.getPool();
     }
 
+    //-----------------//
+    // getForkJoinPool //
+    //-----------------//
+    /**
+     * Return the (single) work-stealing pool of low priority threads
+     *
+     * @return the fork/join pool, allocated if needed
+     */
+    public static ForkJoinPool getForkJoinPool ()
+    {
+        return (ForkJoinPool) forkJoins.getPool();
+    }
+
     //-----------------//
     // getHighExecutor //
     //-----------------//
@@ -407,6 +430,46 @@ public class OmrExecutors
         }
     }
 
+    //-----------//
+    // ForkJoins //
+    //-----------//
+    /** Work-stealing pool with low priority. */
+    private static class ForkJoins
+            extends Pool
+    {
+        //~ Methods --------------------------------------------------------------------------------
+
+        @Override
+        public String getName ()
+        {
+            return "forkJoin";
+        }
+
+        @Override
+        protected ExecutorService createPool ()
+        {
+            return new ForkJoinPool(
+                    defaultParallelism.getTarget() ? cpuCount : 1,
+                    new ForkJoinPool.ForkJoinWorkerThreadFactory()
+            {
+                private final AtomicInteger threadNumber = new AtomicInteger(0);
+
+                @Override
+                public ForkJoinWorkerThread newThread (ForkJoinPool pool)
+                {
+                    ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory
+                            .newThread(pool);
+                    t.setName(getName() + "-thread-" + threadNumber.incrementAndGet());
+                    t.setPriority(Thread.MIN_PRIORITY);
+
+                    return t;
+                }
+            },
+                    null,
+                    false);
+        }
+    }
+
     //-------//
     // Highs //
     //-------//
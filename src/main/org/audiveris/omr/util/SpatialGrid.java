@@ -0,0 +1,371 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                     S p a t i a l G r i d                                      //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.util;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Class {@code SpatialGrid} is a uniform grid of square cells, meant to quickly retrieve
+ * the items located around a given rectangle.
+ * <p>
+ * Each item is recorded in every cell its bounding box touches.
+ * An item with no bounding box is said 'floating' and is reported by any lookup.
+ * <p>
+ * A lookup reports the <b>candidates</b>, that is the items sharing at least one cell with the
+ * provided rectangle (plus the floating ones), in the order items were inserted.
+ * It is up to the caller to check the exact geometric relation between each candidate and the
+ * rectangle, using the candidate current bounds.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @param <E> the type of items
+ * @author Hervé Bitteur
+ */
+public class SpatialGrid<E>
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Comparator<Entry<?>> byRank = new Comparator<Entry<?>>()
+    {
+        @Override
+        public int compare (Entry<?> e1,
+                            Entry<?> e2)
+        {
+            return Long.compare(e1.rank, e2.rank);
+        }
+    };
+
+    //~ Instance fields ----------------------------------------------------------------------------
+    /** Side of a cell, in pixels. */
+    private final int cellSize;
+
+    /** Non-empty cells, indexed by cell key. */
+    private final Map<Long, List<Entry<E>>> cells = new HashMap<Long, List<Entry<E>>>();
+
+    /** Entries with no bounding box. */
+    private final List<Entry<E>> floatings = new ArrayList<Entry<E>>();
+
+    /** All entries, indexed by item. */
+    private final Map<E, Entry<E>> entries = new HashMap<E, Entry<E>>();
+
+    /** Rank to be given to the next inserted item. */
+    private long nextRank;
+
+    /** Stamp of current lookup, to report each item only once. */
+    private int lookupStamp;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new {@code SpatialGrid} object.
+     *
+     * @param cellSize the side of a cell, in pixels
+     */
+    public SpatialGrid (int cellSize)
+    {
+        if (cellSize <= 0) {
+            throw new IllegalArgumentException("Illegal cell size " + cellSize);
+        }
+
+        this.cellSize = cellSize;
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //-------//
+    // clear //
+    //-------//
+    /**
+     * Remove all items.
+     */
+    public synchronized void clear ()
+    {
+        cells.clear();
+        floatings.clear();
+        entries.clear();
+    }
+
+    //----------//
+    // contains //
+    //----------//
+    /**
+     * Report whether the provided item is in this grid.
+     *
+     * @param item the provided item
+     * @return true if found
+     */
+    public synchronized boolean contains (E item)
+    {
+        return entries.containsKey(item);
+    }
+
+    //--------//
+    // insert //
+    //--------//
+    /**
+     * Insert an item, or update its bounding box if it is already in the grid.
+     * An updated item keeps its original insertion rank.
+     *
+     * @param item the item to insert
+     * @param box  the item bounding box, or null for a floating item
+     */
+    public synchronized void insert (E item,
+                                     Rectangle box)
+    {
+        Entry<E> entry = entries.get(item);
+
+        if (entry != null) {
+            unlink(entry);
+        } else {
+            entry = new Entry<E>(item, nextRank++);
+            entries.put(item, entry);
+        }
+
+        entry.box = (box != null) ? new Rectangle(box) : null;
+        link(entry);
+    }
+
+    //--------//
+    // lookup //
+    //--------//
+    /**
+     * Report the candidates for the provided rectangle.
+     *
+     * @param rect the provided rectangle
+     * @return the candidates, in insertion order, perhaps empty but not null
+     */
+    public synchronized List<E> lookup (Rectangle rect)
+    {
+        final int stamp = ++lookupStamp;
+        final List<Entry<E>> found = new ArrayList<Entry<E>>(floatings);
+
+        for (Entry<E> entry : floatings) {
+            entry.stamp = stamp;
+        }
+
+        final int xMin = cellOf(rect.x);
+        final int xMax = cellOf((rect.x + Math.max(1, rect.width)) - 1);
+        final int yMin = cellOf(rect.y);
+        final int yMax = cellOf((rect.y + Math.max(1, rect.height)) - 1);
+
+        for (int cy = yMin; cy <= yMax; cy++) {
+            for (int cx = xMin; cx <= xMax; cx++) {
+                final List<Entry<E>> cell = cells.get(keyOf(cx, cy));
+
+                if (cell != null) {
+                    for (Entry<E> entry : cell) {
+                        if (entry.stamp != stamp) {
+                            entry.stamp = stamp;
+                            found.add(entry);
+                        }
+                    }
+                }
+            }
+        }
+
+        Collections.sort(found, byRank);
+
+        final List<E> items = new ArrayList<E>(found.size());
+
+        for (Entry<E> entry : found) {
+            items.add(entry.item);
+        }
+
+        return items;
+    }
+
+    //--------//
+    // lookup //
+    //--------//
+    /**
+     * Report the candidates for the provided point.
+     *
+     * @param point the provided point
+     * @return the candidates, in insertion order, perhaps empty but not null
+     */
+    public List<E> lookup (Point point)
+    {
+        return lookup(new Rectangle(point.x, point.y, 1, 1));
+    }
+
+    //--------//
+    // remove //
+    //--------//
+    /**
+     * Remove the provided item.
+     *
+     * @param item the item to remove
+     * @return true if the item was actually removed
+     */
+    public synchronized boolean remove (E item)
+    {
+        final Entry<E> entry = entries.remove(item);
+
+        if (entry == null) {
+            return false;
+        }
+
+        unlink(entry);
+
+        return true;
+    }
+
+    //------//
+    // size //
+    //------//
+    /**
+     * Report the number of items in grid.
+     *
+     * @return the items count
+     */
+    public synchronized int size ()
+    {
+        return entries.size();
+    }
+
+    //----------//
+    // toString //
+    //----------//
+    @Override
+    public synchronized String toString ()
+    {
+        StringBuilder sb = new StringBuilder(getClass().getSimpleName());
+        sb.append("{cell:").append(cellSize);
+        sb.append(" items:").append(entries.size());
+        sb.append(" floatings:").append(floatings.size());
+        sb.append(" cells:").append(cells.size());
+        sb.append("}");
+
+        return sb.toString();
+    }
+
+    //--------//
+    // cellOf //
+    //--------//
+    private int cellOf (int coord)
+    {
+        // Rounding toward negative infinity
+        return (coord >= 0) ? (coord / cellSize) : (-1 - ((-1 - coord) / cellSize));
+    }
+
+    //-------//
+    // keyOf //
+    //-------//
+    private static Long keyOf (int cx,
+                               int cy)
+    {
+        return (((long) cx) << 32) | (cy & 0xFFFFFFFFL);
+    }
+
+    //------//
+    // link //
+    //------//
+    private void link (Entry<E> entry)
+    {
+        final Rectangle box = entry.box;
+
+        if (box == null) {
+            floatings.add(entry);
+
+            return;
+        }
+
+        for (int cy = cellOf(box.y), yMax = cellOf((box.y + Math.max(1, box.height)) - 1);
+                cy <= yMax; cy++) {
+            for (int cx = cellOf(box.x), xMax = cellOf((box.x + Math.max(1, box.width)) - 1);
+                    cx <= xMax; cx++) {
+                final Long key = keyOf(cx, cy);
+                List<Entry<E>> cell = cells.get(key);
+
+                if (cell == null) {
+                    cells.put(key, cell = new ArrayList<Entry<E>>());
+                }
+
+                cell.add(entry);
+            }
+        }
+    }
+
+    //--------//
+    // unlink //
+    //--------//
+    private void unlink (Entry<E> entry)
+    {
+        final Rectangle box = entry.box;
+
+        if (box == null) {
+            floatings.remove(entry);
+
+            return;
+        }
+
+        for (int cy = cellOf(box.y), yMax = cellOf((box.y + Math.max(1, box.height)) - 1);
+                cy <= yMax; cy++) {
+            for (int cx = cellOf(box.x), xMax = cellOf((box.x + Math.max(1, box.width)) - 1);
+                    cx <= xMax; cx++) {
+                final Long key = keyOf(cx, cy);
+                final List<Entry<E>> cell = cells.get(key);
+
+                if (cell != null) {
+                    cell.remove(entry);
+
+                    if (cell.isEmpty()) {
+                        cells.remove(key);
+                    }
+                }
+            }
+        }
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-------//
+    // Entry //
+    //-------//
+    /**
+     * An item, with its recorded bounding box and insertion rank.
+     */
+    private static class Entry<E>
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        final E item;
+
+        final long rank;
+
+        Rectangle box;
+
+        int stamp;
+
+        //~ Constructors ---------------------------------------------------------------------------
+        public Entry (E item,
+                      long rank)
+        {
+            this.item = item;
+            this.rank = rank;
+        }
+    }
+}
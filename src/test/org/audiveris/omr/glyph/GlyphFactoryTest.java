@@ -6,6 +6,7 @@
 package org.audiveris.omr.glyph;
 
 import org.audiveris.omr.glyph.GlyphFactory;
+import static org.audiveris.omr.image.PixelSource.BACKGROUND;
 import static org.audiveris.omr.run.Orientation.HORIZONTAL;
 import org.audiveris.omr.run.Run;
 import org.audiveris.omr.run.RunTable;
@@ -16,8 +17,14 @@ import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import static org.junit.Assert.*;
+
 import java.awt.Dimension;
 import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
 
 /**
  *
@@ -68,7 +75,82 @@ public class GlyphFactoryTest
 
         RunTable runTable = createHorizontalInstance();
         Point offset = null;
-        GlyphFactory.buildGlyphs(runTable, offset);
+        List<Glyph> glyphs = GlyphFactory.buildGlyphs(runTable, offset);
+        checkGlyphs(runTable, glyphs);
+    }
+
+    /**
+     * Test of createGlyphs method, on a table tall enough to be processed by bands.
+     */
+    @Test
+    public void testCreateGlyphsBands ()
+    {
+        System.out.println("createGlyphsBands");
+
+        RunTable runTable = createRandomInstance(300, 2000, 0.45);
+        List<Glyph> glyphs = GlyphFactory.buildGlyphs(runTable, null);
+        checkGlyphs(runTable, glyphs);
+    }
+
+    /**
+     * Check the provided glyphs against a plain flood fill of the table pixels.
+     * Glyphs are expected in the order of their first pixel.
+     */
+    private void checkGlyphs (RunTable runTable,
+                              List<Glyph> glyphs)
+    {
+        final int width = runTable.getWidth();
+        final int height = runTable.getHeight();
+        final boolean[] seen = new boolean[width * height];
+        final int[] queue = new int[width * height];
+        final List<Rectangle> boxes = new ArrayList<Rectangle>();
+        final List<Integer> weights = new ArrayList<Integer>();
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (seen[(y * width) + x] || (runTable.get(x, y) == BACKGROUND)) {
+                    continue;
+                }
+
+                Rectangle box = new Rectangle(x, y, 1, 1);
+                int head = 0;
+                int tail = 0;
+                queue[tail++] = (y * width) + x;
+                seen[(y * width) + x] = true;
+
+                while (head < tail) {
+                    final int p = queue[head++];
+                    final int px = p % width;
+                    final int py = p / width;
+                    box.add(new Rectangle(px, py, 1, 1));
+
+                    final int[][] neighbors = {
+                        {px - 1, py}, {px + 1, py}, {px, py - 1}, {px, py + 1}
+                    };
+
+                    for (int[] n : neighbors) {
+                        if ((n[0] >= 0) && (n[0] < width) && (n[1] >= 0) && (n[1] < height)) {
+                            final int q = (n[1] * width) + n[0];
+
+                            if (!seen[q] && (runTable.get(n[0], n[1]) != BACKGROUND)) {
+                                seen[q] = true;
+                                queue[tail++] = q;
+                            }
+                        }
+                    }
+                }
+
+                boxes.add(box);
+                weights.add(tail);
+            }
+        }
+
+        assertEquals(boxes.size(), glyphs.size());
+
+        for (int i = 0; i < glyphs.size(); i++) {
+            assertEquals(boxes.get(i), glyphs.get(i).getBounds());
+            assertEquals((int) weights.get(i), glyphs.get(i).getWeight());
+        }
     }
 
     //--------------------------//
@@ -125,4 +207,29 @@ public class GlyphFactoryTest
         ///System.out.println("createHorizontalInstance:\n" + instance.dumpOf());
         return instance;
     }
+
+    private RunTable createRandomInstance (int width,
+                                           int height,
+                                           double density)
+    {
+        RunTable instance = new RunTable(HORIZONTAL, width, height);
+        Random random = new Random(1234);
+
+        for (int y = 0; y < height; y++) {
+            int start = -1;
+
+            for (int x = 0; x <= width; x++) {
+                final boolean on = (x < width) && (random.nextDouble() < density);
+
+                if (on && (start == -1)) {
+                    start = x;
+                } else if (!on && (start != -1)) {
+                    instance.addRun(y, new Run(start, x - start));
+                    start = -1;
+                }
+            }
+        }
+
+        return instance;
+    }
 }
@@ -0,0 +1,86 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                  C o l u m n S u m s T e s t                                   //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.image;
+
+import ij.process.ByteProcessor;
+
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Class {@code ColumnSumsTest} checks {@link ColumnSums} counts against a plain scan of
+ * image pixels.
+ *
+ * @author Hervé Bitteur
+ */
+public class ColumnSumsTest
+{
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new ColumnSumsTest object.
+     */
+    public ColumnSumsTest ()
+    {
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    @Test
+    public void testGetCount ()
+    {
+        System.out.println("getCount");
+
+        // Wide enough to be split into several column stripes
+        final int width = 523;
+        final int height = 47;
+        final ByteProcessor source = new ByteProcessor(width, height);
+        final Random random = new Random(123);
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                source.set(x, y, random.nextBoolean() ? 0 : 255);
+            }
+        }
+
+        final ColumnSums sums = new ColumnSums(source);
+
+        for (int x = 0; x < width; x++) {
+            for (int yMin = -2; yMin < (height + 2); yMin += 3) {
+                for (int yMax = yMin - 1; yMax < (height + 2); yMax += 5) {
+                    int expected = 0;
+
+                    for (int y = Math.max(0, yMin); y <= Math.min(height - 1, yMax); y++) {
+                        if (source.get(x, y) == 0) {
+                            expected++;
+                        }
+                    }
+
+                    assertEquals(
+                            "x:" + x + " yMin:" + yMin + " yMax:" + yMax,
+                            expected,
+                            sums.getCount(x, yMin, yMax));
+                }
+            }
+        }
+    }
+}
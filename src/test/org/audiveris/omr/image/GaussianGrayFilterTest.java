@@ -0,0 +1,198 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                          G a u s s i a n G r a y F i l t e r T e s t                           //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.image;
+
+import ij.process.ByteProcessor;
+
+import static org.junit.Assert.assertArrayEquals;
+import org.junit.Test;
+
+import java.awt.image.Kernel;
+import java.util.Random;
+
+/**
+ * Class {@code GaussianGrayFilterTest} checks that the banded {@link GaussianGrayFilter}
+ * gives exactly the same results as the plain separable implementation.
+ *
+ * @author Hervé Bitteur
+ */
+public class GaussianGrayFilterTest
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final float[] RADII = new float[]{0.5f, 1f, 2f, 3.5f};
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new GaussianGrayFilterTest object.
+     */
+    public GaussianGrayFilterTest ()
+    {
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    @Test
+    public void testFilter ()
+    {
+        System.out.println("filter");
+
+        // Both dimensions large enough to be split into bands, for both passes
+        int[][] dims = new int[][]{{1, 1}, {5, 3}, {40, 37}, {37, 300}, {523, 877}, {877, 523}};
+
+        for (int[] dim : dims) {
+            ByteProcessor source = createImage(dim[0], dim[1]);
+
+            for (float radius : RADII) {
+                byte[] expected = plainFilter(source, radius);
+                byte[] result = (byte[]) new GaussianGrayFilter(radius).filter(source).getPixels();
+
+                assertArrayEquals(
+                        dim[0] + "x" + dim[1] + " radius:" + radius,
+                        expected,
+                        result);
+            }
+        }
+    }
+
+    @Test
+    public void testFilterReuse ()
+    {
+        System.out.println("filterReuse");
+
+        // Successive calls on different sizes reuse the per-thread scratch buffer
+        GaussianGrayFilter filter = new GaussianGrayFilter(2);
+        int[][] dims = new int[][]{{600, 700}, {30, 20}, {450, 810}};
+
+        for (int[] dim : dims) {
+            ByteProcessor source = createImage(dim[0], dim[1]);
+            assertArrayEquals(
+                    dim[0] + "x" + dim[1],
+                    plainFilter(source, 2),
+                    (byte[]) filter.filter(source).getPixels());
+        }
+    }
+
+    /**
+     * Clamp a value to the range 0..255.
+     */
+    private static int clamp (int val)
+    {
+        if (val < 0) {
+            return 0;
+        }
+
+        if (val > 255) {
+            return 255;
+        }
+
+        return val;
+    }
+
+    /**
+     * Reference one-dimension convolution, followed by transposition.
+     */
+    private static void convolveAndTranspose (Kernel kernel,
+                                              byte[] inPixels,
+                                              byte[] outPixels,
+                                              int width,
+                                              int height)
+    {
+        float[] matrix = kernel.getKernelData(null);
+        int cols = kernel.getWidth();
+        int cols2 = cols / 2;
+
+        for (int y = 0; y < height; y++) {
+            int index = y;
+            int ioffset = y * width;
+
+            for (int x = 0; x < width; x++) {
+                float p = 0;
+                int moffset = cols2;
+
+                for (int col = -cols2; col <= cols2; col++) {
+                    float f = matrix[moffset + col];
+
+                    if (f != 0) {
+                        int ix = x + col;
+
+                        if (ix < 0) {
+                            ix = 0;
+                        } else if (ix >= width) {
+                            ix = width - 1;
+                        }
+
+                        int pix = inPixels[ioffset + ix] & 0xff;
+                        p += (f * pix);
+                    }
+                }
+
+                int ip = clamp((int) (p + 0.5));
+                outPixels[index] = (byte) ip;
+                index += height;
+            }
+        }
+    }
+
+    /**
+     * Create a noisy gray image.
+     */
+    private static ByteProcessor createImage (int width,
+                                              int height)
+    {
+        final Random random = new Random(width * height);
+        final ByteProcessor img = new ByteProcessor(width, height);
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                img.set(x, y, random.nextInt(256));
+            }
+        }
+
+        return img;
+    }
+
+    /**
+     * Reference separable Gaussian filter, as implemented before banding.
+     */
+    private static byte[] plainFilter (ByteProcessor input,
+                                       float radius)
+    {
+        final Kernel kernel = GaussianGrayFilter.makeKernel(radius);
+        final int width = input.getWidth();
+        final int height = input.getHeight();
+        final byte[] inPixels = new byte[width * height];
+        final byte[] outPixels = new byte[width * height];
+
+        for (int y = 0; y < height; y++) {
+            final int offset = y * width;
+
+            for (int x = 0; x < width; x++) {
+                inPixels[offset + x] = (byte) input.get(x, y);
+            }
+        }
+
+        convolveAndTranspose(kernel, inPixels, outPixels, width, height);
+        convolveAndTranspose(kernel, outPixels, inPixels, height, width);
+
+        return inPixels;
+    }
+}
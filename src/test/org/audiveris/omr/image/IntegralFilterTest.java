@@ -0,0 +1,111 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                              I n t e g r a l F i l t e r T e s t                               //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.image;
+
+import ij.process.ByteProcessor;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Class {@code IntegralFilterTest} checks that {@link IntegralFilter} binarizes exactly
+ * as {@link RandomFilter} and {@link VerticalFilter} do.
+ *
+ * @author Hervé Bitteur
+ */
+public class IntegralFilterTest
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final double MEAN_COEFF = 0.7;
+
+    private static final double STD_DEV_COEFF = 0.9;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new IntegralFilterTest object.
+     */
+    public IntegralFilterTest ()
+    {
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    @Test
+    public void testFilteredImage ()
+    {
+        System.out.println("filteredImage");
+
+        int[][] dims = new int[][]{{1, 1}, {5, 3}, {40, 37}, {37, 300}, {301, 45}, {523, 777}};
+
+        for (int[] dim : dims) {
+            ByteProcessor source = createImage(dim[0], dim[1]);
+            byte[] expected = (byte[]) new RandomFilter(source, MEAN_COEFF, STD_DEV_COEFF)
+                    .filteredImage().getPixels();
+            byte[] vertical = (byte[]) new VerticalFilter(source, MEAN_COEFF, STD_DEV_COEFF)
+                    .filteredImage().getPixels();
+            byte[] result = (byte[]) new IntegralFilter(source, MEAN_COEFF, STD_DEV_COEFF)
+                    .filteredImage().getPixels();
+
+            assertArrayEquals("random " + dim[0] + "x" + dim[1], expected, result);
+            assertArrayEquals("vertical " + dim[0] + "x" + dim[1], vertical, result);
+        }
+    }
+
+    @Test
+    public void testIsFore ()
+    {
+        System.out.println("isFore");
+
+        ByteProcessor source = createImage(120, 90);
+        RandomFilter random = new RandomFilter(source, MEAN_COEFF, STD_DEV_COEFF);
+        IntegralFilter integral = new IntegralFilter(source, MEAN_COEFF, STD_DEV_COEFF);
+
+        for (int y = 0; y < source.getHeight(); y++) {
+            for (int x = 0; x < source.getWidth(); x++) {
+                assertEquals("x:" + x + " y:" + y, random.isFore(x, y), integral.isFore(x, y));
+            }
+        }
+    }
+
+    /**
+     * Create a noisy gray image, with a majority of light pixels.
+     */
+    private ByteProcessor createImage (int width,
+                                       int height)
+    {
+        final Random random = new Random(width * height);
+        final ByteProcessor img = new ByteProcessor(width, height);
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                final int val = (random.nextInt(10) < 3) ? random.nextInt(80)
+                        : (150 + random.nextInt(106));
+                img.set(x, y, val);
+            }
+        }
+
+        return img;
+    }
+}
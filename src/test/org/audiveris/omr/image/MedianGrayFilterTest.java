@@ -28,6 +28,10 @@ import org.junit.Test;
 import java.awt.image.BufferedImage;
 import java.awt.image.Raster;
 import java.awt.image.WritableRaster;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
 
 /**
  * Class {@code MedianGrayFilterTest}
@@ -122,6 +126,33 @@ public class MedianGrayFilterTest
         }
     }
 
+    @Test
+    public void testProcess_noise ()
+    {
+        System.out.println("\nprocess_noise");
+
+        final Random random = new Random(123);
+        final BufferedImage image = createWhiteImage(57, 43);
+        final WritableRaster out = image.getRaster();
+        final int[] pixel = new int[1];
+
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                pixel[0] = random.nextInt(256);
+                out.setPixel(x, y, pixel);
+            }
+        }
+
+        for (int radius = 0; radius <= 6; radius++) {
+            BufferedImage expResult = bruteMedian(image, radius);
+            BufferedImage result = new MedianGrayFilter(radius).filter(image);
+
+            if (!areEqual(expResult, result)) {
+                fail("Images are not equal for radius " + radius);
+            }
+        }
+    }
+
     //    @Test
     public void testProcess_white_1 ()
     {
@@ -164,6 +195,40 @@ public class MedianGrayFilterTest
         return true;
     }
 
+    /**
+     * Reference median, with radius reduced at image boundaries.
+     */
+    private BufferedImage bruteMedian (BufferedImage image,
+                                       int radius)
+    {
+        final Raster in = image.getRaster();
+        final int width = image.getWidth();
+        final int height = image.getHeight();
+        final BufferedImage result = createWhiteImage(width, height);
+        final WritableRaster out = result.getRaster();
+        final int[] pixel = new int[1];
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int rad = Math.min(Math.min(radius, Math.min(x, y)),
+                                   Math.min(width - 1 - x, height - 1 - y));
+                List<Integer> values = new ArrayList<Integer>();
+
+                for (int j = y - rad; j <= (y + rad); j++) {
+                    for (int i = x - rad; i <= (x + rad); i++) {
+                        values.add(in.getPixel(i, j, pixel)[0]);
+                    }
+                }
+
+                Collections.sort(values);
+                pixel[0] = values.get(values.size() / 2);
+                out.setPixel(x, y, pixel);
+            }
+        }
+
+        return result;
+    }
+
     private BufferedImage createBlackImage ()
     {
         final BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
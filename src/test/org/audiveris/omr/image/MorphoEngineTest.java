@@ -0,0 +1,252 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                M o r p h o E n g i n e T e s t                                 //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.image;
+
+import ij.process.ByteProcessor;
+
+import static org.junit.Assert.assertArrayEquals;
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Class {@code MorphoEngineTest} checks that {@link MorphoEngine} gives exactly the same
+ * results as {@link MorphoProcessor}, and as a naive reference on images large enough to be
+ * processed by bands.
+ *
+ * @author Hervé Bitteur
+ */
+public class MorphoEngineTest
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final int[] SHAPES = new int[]{
+        MorphoConstants.CIRCLE, MorphoConstants.DIAMOND, MorphoConstants.SQARE
+    };
+
+    private static final float[] RADII = new float[]{0f, 1f, 1.5f, 2.5f, 4f, 5.5f};
+
+    /** All kernel shapes defined by a mask. */
+    private static final int[] ALL_SHAPES = new int[]{
+        MorphoConstants.CIRCLE, MorphoConstants.DIAMOND, MorphoConstants.SQARE,
+        MorphoConstants.HLINE, MorphoConstants.VLINE, MorphoConstants.HPOINTS,
+        MorphoConstants.VPOINTS
+    };
+
+    private static final float[] LARGE_RADII = new float[]{1f, 2.5f, 4f};
+
+    private static final int[] OFFSET = new int[]{0, 0};
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new MorphoEngineTest object.
+     */
+    public MorphoEngineTest ()
+    {
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    @Test
+    public void testClose ()
+    {
+        System.out.println("close");
+
+        for (int shape : SHAPES) {
+            for (float radius : RADII) {
+                StructureElement se = new StructureElement(shape, 1, radius, OFFSET);
+                ByteProcessor expected = createImage(61, 43);
+                ByteProcessor result = createImage(61, 43);
+                new MorphoProcessor(se).close(expected);
+                new MorphoEngine(se).close(result);
+
+                assertArrayEquals(
+                        "shape:" + shape + " radius:" + radius,
+                        (byte[]) expected.getPixels(),
+                        (byte[]) result.getPixels());
+            }
+        }
+    }
+
+    @Test
+    public void testDilate ()
+    {
+        System.out.println("dilate");
+
+        for (int shape : SHAPES) {
+            for (float radius : RADII) {
+                StructureElement se = new StructureElement(shape, 1, radius, OFFSET);
+                ByteProcessor expected = createImage(37, 52);
+                ByteProcessor result = createImage(37, 52);
+                new MorphoProcessor(se).dilate(expected);
+                new MorphoEngine(se).dilate(result);
+
+                assertArrayEquals(
+                        "shape:" + shape + " radius:" + radius,
+                        (byte[]) expected.getPixels(),
+                        (byte[]) result.getPixels());
+            }
+        }
+    }
+
+    @Test
+    public void testErode ()
+    {
+        System.out.println("erode");
+
+        for (int shape : SHAPES) {
+            for (float radius : RADII) {
+                StructureElement se = new StructureElement(shape, 1, radius, OFFSET);
+                ByteProcessor expected = createImage(37, 52);
+                ByteProcessor result = createImage(37, 52);
+                new MorphoProcessor(se).erode(expected);
+                new MorphoEngine(se).erode(result);
+
+                assertArrayEquals(
+                        "shape:" + shape + " radius:" + radius,
+                        (byte[]) expected.getPixels(),
+                        (byte[]) result.getPixels());
+            }
+        }
+    }
+
+    @Test
+    public void testLargeImage ()
+    {
+        System.out.println("largeImage");
+
+        // More than twice the minimum band height, so that rows are split into bands
+        final int width = 131;
+        final int height = 613;
+
+        for (int shape : ALL_SHAPES) {
+            for (float radius : LARGE_RADII) {
+                final StructureElement se = new StructureElement(shape, 1, radius, OFFSET);
+                final int[][] pg = se.getVect();
+                final ByteProcessor source = createImage(width, height);
+                final byte[] pixels = (byte[]) source.getPixels();
+                final byte[] dilated = reference(pixels, width, height, pg, true);
+                final byte[] eroded = reference(pixels, width, height, pg, false);
+                final String msg = "shape:" + shape + " radius:" + radius;
+
+                ByteProcessor result = createImage(width, height);
+                new MorphoEngine(se).dilate(result);
+                assertArrayEquals("dilate " + msg, dilated, (byte[]) result.getPixels());
+
+                result = createImage(width, height);
+                new MorphoEngine(se).erode(result);
+                assertArrayEquals("erode " + msg, eroded, (byte[]) result.getPixels());
+
+                result = createImage(width, height);
+                new MorphoEngine(se).close(result);
+                assertArrayEquals(
+                        "close " + msg,
+                        reference(dilated, width, height, pg, false),
+                        (byte[]) result.getPixels());
+
+                result = createImage(width, height);
+                new MorphoEngine(se).open(result);
+                assertArrayEquals(
+                        "open " + msg,
+                        reference(eroded, width, height, pg, true),
+                        (byte[]) result.getPixels());
+            }
+        }
+    }
+
+    @Test
+    public void testOpen ()
+    {
+        System.out.println("open");
+
+        for (int shape : SHAPES) {
+            for (float radius : RADII) {
+                StructureElement se = new StructureElement(shape, 1, radius, OFFSET);
+                ByteProcessor expected = createImage(61, 43);
+                ByteProcessor result = createImage(61, 43);
+                new MorphoProcessor(se).open(expected);
+                new MorphoEngine(se).open(result);
+
+                assertArrayEquals(
+                        "shape:" + shape + " radius:" + radius,
+                        (byte[]) expected.getPixels(),
+                        (byte[]) result.getPixels());
+            }
+        }
+    }
+
+    /**
+     * Create a noisy gray image, with some pure black and white pixels.
+     */
+    private ByteProcessor createImage (int width,
+                                       int height)
+    {
+        final Random random = new Random(width * height);
+        final ByteProcessor img = new ByteProcessor(width, height);
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                final int val = (random.nextInt(10) < 5) ? random.nextInt(256)
+                        : ((random.nextInt(2) == 0) ? 0 : 255);
+                img.set(x, y, val);
+            }
+        }
+
+        return img;
+    }
+
+    /**
+     * Naive dilation or erosion, pixel per pixel, with pixels outside the image valued 0 for
+     * dilation and 255 for erosion.
+     */
+    private byte[] reference (byte[] in,
+                              int width,
+                              int height,
+                              int[][] pg,
+                              boolean max)
+    {
+        final byte[] out = new byte[in.length];
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int best = max ? 0 : 255;
+
+                for (int[] p : pg) {
+                    final int yy = y + p[0];
+                    final int xx = x + p[1];
+                    final int val;
+
+                    if ((xx < 0) || (xx >= width) || (yy < 0) || (yy >= height)) {
+                        val = max ? 0 : 255;
+                    } else {
+                        val = in[xx + (width * yy)] & 0xFF;
+                    }
+
+                    best = max ? Math.max(best, val) : Math.min(best, val);
+                }
+
+                out[x + (width * y)] = (byte) best;
+            }
+        }
+
+        return out;
+    }
+}
@@ -0,0 +1,376 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                              T e m p l a t e K e r n e l T e s t                               //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.image;
+
+import ij.process.ByteProcessor;
+
+import org.audiveris.omr.glyph.Shape;
+import org.audiveris.omr.image.Anchored.Anchor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Class {@code TemplateKernelTest} checks that {@link TemplateKernel} evaluations are
+ * identical to {@link Template#evaluate}, and that neither early abandon nor column lower bound
+ * ever rejects a location whose distance is within the provided bound.
+ *
+ * @author Hervé Bitteur
+ */
+public class TemplateKernelTest
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Anchor[] ANCHORS = new Anchor[]{null, Anchor.CENTER, Anchor.MIDDLE_LEFT};
+
+    private static final double[] BOUNDS = new double[]{0.2, 0.5, 1.0, 2.0};
+
+    /** Locations out of table are tested up to this margin. */
+    private static final int MARGIN = 15;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new TemplateKernelTest object.
+     */
+    public TemplateKernelTest ()
+    {
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    @Test
+    public void testEvaluateBounded ()
+    {
+        System.out.println("evaluateBounded");
+
+        final Template template = createTemplate();
+        final DistanceTable table = createTable(new ChamferDistance.Short());
+        final TemplateKernel kernel = template.compile(table);
+        int abandoned = 0;
+        int kept = 0;
+
+        for (Anchor anchor : ANCHORS) {
+            for (double bound : BOUNDS) {
+                for (int y = -MARGIN; y < (table.getHeight() + MARGIN); y++) {
+                    for (int x = -MARGIN; x < (table.getWidth() + MARGIN); x++) {
+                        final double expected = template.evaluate(x, y, anchor, table);
+                        final double result = kernel.evaluate(x, y, anchor, bound);
+                        final String msg = "x:" + x + " y:" + y + " anchor:" + anchor
+                                           + " bound:" + bound;
+
+                        if (Double.isInfinite(result)) {
+                            // Abandon is allowed only for a distance beyond the bound
+                            assertTrue(msg, expected > bound);
+                            abandoned++;
+                        } else {
+                            assertEquals(msg, expected, result, 0);
+                            kept++;
+                        }
+                    }
+                }
+            }
+        }
+
+        // Make sure both cases have been exercised
+        assertTrue("no abandoned location", abandoned > 0);
+        assertTrue("no kept location", kept > 0);
+    }
+
+    @Test
+    public void testEvaluateColumn ()
+    {
+        System.out.println("evaluateColumn");
+
+        final Template template = createTemplate();
+        final DistanceTable table = createTable(new ChamferDistance.Short());
+        final TemplateKernel kernel = template.compile(table);
+        final int[] yValues = new int[table.getHeight() + (2 * MARGIN)];
+        final boolean[] skips = new boolean[yValues.length];
+        final double[] results = new double[yValues.length];
+        int skipCount = 0;
+
+        for (int i = 0; i < yValues.length; i++) {
+            yValues[i] = i - MARGIN;
+            skips[i] = (i % 3) == 0;
+
+            if (skips[i]) {
+                skipCount++;
+            }
+        }
+
+        for (Anchor anchor : ANCHORS) {
+            for (int x = -MARGIN; x < (table.getWidth() + MARGIN); x++) {
+                int evals = kernel.evaluateColumn(x, yValues, skips, anchor, 1.0, results);
+                assertEquals(yValues.length - skipCount, evals);
+
+                for (int i = 0; i < yValues.length; i++) {
+                    final String msg = "x:" + x + " y:" + yValues[i] + " anchor:" + anchor;
+
+                    if (skips[i]) {
+                        assertTrue(msg, Double.isNaN(results[i]));
+                    } else {
+                        assertEquals(
+                                msg,
+                                kernel.evaluate(x, yValues[i], anchor, 1.0),
+                                results[i],
+                                0);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testEvaluateInteger ()
+    {
+        System.out.println("evaluateInteger");
+
+        checkUnbounded(createTable(new ChamferDistance.Integer()));
+    }
+
+    @Test
+    public void testEvaluateShort ()
+    {
+        System.out.println("evaluateShort");
+
+        checkUnbounded(createTable(new ChamferDistance.Short()));
+    }
+
+    @Test
+    public void testEvaluateViews ()
+    {
+        System.out.println("evaluateViews");
+
+        final Rectangle roi = new Rectangle(17, 11, 70, 55);
+        final DistanceTable.Short shortTable = (DistanceTable.Short) createTable(
+                new ChamferDistance.Short());
+        final DistanceTable.Integer intTable = (DistanceTable.Integer) createTable(
+                new ChamferDistance.Integer());
+
+        checkUnbounded(shortTable.getView(roi));
+        checkUnbounded(intTable.getView(roi));
+    }
+
+    @Test
+    public void testLowerBound ()
+    {
+        System.out.println("lowerBound");
+
+        final Template template = createTemplate();
+        final DistanceTable table = createTable(new ChamferDistance.Short());
+        final TemplateKernel kernel = template.compile(table);
+        final Rectangle all = new Rectangle(
+                -MARGIN,
+                -MARGIN,
+                table.getWidth() + (2 * MARGIN),
+                table.getHeight() + (2 * MARGIN));
+        final Rectangle[] rois = new Rectangle[]{all, new Rectangle(30, 20, 40, 30)};
+
+        for (Rectangle roi : rois) {
+            for (int height : new int[]{1, 3, 6}) {
+                final DistanceRanges ranges = new DistanceRanges(table, roi, height);
+
+                for (Anchor anchor : ANCHORS) {
+                    for (int y = -MARGIN; y < (table.getHeight() + MARGIN); y++) {
+                        for (int x = -MARGIN; x < (table.getWidth() + MARGIN); x++) {
+                            final double bound = kernel.getLowerBound(ranges, x, y, anchor);
+
+                            for (int k = 0; k < height; k++) {
+                                final double dist = template.evaluate(x, y + k, anchor, table);
+                                assertFalse(
+                                        "x:" + x + " y:" + (y + k) + " anchor:" + anchor
+                                        + " height:" + height + " roi:" + roi,
+                                        dist < bound);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testLowerBoundRecall ()
+    {
+        System.out.println("lowerBoundRecall");
+
+        final Template template = createTemplate();
+        final DistanceTable table = createTable(new ChamferDistance.Short());
+        final TemplateKernel kernel = template.compile(table);
+        final int height = 4;
+        final DistanceRanges ranges = new DistanceRanges(
+                table,
+                new Rectangle(0, 0, table.getWidth(), table.getHeight()),
+                height);
+        final double[] results = new double[height];
+        final int[] yValues = new int[height];
+
+        for (double bound : BOUNDS) {
+            int pruned = 0;
+            int matches = 0;
+
+            for (int y = 0; y < (table.getHeight() - height); y++) {
+                for (int i = 0; i < height; i++) {
+                    yValues[i] = y + i;
+                }
+
+                for (int x = 0; x < table.getWidth(); x++) {
+                    // Matches found by a full column scan
+                    int full = 0;
+                    kernel.evaluateColumn(x, yValues, null, Anchor.CENTER, bound, results);
+
+                    for (double result : results) {
+                        if (result <= bound) {
+                            full++;
+                        }
+                    }
+
+                    matches += full;
+
+                    if (kernel.getLowerBound(ranges, x, y, Anchor.CENTER) > bound) {
+                        // Column pruned: it must contain no match
+                        assertEquals("x:" + x + " y:" + y + " bound:" + bound, 0, full);
+                        pruned++;
+                    }
+                }
+            }
+
+            // Make sure pruning is effective
+            assertTrue("nothing pruned for bound " + bound, pruned > 0);
+
+            if (bound >= 1.0) {
+                assertTrue("no match for bound " + bound, matches > 0);
+            }
+        }
+    }
+
+    /**
+     * Check that kernel with no bound gives exactly the same results as template
+     * evaluation, for all locations in and around the table.
+     */
+    private void checkUnbounded (DistanceTable table)
+    {
+        final Template template = createTemplate();
+        final TemplateKernel kernel = template.compile(table);
+
+        for (Anchor anchor : ANCHORS) {
+            for (int y = -MARGIN; y < (table.getHeight() + MARGIN); y++) {
+                for (int x = -MARGIN; x < (table.getWidth() + MARGIN); x++) {
+                    assertEquals(
+                            "x:" + x + " y:" + y + " anchor:" + anchor,
+                            template.evaluate(x, y, anchor, table),
+                            kernel.evaluate(x, y, anchor, Double.POSITIVE_INFINITY),
+                            0);
+                }
+            }
+        }
+    }
+
+    /**
+     * Create a distance table on a noisy image with a few filled ellipses, and with a
+     * neutralized region as done for staff lines.
+     */
+    private DistanceTable createTable (ChamferDistance chamfer)
+    {
+        final int width = 113;
+        final int height = 87;
+        final Random random = new Random(456);
+        final ByteProcessor img = new ByteProcessor(width, height);
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                img.set(x, y, (random.nextInt(40) == 0) ? 0 : 255);
+            }
+        }
+
+        for (int i = 0; i < 12; i++) {
+            final int cx = random.nextInt(width);
+            final int cy = random.nextInt(height);
+
+            for (int y = Math.max(0, cy - 5); y < Math.min(height, cy + 6); y++) {
+                for (int x = Math.max(0, cx - 7); x < Math.min(width, cx + 8); x++) {
+                    final double dx = (x - cx) / 7.0;
+                    final double dy = (y - cy) / 5.0;
+
+                    if (((dx * dx) + (dy * dy)) <= 1) {
+                        img.set(x, y, 0);
+                    }
+                }
+            }
+        }
+
+        final DistanceTable table = chamfer.computeToFore(img);
+
+        // Neutralized horizontal band
+        for (int y = 40; y < 43; y++) {
+            for (int x = 0; x < width; x++) {
+                table.setValue(x, y, ChamferDistance.VALUE_UNKNOWN);
+            }
+        }
+
+        return table;
+    }
+
+    /**
+     * Create a head-like template: foreground key points in an ellipse, background key
+     * points around it with their expected distance.
+     */
+    private Template createTemplate ()
+    {
+        final int width = 19;
+        final int height = 15;
+        final List<PixelDistance> keyPoints = new ArrayList<PixelDistance>();
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                final double dx = (x - 9) / 7.0;
+                final double dy = (y - 7) / 5.0;
+                final double r = Math.sqrt((dx * dx) + (dy * dy));
+
+                if (r <= 1) {
+                    keyPoints.add(new PixelDistance(x, y, 0));
+                } else if (((x + y) % 2) == 0) {
+                    keyPoints.add(new PixelDistance(x, y, 3 * Math.rint(5 * (r - 1))));
+                }
+            }
+        }
+
+        final Template template = new Template(
+                Shape.NOTEHEAD_BLACK,
+                16,
+                null,
+                width,
+                height,
+                keyPoints,
+                new Rectangle(2, 2, 15, 11));
+        template.addAnchor(Anchor.CENTER, 0.5, 0.5);
+        template.addAnchor(Anchor.MIDDLE_LEFT, 2.0 / width, 0.5);
+
+        return template;
+    }
+}
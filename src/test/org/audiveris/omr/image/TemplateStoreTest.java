@@ -0,0 +1,190 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                               T e m p l a t e S t o r e T e s t                                //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.image;
+
+import org.audiveris.omr.glyph.Shape;
+import org.audiveris.omr.glyph.ShapeSet;
+import org.audiveris.omr.image.Anchored.Anchor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Class {@code TemplateStoreTest} checks that a templates catalog written by
+ * {@link TemplateStore} is read back identically.
+ *
+ * @author Hervé Bitteur
+ */
+public class TemplateStoreTest
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final int INTERLINE = 21;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new TemplateStoreTest object.
+     */
+    public TemplateStoreTest ()
+    {
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    @Test
+    public void testRoundTrip ()
+            throws IOException
+    {
+        System.out.println("roundTrip");
+
+        final Map<Shape, ShapeDescriptor> descriptors = createDescriptors();
+        final Path path = Files.createTempFile("catalog-", ".bin");
+
+        try {
+            TemplateStore.write(path, INTERLINE, descriptors);
+
+            final Map<Shape, ShapeDescriptor> restored = TemplateStore.read(path, INTERLINE);
+            assertEquals(descriptors.keySet(), restored.keySet());
+
+            for (Shape shape : descriptors.keySet()) {
+                final Template expected = descriptors.get(shape).getTemplate();
+                final Template actual = restored.get(shape).getTemplate();
+                assertNotNull(shape.toString(), actual);
+                assertEquals(shape, actual.getShape());
+                assertEquals(expected.getInterline(), actual.getInterline());
+                assertEquals(expected.getWidth(), actual.getWidth());
+                assertEquals(expected.getHeight(), actual.getHeight());
+                assertEquals(expected.getSymbolBounds(), actual.getSymbolBounds());
+                assertEquals(expected.getOffsets(), actual.getOffsets());
+
+                final List<PixelDistance> expPoints = expected.getKeyPoints();
+                final List<PixelDistance> actPoints = actual.getKeyPoints();
+                assertEquals(expPoints.size(), actPoints.size());
+
+                for (int i = 0; i < expPoints.size(); i++) {
+                    final PixelDistance exp = expPoints.get(i);
+                    final PixelDistance act = actPoints.get(i);
+                    assertEquals(shape + " x#" + i, exp.x, act.x);
+                    assertEquals(shape + " y#" + i, exp.y, act.y);
+                    assertEquals(shape + " d#" + i, exp.d, act.d, 0);
+                }
+            }
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Test
+    public void testWrongInterline ()
+            throws IOException
+    {
+        System.out.println("wrongInterline");
+
+        final Path path = Files.createTempFile("catalog-", ".bin");
+
+        try {
+            TemplateStore.write(path, INTERLINE, createDescriptors());
+            TemplateStore.read(path, INTERLINE + 1);
+            fail("Interline mismatch not detected");
+        } catch (IOException expected) {
+            System.out.println("Got " + expected);
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Test
+    public void testTruncated ()
+            throws IOException
+    {
+        System.out.println("truncated");
+
+        final Path path = Files.createTempFile("catalog-", ".bin");
+
+        try {
+            TemplateStore.write(path, INTERLINE, createDescriptors());
+
+            final byte[] bytes = Files.readAllBytes(path);
+            final byte[] half = new byte[bytes.length / 2];
+            System.arraycopy(bytes, 0, half, 0, half.length);
+            Files.write(path, half);
+            TemplateStore.read(path, INTERLINE);
+            fail("Truncated catalog not detected");
+        } catch (IOException expected) {
+            System.out.println("Got " + expected);
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    /**
+     * Create a complete catalog, with distinct templates for each shape.
+     */
+    private Map<Shape, ShapeDescriptor> createDescriptors ()
+    {
+        final Map<Shape, ShapeDescriptor> descriptors = new EnumMap<Shape, ShapeDescriptor>(
+                Shape.class);
+        final Random random = new Random(789);
+
+        for (Shape shape : ShapeSet.TemplateNotes) {
+            final int width = 15 + random.nextInt(10);
+            final int height = 11 + random.nextInt(6);
+            final List<PixelDistance> keyPoints = new ArrayList<PixelDistance>();
+
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    if (random.nextInt(3) == 0) {
+                        // Non-integer expected distances must survive as well
+                        keyPoints.add(new PixelDistance(x, y, random.nextDouble() * 5));
+                    }
+                }
+            }
+
+            final Template template = new Template(
+                    shape,
+                    INTERLINE,
+                    null,
+                    width,
+                    height,
+                    keyPoints,
+                    new Rectangle(1, 2, width - 3, height - 4));
+            template.addAnchor(Anchor.CENTER, 0.5, 0.5);
+            template.addAnchor(Anchor.MIDDLE_LEFT, 1.0 / width, 0.5);
+            template.setOffset(Anchor.LEFT_STEM, new Point(random.nextInt(width), -1));
+            descriptors.put(shape, new ShapeDescriptor(INTERLINE, template));
+        }
+
+        return descriptors;
+    }
+}
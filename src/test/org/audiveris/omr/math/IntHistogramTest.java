@@ -0,0 +1,155 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                I n t H i s t o g r a m T e s t                                 //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.math;
+
+import org.audiveris.omr.math.Histogram.MaxEntry;
+import org.audiveris.omr.math.Histogram.PeakEntry;
+
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Class {@code IntHistogramTest} checks that {@link IntHistogram} reports the same peaks
+ * as a {@link Histogram} populated with the same data.
+ *
+ * @author Hervé Bitteur
+ */
+public class IntHistogramTest
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final int X_MIN = 0;
+
+    private static final int X_MAX = 60;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new IntHistogramTest object.
+     */
+    public IntHistogramTest ()
+    {
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    @Test
+    public void testGetDoublePeaks ()
+    {
+        System.out.println("getDoublePeaks");
+
+        IntHistogram instance = new IntHistogram(X_MIN, X_MAX);
+        Histogram<Integer> reference = new Histogram<Integer>();
+        populate(instance, reference, 1);
+
+        for (int minCount : new int[]{0, 10, 50, 100, 200, 400}) {
+            List<PeakEntry<Double>> expResult = reference.getDoublePeaks(minCount);
+            List<PeakEntry<Double>> result = instance.getDoublePeaks(minCount);
+            assertEquals("minCount:" + minCount, expResult.toString(), result.toString());
+        }
+    }
+
+    @Test
+    public void testGetLocalMaxima ()
+    {
+        System.out.println("getLocalMaxima");
+
+        IntHistogram instance = new IntHistogram(X_MIN, X_MAX);
+        Histogram<Integer> reference = new Histogram<Integer>();
+        populate(instance, reference, 2);
+
+        List<MaxEntry<Integer>> expResult = reference.getLocalMaxima();
+        List<MaxEntry<Integer>> result = instance.getLocalMaxima();
+        assertEquals(expResult.toString(), result.toString());
+    }
+
+    @Test
+    public void testGetPeak ()
+    {
+        System.out.println("getPeak");
+
+        IntHistogram instance = new IntHistogram(X_MIN, X_MAX);
+        Histogram<Integer> reference = new Histogram<Integer>();
+        populate(instance, reference, 3);
+
+        for (int index = 0; index < 3; index++) {
+            assertEquals(
+                    "index:" + index,
+                    String.valueOf(reference.getPeak(0.05, 0.3, index)),
+                    String.valueOf(instance.getPeak(0.05, 0.3, index)));
+        }
+    }
+
+    @Test
+    public void testMerge ()
+    {
+        System.out.println("merge");
+
+        IntHistogram whole = new IntHistogram(X_MIN, X_MAX);
+        IntHistogram part1 = new IntHistogram(X_MIN, X_MAX);
+        IntHistogram part2 = new IntHistogram(X_MIN, X_MAX);
+        Random random = new Random(4);
+
+        for (int i = 0; i < 5000; i++) {
+            int bucket = random.nextInt(X_MAX - X_MIN + 1) + X_MIN;
+            whole.increaseCount(bucket, 1);
+            ((i % 2 == 0) ? part1 : part2).increaseCount(bucket, 1);
+        }
+
+        part1.merge(part2);
+        assertEquals(whole.getTotalCount(), part1.getTotalCount());
+
+        for (int x = X_MIN; x <= X_MAX; x++) {
+            assertEquals("x:" + x, whole.getValue(x), part1.getValue(x));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMergeRange ()
+    {
+        System.out.println("mergeRange");
+
+        new IntHistogram(X_MIN, X_MAX).merge(new IntHistogram(X_MIN, X_MAX + 1));
+    }
+
+    /**
+     * Populate both histograms with the same bumpy data, every bucket being used.
+     */
+    private void populate (IntHistogram instance,
+                           Histogram<Integer> reference,
+                           long seed)
+    {
+        final Random random = new Random(seed);
+
+        for (int x = X_MIN; x <= X_MAX; x++) {
+            int count = 1 + random.nextInt(20);
+
+            if ((x % 15) > 9) {
+                count += 100 + random.nextInt(300);
+            }
+
+            instance.increaseCount(x, count);
+            reference.increaseCount(x, count);
+        }
+    }
+}
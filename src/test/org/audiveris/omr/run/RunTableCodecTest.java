@@ -0,0 +1,120 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                               R u n T a b l e C o d e c T e s t                                //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.run;
+
+import static org.audiveris.omr.run.Orientation.HORIZONTAL;
+import static org.audiveris.omr.run.Orientation.VERTICAL;
+import org.audiveris.omr.util.BaseTestCase;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Class {@code RunTableCodecTest} tests the binary encoding of RunTable.
+ *
+ * @author Hervé Bitteur
+ */
+public class RunTableCodecTest
+        extends BaseTestCase
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final File dir = new File("data/temp");
+
+    //~ Methods ------------------------------------------------------------------------------------
+    @Test
+    public void testFile ()
+            throws IOException
+    {
+        dir.mkdirs();
+
+        File file = new File(dir, "runtable" + RunTableCodec.EXTENSION);
+        RunTable table = createVerticalInstance();
+        RunTableCodec.write(table, file.toPath());
+
+        RunTable newTable = RunTableCodec.read(file.toPath());
+        assertEquals(table.dumpOf(), newTable.dumpOf());
+        assertEquals(table, newTable);
+    }
+
+    @Test
+    public void testRoundTrip ()
+            throws IOException
+    {
+        RunTable table = new RunTable(HORIZONTAL, 10, 5);
+        table.addRun(0, new Run(1, 2));
+        table.addRun(0, new Run(5, 3));
+        table.addRun(1, new Run(0, 1));
+        table.addRun(1, new Run(4, 2));
+
+        // Leave sequence empty at index 2
+        //
+        table.addRun(3, new Run(0, 2));
+        table.addRun(3, new Run(4, 1));
+        table.addRun(3, new Run(8, 2));
+        table.addRun(4, new Run(2, 8));
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        RunTableCodec.encode(table, os);
+
+        RunTable newTable = RunTableCodec.decode(ByteBuffer.wrap(os.toByteArray()));
+        assertEquals(table.dumpOf(), newTable.dumpOf());
+        assertEquals(table, newTable);
+    }
+
+    @Test
+    public void testTruncated ()
+    {
+        RunTable table = createVerticalInstance();
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+
+        try {
+            RunTableCodec.encode(table, os);
+
+            byte[] bytes = os.toByteArray();
+            ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, bytes.length - 1);
+            RunTableCodec.decode(buffer);
+            fail("IOException expected on truncated table");
+        } catch (IOException expected) {
+        }
+    }
+
+    //------------------------//
+    // createVerticalInstance //
+    //------------------------//
+    private RunTable createVerticalInstance ()
+    {
+        // Large dimensions, to exercise multi-byte values
+        RunTable instance = new RunTable(VERTICAL, 300, 1000);
+
+        for (int x = 0; x < 300; x += 3) {
+            instance.addRun(x, new Run(x, 100 + x));
+            instance.addRun(x, new Run(600, 400));
+        }
+
+        return instance;
+    }
+}
@@ -36,6 +36,7 @@ import org.junit.Test;
 
 import java.awt.Dimension;
 import java.awt.Point;
+import java.util.Iterator;
 
 /**
  *
@@ -236,6 +237,33 @@ public class RunTableTest
         assertEquals(expResult.toString(), result.toString());
     }
 
+    /**
+     * Test of getRuns method, of class RunTable.
+     */
+    @Test
+    public void testGetRuns ()
+    {
+        System.out.println("\n+++ getRuns");
+
+        RunTable instance = createHorizontalInstance();
+        int[] starts = new int[1 + (dim.width / 2)];
+        int[] lengths = new int[1 + (dim.width / 2)];
+
+        for (int index = 0; index < instance.getSize(); index++) {
+            int count = instance.getRuns(index, starts, lengths);
+            int i = 0;
+
+            for (Iterator<Run> it = instance.iterator(index); it.hasNext();) {
+                Run run = it.next();
+                assertEquals(run.getStart(), starts[i]);
+                assertEquals(run.getLength(), lengths[i]);
+                i++;
+            }
+
+            assertEquals(i, count);
+        }
+    }
+
     /**
      * Test of getSequence method, of class RunTable.
      */
@@ -0,0 +1,485 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                             S y s t e m F o o t p r i n t T e s t                              //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.sheet;
+
+import org.audiveris.omr.glyph.Glyph;
+import org.audiveris.omr.glyph.Shape;
+import org.audiveris.omr.sheet.Scale.InterlineScale;
+import org.audiveris.omr.sig.InterIndex;
+import org.audiveris.omr.sig.inter.AbstractInter;
+import org.audiveris.omr.sig.SIGraph;
+import org.audiveris.omr.sig.inter.Inter;
+import org.audiveris.omr.sig.relation.ChordSentenceRelation;
+import org.audiveris.omr.step.Step;
+import org.audiveris.omr.step.StepException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.awt.Rectangle;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Class {@code SystemFootprintTest} checks that re-processing of some systems keeps
+ * the SIG of the other systems, as well as the inters created by the user.
+ *
+ * @author Hervé Bitteur
+ */
+public class SystemFootprintTest
+{
+    //~ Instance fields ----------------------------------------------------------------------------
+
+    /** Step currently processed, as reported by the sheet stub. */
+    private Step currentStep;
+
+    /** Last inter ID used. */
+    private int lastId;
+
+    /** Sheet systems. */
+    private List<SystemInfo> systems;
+
+    /** User inters, one per system. */
+    private List<Inter> userInters;
+
+    /** Systems provided to the runner, one entry per step run. */
+    private final List<Collection<SystemInfo>> scopes = new ArrayList<Collection<SystemInfo>>();
+
+    /** Steps run by the runner. */
+    private final List<Step> runSteps = new ArrayList<Step>();
+
+    /** Runner that simulates the processing of a step on every system it is given. */
+    private final SystemFootprint.StepRunner runner = new SystemFootprint.StepRunner()
+    {
+        @Override
+        public void run (Step step,
+                         Collection<SystemInfo> scope)
+                throws StepException
+        {
+            runSteps.add(step);
+            scopes.add(new ArrayList<SystemInfo>(scope));
+            process(step, scope);
+        }
+    };
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new SystemFootprintTest object.
+     */
+    public SystemFootprintTest ()
+    {
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    @Before
+    public void setUp ()
+    {
+        final Sheet sheet = createSheet();
+        systems = new ArrayList<SystemInfo>();
+        userInters = new ArrayList<Inter>();
+
+        for (int id = 1; id <= 3; id++) {
+            systems.add(new SystemInfo(id, sheet, new ArrayList<Staff>()));
+        }
+
+        // Initial processing, with tracking
+        for (Step step : EnumSet.of(Step.SYMBOLS, Step.RHYTHMS, Step.LINKS)) {
+            process(step, systems);
+
+            for (SystemInfo system : systems) {
+                system.getFootprint().setTracked(step);
+            }
+        }
+
+        // Inters created by the user, out of any step
+        for (SystemInfo system : systems) {
+            final Inter inter = createInter(Shape.NOISE);
+            system.getSig().addVertex(inter);
+            userInters.add(inter);
+        }
+    }
+
+    @Test
+    public void testReprocessSystemWise ()
+            throws StepException
+    {
+        System.out.println("reprocessSystemWise");
+
+        final List<Set<Inter>> before = snapshot();
+        final SystemInfo impacted = systems.get(1);
+        final Set<Inter> impactedBefore = before.get(1);
+        final List<SystemInfo> scope = Arrays.asList(impacted);
+
+        assertTrue(
+                SystemFootprint.reprocess(
+                        EnumSet.of(Step.SYMBOLS, Step.LINKS),
+                        systems,
+                        scope,
+                        runner));
+
+        // Steps are re-run in order, on the impacted system only
+        assertEquals(Arrays.asList(Step.SYMBOLS, Step.LINKS), runSteps);
+
+        for (Collection<SystemInfo> s : scopes) {
+            assertEquals(scope, s);
+        }
+
+        // Untouched systems keep their SIG
+        assertEquals(before.get(0), vertices(systems.get(0)));
+        assertEquals(before.get(2), vertices(systems.get(2)));
+
+        // Impacted system keeps user and RHYTHMS inters, and gets new SYMBOLS & LINKS inters
+        final Set<Inter> after = vertices(impacted);
+        assertTrue(after.contains(userInters.get(1)));
+        assertFalse(userInters.get(1).isDeleted());
+
+        for (Inter inter : impactedBefore) {
+            final boolean replaced = (inter.getShape() == shapeOf(Step.SYMBOLS))
+                                     || (inter.getShape() == shapeOf(Step.LINKS));
+            assertEquals(inter.toString(), replaced, !after.contains(inter));
+            assertEquals(inter.toString(), replaced, inter.isDeleted());
+        }
+
+        assertEquals(impactedBefore.size(), after.size());
+
+        // New inters are tracked, hence discarded by a further re-processing of their step
+        final Set<Inter> created = new HashSet<Inter>(after);
+        created.removeAll(impactedBefore);
+        assertEquals(2, created.size());
+        assertTrue(SystemFootprint.reprocess(EnumSet.of(Step.SYMBOLS), systems, scope, runner));
+
+        for (Inter inter : created) {
+            assertEquals(inter.getShape() == shapeOf(Step.SYMBOLS), inter.isDeleted());
+        }
+
+        assertTrue(vertices(impacted).contains(userInters.get(1)));
+    }
+
+    @Test
+    public void testReprocessRelations ()
+            throws StepException
+    {
+        System.out.println("reprocessRelations");
+
+        final SystemInfo impacted = systems.get(0);
+        final SIGraph sig = impacted.getSig();
+        final Inter user = userInters.get(0);
+        final Inter rhythm = interOf(impacted, Step.RHYTHMS);
+        final List<SystemInfo> scope = Arrays.asList(impacted);
+
+        // LINKS links surviving inters, the relation must not pile up
+        for (int i = 0; i < 3; i++) {
+            assertTrue(SystemFootprint.reprocess(EnumSet.of(Step.LINKS), systems, scope, runner));
+            assertEquals(1, sig.getAllEdges(user, rhythm).size());
+        }
+
+        // A relation created by the user survives
+        final ChordSentenceRelation userRel = new ChordSentenceRelation();
+        sig.addEdge(rhythm, user, userRel);
+        assertTrue(SystemFootprint.reprocess(EnumSet.of(Step.LINKS), systems, scope, runner));
+        assertTrue(sig.containsEdge(userRel));
+        assertEquals(2, sig.getAllEdges(user, rhythm).size());
+
+        // Discarding the inters of a step also discards their relations
+        assertTrue(SystemFootprint.reprocess(EnumSet.of(Step.RHYTHMS), systems, scope, runner));
+        assertTrue(rhythm.isDeleted());
+        assertTrue(sig.edgesOf(user).isEmpty());
+    }
+
+    @Test
+    public void testReprocessSheetWise ()
+            throws StepException
+    {
+        System.out.println("reprocessSheetWise");
+
+        final List<Set<Inter>> before = snapshot();
+        final List<SystemInfo> scope = Arrays.asList(systems.get(2));
+
+        assertTrue(
+                SystemFootprint.reprocess(
+                        EnumSet.of(Step.RHYTHMS),
+                        systems,
+                        scope,
+                        runner));
+
+        // A step which is not system-wise is re-run on all systems
+        assertEquals(Arrays.asList(Step.RHYTHMS), runSteps);
+        assertEquals(systems, scopes.get(0));
+
+        for (int i = 0; i < systems.size(); i++) {
+            final Set<Inter> after = vertices(systems.get(i));
+            assertTrue(after.contains(userInters.get(i)));
+            assertEquals(before.get(i).size(), after.size());
+
+            // Only RHYTHMS inters have been replaced
+            for (Inter inter : before.get(i)) {
+                assertEquals(inter.getShape() == shapeOf(Step.RHYTHMS), !after.contains(inter));
+            }
+        }
+    }
+
+    @Test
+    public void testReprocessSectionSteps ()
+            throws StepException
+    {
+        System.out.println("reprocessSectionSteps");
+
+        // A step which builds sections is never tracked
+        final SystemInfo system = systems.get(0);
+        system.getFootprint().setTracked(Step.BEAMS);
+        assertFalse(system.getFootprint().isTracked(EnumSet.of(Step.BEAMS)));
+
+        final List<Set<Inter>> before = snapshot();
+        assertFalse(
+                SystemFootprint.reprocess(
+                        EnumSet.of(Step.BEAMS, Step.SYMBOLS),
+                        systems,
+                        Arrays.asList(system),
+                        runner));
+        assertTrue(runSteps.isEmpty());
+        assertEquals(before, snapshot());
+    }
+
+    @Test
+    public void testReprocessUntracked ()
+            throws StepException
+    {
+        System.out.println("reprocessUntracked");
+
+        // Such as a sheet reloaded from disk
+        systems.add(new SystemInfo(4, systems.get(0).getSheet(), new ArrayList<Staff>()));
+
+        final List<Set<Inter>> before = snapshot();
+
+        // Impacted system is tracked, but the sheet-wise step needs all systems
+        assertFalse(
+                SystemFootprint.reprocess(
+                        EnumSet.of(Step.SYMBOLS, Step.RHYTHMS),
+                        systems,
+                        Arrays.asList(systems.get(0)),
+                        runner));
+
+        // Impacted system not tracked
+        assertFalse(
+                SystemFootprint.reprocess(
+                        EnumSet.of(Step.SYMBOLS),
+                        systems,
+                        Arrays.asList(systems.get(3)),
+                        runner));
+
+        // Nothing has been touched
+        assertTrue(runSteps.isEmpty());
+        assertEquals(before, snapshot());
+
+        for (Set<Inter> set : before) {
+            for (Inter inter : set) {
+                assertFalse(inter.isDeleted());
+            }
+        }
+    }
+
+    /**
+     * Create an inter with a brand new ID.
+     */
+    private Inter createInter (Shape shape)
+    {
+        final Inter inter = new TestInter(shape);
+        inter.setId(++lastId);
+
+        return inter;
+    }
+
+    /**
+     * Create a minimal sheet, with just what is needed by SIG handling.
+     */
+    private Sheet createSheet ()
+    {
+        final SheetStub stub = (SheetStub) Proxy.newProxyInstance(
+                SheetStub.class.getClassLoader(),
+                new Class<?>[]{SheetStub.class},
+                new InvocationHandler()
+        {
+            @Override
+            public Object invoke (Object proxy,
+                                  Method method,
+                                  Object[] args)
+                    throws Throwable
+            {
+                if (method.getDeclaringClass() == Object.class) {
+                    return method.invoke(this, args);
+                }
+
+                if (method.getName().equals("getCurrentStep")) {
+                    return currentStep;
+                }
+
+                throw new UnsupportedOperationException(method.getName());
+            }
+        });
+
+        final InterIndex index = new InterIndex();
+        final Scale scale = new Scale(null, new InterlineScale(20, 20, 20), null, null);
+
+        return (Sheet) Proxy.newProxyInstance(
+                Sheet.class.getClassLoader(),
+                new Class<?>[]{Sheet.class},
+                new InvocationHandler()
+        {
+            @Override
+            public Object invoke (Object proxy,
+                                  Method method,
+                                  Object[] args)
+                    throws Throwable
+            {
+                if (method.getDeclaringClass() == Object.class) {
+                    return method.invoke(this, args);
+                }
+
+                switch (method.getName()) {
+                case "getStub":
+                    return stub;
+
+                case "getInterIndex":
+                    return index;
+
+                case "getScale":
+                    return scale;
+
+                case "getSystems":
+                    return Collections.unmodifiableList(systems);
+
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+                }
+            }
+        });
+    }
+
+    /**
+     * Report the live inter created by the provided step in the provided system.
+     */
+    private Inter interOf (SystemInfo system,
+                           Step step)
+    {
+        for (Inter inter : system.getSig().vertexSet()) {
+            if (!inter.isDeleted() && (inter.getShape() == shapeOf(step))) {
+                return inter;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Simulate the processing of a step, which creates one inter in each system.
+     * LINKS also links the user inter, if any, to the RHYTHMS inter, if any.
+     */
+    private void process (Step step,
+                          Collection<SystemInfo> scope)
+    {
+        currentStep = step;
+
+        try {
+            for (SystemInfo system : scope) {
+                final SIGraph sig = system.getSig();
+                sig.addVertex(createInter(shapeOf(step)));
+
+                if (step == Step.LINKS) {
+                    final int index = systems.indexOf(system);
+                    final Inter rhythm = interOf(system, Step.RHYTHMS);
+
+                    if ((index < userInters.size()) && (rhythm != null)) {
+                        sig.addEdge(userInters.get(index), rhythm, new ChordSentenceRelation());
+                    }
+                }
+            }
+        } finally {
+            currentStep = null;
+        }
+    }
+
+    /**
+     * Report the shape of inters created by the provided step.
+     */
+    private Shape shapeOf (Step step)
+    {
+        switch (step) {
+        case SYMBOLS:
+            return Shape.TEXT;
+
+        case RHYTHMS:
+            return Shape.DOT_set;
+
+        case LINKS:
+            return Shape.CLUTTER;
+
+        default:
+            throw new IllegalArgumentException("Unexpected step " + step);
+        }
+    }
+
+    /**
+     * Report a copy of the current inters of each system.
+     */
+    private List<Set<Inter>> snapshot ()
+    {
+        final List<Set<Inter>> list = new ArrayList<Set<Inter>>();
+
+        for (SystemInfo system : systems) {
+            list.add(vertices(system));
+        }
+
+        return list;
+    }
+
+    private Set<Inter> vertices (SystemInfo system)
+    {
+        return new HashSet<Inter>(system.getSig().vertexSet());
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-----------//
+    // TestInter //
+    //-----------//
+    private static class TestInter
+            extends AbstractInter
+    {
+        //~ Constructors ---------------------------------------------------------------------------
+
+        public TestInter (Shape shape)
+        {
+            super((Glyph) null, (Rectangle) null, shape, 0.5);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                   P e a k G r a p h T e s t                                    //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.sheet.grid;
+
+import org.audiveris.omr.OMR;
+import org.audiveris.omr.sheet.Book;
+import org.audiveris.omr.sheet.BookManager;
+import org.audiveris.omr.sheet.Sheet;
+import org.audiveris.omr.sheet.SheetStub;
+import org.audiveris.omr.step.Step;
+import org.audiveris.omr.step.StepException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Class {@code PeakGraphTest} checks that building the graph of staff peaks gives the
+ * same peaks and the same edges, in the same order, whether per-staff tasks run in sequence
+ * or in parallel.
+ *
+ * @author Hervé Bitteur
+ */
+public class PeakGraphTest
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    /** Input image, with 3 systems of 2 staves each. */
+    private static final Path INPUT = Paths.get("data/examples/allegretto.png");
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new PeakGraphTest object.
+     */
+    public PeakGraphTest ()
+    {
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    @Before
+    public void setUp ()
+    {
+        if (OMR.engine == null) {
+            OMR.engine = BookManager.getInstance();
+        }
+    }
+
+    @Test
+    public void testParallel ()
+            throws StepException
+    {
+        System.out.println("parallel");
+
+        final List<String> serial = buildGraph(false);
+        final List<String> parallel = buildGraph(true);
+
+        assertTrue("No peak found", !serial.isEmpty());
+        assertEquals(serial.size(), parallel.size());
+
+        for (int i = 0; i < serial.size(); i++) {
+            assertEquals("item#" + i, serial.get(i), parallel.get(i));
+        }
+    }
+
+    /**
+     * Load the input in a new book, bring its sheet to GRID, then build a peak graph
+     * on this sheet and describe its peaks and edges in graph order.
+     *
+     * @param parallel true for running per-staff tasks in parallel
+     * @return the description of each peak, then of each edge
+     */
+    private List<String> buildGraph (boolean parallel)
+            throws StepException
+    {
+        final Book book = OMR.engine.loadInput(INPUT);
+
+        try {
+            book.createStubs(null);
+
+            final SheetStub stub = book.getStubs().get(0);
+            assertTrue("GRID not reached", stub.reachStep(Step.GRID, false));
+
+            final Sheet sheet = stub.getSheet();
+            assertTrue("Too few staves", sheet.getStaffManager().getStaffCount() > 2);
+
+            final PeakGraph graph = new PeakGraph(
+                    sheet,
+                    new ArrayList<StaffProjector>(),
+                    parallel);
+            graph.buildSystems();
+
+            final List<String> items = new ArrayList<String>();
+
+            for (StaffPeak peak : graph.vertexSet()) {
+                items.add(peak.toString());
+            }
+
+            assertTrue("No alignment found", !graph.edgeSet().isEmpty());
+
+            for (BarAlignment edge : graph.edgeSet()) {
+                items.add(
+                        graph.getEdgeSource(edge) + " -> " + graph.getEdgeTarget(edge) + " "
+                        + edge);
+            }
+
+            return items;
+        } finally {
+            book.close();
+        }
+    }
+}
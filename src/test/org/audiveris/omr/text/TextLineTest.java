@@ -0,0 +1,151 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                    T e x t L i n e T e s t                                     //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.text;
+
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.geom.Line2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Class {@code TextLineTest} checks that OCR lines, as returned in image-relative
+ * coordinates, are translated to absolute coordinates down to their words and chars.
+ *
+ * @author Hervé Bitteur
+ */
+public class TextLineTest
+{
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new TextLineTest object.
+     */
+    public TextLineTest ()
+    {
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    @Test
+    public void testTranslate ()
+    {
+        System.out.println("translate");
+
+        // Same relative content, OCR'ed from two image regions at distinct locations
+        final Point[] topLefts = new Point[]{new Point(100, 200), new Point(37, 1500)};
+
+        for (Point topLeft : topLefts) {
+            final TextLine line = createLine();
+            final TextLine ref = createLine();
+
+            // Force lazy line data to be computed before translation
+            final Rectangle lineBox = new Rectangle(line.getBounds());
+            final Line2D lineBase = line.getBaseline();
+            final Line2D expBase = new Line2D.Double(
+                    lineBase.getX1() + topLeft.x,
+                    lineBase.getY1() + topLeft.y,
+                    lineBase.getX2() + topLeft.x,
+                    lineBase.getY2() + topLeft.y);
+
+            line.translate(topLeft.x, topLeft.y);
+
+            lineBox.translate(topLeft.x, topLeft.y);
+            assertEquals(lineBox, line.getBounds());
+            checkLine(expBase, line.getBaseline());
+            assertEquals(ref.getValue(), line.getValue());
+            assertEquals(ref.getWords().size(), line.getWords().size());
+
+            for (int iw = 0; iw < ref.getWords().size(); iw++) {
+                final TextWord refWord = ref.getWords().get(iw);
+                final TextWord word = line.getWords().get(iw);
+                final Rectangle wordBox = new Rectangle(refWord.getBounds());
+                wordBox.translate(topLeft.x, topLeft.y);
+                assertEquals(wordBox, word.getBounds());
+                assertEquals(refWord.getValue(), word.getValue());
+
+                final Line2D refBase = refWord.getBaseline();
+                checkLine(
+                        new Line2D.Double(
+                                refBase.getX1() + topLeft.x,
+                                refBase.getY1() + topLeft.y,
+                                refBase.getX2() + topLeft.x,
+                                refBase.getY2() + topLeft.y),
+                        word.getBaseline());
+
+                for (int ic = 0; ic < refWord.getChars().size(); ic++) {
+                    final TextChar refChar = refWord.getChars().get(ic);
+                    final TextChar ch = word.getChars().get(ic);
+                    final Rectangle charBox = new Rectangle(refChar.getBounds());
+                    charBox.translate(topLeft.x, topLeft.y);
+                    assertEquals(charBox, ch.getBounds());
+                    assertEquals(refChar.getValue(), ch.getValue());
+                }
+            }
+        }
+    }
+
+    private void checkLine (Line2D expected,
+                            Line2D actual)
+    {
+        assertEquals(expected.getP1(), actual.getP1());
+        assertEquals(expected.getP2(), actual.getP2());
+    }
+
+    /**
+     * Create a line of two words, in image-relative coordinates.
+     */
+    private TextLine createLine ()
+    {
+        return new TextLine(
+                Arrays.asList(
+                        createWord("Allegro", 5, 10),
+                        createWord("vivace", 80, 12)));
+    }
+
+    /**
+     * Create a word, one 9x14 char box every 10 pixels.
+     */
+    private TextWord createWord (String value,
+                                 int x,
+                                 int y)
+    {
+        final List<TextChar> chars = new ArrayList<TextChar>();
+
+        for (int i = 0; i < value.length(); i++) {
+            final Rectangle box = new Rectangle(x + (10 * i), y, 9, 14);
+            chars.add(new TextChar(box, value.substring(i, i + 1)));
+        }
+
+        final int baseY = y + 11;
+
+        return new TextWord(
+                new Line2D.Double(x, baseY, x + (10 * value.length()), baseY),
+                value,
+                FontInfo.createDefault(12),
+                0.9,
+                chars,
+                null);
+    }
+}
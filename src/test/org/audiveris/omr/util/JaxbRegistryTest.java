@@ -0,0 +1,108 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                J a x b R e g i s t r y T e s t                                 //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.util;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * Class {@code JaxbRegistryTest} tests the sharing of JAXB contexts and the pooling of
+ * marshallers.
+ *
+ * @author Hervé Bitteur
+ */
+public class JaxbRegistryTest
+{
+    //~ Methods ------------------------------------------------------------------------------------
+    @Test
+    public void testMarshallerPool ()
+            throws Exception
+    {
+        JAXBContext context = JaxbRegistry.getContext(Item.class);
+        Marshaller m1 = JaxbRegistry.acquireMarshaller(context);
+        Marshaller m2 = JaxbRegistry.acquireMarshaller(context);
+        assertNotSame(m1, m2);
+
+        JaxbRegistry.releaseMarshaller(context, m1);
+        assertSame(m1, JaxbRegistry.acquireMarshaller(context));
+    }
+
+    @Test
+    public void testRoundTrip ()
+            throws Exception
+    {
+        JAXBContext context = JaxbRegistry.getContext(Item.class);
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        JaxbRegistry.marshal(new Item(42), os, context);
+
+        Item item = (Item) JaxbRegistry.unmarshal(
+                new ByteArrayInputStream(os.toByteArray()),
+                context);
+        assertEquals(42, item.value);
+    }
+
+    @Test
+    public void testSharedContext ()
+            throws Exception
+    {
+        JAXBContext c1 = JaxbRegistry.getContext(Item.class, Other.class);
+        JAXBContext c2 = JaxbRegistry.getContext(Other.class, Item.class);
+        assertSame(c1, c2);
+        assertNotSame(c1, JaxbRegistry.getContext(Item.class));
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    @XmlAccessorType(XmlAccessType.NONE)
+    @XmlRootElement(name = "item")
+    public static class Item
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        @XmlAttribute
+        private int value;
+
+        //~ Constructors ---------------------------------------------------------------------------
+        public Item (int value)
+        {
+            this.value = value;
+        }
+
+        private Item ()
+        {
+        }
+    }
+
+    @XmlRootElement(name = "other")
+    public static class Other
+    {
+    }
+}
@@ -0,0 +1,115 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                 S p a t i a l G r i d T e s t                                  //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.util;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Class {@code SpatialGridTest} is a set of unitary tests for the {@link SpatialGrid} class.
+ *
+ * @author Hervé Bitteur
+ */
+public class SpatialGridTest
+{
+    //~ Methods ------------------------------------------------------------------------------------
+    /**
+     * Test of floating items, always reported.
+     */
+    @Test
+    public void testFloating ()
+    {
+        System.out.println("testFloating");
+
+        SpatialGrid<String> grid = new SpatialGrid<String>(10);
+        grid.insert("a", new Rectangle(0, 0, 5, 5));
+        grid.insert("b", null);
+        grid.insert("c", new Rectangle(-30, -30, 5, 5));
+
+        assertEquals(Arrays.asList("a", "b"), grid.lookup(new Point(2, 2)));
+        assertEquals(Arrays.asList("b", "c"), grid.lookup(new Point(-28, -27)));
+        assertEquals(Arrays.asList("b"), grid.lookup(new Rectangle(100, 100, 1, 1)));
+
+        // Update keeps insertion rank
+        grid.insert("a", new Rectangle(-30, -25, 1, 1));
+        assertEquals(Arrays.asList("a", "b", "c"), grid.lookup(new Point(-28, -27)));
+
+        assertTrue(grid.remove("b"));
+        assertFalse(grid.remove("b"));
+        assertEquals(2, grid.size());
+    }
+
+    /**
+     * Test lookup against a linear scan of random boxes.
+     */
+    @Test
+    public void testLookup ()
+    {
+        System.out.println("testLookup");
+
+        final Random random = new Random(1234);
+        final SpatialGrid<Integer> grid = new SpatialGrid<Integer>(16);
+        final List<Rectangle> boxes = new ArrayList<Rectangle>();
+
+        for (int i = 0; i < 1000; i++) {
+            Rectangle box = new Rectangle(
+                    random.nextInt(500) - 100,
+                    random.nextInt(500) - 100,
+                    random.nextInt(60),
+                    random.nextInt(60));
+            boxes.add(box);
+            grid.insert(i, box);
+        }
+
+        for (int i = 0; i < 1000; i += 3) {
+            grid.remove(i);
+        }
+
+        for (int q = 0; q < 200; q++) {
+            final Rectangle rect = new Rectangle(
+                    random.nextInt(500) - 100,
+                    random.nextInt(500) - 100,
+                    random.nextInt(100),
+                    random.nextInt(100));
+            final List<Integer> candidates = grid.lookup(rect);
+
+            for (int i = 0; i < 1000; i++) {
+                if ((i % 3) == 0) {
+                    assertFalse(candidates.contains(i));
+                } else if (rect.intersects(boxes.get(i)) || rect.contains(boxes.get(i))) {
+                    assertTrue(candidates.contains(i));
+                }
+            }
+
+            for (int c = 1; c < candidates.size(); c++) {
+                assertTrue(candidates.get(c - 1) < candidates.get(c));
+            }
+        }
+    }
+}